@@ -21,6 +21,7 @@ import org.rnorth.ducttape.unreliables.Unreliables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.demo.persistence.FlywayInfo;
 import software.xdev.tci.demo.tci.db.DBTCI;
 import software.xdev.tci.demo.tci.db.factory.DBTCIFactory;
@@ -125,7 +126,7 @@ abstract class BaseTest
 			this.dbInfra.logDataBaseInfo();
 			
 			final DBTCI dbInfra = this.dbInfra;
-			REAP_CFS.add(CompletableFuture.runAsync(dbInfra::stop));
+			REAP_CFS.add(TCIExecutor.instance().runAsync(dbInfra::stop));
 			
 			this.dbInfra = null;
 		}
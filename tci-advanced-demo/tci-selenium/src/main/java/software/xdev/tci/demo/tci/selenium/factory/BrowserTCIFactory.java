@@ -16,6 +16,7 @@ import org.testcontainers.containers.wait.strategy.HostPortWaitStrategy;
 import org.testcontainers.containers.wait.strategy.LogMessageWaitStrategy;
 import org.testcontainers.containers.wait.strategy.WaitAllStrategy;
 
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.demo.tci.selenium.BrowserTCI;
 import software.xdev.tci.demo.tci.selenium.containers.SeleniumBrowserWebDriverContainer;
 import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
@@ -88,7 +89,7 @@ class BrowserTCIFactory extends PreStartableTCIFactory<SeleniumBrowserWebDriverC
 	{
 		// Start recording container here otherwise there is a lot of blank video
 		final CompletableFuture<Void> cfStartRecorder =
-			CompletableFuture.runAsync(() -> infra.getContainer().startRecordingContainer());
+			TCIExecutor.instance().runAsync(() -> infra.getContainer().startRecordingContainer());
 		
 		// Docker needs a few milliseconds (usually less than 100) to reconfigure its networks
 		// In the meantime existing connections might fail if we go on immediately
@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.Network;
 import org.testcontainers.images.RemoteDockerImage;
 
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.demo.tci.selenium.BrowserTCI;
 import software.xdev.tci.demo.tci.selenium.TestBrowser;
 import software.xdev.tci.demo.tci.selenium.containers.SeleniumBrowserWebDriverContainer;
@@ -58,7 +59,7 @@ public class BrowsersTCIFactory implements TCIFactory<SeleniumBrowserWebDriverCo
 		this.browserFactories.values().forEach(BrowserTCIFactory::warmUp);
 		
 		// Pull video recorder
-		CompletableFuture.runAsync(() -> {
+		TCIExecutor.instance().runAsync(() -> {
 			try
 			{
 				new RemoteDockerImage(SeleniumRecordingContainer.DEFAULT_IMAGE).get();
@@ -85,7 +86,7 @@ public class BrowsersTCIFactory implements TCIFactory<SeleniumBrowserWebDriverCo
 	public void close()
 	{
 		final List<CompletableFuture<Void>> cfFactories = this.browserFactories.values().stream()
-			.map(f -> CompletableFuture.runAsync(f::close))
+			.map(f -> TCIExecutor.instance().runAsync(f::close))
 			.toList();
 		cfFactories.forEach(CompletableFuture::join);
 	}
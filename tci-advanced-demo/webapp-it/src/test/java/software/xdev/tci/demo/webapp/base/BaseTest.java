@@ -6,9 +6,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeAll;
@@ -23,7 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.Network;
 
-import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.demo.tci.db.DBTCI;
 import software.xdev.tci.demo.tci.db.factory.DBTCIFactory;
 import software.xdev.tci.demo.tci.oidc.OIDCTCI;
@@ -38,6 +36,7 @@ import software.xdev.tci.demo.tci.webapp.factory.WebAppTCIFactory;
 import software.xdev.tci.factory.registry.TCIFactoryRegistry;
 import software.xdev.tci.leakdetection.LeakDetectionAsyncReaper;
 import software.xdev.tci.network.LazyNetworkPool;
+import software.xdev.tci.plan.InfraStartPlan;
 import software.xdev.tci.tracing.TCITracer;
 
 
@@ -106,68 +105,41 @@ abstract class BaseTest implements IntegrationTestDefaults<BaseTest>
 	{
 		final long start = System.currentTimeMillis();
 		
-		CompletableFuture<OIDCTCI> cfOIDC = null;
-		CompletableFuture<WebAppTCI> cfApp = null;
 		try
 		{
 			this.network = LAZY_NETWORK_POOL.getNew();
 			
-			cfOIDC = CompletableFuture.supplyAsync(
-				() -> OIDC_INFRA_FACTORY.getNew(this.network, DNS_NAME_OIDC));
+			// The app connects lazily to the DB and OIDC server -> everything can be started in parallel
+			final InfraStartPlan plan = new InfraStartPlan("BaseInfra");
+			final InfraStartPlan.Node<DBTCI> dbNode =
+				plan.add("DB", () -> DB_INFRA_FACTORY.getNewAsync(this.network, DNS_NAME_DB))
+					.onReady(db -> Optional.ofNullable(onDataBaseMigrated).ifPresent(c -> c.accept(db)));
+			final InfraStartPlan.Node<OIDCTCI> oidcNode =
+				plan.add("OIDC", () -> OIDC_INFRA_FACTORY.getNewAsync(this.network, DNS_NAME_OIDC));
+			final InfraStartPlan.Node<WebAppTCI> appNode =
+				plan.add("App", () -> APP_INFRA_FACTORY.getNewAsync(this.network, DNS_NAME_WEBAPP));
 			
-			cfApp = CompletableFuture.supplyAsync(
-				() -> APP_INFRA_FACTORY.getNew(this.network, DNS_NAME_WEBAPP));
-			
-			this.dbInfra = DB_INFRA_FACTORY.getNew(this.network, DNS_NAME_DB);
-			Optional.ofNullable(onDataBaseMigrated).ifPresent(c -> c.accept(this.dbInfra));
+			// Ensures that we do not leak when e.g. DB migration fails
+			final InfraStartPlan.Result result = plan.start();
 			
+			this.dbInfra = result.get(dbNode);
 			LOG.info(">>> User: {}", DBTCI.DB_USERNAME);
 			LOG.info(">>> Password: {}", DBTCI.DB_PASSWORD);
 			LOG.info(">>> JDBC (external): {}", this.dbInfra.getExternalJDBCUrl());
 			
-			this.oidcInfra = cfOIDC.join();
+			this.oidcInfra = result.get(oidcNode);
 			LOG.info(">>> OIDC Server: {}", this.oidcInfra.getExternalHttpBaseEndPoint());
 			
-			this.appInfra = cfApp.join();
+			this.appInfra = result.get(appNode);
 			LOG.info(">>> HTTP Interface (external): {}", this.appInfra.getExternalHTTPEndpoint());
 		}
 		catch(final Exception ex)
 		{
-			// Ensure that we do not leak when e.g. DB migration fails
-			this.ensureDestroyAsyncStartingInfra(() -> this.oidcInfra, i -> this.oidcInfra = i, cfOIDC);
-			this.ensureDestroyAsyncStartingInfra(() -> this.appInfra, i -> this.appInfra = i, cfApp);
-			
 			throw new RuntimeException("Failed to setup base infrastructure", ex);
 		}
 		TRACE_START_BASE_INFRA.addMs(System.currentTimeMillis() - start);
 	}
 	
-	protected <T extends TCI<?>> void ensureDestroyAsyncStartingInfra(
-		final Supplier<T> getCurrentInfra,
-		final Consumer<T> setCurrentInfra,
-		final CompletableFuture<T> cfStartingInfra)
-	{
-		if(getCurrentInfra.get() != null // Infra was already started and set
-			|| cfStartingInfra == null) // Infra was never started
-		{
-			return;
-		}
-		try
-		{
-			// Try to get starting infra and set it, so it can be properly destroyed
-			setCurrentInfra.accept(cfStartingInfra.get(3, TimeUnit.MINUTES));
-		}
-		catch(final InterruptedException iex)
-		{
-			LOG.warn("Got interrupted", iex);
-			Thread.currentThread().interrupt();
-		}
-		catch(final Exception ex)
-		{
-			LOG.warn("Failed to get starting infra in time", ex);
-		}
-	}
-	
 	public void startWebDriver(final TestBrowser testBrowser)
 	{
 		final long start = System.currentTimeMillis();
@@ -197,7 +169,7 @@ abstract class BaseTest implements IntegrationTestDefaults<BaseTest>
 		final RemoteWebDriver remoteWebDriver = this.remoteWebDriver;
 		final BrowserTCI browserInfra = this.browserInfra;
 		
-		REAP_CFS.add(CompletableFuture.runAsync(() -> {
+		REAP_CFS.add(TCIExecutor.instance().runAsync(() -> {
 			try
 			{
 				if(remoteWebDriver != null && remoteWebDriver.getSessionId() != null)
@@ -228,7 +200,7 @@ abstract class BaseTest implements IntegrationTestDefaults<BaseTest>
 		
 		final Network network = this.network;
 		
-		REAP_CFS.add(CompletableFuture.runAsync(() -> {
+		REAP_CFS.add(TCIExecutor.instance().runAsync(() -> {
 			try
 			{
 				Stream.<Runnable>concat(
@@ -236,7 +208,7 @@ abstract class BaseTest implements IntegrationTestDefaults<BaseTest>
 						Stream.of(appInfra, oidcInfra, dbInfra)
 							.filter(Objects::nonNull)
 							.map(tci -> tci::stop))
-					.map(CompletableFuture::runAsync)
+					.map(TCIExecutor.instance()::runAsync)
 					.toList() // collect so everything is getting executed async
 					.forEach(CompletableFuture::join);
 				
@@ -15,13 +15,17 @@
  */
 package software.xdev.tci;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 import org.rnorth.ducttape.unreliables.Unreliables;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.GenericContainer;
 
 import software.xdev.tci.safestart.SafeNamedContainerStarter;
+import software.xdev.tci.tracing.jfr.StopEvent;
 
 
 /**
@@ -38,8 +42,11 @@ import software.xdev.tci.safestart.SafeNamedContainerStarter;
 public class TCI<C extends GenericContainer<C>>
 {
 	private C container;
+	private String name;
 	private String networkAlias;
 	private Runnable onStopped;
+	private final List<Runnable> stopListeners = new CopyOnWriteArrayList<>();
+	private Predicate<TCI<C>> stopInterceptor;
 	
 	protected TCI(final C container, final String networkAlias)
 	{
@@ -52,6 +59,30 @@ public class TCI<C extends GenericContainer<C>>
 		this.onStopped = onStopped;
 	}
 	
+	/**
+	 * Adds a listener that is executed once the container was stopped.
+	 * <p>
+	 * In contrast to {@link #setOnStopped(Runnable)} multiple listeners can be registered.
+	 * </p>
+	 */
+	public void addOnStopped(final Runnable listener)
+	{
+		this.stopListeners.add(Objects.requireNonNull(listener));
+	}
+	
+	/**
+	 * Sets an interceptor that is executed once on the next {@link #stop()}.
+	 * <p>
+	 * If the interceptor returns <code>true</code> the container is NOT stopped (e.g. because it's recycled). In this
+	 * case only the {@link #setOnStopped(Runnable) onStopped} callback is executed but not the listeners added with
+	 * {@link #addOnStopped(Runnable)}.
+	 * </p>
+	 */
+	public void setStopInterceptor(final Predicate<TCI<C>> stopInterceptor)
+	{
+		this.stopInterceptor = stopInterceptor;
+	}
+	
 	public void setNetworkAlias(final String networkAlias)
 	{
 		this.networkAlias = networkAlias;
@@ -59,6 +90,7 @@ public class TCI<C extends GenericContainer<C>>
 	
 	public void start(final String containerName)
 	{
+		this.name = containerName;
 		new SafeNamedContainerStarter<>(containerName, this.container).start();
 	}
 	
@@ -69,6 +101,15 @@ public class TCI<C extends GenericContainer<C>>
 			return;
 		}
 		
+		final Predicate<TCI<C>> interceptor = this.stopInterceptor;
+		this.stopInterceptor = null;
+		if(interceptor != null && interceptor.test(this))
+		{
+			this.runOnStoppedCallback();
+			return;
+		}
+		
+		final StopEvent stopEvent = StopEvent.start();
 		try
 		{
 			Unreliables.retryUntilSuccess(2, () -> {
@@ -81,12 +122,31 @@ public class TCI<C extends GenericContainer<C>>
 			LoggerFactory.getLogger(this.getClass())
 				.warn("Failed to stop container", ex);
 		}
+		stopEvent.finish(null, this.name);
 		this.container = null;
 		this.networkAlias = null;
 		this.onStopped();
 	}
 	
 	protected void onStopped()
+	{
+		this.runOnStoppedCallback();
+		for(final Runnable listener : this.stopListeners)
+		{
+			try
+			{
+				listener.run();
+			}
+			catch(final RuntimeException ex)
+			{
+				LoggerFactory.getLogger(this.getClass())
+					.warn("Failed to execute stop listener", ex);
+			}
+		}
+		this.stopListeners.clear();
+	}
+	
+	private void runOnStoppedCallback()
 	{
 		if(this.onStopped != null)
 		{
@@ -100,6 +160,15 @@ public class TCI<C extends GenericContainer<C>>
 		return this.container;
 	}
 	
+	/**
+	 * @return the name that was used to {@link #start(String) start} the container; the actual container name
+	 * contains an additional suffix (see {@link SafeNamedContainerStarter})
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+	
 	public String getNetworkAlias()
 	{
 		return this.networkAlias;
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.budget;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.model.HostConfig;
+
+
+/**
+ * Determines the memory limit that is configured for a container before it's started.
+ * <p>
+ * The memory limit is usually configured using a modifier like
+ * <code>withCreateContainerCmdModifier(cmd -&gt; cmd.getHostConfig().withMemory(...))</code>.
+ * These modifiers are applied to a recording dummy command to extract the limit.
+ * </p>
+ */
+public final class ContainerMemoryLimit
+{
+	private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = Map.of(
+		boolean.class, false,
+		int.class, 0,
+		long.class, 0L,
+		double.class, 0.0,
+		float.class, 0.0f,
+		short.class, (short)0,
+		byte.class, (byte)0,
+		char.class, '\0');
+	
+	private ContainerMemoryLimit()
+	{
+	}
+	
+	/**
+	 * @return the configured memory limit or empty if none is configured (or it can't be determined)
+	 */
+	@SuppressWarnings("PMD.AvoidCatchingGenericException") // Modifiers are user code
+	public static OptionalLong of(final GenericContainer<?> container)
+	{
+		final AtomicReference<HostConfig> hostConfig = new AtomicReference<>(new HostConfig());
+		final CreateContainerCmd recorder = (CreateContainerCmd)Proxy.newProxyInstance(
+			ContainerMemoryLimit.class.getClassLoader(),
+			new Class<?>[]{CreateContainerCmd.class},
+			(proxy, method, args) -> {
+				if("getHostConfig".equals(method.getName()))
+				{
+					return hostConfig.get();
+				}
+				if("withHostConfig".equals(method.getName()) && args != null && args.length == 1)
+				{
+					hostConfig.set((HostConfig)args[0]);
+				}
+				if(method.getReturnType().isInstance(proxy))
+				{
+					return proxy;
+				}
+				return PRIMITIVE_DEFAULTS.get(method.getReturnType());
+			});
+		
+		try
+		{
+			CreateContainerCmd cmd = recorder;
+			for(final var modifier : container.getCreateContainerCmdModifiers())
+			{
+				final CreateContainerCmd modified = modifier.modify(cmd);
+				cmd = modified != null ? modified : cmd;
+			}
+		}
+		catch(final RuntimeException ex)
+		{
+			LoggerFactory.getLogger(ContainerMemoryLimit.class)
+				.debug("Failed to determine configured memory limit", ex);
+		}
+		
+		final Long memory = hostConfig.get() != null ? hostConfig.get().getMemory() : null;
+		return memory != null && memory > 0 ? OptionalLong.of(memory) : OptionalLong.empty();
+	}
+}
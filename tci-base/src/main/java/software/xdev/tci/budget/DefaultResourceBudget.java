@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.budget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.budget.config.ResourceBudgetConfig;
+import software.xdev.tci.docker.DockerBackend;
+
+
+/**
+ * Default implementation of {@link ResourceBudget}.
+ * <p>
+ * Limits the total memory of all containers and the amount of containers per factory (see
+ * {@link ResourceBudgetConfig}).
+ * </p>
+ * <p>
+ * If no memory budget is configured, it's detected from the memory of the Docker host (or <code>/proc/meminfo</code>
+ * if Docker is not available).
+ * </p>
+ */
+public class DefaultResourceBudget implements ResourceBudget
+{
+	private static final Logger LOG = LoggerFactory.getLogger(DefaultResourceBudget.class);
+	
+	protected static final long KIB = 1024L;
+	protected static final long MIB = KIB * 1024;
+	
+	protected final ResourceBudgetConfig config;
+	
+	protected final ReentrantLock lock = new ReentrantLock();
+	protected final Condition released = this.lock.newCondition();
+	protected final List<BooleanSupplier> reclaimers = new CopyOnWriteArrayList<>();
+	
+	/**
+	 * Resolved lazily (and outside of {@link #lock}) as the detection may need to contact the Docker daemon
+	 */
+	protected final AtomicReference<Long> memoryBudgetBytes = new AtomicReference<>();
+	protected long usedMemoryBytes;
+	/**
+	 * Amount of reservations that are waiting - speculative reservations are not granted in the meantime
+	 */
+	protected int waiting;
+	protected final Map<String, Integer> countByFactory = new HashMap<>();
+	
+	public DefaultResourceBudget()
+	{
+		this(ResourceBudgetConfig.instance());
+	}
+	
+	public DefaultResourceBudget(final ResourceBudgetConfig config)
+	{
+		this.config = config;
+	}
+	
+	@Override
+	public Optional<Reservation> tryReserve(final String factoryName, final long memoryBytes)
+	{
+		final long budget = this.getMemoryBudgetBytes();
+		
+		this.lock.lock();
+		try
+		{
+			return this.waiting == 0 && this.fits(factoryName, memoryBytes, budget)
+				? Optional.of(this.reserveInternal(factoryName, memoryBytes))
+				: Optional.empty();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	@Override
+	public Reservation reserve(final String factoryName, final long memoryBytes, final Duration maxWait)
+	{
+		final long waitUntilNanos = System.nanoTime() + maxWait.toNanos();
+		final long budget = this.getMemoryBudgetBytes();
+		boolean reclaimed = false;
+		
+		this.lock.lock();
+		this.waiting++;
+		try
+		{
+			while(!this.fits(factoryName, memoryBytes, budget))
+			{
+				if(!reclaimed)
+				{
+					reclaimed = true;
+					// Reclaimers usually free resources asynchronously -> call them outside the lock
+					this.lock.unlock();
+					try
+					{
+						this.reclaim();
+					}
+					finally
+					{
+						this.lock.lock();
+					}
+					continue;
+				}
+				
+				final long remainingNanos = waitUntilNanos - System.nanoTime();
+				if(remainingNanos <= 0)
+				{
+					LOG.warn(
+						"[{}] Waited {}ms for resources; Overcommitting budget; "
+							+ "used={}MiB, budget={}MiB, requested={}MiB",
+						factoryName,
+						maxWait.toMillis(),
+						toMiB(this.usedMemoryBytes),
+						toMiB(budget),
+						toMiB(memoryBytes));
+					break;
+				}
+				try
+				{
+					this.released.awaitNanos(remainingNanos);
+				}
+				catch(final InterruptedException ie)
+				{
+					LOG.warn("[{}] Interrupted while waiting for resources", factoryName, ie);
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			return this.reserveInternal(factoryName, memoryBytes);
+		}
+		finally
+		{
+			this.waiting--;
+			this.lock.unlock();
+		}
+	}
+	
+	protected void reclaim()
+	{
+		for(final BooleanSupplier reclaimer : this.reclaimers)
+		{
+			if(reclaimer.getAsBoolean())
+			{
+				return;
+			}
+		}
+	}
+	
+	protected boolean fits(final String factoryName, final long memoryBytes, final long budget)
+	{
+		final int maxConcurrent = this.config.maxConcurrent(factoryName);
+		if(maxConcurrent >= 0 && this.countByFactory.getOrDefault(factoryName, 0) >= maxConcurrent)
+		{
+			return false;
+		}
+		
+		// A single container that is larger than the budget should still be startable
+		return budget <= 0 || this.usedMemoryBytes == 0 || this.usedMemoryBytes + memoryBytes <= budget;
+	}
+	
+	protected Reservation reserveInternal(final String factoryName, final long memoryBytes)
+	{
+		this.usedMemoryBytes += memoryBytes;
+		this.countByFactory.merge(factoryName, 1, Integer::sum);
+		return new DefaultReservation(factoryName, memoryBytes);
+	}
+	
+	protected void release(final String factoryName, final long memoryBytes)
+	{
+		this.lock.lock();
+		try
+		{
+			this.usedMemoryBytes -= memoryBytes;
+			this.countByFactory.computeIfPresent(factoryName, (k, v) -> v > 1 ? v - 1 : null);
+			this.released.signalAll();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	@Override
+	public void addReclaimer(final BooleanSupplier reclaimer)
+	{
+		this.reclaimers.add(reclaimer);
+	}
+	
+	@Override
+	public void removeReclaimer(final BooleanSupplier reclaimer)
+	{
+		this.reclaimers.remove(reclaimer);
+	}
+	
+	public long getUsedMemoryBytes()
+	{
+		this.lock.lock();
+		try
+		{
+			return this.usedMemoryBytes;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return the memory budget; 0 = unlimited
+	 */
+	public long getMemoryBudgetBytes()
+	{
+		final Long resolved = this.memoryBudgetBytes.get();
+		if(resolved != null)
+		{
+			return resolved;
+		}
+		
+		// Concurrent callers may detect it too; only the first result is used
+		final long detected = this.config.memoryBytes() != ResourceBudgetConfig.AUTO_DETECT
+			? Math.max(0, this.config.memoryBytes())
+			: this.detectHostMemoryBytes()
+				.map(hostMemory -> hostMemory * this.config.hostMemoryPercent() / 100)
+				.orElse(0L);
+		if(this.memoryBudgetBytes.compareAndSet(null, detected))
+		{
+			LOG.info("Memory budget: {}MiB", toMiB(detected));
+		}
+		return this.memoryBudgetBytes.get();
+	}
+	
+	protected Optional<Long> detectHostMemoryBytes()
+	{
+		try
+		{
+			final OptionalLong memTotal = DockerBackend.instance().hostMemoryBytes();
+			if(memTotal.isPresent())
+			{
+				return Optional.of(memTotal.getAsLong());
+			}
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("Failed to detect memory of Docker host", ex);
+		}
+		return readMemInfoTotalBytes();
+	}
+	
+	protected static Optional<Long> readMemInfoTotalBytes()
+	{
+		final Path memInfo = Path.of("/proc/meminfo");
+		if(!Files.isReadable(memInfo))
+		{
+			return Optional.empty();
+		}
+		try(final var lines = Files.lines(memInfo))
+		{
+			return lines
+				.filter(l -> l.startsWith("MemTotal:"))
+				.findFirst()
+				// Format: "MemTotal:       16318040 kB"
+				.map(l -> l.replaceAll("\\D", ""))
+				.filter(s -> !s.isEmpty())
+				.map(s -> Long.parseLong(s) * KIB);
+		}
+		catch(final IOException | NumberFormatException ex)
+		{
+			LOG.debug("Failed to read {}", memInfo, ex);
+			return Optional.empty();
+		}
+	}
+	
+	protected static long toMiB(final long bytes)
+	{
+		return bytes / MIB;
+	}
+	
+	
+	protected class DefaultReservation implements Reservation
+	{
+		protected final String factoryName;
+		protected final long memoryBytes;
+		protected final AtomicBoolean released = new AtomicBoolean();
+		
+		protected DefaultReservation(final String factoryName, final long memoryBytes)
+		{
+			this.factoryName = factoryName;
+			this.memoryBytes = memoryBytes;
+		}
+		
+		@Override
+		public long memoryBytes()
+		{
+			return this.memoryBytes;
+		}
+		
+		@Override
+		public void release()
+		{
+			if(this.released.compareAndSet(false, true))
+			{
+				DefaultResourceBudget.this.release(this.factoryName, this.memoryBytes);
+			}
+		}
+	}
+}
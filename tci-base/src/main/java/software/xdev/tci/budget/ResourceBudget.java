@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.budget;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Limits the resources that are used by all containers (PreStarted and in use) of TCI.
+ * <p>
+ * A {@link Reservation} is acquired before a container is started and released once it's stopped.
+ * </p>
+ */
+public interface ResourceBudget
+{
+	/**
+	 * Tries to reserve resources without waiting, e.g. for speculative starts.
+	 *
+	 * @return the reservation or empty if the budget would be exceeded
+	 */
+	Optional<Reservation> tryReserve(String factoryName, long memoryBytes);
+	
+	/**
+	 * Reserves resources, waiting at most the given time for them to become available, e.g. for starts that are
+	 * required by a test.
+	 * <p>
+	 * While waiting registered {@link #addReclaimer(BooleanSupplier) reclaimers} are asked to free resources.
+	 * If the resources are still not available after the timeout they are reserved anyway (overcommitting), so that
+	 * tests don't fail.
+	 * </p>
+	 */
+	Reservation reserve(String factoryName, long memoryBytes, Duration maxWait);
+	
+	/**
+	 * Adds a reclaimer that is called when resources are required by a test but the budget is exhausted.
+	 * <p>
+	 * A reclaimer should free resources that are not strictly required (e.g. discard PreStarted infrastructure) and
+	 * return <code>true</code> if it was able to do so.
+	 * </p>
+	 */
+	void addReclaimer(BooleanSupplier reclaimer);
+	
+	void removeReclaimer(BooleanSupplier reclaimer);
+	
+	static ResourceBudget instance()
+	{
+		return TCIServiceLoader.instance().service(ResourceBudget.class);
+	}
+	
+	interface Reservation extends AutoCloseable
+	{
+		long memoryBytes();
+		
+		/**
+		 * Releases the reserved resources. Calling this multiple times has no effect.
+		 */
+		void release();
+		
+		@Override
+		default void close()
+		{
+			this.release();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.budget.config;
+
+import java.util.Locale;
+import java.util.Optional;
+
+
+/**
+ * Default implementation of {@link ResourceBudgetConfig} using {@link System#getProperties() System Properties}.
+ * <p>
+ * Properties can be defined in the following way:
+ * <pre>
+ * -Dtci.budget.memory=12g
+ * -Dtci.budget.browser.max-concurrent=2
+ * </pre>
+ * </p>
+ */
+public class DefaultResourceBudgetConfig implements ResourceBudgetConfig
+{
+	protected static final String PROPERTY_PREFIX = "tci.budget.";
+	
+	protected static final String MEMORY = "memory";
+	protected static final String HOST_MEMORY_PERCENT = "host-memory-percent";
+	protected static final String UNKNOWN_CONTAINER_MEMORY = "unknown-container-memory";
+	protected static final String MAX_CONCURRENT = "max-concurrent";
+	protected static final String MAX_WAIT_MS = "max-wait-ms";
+	
+	protected static final long KIB = 1024L;
+	protected static final long MIB = KIB * 1024;
+	protected static final long GIB = MIB * 1024;
+	
+	protected final long memoryBytes;
+	protected final int hostMemoryPercent;
+	protected final long unknownContainerMemoryBytes;
+	protected final long maxWaitMs;
+	
+	public DefaultResourceBudgetConfig()
+	{
+		this.memoryBytes = this.getLong(PROPERTY_PREFIX + MEMORY).orElse(AUTO_DETECT);
+		this.hostMemoryPercent = Math.max(1, Math.min(100, this.getLong(PROPERTY_PREFIX + HOST_MEMORY_PERCENT)
+			.map(Long::intValue)
+			.orElse(DEFAULT_HOST_MEMORY_PERCENT)));
+		this.unknownContainerMemoryBytes = this.getLong(PROPERTY_PREFIX + UNKNOWN_CONTAINER_MEMORY)
+			.orElse(DEFAULT_UNKNOWN_CONTAINER_MEMORY_BYTES);
+		this.maxWaitMs = this.getLong(PROPERTY_PREFIX + MAX_WAIT_MS).orElse(DEFAULT_MAX_WAIT_MS);
+	}
+	
+	@Override
+	public long memoryBytes()
+	{
+		return this.memoryBytes;
+	}
+	
+	@Override
+	public int hostMemoryPercent()
+	{
+		return this.hostMemoryPercent;
+	}
+	
+	@Override
+	public long unknownContainerMemoryBytes()
+	{
+		return this.unknownContainerMemoryBytes;
+	}
+	
+	@Override
+	public int maxConcurrent(final String factoryName)
+	{
+		return this.getLong(PROPERTY_PREFIX + factoryName + "." + MAX_CONCURRENT)
+			.map(Long::intValue)
+			.orElse(-1);
+	}
+	
+	@Override
+	public long maxWaitMs()
+	{
+		return this.maxWaitMs;
+	}
+	
+	/**
+	 * Parses a number which may have a unit suffix (<code>k</code>, <code>m</code>, <code>g</code>).
+	 */
+	protected Optional<Long> getLong(final String property)
+	{
+		return Optional.ofNullable(System.getProperty(property))
+			.map(s -> s.trim().toLowerCase(Locale.ENGLISH))
+			.filter(s -> !s.isEmpty())
+			.map(s -> {
+				final long multiplier = switch(s.charAt(s.length() - 1))
+				{
+					case 'k' -> KIB;
+					case 'm' -> MIB;
+					case 'g' -> GIB;
+					default -> 1L;
+				};
+				try
+				{
+					return Long.parseLong(multiplier == 1L ? s : s.substring(0, s.length() - 1)) * multiplier;
+				}
+				catch(final NumberFormatException nfe)
+				{
+					return null;
+				}
+			});
+	}
+}
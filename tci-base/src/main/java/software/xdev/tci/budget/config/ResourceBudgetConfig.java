@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.budget.config;
+
+import software.xdev.tci.misc.ContainerMemory;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+public interface ResourceBudgetConfig
+{
+	long AUTO_DETECT = -1;
+	int DEFAULT_HOST_MEMORY_PERCENT = 80;
+	long DEFAULT_UNKNOWN_CONTAINER_MEMORY_BYTES = ContainerMemory.M512M;
+	long DEFAULT_MAX_WAIT_MS = 60_000;
+	
+	/**
+	 * Total memory that all containers can use.
+	 * <ul>
+	 *     <li>{@link #AUTO_DETECT} (default) - {@link #hostMemoryPercent()} of the memory of the Docker host</li>
+	 *     <li><code>0</code> - unlimited</li>
+	 * </ul>
+	 */
+	default long memoryBytes()
+	{
+		return AUTO_DETECT;
+	}
+	
+	/**
+	 * How much of the memory of the Docker host can be used when {@link #memoryBytes()} is auto detected.
+	 */
+	default int hostMemoryPercent()
+	{
+		return DEFAULT_HOST_MEMORY_PERCENT;
+	}
+	
+	/**
+	 * Memory that is accounted for containers without a configured memory limit.
+	 */
+	default long unknownContainerMemoryBytes()
+	{
+		return DEFAULT_UNKNOWN_CONTAINER_MEMORY_BYTES;
+	}
+	
+	/**
+	 * How many containers of the factory can exist at the same time (PreStarted and in use); negative = unlimited
+	 */
+	default int maxConcurrent(final String factoryName)
+	{
+		return -1;
+	}
+	
+	/**
+	 * How long a start that is required by a test waits for resources before overcommitting the budget.
+	 */
+	default long maxWaitMs()
+	{
+		return DEFAULT_MAX_WAIT_MS;
+	}
+	
+	static ResourceBudgetConfig instance()
+	{
+		return TCIServiceLoader.instance().service(ResourceBudgetConfig.class);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.concurrent;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Default implementation of {@link TCIExecutor}.
+ * <p>
+ * Uses daemon platform threads by default.
+ * </p>
+ * <p>
+ * If <code>-Dtci.executor.virtual-threads=true</code> is set and the runtime supports it (Java 21+),
+ * <a href="https://openjdk.org/jeps/444">virtual threads</a> are used instead. Blocking on Docker calls then no
+ * longer occupies a platform thread.
+ * </p>
+ */
+public class DefaultTCIExecutor implements TCIExecutor
+{
+	private static final Logger LOG = LoggerFactory.getLogger(DefaultTCIExecutor.class);
+	
+	public static final String PROPERTY_VIRTUAL_THREADS = "tci.executor.virtual-threads";
+	
+	protected final boolean virtualThreads;
+	protected final ExecutorService sharedExecutor;
+	
+	public DefaultTCIExecutor()
+	{
+		this(Optional.ofNullable(System.getProperty(PROPERTY_VIRTUAL_THREADS))
+			.map(v -> "1".equals(v) || Boolean.parseBoolean(v))
+			.orElse(false));
+	}
+	
+	public DefaultTCIExecutor(final boolean virtualThreads)
+	{
+		this.virtualThreads = virtualThreads && VirtualThreads.isSupported();
+		if(virtualThreads && !this.virtualThreads)
+		{
+			LOG.warn("Virtual threads are not supported by the current runtime; Falling back to platform threads");
+		}
+		
+		this.sharedExecutor = this.newExecutorService("TCIExecutor");
+	}
+	
+	@Override
+	public void execute(final Runnable command)
+	{
+		this.sharedExecutor.execute(command);
+	}
+	
+	@Override
+	public ExecutorService newExecutorService(final String threadNamePrefix)
+	{
+		return this.virtualThreads
+			? VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix + "-")
+			: Executors.newCachedThreadPool(daemonThreadFactory(threadNamePrefix + "-"));
+	}
+	
+	public boolean isVirtualThreads()
+	{
+		return this.virtualThreads;
+	}
+	
+	protected static ThreadFactory daemonThreadFactory(final String threadNamePrefix)
+	{
+		final AtomicInteger counter = new AtomicInteger(1);
+		return r -> {
+			final Thread thread = new Thread(r);
+			thread.setDaemon(true);
+			thread.setName(threadNamePrefix + counter.getAndIncrement());
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Executes the (mostly blocking) work of TCI, e.g. waiting for Docker.
+ * <p>
+ * This should be used instead of e.g. {@link CompletableFuture#runAsync(Runnable)} as the common
+ * {@link java.util.concurrent.ForkJoinPool} is not designed for blocking tasks and blocking it also affects unrelated
+ * code (e.g. parallel streams).
+ * </p>
+ */
+public interface TCIExecutor extends Executor
+{
+	/**
+	 * Creates a new dedicated {@link ExecutorService} (e.g. for starting infrastructure).
+	 * <p>
+	 * The caller is responsible for shutting it down.
+	 * </p>
+	 *
+	 * @param threadNamePrefix Prefix for the names of the threads of the executor
+	 */
+	ExecutorService newExecutorService(String threadNamePrefix);
+	
+	default CompletableFuture<Void> runAsync(final Runnable runnable)
+	{
+		return CompletableFuture.runAsync(runnable, this);
+	}
+	
+	default <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier)
+	{
+		return CompletableFuture.supplyAsync(supplier, this);
+	}
+	
+	static TCIExecutor instance()
+	{
+		return TCIServiceLoader.instance().service(TCIExecutor.class);
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Accesses virtual threads (Java 21+) reflectively, so that TCI can still be used on older runtimes.
+ */
+final class VirtualThreads
+{
+	private static final Handles HANDLES = lookupHandles();
+	
+	private VirtualThreads()
+	{
+	}
+	
+	private static Handles lookupHandles()
+	{
+		try
+		{
+			final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+			
+			return new Handles(
+				lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass)),
+				lookup.findVirtual(
+					builderClass,
+					"name",
+					MethodType.methodType(builderClass, String.class, long.class)),
+				lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class)),
+				lookup.findStatic(
+					Executors.class,
+					"newThreadPerTaskExecutor",
+					MethodType.methodType(ExecutorService.class, ThreadFactory.class)));
+		}
+		catch(final ReflectiveOperationException | RuntimeException ignored)
+		{
+			// Not supported by runtime
+			return null;
+		}
+	}
+	
+	static boolean isSupported()
+	{
+		return HANDLES != null;
+	}
+	
+	@SuppressWarnings({"checkstyle:IllegalCatch", "PMD.AvoidCatchingThrowable"})
+	static ExecutorService newThreadPerTaskExecutor(final String threadNamePrefix)
+	{
+		try
+		{
+			final Object builder = HANDLES.builderName().invoke(HANDLES.ofVirtual().invoke(), threadNamePrefix, 1L);
+			final ThreadFactory threadFactory = (ThreadFactory)HANDLES.builderFactory().invoke(builder);
+			return (ExecutorService)HANDLES.newThreadPerTaskExecutor().invoke(threadFactory);
+		}
+		catch(final Throwable t)
+		{
+			throw new IllegalStateException("Failed to create virtual thread executor", t);
+		}
+	}
+	
+	
+	private record Handles(
+		MethodHandle ofVirtual,
+		MethodHandle builderName,
+		MethodHandle builderFactory,
+		MethodHandle newThreadPerTaskExecutor)
+	{
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker;
+
+/**
+ * The current state of a container.
+ *
+ * @param running      if the container is running
+ * @param oomKilled    if the container was killed because it ran out of memory
+ * @param healthStatus status of the health check (e.g. <code>healthy</code> or <code>unhealthy</code>) or
+ *                     <code>null</code> if the container has no health check
+ */
+public record ContainerStatus(
+	boolean running,
+	boolean oomKilled,
+	String healthStatus)
+{
+	public static final String UNHEALTHY = "unhealthy";
+	
+	public static ContainerStatus notRunning()
+	{
+		return new ContainerStatus(false, false, null);
+	}
+	
+	public boolean unhealthy()
+	{
+		return UNHEALTHY.equals(this.healthStatus);
+	}
+}
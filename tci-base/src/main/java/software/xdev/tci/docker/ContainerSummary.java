@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker;
+
+import java.util.Map;
+
+
+/**
+ * A container as it's listed by the daemon.
+ *
+ * @param name        name of the container (without the leading <code>/</code>)
+ * @param state       e.g. <code>running</code>, <code>exited</code> or <code>dead</code>
+ * @param createdAtMs when the container was created
+ */
+public record ContainerSummary(
+	String id,
+	String name,
+	String state,
+	long createdAtMs,
+	Map<String, String> labels)
+{
+	public static final String EXITED = "exited";
+	public static final String DEAD = "dead";
+	
+	/**
+	 * @return <code>true</code> if the container is no longer running and will never run again
+	 */
+	public boolean terminated()
+	{
+		return EXITED.equals(this.state) || DEAD.equals(this.state);
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker;
+
+/**
+ * Information about the host of the Docker daemon.
+ *
+ * @param osType          e.g. <code>linux</code>
+ * @param operatingSystem e.g. <code>Ubuntu 24.04 LTS</code> or <code>Docker Desktop</code>
+ * @param kernelVersion   e.g. <code>6.8.0-45-generic</code>
+ * @param cpus            amount of CPUs available to the daemon
+ */
+public record DaemonInfo(
+	String osType,
+	String operatingSystem,
+	String kernelVersion,
+	int cpus)
+{
+}
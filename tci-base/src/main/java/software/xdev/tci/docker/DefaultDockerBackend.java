@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.ConnectToNetworkCmd;
+import com.github.dockerjava.api.command.CreateNetworkCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerNetwork;
+import com.github.dockerjava.api.model.Info;
+
+import software.xdev.tci.factory.prestart.persistent.AdoptExistingContainer;
+
+
+/**
+ * Executes the operations using the Docker client of Testcontainers.
+ */
+public class DefaultDockerBackend implements DockerBackend
+{
+	@Override
+	public String createNetwork(final String name, final Consumer<CreateNetworkCmd> customizer)
+	{
+		final CreateNetworkCmd createNetworkCmd = this.client().createNetworkCmd()
+			.withName(name);
+		if(customizer != null)
+		{
+			customizer.accept(createNetworkCmd);
+		}
+		return createNetworkCmd.exec().getId();
+	}
+	
+	@Override
+	public void removeNetwork(final String networkId)
+	{
+		this.client().removeNetworkCmd(networkId).exec();
+	}
+	
+	@Override
+	public void connectToNetwork(final String containerId, final String networkId, final List<String> aliases)
+	{
+		final ConnectToNetworkCmd connectToNetworkCmd = this.client()
+			.connectToNetworkCmd()
+			.withNetworkId(networkId)
+			.withContainerId(containerId);
+		if(aliases != null && !aliases.isEmpty())
+		{
+			connectToNetworkCmd.withContainerNetwork(new ContainerNetwork().withAliases(aliases));
+		}
+		connectToNetworkCmd.exec();
+	}
+	
+	@Override
+	public void disconnectFromNetwork(final String containerId, final String networkId)
+	{
+		this.client()
+			.disconnectFromNetworkCmd()
+			.withNetworkId(networkId)
+			.withContainerId(containerId)
+			.withForce(true)
+			.exec();
+	}
+	
+	@Override
+	public void removeContainer(final String containerIdOrName)
+	{
+		this.client()
+			.removeContainerCmd(containerIdOrName)
+			.withForce(true)
+			.withRemoveVolumes(true)
+			.exec();
+	}
+	
+	@Override
+	public void renameContainer(final String containerIdOrName, final String newName)
+	{
+		this.client().renameContainerCmd(containerIdOrName).withName(newName).exec();
+	}
+	
+	@Override
+	public List<ContainerSummary> listContainers(final Map<String, String> labels, final boolean includeStopped)
+	{
+		return this.client().listContainersCmd()
+			.withLabelFilter(labels)
+			.withShowAll(includeStopped)
+			.exec()
+			.stream()
+			.map(c -> new ContainerSummary(
+				c.getId(),
+				containerName(c),
+				c.getState(),
+				TimeUnit.SECONDS.toMillis(Optional.ofNullable(c.getCreated()).orElse(0L)),
+				Optional.ofNullable(c.getLabels()).orElseGet(Map::of)))
+			.toList();
+	}
+	
+	protected static String containerName(final Container container)
+	{
+		final String[] names = container.getNames();
+		if(names == null || names.length == 0)
+		{
+			return container.getId();
+		}
+		return names[0].startsWith("/") ? names[0].substring(1) : names[0];
+	}
+	
+	@Override
+	public void adoptContainer(final GenericContainer<?> container, final String containerId)
+	{
+		AdoptExistingContainer.instance().accept(container, this.client().inspectContainerCmd(containerId).exec());
+	}
+	
+	@Override
+	public void pauseContainer(final String containerId)
+	{
+		this.client().pauseContainerCmd(containerId).exec();
+	}
+	
+	@Override
+	public void unpauseContainer(final String containerId)
+	{
+		this.client().unpauseContainerCmd(containerId).exec();
+	}
+	
+	@Override
+	public ContainerStatus inspectContainer(final String containerId)
+	{
+		final InspectContainerResponse.ContainerState state =
+			this.client().inspectContainerCmd(containerId).exec().getState();
+		if(state == null)
+		{
+			return ContainerStatus.notRunning();
+		}
+		return new ContainerStatus(
+			Boolean.TRUE.equals(state.getRunning()),
+			Boolean.TRUE.equals(state.getOOMKilled()),
+			state.getHealth() != null ? state.getHealth().getStatus() : null);
+	}
+	
+	@SuppressWarnings({"java:S1874", "deprecation"})
+	@Override
+	public String commitContainer(final String containerId, final String repository, final Map<String, String> labels)
+	{
+		return this.client()
+			.commitCmd(containerId)
+			.withRepository(repository)
+			.withLabels(labels)
+			.exec();
+	}
+	
+	@Override
+	public Optional<String> resolveImageId(final String imageName)
+	{
+		try
+		{
+			return Optional.ofNullable(this.client().inspectImageCmd(imageName).exec().getId());
+		}
+		catch(final NotFoundException ex)
+		{
+			return Optional.empty();
+		}
+	}
+	
+	@Override
+	public void ping()
+	{
+		this.client().pingCmd().exec();
+	}
+	
+	@Override
+	public OptionalLong hostMemoryBytes()
+	{
+		return Optional.ofNullable(this.client().infoCmd().exec().getMemTotal())
+			.filter(m -> m > 0)
+			.map(OptionalLong::of)
+			.orElseGet(OptionalLong::empty);
+	}
+	
+	@Override
+	public Optional<DaemonInfo> daemonInfo()
+	{
+		final Info info = this.client().infoCmd().exec();
+		return Optional.of(new DaemonInfo(
+			info.getOsType(),
+			info.getOperatingSystem(),
+			info.getKernelVersion(),
+			Optional.ofNullable(info.getNCPU()).orElse(0)));
+	}
+	
+	@Override
+	public Optional<URI> daemonUri()
+	{
+		try
+		{
+			return Optional.ofNullable(DockerClientFactory.instance().getTransportConfig().getDockerHost());
+		}
+		catch(final IllegalStateException ex)
+		{
+			// Docker is not available
+			return Optional.empty();
+		}
+	}
+	
+	@SuppressWarnings("resource") // lazy-client is singleton -> if closed nothing works anymore
+	protected DockerClient client()
+	{
+		return DockerClientFactory.lazyClient();
+	}
+}
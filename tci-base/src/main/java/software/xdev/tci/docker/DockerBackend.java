@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import org.testcontainers.containers.GenericContainer;
+
+import com.github.dockerjava.api.command.CreateNetworkCmd;
+
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * The Docker operations that are executed by TCI itself (outside of Testcontainers' container lifecycle).
+ * <p>
+ * Can be replaced (e.g. with {@link software.xdev.tci.docker.simulation.SimulatedDockerBackend}) to run TCI without
+ * a Docker daemon.
+ * </p>
+ */
+public interface DockerBackend
+{
+	// region Networks
+	
+	/**
+	 * Creates a network.
+	 *
+	 * @param name       name of the network
+	 * @param customizer customizes the create command; implementations that don't use the Docker API may ignore it
+	 * @return the id of the created network
+	 */
+	String createNetwork(String name, Consumer<CreateNetworkCmd> customizer);
+	
+	void removeNetwork(String networkId);
+	
+	void connectToNetwork(String containerId, String networkId, List<String> aliases);
+	
+	void disconnectFromNetwork(String containerId, String networkId);
+	
+	// endregion
+	// region Containers
+	
+	/**
+	 * Removes the container (forcefully) including its anonymous volumes.
+	 *
+	 * @param containerIdOrName id or name of the container
+	 */
+	void removeContainer(String containerIdOrName);
+	
+	/**
+	 * Renames the container.
+	 *
+	 * @param containerIdOrName id or (current) name of the container
+	 * @throws RuntimeException if there is no such container, e.g. because it was already renamed by someone else
+	 */
+	void renameContainer(String containerIdOrName, String newName);
+	
+	/**
+	 * Lists the containers that have all the given labels.
+	 *
+	 * @param includeStopped if containers that are not running should also be listed
+	 */
+	List<ContainerSummary> listContainers(Map<String, String> labels, boolean includeStopped);
+	
+	/**
+	 * Attaches the (not started) container object to the already running container with the given id, similar to
+	 * how Testcontainers handles reused containers.
+	 */
+	void adoptContainer(GenericContainer<?> container, String containerId);
+	
+	void pauseContainer(String containerId);
+	
+	void unpauseContainer(String containerId);
+	
+	/**
+	 * Inspects the current state of the container.
+	 */
+	ContainerStatus inspectContainer(String containerId);
+	
+	/**
+	 * Commits the container into an image.
+	 *
+	 * @return the id of the created image
+	 */
+	String commitContainer(String containerId, String repository, Map<String, String> labels);
+	
+	// endregion
+	
+	/**
+	 * @return the id of the (local) image or empty if it's unknown
+	 */
+	Optional<String> resolveImageId(String imageName);
+	
+	/**
+	 * Pings the daemon (e.g. to measure its latency).
+	 */
+	void ping();
+	
+	/**
+	 * @return the total memory of the Docker host or empty if unknown
+	 */
+	OptionalLong hostMemoryBytes();
+	
+	/**
+	 * @return information about the host of the Docker daemon or empty if unknown
+	 */
+	Optional<DaemonInfo> daemonInfo();
+	
+	/**
+	 * @return the address of the Docker daemon (e.g. <code>unix:///var/run/docker.sock</code>) or empty if unknown
+	 */
+	Optional<URI> daemonUri();
+	
+	static DockerBackend instance()
+	{
+		return TCIServiceLoader.instance().service(DockerBackend.class);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker.simulation;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+
+/**
+ * Distribution of the latency of a simulated Docker operation.
+ */
+@FunctionalInterface
+public interface LatencyDistribution
+{
+	/**
+	 * @return the next latency in nanoseconds
+	 */
+	long sampleNanos(RandomGenerator random);
+	
+	static LatencyDistribution none()
+	{
+		return random -> 0;
+	}
+	
+	static LatencyDistribution fixed(final Duration latency)
+	{
+		final long nanos = latency.toNanos();
+		return random -> nanos;
+	}
+	
+	static LatencyDistribution uniform(final Duration min, final Duration max)
+	{
+		final long minNanos = min.toNanos();
+		final long maxNanos = max.toNanos();
+		if(maxNanos < minNanos)
+		{
+			throw new IllegalArgumentException("max must be >= min");
+		}
+		return random -> maxNanos == minNanos ? minNanos : random.nextLong(minNanos, maxNanos + 1);
+	}
+	
+	/**
+	 * Log-normal distribution: Most samples are close to the median but there is a long tail of slow outliers (which
+	 * is typical for container starts).
+	 *
+	 * @param median the median latency
+	 * @param sigma  the standard deviation of the underlying normal distribution; e.g. <code>0.25</code> means that
+	 *               ~5% of the samples are more than 50% slower than the median
+	 */
+	static LatencyDistribution logNormal(final Duration median, final double sigma)
+	{
+		if(sigma < 0)
+		{
+			throw new IllegalArgumentException("sigma must be >= 0");
+		}
+		final double medianNanos = median.toNanos();
+		return random -> (long)(medianNanos * Math.exp(sigma * random.nextGaussian()));
+	}
+	
+	/**
+	 * Adds the latency of the other distribution (e.g. for a fixed overhead + a variable part).
+	 */
+	default LatencyDistribution plus(final LatencyDistribution other)
+	{
+		Objects.requireNonNull(other);
+		return random -> this.sampleNanos(random) + other.sampleNanos(random);
+	}
+}
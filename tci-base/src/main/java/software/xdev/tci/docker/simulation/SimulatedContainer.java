@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker.simulation;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.utility.DockerImageName;
+
+
+/**
+ * Container that is "started" inside a {@link SimulatedDockerBackend} instead of Docker.
+ * <p>
+ * Only the methods that are used by TCI are simulated; e.g. the mapped ports or logs are not available.
+ * </p>
+ */
+public class SimulatedContainer extends GenericContainer<SimulatedContainer>
+{
+	public static final DockerImageName IMAGE = DockerImageName.parse("tci/simulated:latest");
+	
+	protected static final AtomicInteger NAME_COUNTER = new AtomicInteger(1);
+	
+	protected final SimulatedDockerBackend backend;
+	/**
+	 * <code>null</code> = use the latency of the backend
+	 */
+	protected LatencyDistribution startLatency;
+	protected String simulatedContainerId;
+	protected String simulatedContainerName;
+	
+	public SimulatedContainer(final SimulatedDockerBackend backend)
+	{
+		super(IMAGE);
+		this.backend = Objects.requireNonNull(backend);
+	}
+	
+	@Override
+	public void start()
+	{
+		if(this.simulatedContainerId != null)
+		{
+			return;
+		}
+		
+		final String name = "simulated-" + NAME_COUNTER.getAndIncrement();
+		final Network network = this.getNetwork();
+		this.simulatedContainerId = this.backend.startContainer(
+			name,
+			network != null ? network.getId() : null,
+			this.startLatency,
+			this.getLabels());
+		this.simulatedContainerName = name;
+	}
+	
+	/**
+	 * Called when an already running container was adopted into this one.
+	 */
+	protected void adopted(final String containerId, final String containerName)
+	{
+		this.simulatedContainerId = containerId;
+		this.simulatedContainerName = containerName;
+	}
+	
+	@Override
+	public void stop()
+	{
+		if(this.simulatedContainerId == null)
+		{
+			return;
+		}
+		
+		this.backend.stopContainer(this.simulatedContainerId);
+		this.simulatedContainerId = null;
+	}
+	
+	@Override
+	public String getDockerImageName()
+	{
+		// Never pulled
+		return IMAGE.asCanonicalNameString();
+	}
+	
+	@Override
+	public String getContainerId()
+	{
+		return this.simulatedContainerId;
+	}
+	
+	@Override
+	public String getContainerName()
+	{
+		return "/" + this.simulatedContainerName;
+	}
+	
+	@Override
+	public boolean isRunning()
+	{
+		return this.simulatedContainerId != null && this.backend.isRunning(this.simulatedContainerId);
+	}
+	
+	@Override
+	public boolean isHealthy()
+	{
+		return this.isRunning() && !this.backend.inspectContainer(this.simulatedContainerId).unhealthy();
+	}
+	
+	/**
+	 * Simulates a different start latency for this container (e.g. a database that takes longer to start).
+	 */
+	public SimulatedContainer withStartLatency(final LatencyDistribution startLatency)
+	{
+		this.startLatency = startLatency;
+		return this;
+	}
+	
+	public SimulatedDockerBackend getBackend()
+	{
+		return this.backend;
+	}
+}
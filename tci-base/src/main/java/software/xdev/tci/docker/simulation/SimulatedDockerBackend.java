@@ -0,0 +1,593 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker.simulation;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.testcontainers.containers.ContainerLaunchException;
+import org.testcontainers.containers.GenericContainer;
+
+import com.github.dockerjava.api.command.CreateNetworkCmd;
+
+import software.xdev.tci.docker.ContainerStatus;
+import software.xdev.tci.docker.ContainerSummary;
+import software.xdev.tci.docker.DaemonInfo;
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * In-memory stand-in for Docker.
+ * <p>
+ * No containers or networks are actually created, only their state is tracked. The latency of each
+ * {@link Operation} is sampled from a configurable {@link LatencyDistribution}.
+ * </p>
+ * <p>
+ * This allows simulating a large amount of acquisitions through the factories, pools and the coordinator without a
+ * Docker daemon (e.g. for testing or benchmarking {@link
+ * software.xdev.tci.factory.prestart.coordinator.scheduling.PreStartSchedulingPolicy scheduling policies}):
+ * </p>
+ * <ul>
+ *     <li>Use {@link SimulatedContainer} (e.g. with {@link SimulatedTCI}) as container</li>
+ *     <li>Use {@link software.xdev.tci.network.LazyNetwork} or {@link software.xdev.tci.network.LazyNetworkPool} for
+ *     networks</li>
+ *     <li>Disable port fixation (it requires Docker)</li>
+ *     <li>{@link #install() Install} the backend (and a {@link SimulatedLoadMonitor}) before creating the
+ *     factories</li>
+ * </ul>
+ * <p>
+ * The latencies should be configured before the backend is used.
+ * </p>
+ */
+@SuppressWarnings("PMD.GodClass") // Stand-in for Docker
+public class SimulatedDockerBackend implements DockerBackend
+{
+	public enum Operation
+	{
+		/**
+		 * Creating and starting a container including waiting until it's ready
+		 */
+		START_CONTAINER,
+		STOP_CONTAINER,
+		CREATE_NETWORK,
+		REMOVE_NETWORK,
+		CONNECT_TO_NETWORK,
+		DISCONNECT_FROM_NETWORK,
+		RENAME_CONTAINER,
+		LIST_CONTAINERS,
+		PAUSE_CONTAINER,
+		UNPAUSE_CONTAINER,
+		INSPECT_CONTAINER,
+		COMMIT_CONTAINER,
+		PING
+	}
+	
+	
+	protected final Map<Operation, LatencyDistribution> latencies = new EnumMap<>(Operation.class);
+	protected final Map<Operation, LongAdder> operationCounts = new EnumMap<>(Operation.class);
+	/**
+	 * Multiplies all sampled latencies, e.g. <code>0.1</code> runs the simulation 10x faster
+	 */
+	protected double timeScale = 1.0;
+	protected double startFailureProbability;
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected long hostMemoryBytes = 16L * 1024 * 1024 * 1024;
+	
+	protected final Map<String, SimulatedContainerState> containers = new ConcurrentHashMap<>();
+	protected final Map<String, Set<String>> networks = new ConcurrentHashMap<>();
+	protected final AtomicInteger startingContainers = new AtomicInteger();
+	protected final ReentrantLock renameLock = new ReentrantLock();
+	
+	protected Object previousBackend;
+	
+	public SimulatedDockerBackend()
+	{
+		for(final Operation operation : Operation.values())
+		{
+			this.latencies.put(operation, LatencyDistribution.none());
+			this.operationCounts.put(operation, new LongAdder());
+		}
+	}
+	
+	/**
+	 * Makes this backend the one that is used by TCI ({@link DockerBackend#instance()}).
+	 */
+	public SimulatedDockerBackend install()
+	{
+		this.previousBackend = TCIServiceLoader.instance().forceOverwrite(DockerBackend.class, this);
+		return this;
+	}
+	
+	/**
+	 * Restores the backend that was used before {@link #install()}.
+	 */
+	public void uninstall()
+	{
+		TCIServiceLoader.instance().forceOverwrite(DockerBackend.class, this.previousBackend);
+		this.previousBackend = null;
+	}
+	
+	// region Container lifecycle (used by SimulatedContainer)
+	
+	/**
+	 * Creates and starts a container.
+	 *
+	 * @param name      name of the container
+	 * @param networkId the network the container is directly attached to or <code>null</code>
+	 * @return the id of the container
+	 * @throws ContainerLaunchException if the start failed (see {@link #withStartFailureProbability(double)})
+	 */
+	public String startContainer(final String name, final String networkId)
+	{
+		return this.startContainer(name, networkId, null);
+	}
+	
+	/**
+	 * Creates and starts a container.
+	 *
+	 * @param name         name of the container
+	 * @param networkId    the network the container is directly attached to or <code>null</code>
+	 * @param startLatency latency of the start or <code>null</code> to use the one configured for
+	 *                     {@link Operation#START_CONTAINER}
+	 * @return the id of the container
+	 * @throws ContainerLaunchException if the start failed (see {@link #withStartFailureProbability(double)})
+	 */
+	public String startContainer(final String name, final String networkId, final LatencyDistribution startLatency)
+	{
+		return this.startContainer(name, networkId, startLatency, Map.of());
+	}
+	
+	/**
+	 * Creates and starts a container.
+	 *
+	 * @param name         name of the container
+	 * @param networkId    the network the container is directly attached to or <code>null</code>
+	 * @param startLatency latency of the start or <code>null</code> to use the one configured for
+	 *                     {@link Operation#START_CONTAINER}
+	 * @param labels       labels of the container
+	 * @return the id of the container
+	 * @throws ContainerLaunchException if the start failed (see {@link #withStartFailureProbability(double)})
+	 */
+	public String startContainer(
+		final String name,
+		final String networkId,
+		final LatencyDistribution startLatency,
+		final Map<String, String> labels)
+	{
+		this.startingContainers.incrementAndGet();
+		try
+		{
+			this.simulate(Operation.START_CONTAINER, startLatency);
+		}
+		finally
+		{
+			this.startingContainers.decrementAndGet();
+		}
+		
+		if(this.startFailureProbability > 0 && ThreadLocalRandom.current().nextDouble() < this.startFailureProbability)
+		{
+			throw new ContainerLaunchException("Simulated start failure of container[name='" + name + "']");
+		}
+		
+		final String id = UUID.randomUUID().toString().replace("-", "");
+		final SimulatedContainerState state = new SimulatedContainerState(id, name, labels);
+		this.containers.put(id, state);
+		if(networkId != null)
+		{
+			this.attach(state, networkId);
+		}
+		return id;
+	}
+	
+	public void stopContainer(final String containerId)
+	{
+		this.simulate(Operation.STOP_CONTAINER);
+		this.remove(containerId);
+	}
+	
+	public boolean isRunning(final String containerId)
+	{
+		final SimulatedContainerState state = this.containers.get(containerId);
+		return state != null && state.running.get();
+	}
+	
+	/**
+	 * Simulates that the container crashed.
+	 *
+	 * @param oomKilled if the container was killed because it ran out of memory
+	 */
+	public void crashContainer(final String containerId, final boolean oomKilled)
+	{
+		final SimulatedContainerState state = this.getContainer(containerId);
+		state.running.set(false);
+		state.oomKilled.set(oomKilled);
+	}
+	
+	/**
+	 * Sets the status of the health check of the container (<code>null</code> = no health check).
+	 */
+	public void setContainerHealthStatus(final String containerId, final String healthStatus)
+	{
+		this.getContainer(containerId).healthStatus.set(healthStatus);
+	}
+	
+	// endregion
+	// region DockerBackend
+	
+	@Override
+	public String createNetwork(final String name, final Consumer<CreateNetworkCmd> customizer)
+	{
+		// The customizer is ignored as there is no Docker command
+		this.simulate(Operation.CREATE_NETWORK);
+		final String id = UUID.randomUUID().toString().replace("-", "");
+		this.networks.put(id, ConcurrentHashMap.newKeySet());
+		return id;
+	}
+	
+	@Override
+	public void removeNetwork(final String networkId)
+	{
+		this.simulate(Operation.REMOVE_NETWORK);
+		final Set<String> endpoints = this.networks.get(networkId);
+		if(endpoints == null)
+		{
+			throw new IllegalStateException("Network[id='" + networkId + "'] does not exist");
+		}
+		if(!endpoints.isEmpty())
+		{
+			// Same behavior as Docker
+			throw new IllegalStateException("Network[id='" + networkId + "'] has active endpoints");
+		}
+		this.networks.remove(networkId);
+	}
+	
+	@Override
+	public void connectToNetwork(final String containerId, final String networkId, final List<String> aliases)
+	{
+		this.simulate(Operation.CONNECT_TO_NETWORK);
+		this.attach(this.getContainer(containerId), networkId);
+	}
+	
+	@Override
+	public void disconnectFromNetwork(final String containerId, final String networkId)
+	{
+		this.simulate(Operation.DISCONNECT_FROM_NETWORK);
+		this.getContainer(containerId).networkIds.remove(networkId);
+		Optional.ofNullable(this.networks.get(networkId)).ifPresent(endpoints -> endpoints.remove(containerId));
+	}
+	
+	@Override
+	public void removeContainer(final String containerIdOrName)
+	{
+		this.simulate(Operation.STOP_CONTAINER);
+		if(this.containers.containsKey(containerIdOrName))
+		{
+			this.remove(containerIdOrName);
+			return;
+		}
+		this.containers.values()
+			.stream()
+			.filter(state -> state.name.get().equals(containerIdOrName))
+			.map(state -> state.id)
+			.toList()
+			.forEach(this::remove);
+	}
+	
+	@Override
+	public void renameContainer(final String containerIdOrName, final String newName)
+	{
+		this.simulate(Operation.RENAME_CONTAINER);
+		this.renameLock.lock();
+		try
+		{
+			final SimulatedContainerState state = this.findContainer(containerIdOrName)
+				.orElseThrow(() -> new IllegalStateException(
+					"Container[idOrName='" + containerIdOrName + "'] does not exist"));
+			if(this.findContainer(newName).isPresent())
+			{
+				throw new IllegalStateException("Container[name='" + newName + "'] already exists");
+			}
+			state.name.set(newName);
+		}
+		finally
+		{
+			this.renameLock.unlock();
+		}
+	}
+	
+	@Override
+	public List<ContainerSummary> listContainers(final Map<String, String> labels, final boolean includeStopped)
+	{
+		this.simulate(Operation.LIST_CONTAINERS);
+		return this.containers.values()
+			.stream()
+			.filter(state -> includeStopped || state.running.get())
+			.filter(state -> state.labels.entrySet().containsAll(labels.entrySet()))
+			.map(state -> new ContainerSummary(
+				state.id,
+				state.name.get(),
+				state.running.get() ? "running" : ContainerSummary.EXITED,
+				state.createdAtMs,
+				state.labels))
+			.toList();
+	}
+	
+	@Override
+	public void adoptContainer(final GenericContainer<?> container, final String containerId)
+	{
+		if(!(container instanceof final SimulatedContainer simulatedContainer))
+		{
+			throw new IllegalArgumentException("Only SimulatedContainers can be adopted");
+		}
+		final SimulatedContainerState state = this.getContainer(containerId);
+		simulatedContainer.adopted(state.id, state.name.get());
+	}
+	
+	@Override
+	public void pauseContainer(final String containerId)
+	{
+		this.simulate(Operation.PAUSE_CONTAINER);
+		this.getContainer(containerId).paused.set(true);
+	}
+	
+	@Override
+	public void unpauseContainer(final String containerId)
+	{
+		this.simulate(Operation.UNPAUSE_CONTAINER);
+		this.getContainer(containerId).paused.set(false);
+	}
+	
+	@Override
+	public ContainerStatus inspectContainer(final String containerId)
+	{
+		this.simulate(Operation.INSPECT_CONTAINER);
+		final SimulatedContainerState state = this.containers.get(containerId);
+		if(state == null)
+		{
+			return ContainerStatus.notRunning();
+		}
+		return new ContainerStatus(state.running.get(), state.oomKilled.get(), state.healthStatus.get());
+	}
+	
+	@Override
+	public String commitContainer(final String containerId, final String repository, final Map<String, String> labels)
+	{
+		this.getContainer(containerId);
+		this.simulate(Operation.COMMIT_CONTAINER);
+		return "sha256:" + UUID.randomUUID().toString().replace("-", "");
+	}
+	
+	@Override
+	public Optional<String> resolveImageId(final String imageName)
+	{
+		return Optional.of("sha256:" + UUID.nameUUIDFromBytes(imageName.getBytes(StandardCharsets.UTF_8))
+			.toString()
+			.replace("-", ""));
+	}
+	
+	@Override
+	public void ping()
+	{
+		this.simulate(Operation.PING);
+	}
+	
+	@Override
+	public OptionalLong hostMemoryBytes()
+	{
+		return this.hostMemoryBytes > 0 ? OptionalLong.of(this.hostMemoryBytes) : OptionalLong.empty();
+	}
+	
+	@Override
+	public Optional<DaemonInfo> daemonInfo()
+	{
+		// There is no daemon
+		return Optional.empty();
+	}
+	
+	@Override
+	public Optional<URI> daemonUri()
+	{
+		// There is no daemon
+		return Optional.empty();
+	}
+	
+	// endregion
+	
+	protected void attach(final SimulatedContainerState state, final String networkId)
+	{
+		final Set<String> endpoints = this.networks.get(networkId);
+		if(endpoints == null)
+		{
+			throw new IllegalStateException("Network[id='" + networkId + "'] does not exist");
+		}
+		endpoints.add(state.id);
+		state.networkIds.add(networkId);
+	}
+	
+	protected void remove(final String containerId)
+	{
+		final SimulatedContainerState state = this.containers.remove(containerId);
+		if(state != null)
+		{
+			state.running.set(false);
+			state.networkIds.forEach(networkId -> Optional.ofNullable(this.networks.get(networkId))
+				.ifPresent(endpoints -> endpoints.remove(containerId)));
+		}
+	}
+	
+	protected Optional<SimulatedContainerState> findContainer(final String containerIdOrName)
+	{
+		return Optional.ofNullable(this.containers.get(containerIdOrName))
+			.or(() -> this.containers.values()
+				.stream()
+				.filter(state -> state.name.get().equals(containerIdOrName))
+				.findFirst());
+	}
+	
+	protected SimulatedContainerState getContainer(final String containerId)
+	{
+		final SimulatedContainerState state = this.containers.get(Objects.requireNonNull(containerId));
+		if(state == null)
+		{
+			throw new IllegalStateException("Container[id='" + containerId + "'] does not exist");
+		}
+		return state;
+	}
+	
+	protected void simulate(final Operation operation)
+	{
+		this.simulate(operation, null);
+	}
+	
+	/**
+	 * Counts the operation and waits for its (sampled) latency.
+	 */
+	protected void simulate(final Operation operation, final LatencyDistribution latencyOverride)
+	{
+		this.operationCounts.get(operation).increment();
+		
+		final LatencyDistribution latency = latencyOverride != null ? latencyOverride : this.latencies.get(operation);
+		final long nanos = (long)(latency.sampleNanos(ThreadLocalRandom.current()) * this.timeScale);
+		if(nanos <= 0)
+		{
+			return;
+		}
+		try
+		{
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		}
+		catch(final InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while simulating " + operation, ie);
+		}
+	}
+	
+	// region Statistics
+	
+	public long getOperationCount(final Operation operation)
+	{
+		return this.operationCounts.get(operation).sum();
+	}
+	
+	public int getStartingContainers()
+	{
+		return this.startingContainers.get();
+	}
+	
+	/**
+	 * @return the amount of running containers that are not paused
+	 */
+	public int getActiveContainers()
+	{
+		return (int)this.containers.values()
+			.stream()
+			.filter(state -> state.running.get() && !state.paused.get())
+			.count();
+	}
+	
+	/**
+	 * @return the amount of existing containers (including paused and crashed ones)
+	 */
+	public int getContainerCount()
+	{
+		return this.containers.size();
+	}
+	
+	public int getNetworkCount()
+	{
+		return this.networks.size();
+	}
+	
+	// endregion
+	// region Get/Set
+	
+	public SimulatedDockerBackend withLatency(final Operation operation, final LatencyDistribution latency)
+	{
+		this.latencies.put(Objects.requireNonNull(operation), Objects.requireNonNull(latency));
+		return this;
+	}
+	
+	public SimulatedDockerBackend withTimeScale(final double timeScale)
+	{
+		this.timeScale = timeScale;
+		return this;
+	}
+	
+	public SimulatedDockerBackend withStartFailureProbability(final double startFailureProbability)
+	{
+		this.startFailureProbability = startFailureProbability;
+		return this;
+	}
+	
+	public SimulatedDockerBackend withHostMemoryBytes(final long hostMemoryBytes)
+	{
+		this.hostMemoryBytes = hostMemoryBytes;
+		return this;
+	}
+	
+	public Map<Operation, LatencyDistribution> getLatencies()
+	{
+		return Collections.unmodifiableMap(this.latencies);
+	}
+	
+	public double getTimeScale()
+	{
+		return this.timeScale;
+	}
+	
+	// endregion
+	
+	
+	protected static class SimulatedContainerState
+	{
+		protected final String id;
+		protected final AtomicReference<String> name;
+		protected final Map<String, String> labels;
+		protected final long createdAtMs = System.currentTimeMillis();
+		protected final Set<String> networkIds = ConcurrentHashMap.newKeySet();
+		protected final AtomicBoolean running = new AtomicBoolean(true);
+		protected final AtomicBoolean paused = new AtomicBoolean();
+		protected final AtomicBoolean oomKilled = new AtomicBoolean();
+		protected final AtomicReference<String> healthStatus = new AtomicReference<>();
+		
+		protected SimulatedContainerState(final String id, final String name, final Map<String, String> labels)
+		{
+			this.id = id;
+			this.name = new AtomicReference<>(name);
+			this.labels = Map.copyOf(labels);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker.simulation;
+
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+import software.xdev.tci.factory.prestart.loadbalancing.LoadMonitor;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Derives the load from the containers inside a {@link SimulatedDockerBackend}.
+ * <p>
+ * Starting containers usually consume a lot of CPU while running (and idle) containers consume only a little and
+ * paused ones none.
+ * </p>
+ */
+public class SimulatedLoadMonitor implements LoadMonitor
+{
+	protected final SimulatedDockerBackend backend;
+	protected double cpus = Runtime.getRuntime().availableProcessors();
+	protected double cpusPerStartingContainer = 1.0;
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected double cpusPerActiveContainer = 0.05;
+	
+	protected Object previousLoadMonitor;
+	
+	public SimulatedLoadMonitor(final SimulatedDockerBackend backend)
+	{
+		this.backend = Objects.requireNonNull(backend);
+	}
+	
+	/**
+	 * Makes this the {@link LoadMonitor} that is used by TCI ({@link LoadMonitor#instance()}).
+	 */
+	public SimulatedLoadMonitor install()
+	{
+		this.previousLoadMonitor = TCIServiceLoader.instance().forceOverwrite(LoadMonitor.class, this);
+		return this;
+	}
+	
+	/**
+	 * Restores the {@link LoadMonitor} that was used before {@link #install()}.
+	 */
+	public void uninstall()
+	{
+		TCIServiceLoader.instance().forceOverwrite(LoadMonitor.class, this.previousLoadMonitor);
+		this.previousLoadMonitor = null;
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	@Override
+	public OptionalDouble getCurrentIdlePercent()
+	{
+		final double usedCpus = this.backend.getStartingContainers() * this.cpusPerStartingContainer
+			+ this.backend.getActiveContainers() * this.cpusPerActiveContainer;
+		return OptionalDouble.of(Math.max(0, 1 - usedCpus / this.cpus) * 100);
+	}
+	
+	// region Get/Set
+	
+	public SimulatedLoadMonitor withCpus(final double cpus)
+	{
+		this.cpus = cpus;
+		return this;
+	}
+	
+	public SimulatedLoadMonitor withCpusPerStartingContainer(final double cpusPerStartingContainer)
+	{
+		this.cpusPerStartingContainer = cpusPerStartingContainer;
+		return this;
+	}
+	
+	public SimulatedLoadMonitor withCpusPerActiveContainer(final double cpusPerActiveContainer)
+	{
+		this.cpusPerActiveContainer = cpusPerActiveContainer;
+		return this;
+	}
+	
+	// endregion
+}
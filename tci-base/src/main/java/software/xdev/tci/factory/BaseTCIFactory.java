@@ -17,10 +17,13 @@ package software.xdev.tci.factory;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
@@ -29,7 +32,9 @@ import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.output.Slf4jLogConsumer;
 
 import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.tracing.TCITracer;
+import software.xdev.tci.tracing.timeline.TCITimeline;
 
 
 @SuppressWarnings("java:S119")
@@ -54,6 +59,9 @@ public abstract class BaseTCIFactory<
 	protected final String containerBaseName;
 	protected final String containerLoggerName;
 	protected final TCITracer tracer = new TCITracer();
+	// Pre-registered as they are used on the hot path
+	protected final TCITracer.Timed traceGetNew = this.tracer.getTimedOrCreate("getNew");
+	protected final TCITracer.Timed traceGetNewAsync = this.tracer.getTimedOrCreate("getNew(async)");
 	
 	protected BaseTCIFactory(
 		final BiFunction<C, String, I> infraBuilder,
@@ -109,7 +117,7 @@ public abstract class BaseTCIFactory<
 	
 	protected void handleInfraStartFail(final I infra)
 	{
-		CompletableFuture.runAsync(() -> {
+		TCIExecutor.instance().runAsync(() -> {
 			final long startTime = System.currentTimeMillis();
 			try
 			{
@@ -125,11 +133,88 @@ public abstract class BaseTCIFactory<
 	
 	protected I registerReturned(final I infra)
 	{
+		final long returnedAtNanos = System.nanoTime();
 		this.returnedAndInUse.add(infra);
-		infra.setOnStopped(() -> this.returnedAndInUse.remove(infra));
+		infra.setOnStopped(() -> {
+			this.returnedAndInUse.remove(infra);
+			TCITimeline.instance().record(
+				TCITimeline.PROCESS_INFRA,
+				infra.getName(),
+				"inUse",
+				returnedAtNanos,
+				System.nanoTime(),
+				Map.of("factory", this.getFactoryName()));
+		});
 		return infra;
 	}
 	
+	/**
+	 * Asynchronous counterpart of {@link org.rnorth.ducttape.unreliables.Unreliables#retryUntilSuccess(int,
+	 * java.util.concurrent.Callable)}: Executes the attempt up to {@link #getNewTryCount} times until it succeeds.
+	 *
+	 * @param abort Checked before each retry; no more retries are executed when it returns <code>true</code>
+	 */
+	protected CompletableFuture<I> retryAsync(
+		final Supplier<CompletableFuture<I>> attempt,
+		final BooleanSupplier abort)
+	{
+		return this.retryAsync(attempt, abort, this.getNewTryCount);
+	}
+	
+	protected CompletableFuture<I> retryAsync(
+		final Supplier<CompletableFuture<I>> attempt,
+		final BooleanSupplier abort,
+		final int triesLeft)
+	{
+		CompletableFuture<I> cf;
+		try
+		{
+			cf = attempt.get();
+		}
+		catch(final RuntimeException rex)
+		{
+			cf = CompletableFuture.failedFuture(rex);
+		}
+		return cf
+			.handle((infra, ex) -> {
+				if(ex == null)
+				{
+					return CompletableFuture.completedFuture(infra);
+				}
+				if(triesLeft <= 1 || abort.getAsBoolean())
+				{
+					return CompletableFuture.<I>failedFuture(ex);
+				}
+				this.log().warn("Failed to get new infra; Retrying", ex);
+				return this.retryAsync(attempt, abort, triesLeft - 1);
+			})
+			.thenCompose(Function.identity());
+	}
+	
+	/**
+	 * Completes the future that was returned to the caller.
+	 * <p>
+	 * If the caller is no longer interested (e.g. because the future was cancelled) the infrastructure is stopped.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the infrastructure was handed over to the caller
+	 */
+	protected boolean completeAsyncRequest(final CompletableFuture<I> request, final I infra, final Throwable ex)
+	{
+		if(ex != null)
+		{
+			request.completeExceptionally(ex);
+			return false;
+		}
+		if(!request.complete(infra))
+		{
+			this.log().info("Infra is no longer required (request was cancelled); Stopping it");
+			TCIExecutor.instance().runAsync(infra::stop);
+			return false;
+		}
+		return true;
+	}
+	
 	@Override
 	public void close()
 	{
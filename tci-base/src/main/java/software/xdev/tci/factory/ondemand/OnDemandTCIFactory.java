@@ -16,6 +16,9 @@
 package software.xdev.tci.factory.ondemand;
 
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -26,7 +29,9 @@ import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.Network;
 
 import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.factory.BaseTCIFactory;
+import software.xdev.tci.tracing.jfr.InfraBootEvent;
 
 
 /**
@@ -65,31 +70,38 @@ public class OnDemandTCIFactory<C extends GenericContainer<C>, I extends TCI<C>>
 			.orElseGet(() -> c.getNetworkAliases().stream()
 				.findFirst()
 				.orElse(null)));
+		final String containerName = this.containerBaseName + "-" + this.startCounter.getAndIncrement();
+		final InfraBootEvent bootEvent = InfraBootEvent.start(false);
 		try
 		{
-			infra.start(this.containerBaseName + "-" + this.startCounter.getAndIncrement());
+			infra.start(containerName);
+			bootEvent.setSuccessful(true);
 		}
 		catch(final RuntimeException rex)
 		{
 			this.handleInfraStartFail(infra);
 			throw rex;
 		}
+		finally
+		{
+			bootEvent.finish(this.getFactoryName(), containerName);
+		}
 		return infra;
 	}
 	
 	public I getNew(final Network network, final Consumer<C> buildContainerCustomizer)
 	{
 		this.log().info("Getting new infra");
-		final long startTime = System.currentTimeMillis();
+		final long startNanos = System.nanoTime();
 		
 		final I infra = this.registerReturned(Unreliables.retryUntilSuccess(
 			this.getNewTryCount,
 			() -> this.newInternal(network, buildContainerCustomizer)));
 		
-		final long ms = System.currentTimeMillis() - startTime;
-		this.log().info("Got new infra, took {}ms", ms);
+		final long nanos = System.nanoTime() - startNanos;
+		this.log().info("Got new infra, took {}ms", TimeUnit.NANOSECONDS.toMillis(nanos));
 		
-		this.tracer.timedAdd("getNew", ms);
+		this.traceGetNew.addNanos(nanos);
 		
 		return infra;
 	}
@@ -98,4 +110,40 @@ public class OnDemandTCIFactory<C extends GenericContainer<C>, I extends TCI<C>>
 	{
 		return this.getNew(network, null);
 	}
+	
+	/**
+	 * Asynchronous variant of {@link #getNew(Network, Consumer)}.
+	 * <p>
+	 * The (blocking) start is executed by the {@link TCIExecutor}. Failed attempts are retried.
+	 * Cancelling the returned future prevents further attempts; infrastructure that is started anyway is stopped.
+	 * </p>
+	 */
+	public CompletableFuture<I> getNewAsync(final Network network, final Consumer<C> buildContainerCustomizer)
+	{
+		final long startNanos = System.nanoTime();
+		
+		final CompletableFuture<I> request = new CompletableFuture<>();
+		this.retryAsync(
+				() -> TCIExecutor.instance().supplyAsync(() -> {
+					if(request.isDone())
+					{
+						throw new CancellationException("Request is already completed");
+					}
+					return this.newInternal(network, buildContainerCustomizer);
+				}),
+				request::isDone)
+			.thenApply(this::registerReturned)
+			.whenComplete((infra, ex) -> {
+				if(this.completeAsyncRequest(request, infra, ex))
+				{
+					this.traceGetNewAsync.addNanos(System.nanoTime() - startNanos);
+				}
+			});
+		return request;
+	}
+	
+	public CompletableFuture<I> getNewAsync(final Network network)
+	{
+		return this.getNewAsync(network, null);
+	}
 }
@@ -0,0 +1,478 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.factory.prestart.broker.SharedPoolBroker;
+import software.xdev.tci.factory.prestart.pausing.PreStartPauser;
+import software.xdev.tci.factory.prestart.resources.InfraResourceReserver;
+import software.xdev.tci.factory.prestart.validation.PreStartValidator;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Holds the PreStarted infrastructure of a {@link PreStartableTCIFactory}: Infrastructure that is ready to use and
+ * PreStarts that are still starting (in-flight).
+ */
+public class DefaultPreStartPool<I extends TCI<?>> implements PreStartPool<I>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(DefaultPreStartPool.class);
+	
+	/**
+	 * Percentile of the start time that is expected for a cold start
+	 */
+	protected static final double COLD_START_PERCENTILE = 50;
+	/**
+	 * Percentile of the start time after which a running start is considered stalled
+	 */
+	protected static final double STALLED_START_PERCENTILE = 90;
+	
+	protected final String name;
+	/**
+	 * PreStarted infrastructure that is ready to use; <code>null</code> if PreStarting is disabled
+	 */
+	protected final LinkedBlockingQueue<StartingInfra<I>> ready;
+	/**
+	 * PreStarted infrastructure that is still starting.
+	 * <p>
+	 * Once the start is finished it's moved into {@link #ready} - unless it was claimed by a waiter before.
+	 * </p>
+	 */
+	protected final Set<StartingInfra<I>> inFlight = ConcurrentHashMap.newKeySet();
+	/**
+	 * The amount of infrastructure that should currently be kept ready
+	 */
+	protected final IntSupplier target;
+	/**
+	 * If new infrastructure can currently be accepted (e.g. <code>false</code> once the factory is closed)
+	 */
+	protected final BooleanSupplier accepting;
+	protected final PreStartValidator<I> validator;
+	protected final PreStartPauser pauser;
+	protected final InfraResourceReserver resourceReserver;
+	protected final TCITracer.Timed traceDiscard;
+	protected final TCITracer.Timed traceValidate;
+	protected final TCITracer.Timed traceEvicted;
+	/**
+	 * Start times of the infrastructure; used to estimate when in-flight PreStarts finish
+	 */
+	protected final TCITracer.Timed startTimes;
+	protected final AtomicBoolean validating = new AtomicBoolean();
+	/**
+	 * Keeps infrastructure alive when the pool is shut down; returns <code>true</code> if it was persisted.
+	 * <code>null</code> = infrastructure is always stopped
+	 */
+	protected Predicate<StartingInfra<I>> persister;
+	
+	public DefaultPreStartPool(
+		final String name,
+		final int capacity,
+		final IntSupplier target,
+		final BooleanSupplier accepting,
+		final PreStartValidator<I> validator,
+		final PreStartPauser pauser,
+		final InfraResourceReserver resourceReserver,
+		final TCITracer tracer,
+		final TCITracer.Timed startTimes)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.ready = capacity > 0 ? new LinkedBlockingQueue<>(capacity) : null;
+		this.target = Objects.requireNonNull(target);
+		this.accepting = Objects.requireNonNull(accepting);
+		this.validator = Objects.requireNonNull(validator);
+		this.pauser = Objects.requireNonNull(pauser);
+		this.resourceReserver = Objects.requireNonNull(resourceReserver);
+		this.traceDiscard = tracer.getTimedOrCreate("preStartDiscard");
+		this.traceValidate = tracer.getTimedOrCreate("preStartValidate");
+		this.traceEvicted = tracer.getTimedOrCreate("preStartEvicted");
+		this.startTimes = Objects.requireNonNull(startTimes);
+	}
+	
+	public DefaultPreStartPool<I> withPersister(final Predicate<StartingInfra<I>> persister)
+	{
+		this.persister = persister;
+		return this;
+	}
+	
+	/**
+	 * @return <code>false</code> if PreStarting is disabled (the pool has no capacity)
+	 */
+	public boolean isEnabled()
+	{
+		return this.ready != null;
+	}
+	
+	@Override
+	public String name()
+	{
+		return this.name;
+	}
+	
+	@Override
+	public boolean hasDeficit()
+	{
+		return this.isEnabled() && this.isAccepting() && this.count() < this.target.getAsInt();
+	}
+	
+	@Override
+	public boolean isAccepting()
+	{
+		return this.accepting.getAsBoolean();
+	}
+	
+	@Override
+	public Optional<SharedPoolBroker.Lease> tryLease()
+	{
+		return SharedPoolBroker.instance().tryLease(this.name, this.target.getAsInt());
+	}
+	
+	@Override
+	public boolean offerReady(final StartingInfra<I> startingInfra)
+	{
+		if(!this.isAccepting())
+		{
+			return false;
+		}
+		
+		this.pauser.pauseIfEnabled(startingInfra);
+		if(!this.ready.offer(startingInfra)
+			// Shut down in the meantime and not drained by the shutdown -> caller stays responsible
+			|| !this.isAccepting() && this.ready.remove(startingInfra))
+		{
+			this.pauser.unpauseQuietly(startingInfra);
+			return false;
+		}
+		startingInfra.recordPoolEvent(this.name, true, this.countReady());
+		return true;
+	}
+	
+	@Override
+	public Optional<String> findProblem(final I infra)
+	{
+		return this.validator.findProblem(infra);
+	}
+	
+	@Override
+	public void reserveResources(final I infra)
+	{
+		this.resourceReserver.reserve(infra, true);
+	}
+	
+	/**
+	 * @return amount of PreStarted infrastructure that is ready or still starting
+	 */
+	public int count()
+	{
+		return this.ready.size() + this.inFlight.size();
+	}
+	
+	public int countReady()
+	{
+		return this.ready != null ? this.ready.size() : 0;
+	}
+	
+	public int countInFlight()
+	{
+		return this.inFlight.size();
+	}
+	
+	public boolean hasCapacity()
+	{
+		return this.ready.remainingCapacity() > 0;
+	}
+	
+	public void addInFlight(final StartingInfra<I> startingInfra)
+	{
+		this.inFlight.add(startingInfra);
+	}
+	
+	public void removeInFlight(final StartingInfra<I> startingInfra)
+	{
+		this.inFlight.remove(startingInfra);
+	}
+	
+	/**
+	 * Takes ready infrastructure from the pool and skips (and discards) infrastructure that is idle for too long.
+	 */
+	public Optional<StartingInfra<I>> pollReady()
+	{
+		StartingInfra<I> next;
+		while((next = this.ready.poll()) != null)
+		{
+			if(!this.validator.isIdleExpired(next))
+			{
+				next.recordPoolEvent(this.name, false, this.countReady());
+				return Optional.of(next);
+			}
+			this.evict(next, "idle for too long");
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Claims the in-flight PreStart that will finish the earliest, if it will finish sooner than a cold start would.
+	 */
+	public Optional<StartingInfra<I>> claimInFlight()
+	{
+		final long now = System.currentTimeMillis();
+		final boolean hasStartLatencies = this.startTimes.getCountCalled() > 0;
+		final double p50StartMs = hasStartLatencies
+			? this.startTimes.getPercentileMs(COLD_START_PERCENTILE)
+			: 0;
+		final double p90StartMs = hasStartLatencies
+			? this.startTimes.getPercentileMs(STALLED_START_PERCENTILE)
+			: 0;
+		
+		final List<StartingInfra<I>> candidates = this.inFlight.stream()
+			// Only consider starts that are actually executing - queued ones won't finish sooner than a cold start
+			.filter(i -> i.executionStartedAtMs() > 0)
+			.sorted(Comparator.comparingLong(StartingInfra::executionStartedAtMs))
+			.toList();
+		for(final StartingInfra<I> candidate : candidates)
+		{
+			final long elapsedMs = now - candidate.executionStartedAtMs();
+			if(hasStartLatencies && !finishesBeforeColdStart(elapsedMs, p50StartMs, p90StartMs))
+			{
+				continue;
+			}
+			if(candidate.tryClaim())
+			{
+				this.inFlight.remove(candidate);
+				LOG.info("[{}] Claimed in-flight pre-start that is running for {}ms", this.name, elapsedMs);
+				return Optional.of(candidate);
+			}
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Estimates if a start that is running for <code>elapsedMs</code> will finish sooner than a cold start (which
+	 * takes the median start time).
+	 * <p>
+	 * Starts that exceed the median are expected to finish before the p90. Starts that exceed the p90 are considered
+	 * stalled (e.g. hanging) as their remaining time can't be estimated.
+	 * </p>
+	 */
+	protected static boolean finishesBeforeColdStart(
+		final long elapsedMs,
+		final double p50StartMs,
+		final double p90StartMs)
+	{
+		if(elapsedMs >= p90StartMs)
+		{
+			return false;
+		}
+		final double expectedRemainingMs = elapsedMs < p50StartMs
+			? p50StartMs - elapsedMs
+			: p90StartMs - elapsedMs;
+		return expectedRemainingMs < p50StartMs;
+	}
+	
+	/**
+	 * Removes infrastructure from the pool that exceeds the target amount.
+	 */
+	public void trim(final int targetAmount)
+	{
+		while(this.count() > targetAmount)
+		{
+			final StartingInfra<I> excess = Optional.ofNullable(this.ready.poll())
+				.or(() -> this.inFlight.stream()
+					// Prefer PreStarts that are not running yet
+					.sorted(Comparator.comparing(i -> i.executionStartedAtMs() > 0))
+					.filter(StartingInfra::tryClaim)
+					.findFirst()
+					.map(i -> {
+						this.inFlight.remove(i);
+						return i;
+					}))
+				.orElse(null);
+			if(excess == null)
+			{
+				return;
+			}
+			LOG.info("[{}] Discarding excess pre-started infra; target={}", this.name, targetAmount);
+			this.discard(excess);
+		}
+	}
+	
+	public void discard(final StartingInfra<I> startingInfra)
+	{
+		startingInfra.leavePool(this.name);
+		if(startingInfra.startFuture().cancel(false))
+		{
+			// Was still queued -> nothing to stop
+			return;
+		}
+		startingInfra.startFuture()
+			.handle((ignored, ex) -> null)
+			.thenRunAsync(() -> {
+				final long startTime = System.nanoTime();
+				try
+				{
+					this.pauser.unpauseQuietly(startingInfra);
+					startingInfra.infra().stop();
+				}
+				catch(final Exception ex)
+				{
+					LOG.warn("[{}] Failed to discard pre-started infra", this.name, ex);
+				}
+				this.traceDiscard.addNanos(System.nanoTime() - startTime);
+			}, TCIExecutor.instance());
+	}
+	
+	/**
+	 * Validates the ready infrastructure and evicts infrastructure that is no longer usable.
+	 *
+	 * @return the amount of evicted infrastructure
+	 * @see PreStartValidator
+	 */
+	public int validate()
+	{
+		if(!this.isEnabled() || !this.validating.compareAndSet(false, true))
+		{
+			return 0;
+		}
+		
+		final long startTime = System.nanoTime();
+		try
+		{
+			int evicted = 0;
+			for(final StartingInfra<I> candidate : List.copyOf(this.ready))
+			{
+				final Optional<String> problem = this.validator.findProblem(candidate);
+				// Only evict if it wasn't taken in the meantime
+				if(problem.isPresent() && this.ready.remove(candidate))
+				{
+					this.evict(candidate, problem.get());
+					evicted++;
+				}
+			}
+			return evicted;
+		}
+		finally
+		{
+			this.validating.set(false);
+			this.traceValidate.addNanos(System.nanoTime() - startTime);
+		}
+	}
+	
+	public void evict(final StartingInfra<I> startingInfra, final String reason)
+	{
+		LOG.info("[{}] Evicting pre-started infra: {}", this.name, reason);
+		// Traces how long the evicted infrastructure was ready
+		this.traceEvicted.addNanos(System.nanoTime() - startingInfra.readyAtNanos());
+		this.discard(startingInfra);
+	}
+	
+	/**
+	 * Discards the oldest ready infrastructure to free resources.
+	 *
+	 * @return <code>true</code> if infrastructure was discarded
+	 */
+	public boolean reclaim()
+	{
+		final StartingInfra<I> oldest = this.ready.poll();
+		if(oldest == null)
+		{
+			return false;
+		}
+		this.evict(oldest, "resources are required by a test");
+		return true;
+	}
+	
+	/**
+	 * Removes all ready infrastructure from the pool.
+	 */
+	public List<StartingInfra<I>> drainReady()
+	{
+		final List<StartingInfra<I>> drained = new ArrayList<>();
+		Optional.ofNullable(this.ready).ifPresent(q -> q.drainTo(drained));
+		return drained;
+	}
+	
+	/**
+	 * Claims all in-flight PreStarts that were not claimed by a waiter and removes them from the pool.
+	 */
+	public List<StartingInfra<I>> claimAllInFlight()
+	{
+		final List<StartingInfra<I>> claimed = this.inFlight.stream()
+			.filter(StartingInfra::tryClaim)
+			.toList();
+		// De-Ref for GC
+		this.inFlight.clear();
+		return claimed;
+	}
+	
+	/**
+	 * Shuts down all infrastructure inside the pool and waits until this is done.
+	 * <p>
+	 * PreStarts that are still starting are shut down once their start finished, otherwise the containers would be
+	 * leaked.
+	 * </p>
+	 */
+	public void shutdown()
+	{
+		// Drain so that PreStarts that complete concurrently don't get lost (see PreStarter#handOver)
+		final List<CompletableFuture<Void>> stopCFs = Stream.concat(
+				this.drainReady().stream()
+					.map(i -> TCIExecutor.instance().runAsync(() -> this.shutdown(i))),
+				this.claimAllInFlight().stream()
+					.map(i -> i.startFuture()
+						.handle((ignored, ex) -> null)
+						.thenRunAsync(() -> this.shutdown(i), TCIExecutor.instance())))
+			.toList();
+		stopCFs.forEach(CompletableFuture::join);
+	}
+	
+	/**
+	 * Persists (if possible) or stops infrastructure that was removed from the pool.
+	 */
+	public void shutdown(final StartingInfra<I> startingInfra)
+	{
+		startingInfra.releasePoolLease();
+		try
+		{
+			this.pauser.unpauseQuietly(startingInfra);
+			if(this.persister == null || !this.persister.test(startingInfra))
+			{
+				startingInfra.infra().stop();
+			}
+		}
+		catch(final Exception e)
+		{
+			LOG.warn("[{}] Failed to shutdown infra", this.name, e);
+		}
+	}
+}
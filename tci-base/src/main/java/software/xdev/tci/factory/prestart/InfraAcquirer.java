@@ -0,0 +1,410 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.factory.prestart.hedging.HedgedStart;
+import software.xdev.tci.factory.prestart.hedging.HedgedStarter;
+import software.xdev.tci.factory.prestart.hedging.HedgingPolicy;
+import software.xdev.tci.factory.prestart.network.NetworkConnector;
+import software.xdev.tci.factory.prestart.pausing.PreStartPauser;
+import software.xdev.tci.factory.prestart.recycling.PreStartRecycler;
+import software.xdev.tci.tracing.TCITracer;
+import software.xdev.tci.tracing.jfr.AcquireEvent;
+
+
+/**
+ * Acquires infrastructure for a test: Takes it from the pool (if possible) or boots a new one, waits for it and
+ * connects it to the network of the test.
+ */
+public class InfraAcquirer<C extends GenericContainer<C>, I extends TCI<C>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(InfraAcquirer.class);
+	
+	protected final String name;
+	protected final InfraStarter<C, I> starter;
+	protected final PreStarter<I> preStarter;
+	protected final NetworkConnector connector;
+	protected final PreStartPauser pauser;
+	protected final PreStartRecycler<I> recycler;
+	protected final Duration acquireTimeout;
+	/**
+	 * Provides PreStarted infrastructure (if available)
+	 */
+	protected final Supplier<Optional<StartingInfra<I>>> preStartedSource;
+	/**
+	 * Has the following effects:
+	 * <ul>
+	 *     <li><code>true</code> (default) - Directly attaches the Container to the network during startup if
+	 *     possible</li>
+	 *     <li><code>false</code> - Performs a Network#connect as if PreStarting is active.
+	 *     This is slower however it emulates PreStarting better and may help finding bugs.</li>
+	 * </ul>
+	 */
+	protected final boolean useDirectNetworkAttachIfPossible;
+	
+	/**
+	 * Launches a second start when a start takes unusually long; <code>null</code> = disabled
+	 */
+	protected HedgedStarter<StartingInfra<I>> hedgedStarter;
+	
+	public InfraAcquirer(
+		final String name,
+		final InfraStarter<C, I> starter,
+		final PreStarter<I> preStarter,
+		final NetworkConnector connector,
+		final PreStartPauser pauser,
+		final PreStartRecycler<I> recycler,
+		final Duration acquireTimeout,
+		final Supplier<Optional<StartingInfra<I>>> preStartedSource,
+		final boolean useDirectNetworkAttachIfPossible)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.starter = Objects.requireNonNull(starter);
+		this.preStarter = Objects.requireNonNull(preStarter);
+		this.connector = Objects.requireNonNull(connector);
+		this.pauser = Objects.requireNonNull(pauser);
+		this.recycler = Objects.requireNonNull(recycler);
+		this.acquireTimeout = Objects.requireNonNull(acquireTimeout);
+		this.preStartedSource = Objects.requireNonNull(preStartedSource);
+		this.useDirectNetworkAttachIfPossible = useDirectNetworkAttachIfPossible;
+	}
+	
+	/**
+	 * Launches a second (hedged) start when a start takes unusually long.
+	 */
+	public InfraAcquirer<C, I> withHedging(final HedgingPolicy policy, final TCITracer tracer)
+	{
+		this.hedgedStarter = new HedgedStarter<>(this.name, policy, new AcquirerStarts(), tracer);
+		return this;
+	}
+	
+	/**
+	 * Acquires infrastructure and connects it to the network.
+	 */
+	public I acquire(final Network network, final String... aliases)
+	{
+		final List<String> filteredAliases = filterAliases(aliases);
+		
+		final StartingInfra<I> startingInfra =
+			this.acquireStart(this.directNetworkAttachInfo(network, filteredAliases));
+		final I infra = startingInfra.infra();
+		
+		try
+		{
+			if(network != null && startingInfra.requiresNetworkConnect())
+			{
+				this.connector.connect(infra, network, filteredAliases);
+			}
+			if(startingInfra.requiresNetworkConnect())
+			{
+				this.recycler.trackRecyclable(infra, network);
+			}
+			
+			filteredAliases.stream()
+				.findFirst()
+				.ifPresent(infra::setNetworkAlias);
+		}
+		catch(final RuntimeException rex)
+		{
+			this.starter.handleStartFail(infra);
+			throw rex;
+		}
+		
+		return infra;
+	}
+	
+	/**
+	 * Asynchronous variant of {@link #acquire(Network, String...)}.
+	 *
+	 * @param currentAttempt receives the start that is currently waited for (so that it can be cancelled)
+	 */
+	public CompletableFuture<I> acquireAsync(
+		final Network network,
+		final AtomicReference<HedgedStart<StartingInfra<I>>> currentAttempt,
+		final String... aliases)
+	{
+		final List<String> filteredAliases = filterAliases(aliases);
+		
+		final HedgedStart<StartingInfra<I>> hedgedStart =
+			this.startHedged(this.startAcquire(this.directNetworkAttachInfo(network, filteredAliases)));
+		currentAttempt.set(hedgedStart);
+		
+		final AcquireEvent acquireEvent = AcquireEvent.start(hedgedStart.first().isDone());
+		hedgedStart.first().whenComplete((ignored, ex) -> {
+			acquireEvent.setSuccessful(ex == null);
+			this.finishAcquireEvent(acquireEvent, hedgedStart);
+		});
+		
+		return hedgedStart.first()
+			// Copy - a timeout should only affect this attempt
+			.copy()
+			.orTimeout(this.acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)
+			.thenComposeAsync(
+				startingInfra -> {
+					final I infra = startingInfra.infra();
+					if(!infra.getContainer().isRunning())
+					{
+						throw new IllegalStateException("Container is not running! " + infra.getContainer());
+					}
+					if(network == null || !startingInfra.requiresNetworkConnect())
+					{
+						return CompletableFuture.completedFuture(startingInfra);
+					}
+					
+					return this.connector.connectAsync(infra, network, filteredAliases)
+						.thenApply(ignored -> startingInfra);
+				}, TCIExecutor.instance())
+			.thenApply(startingInfra -> {
+				final I infra = startingInfra.infra();
+				if(startingInfra.requiresNetworkConnect())
+				{
+					this.recycler.trackRecyclable(infra, network);
+				}
+				filteredAliases.stream()
+					.findFirst()
+					.ifPresent(infra::setNetworkAlias);
+				return infra;
+			})
+			.whenComplete((ignored, ex) -> {
+				if(ex != null)
+				{
+					hedgedStart.abandon();
+				}
+			});
+	}
+	
+	/**
+	 * Takes infrastructure from the pool or boots a new one and waits for it.
+	 */
+	public StartingInfra<I> acquireStart(final DirectNetworkAttachInfo directAttachNetwork)
+	{
+		LOG.info("[{}] Getting a new infra; Timeout={}", this.name, this.acquireTimeout);
+		final long startTime = System.currentTimeMillis();
+		
+		final HedgedStart<StartingInfra<I>> hedgedStart = this.startHedged(this.startAcquire(directAttachNetwork));
+		final AcquireEvent acquireEvent = AcquireEvent.start(hedgedStart.first().isDone());
+		
+		final StartingInfra<I> startingInfra;
+		try
+		{
+			startingInfra = hedgedStart.first().get(this.acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+			acquireEvent.setSuccessful(true);
+		}
+		catch(final InterruptedException ie)
+		{
+			// The acquisition was cancelled -> Nobody needs the infra anymore
+			if(!hedgedStart.cancel())
+			{
+				hedgedStart.abandon();
+			}
+			LOG.warn("[{}] Got interrupted", this.name, ie);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for infra", ie);
+		}
+		catch(final Exception e)
+		{
+			hedgedStart.abandon();
+			throw new IllegalStateException("Unable to start infra", e);
+		}
+		finally
+		{
+			this.finishAcquireEvent(acquireEvent, hedgedStart);
+			if(LOG.isInfoEnabled())
+			{
+				LOG.info(
+					"[{}] Finished waiting for infra, took {}ms",
+					this.name,
+					System.currentTimeMillis() - startTime);
+			}
+		}
+		
+		if(!startingInfra.infra().getContainer().isRunning())
+		{
+			throw new IllegalStateException("Container is not running! " + startingInfra.infra().getContainer());
+		}
+		
+		return startingInfra;
+	}
+	
+	protected void finishAcquireEvent(
+		final AcquireEvent acquireEvent,
+		final HedgedStart<StartingInfra<I>> hedgedStart)
+	{
+		acquireEvent.finish(
+			this.name,
+			hedgedStart.first().isDone() && !hedgedStart.first().isCompletedExceptionally()
+				? hedgedStart.first().join().infra().getName()
+				: null);
+	}
+	
+	/**
+	 * Takes infrastructure from the pool or boots a new one - without waiting for it.
+	 */
+	protected StartingInfra<I> startAcquire(final DirectNetworkAttachInfo directAttachNetwork)
+	{
+		return this.preStartedSource.get()
+			.filter(this::tryUnpause)
+			.orElseGet(() -> this.starter.boot(directAttachNetwork, false));
+	}
+	
+	/**
+	 * Unpauses infrastructure that was taken from the pool (if it was paused there).
+	 *
+	 * @return <code>false</code> if this failed; the infrastructure is stopped and a new one should be booted
+	 */
+	protected boolean tryUnpause(final StartingInfra<I> preStarted)
+	{
+		try
+		{
+			this.pauser.unpause(preStarted);
+			return true;
+		}
+		catch(final Exception ex)
+		{
+			LOG.warn("[{}] Failed to unpause pre-started infra; Falling back to a cold start", this.name, ex);
+			this.cancel(preStarted);
+			return false;
+		}
+	}
+	
+	/**
+	 * Waits for the start of the infrastructure and launches a second (hedged) start if it takes unusually long and
+	 * hedging is enabled.
+	 */
+	protected HedgedStart<StartingInfra<I>> startHedged(final StartingInfra<I> primary)
+	{
+		// Directly attached infra can't be exchanged (and also not be salvaged)
+		return this.hedgedStarter != null
+			? this.hedgedStarter.start(primary, primary.requiresNetworkConnect())
+			: new HedgedStart<>(primary, StartingInfra::startFuture, this::abandon, this::cancel);
+	}
+	
+	protected DirectNetworkAttachInfo directNetworkAttachInfo(final Network network, final List<String> aliases)
+	{
+		return this.useDirectNetworkAttachIfPossible && network != null
+			? new DirectNetworkAttachInfo(network, aliases)
+			: null;
+	}
+	
+	protected static List<String> filterAliases(final String... aliases)
+	{
+		return Stream.of(aliases)
+			.filter(Objects::nonNull)
+			.toList();
+	}
+	
+	// region Abandoning
+	/**
+	 * Gives up on infrastructure whose waiter didn't get it in time (e.g. the acquire timeout was exceeded).
+	 * <ul>
+	 *     <li>Starts that are still queued are cancelled</li>
+	 *     <li>Starts that are still running are salvaged if possible: They are handed over to the pool like a
+	 *     PreStart (and can therefore be claimed by the next waiter). Otherwise they are aborted.</li>
+	 *     <li>Infrastructure that already finished starting is stopped (it might be broken or attached to a
+	 *     network)</li>
+	 * </ul>
+	 */
+	protected void abandon(final StartingInfra<I> startingInfra)
+	{
+		final CompletableFuture<Void> startFuture = startingInfra.startFuture();
+		if(startFuture.cancel(false))
+		{
+			// Was still queued -> nothing to stop
+			return;
+		}
+		if(!startFuture.isDone() && this.preStarter.trySalvage(startingInfra))
+		{
+			return;
+		}
+		this.cancel(startingInfra);
+	}
+	
+	/**
+	 * Cancels the start of the infrastructure: Queued starts are cancelled, running starts are interrupted (which
+	 * aborts pending Docker work like waiting for the container to become ready) and everything that was started is
+	 * stopped.
+	 */
+	protected void cancel(final StartingInfra<I> startingInfra)
+	{
+		final CompletableFuture<Void> startFuture = startingInfra.startFuture();
+		if(startFuture.cancel(true))
+		{
+			// Was still queued -> nothing to stop
+			return;
+		}
+		startFuture
+			.handle((ignored, ex) -> null)
+			.thenRun(() -> this.starter.handleStartFail(startingInfra.infra()));
+	}
+	// endregion
+	
+	
+	protected class AcquirerStarts implements HedgedStarter.Starts<StartingInfra<I>>
+	{
+		@Override
+		public CompletableFuture<?> startFuture(final StartingInfra<I> start)
+		{
+			return start.startFuture();
+		}
+		
+		@Override
+		public long executionStartedAtMs(final StartingInfra<I> start)
+		{
+			return start.executionStartedAtMs();
+		}
+		
+		@Override
+		public boolean canHedge()
+		{
+			return InfraAcquirer.this.starter.canStartImmediately();
+		}
+		
+		@Override
+		public StartingInfra<I> startHedge()
+		{
+			return InfraAcquirer.this.starter.boot(null, false);
+		}
+		
+		@Override
+		public void abandon(final StartingInfra<I> start)
+		{
+			InfraAcquirer.this.abandon(start);
+		}
+		
+		@Override
+		public void cancel(final StartingInfra<I> start)
+		{
+			InfraAcquirer.this.cancel(start);
+		}
+	}
+}
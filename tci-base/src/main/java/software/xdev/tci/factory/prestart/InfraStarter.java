@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.factory.prestart.executor.LaneStartExecutor;
+import software.xdev.tci.factory.prestart.executor.LaneStartExecutor.Lane;
+import software.xdev.tci.factory.prestart.resources.InfraResourceReserver;
+import software.xdev.tci.factory.prestart.snapshoting.SnapshotManager;
+import software.xdev.tci.portfixation.PortFixation;
+import software.xdev.tci.tracing.TCITracer;
+import software.xdev.tci.tracing.jfr.InfraBootEvent;
+import software.xdev.tci.tracing.jfr.PortFixationEvent;
+import software.xdev.tci.tracing.jfr.SnapshotEvent;
+import software.xdev.tci.tracing.jfr.StartQueueEvent;
+import software.xdev.tci.tracing.timeline.TCITimeline;
+
+
+/**
+ * Boots new infrastructure: It's built directly and started by the {@link LaneStartExecutor}.
+ */
+public class InfraStarter<C extends GenericContainer<C>, I extends TCI<C>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(InfraStarter.class);
+	
+	protected final String name;
+	protected final String containerBaseName;
+	protected final Supplier<C> containerBuilder;
+	protected final Function<C, I> infraBuilder;
+	/**
+	 * Executes the starts; demanded starts are prioritized over PreStarts
+	 */
+	protected final LaneStartExecutor startExecutor;
+	protected final InfraResourceReserver resourceReserver;
+	protected final boolean fixateExposedPortsIfRequired;
+	/**
+	 * Cleans up infrastructure whose start failed
+	 */
+	protected final Consumer<I> failHandler;
+	protected final AtomicInteger preStartCounter = new AtomicInteger(1);
+	
+	// Pre-registered as they are used on the hot path
+	protected final TCITracer.Timed traceBootNew;
+	protected final TCITracer.Timed traceInfraStart;
+	
+	protected SnapshotManager snapshotManager;
+	/**
+	 * Prepares PreStarted infrastructure before it's started; <code>null</code> = none
+	 */
+	protected Consumer<I> preStartPreparer;
+	/**
+	 * Receives the time (in ms) that successful starts took; <code>null</code> = none
+	 */
+	protected LongConsumer startTimeListener;
+	
+	public InfraStarter(
+		final String name,
+		final String containerBaseName,
+		final Supplier<C> containerBuilder,
+		final Function<C, I> infraBuilder,
+		final LaneStartExecutor startExecutor,
+		final InfraResourceReserver resourceReserver,
+		final boolean fixateExposedPortsIfRequired,
+		final Consumer<I> failHandler,
+		final TCITracer tracer)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.containerBaseName = Objects.requireNonNull(containerBaseName);
+		this.containerBuilder = Objects.requireNonNull(containerBuilder);
+		this.infraBuilder = Objects.requireNonNull(infraBuilder);
+		this.startExecutor = Objects.requireNonNull(startExecutor);
+		this.resourceReserver = Objects.requireNonNull(resourceReserver);
+		this.fixateExposedPortsIfRequired = fixateExposedPortsIfRequired;
+		this.failHandler = Objects.requireNonNull(failHandler);
+		this.traceBootNew = tracer.getTimedOrCreate("bootNew");
+		this.traceInfraStart = tracer.getTimedOrCreate("infraStart(async)");
+	}
+	
+	public InfraStarter<C, I> withSnapshotManager(final SnapshotManager snapshotManager)
+	{
+		this.snapshotManager = snapshotManager;
+		return this;
+	}
+	
+	public InfraStarter<C, I> withPreStartPreparer(final Consumer<I> preStartPreparer)
+	{
+		this.preStartPreparer = preStartPreparer;
+		return this;
+	}
+	
+	public InfraStarter<C, I> withStartTimeListener(final LongConsumer startTimeListener)
+	{
+		this.startTimeListener = startTimeListener;
+		return this;
+	}
+	
+	/**
+	 * Builds new infrastructure and submits its start - without waiting for it.
+	 *
+	 * @param directAttachNetwork the network to directly attach the container to; <code>null</code> = none
+	 * @param preStarted          if the infrastructure is started for the pool (executed with a lower priority)
+	 */
+	public StartingInfra<I> boot(final DirectNetworkAttachInfo directAttachNetwork, final boolean preStarted)
+	{
+		LOG.info("[{}] Booting new infra", this.name);
+		
+		final long startTime = System.currentTimeMillis();
+		final long startNanos = System.nanoTime();
+		
+		try
+		{
+			final C container = this.containerBuilder.get();
+			Optional.ofNullable(directAttachNetwork)
+				.ifPresent(
+					// Add to network + aliases
+					i -> container.withNetwork(i.network())
+						.withNetworkAliases(i.aliases().toArray(String[]::new)));
+			
+			final I infra = this.infraBuilder.apply(container);
+			
+			final Lane lane = preStarted ? Lane.SPECULATIVE : Lane.DEMAND;
+			final long builtNanos = System.nanoTime();
+			final StartQueueEvent queueEvent = StartQueueEvent.start(lane.traceName());
+			
+			final AtomicLong executionStartedAtMs = new AtomicLong();
+			return new StartingInfra<>(
+				infra,
+				this.startExecutor.submit(lane, () -> {
+					final String containerName = this.containerBaseName
+						+ "-"
+						+ this.preStartCounter.getAndIncrement()
+						+ (preStarted ? "-PS" : "");
+					TCITimeline.instance().record(
+						TCITimeline.PROCESS_INFRA,
+						containerName,
+						"build",
+						startNanos,
+						builtNanos,
+						Map.of("factory", this.name));
+					queueEvent.finish(this.name, containerName);
+					
+					this.resourceReserver.reserve(infra, preStarted);
+					
+					executionStartedAtMs.set(System.currentTimeMillis());
+					this.start(infra, containerName, directAttachNetwork == null, preStarted);
+				}),
+				directAttachNetwork == null,
+				executionStartedAtMs);
+		}
+		finally
+		{
+			this.traceBootNew.addMs(System.currentTimeMillis() - startTime);
+		}
+	}
+	
+	/**
+	 * Starts the (already built) infrastructure. Executed by the {@link #startExecutor}.
+	 */
+	protected void start(
+		final I infra,
+		final String containerName,
+		final boolean fixateExposedPorts,
+		final boolean preStarted)
+	{
+		final C container = infra.getContainer();
+		
+		final InfraBootEvent bootEvent = InfraBootEvent.start(preStarted);
+		final long startTimeInfra = System.currentTimeMillis();
+		final long startNanosInfra = System.nanoTime();
+		try
+		{
+			if(preStarted && this.preStartPreparer != null)
+			{
+				this.preStartPreparer.accept(infra);
+			}
+			// Fix ports for network attach later
+			if(fixateExposedPorts && this.fixateExposedPortsIfRequired)
+			{
+				final PortFixationEvent portFixationEvent = PortFixationEvent.start();
+				PortFixation.makeExposedPortsFix(container);
+				portFixationEvent.finish(this.name, containerName);
+			}
+			if(this.snapshotManager != null)
+			{
+				final SnapshotEvent snapshotEvent = SnapshotEvent.start(SnapshotEvent.REUSE);
+				this.snapshotManager.tryReuse(container);
+				snapshotEvent.finish(this.name, containerName);
+			}
+			
+			infra.start(containerName);
+			this.onStarted(container, System.currentTimeMillis() - startTimeInfra);
+			
+			if(this.snapshotManager != null)
+			{
+				final SnapshotEvent snapshotEvent = SnapshotEvent.start(SnapshotEvent.COMMIT);
+				this.snapshotManager.snapshot(container);
+				snapshotEvent.finish(this.name, containerName);
+			}
+			bootEvent.setSuccessful(true);
+		}
+		finally
+		{
+			this.traceInfraStart.addNanos(System.nanoTime() - startNanosInfra);
+			bootEvent.finish(this.name, containerName);
+		}
+	}
+	
+	/**
+	 * Called when the infrastructure was successfully started (before snapshotting)
+	 */
+	protected void onStarted(final C container, final long startMs)
+	{
+		if(this.startTimeListener != null)
+		{
+			this.startTimeListener.accept(startMs);
+		}
+		this.resourceReserver.observeMemoryLimit(container);
+	}
+	
+	/**
+	 * Cleans up infrastructure whose start failed (asynchronously).
+	 */
+	public void handleStartFail(final I infra)
+	{
+		this.failHandler.accept(infra);
+	}
+	
+	/**
+	 * @return <code>true</code> if a new start would be executed immediately (no demanded starts are waiting)
+	 */
+	public boolean canStartImmediately()
+	{
+		return this.startExecutor.getQueuedCount(Lane.DEMAND) == 0 && !this.startExecutor.isShutdown();
+	}
+	
+	public TCITracer.Timed getTraceInfraStart()
+	{
+		return this.traceInfraStart;
+	}
+	
+	public OptionalDouble getAverageStartMs()
+	{
+		return this.traceInfraStart.getCountCalled() > 0
+			? OptionalDouble.of(this.traceInfraStart.getAverageMs())
+			: OptionalDouble.empty();
+	}
+}
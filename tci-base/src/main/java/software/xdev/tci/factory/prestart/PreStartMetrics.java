@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+
+/**
+ * Snapshot of metrics of a {@link PreStartableTCIFactory} that are relevant for scheduling PreStarts.
+ *
+ * @param factoryName        name of the factory
+ * @param deficit            how many infrastructures are missing in the pool to reach the keep-ready target
+ * @param missRate           recent rate (0-1) of requests that could not be served from the pool
+ * @param averageStartMs     observed average start time of the infrastructure; empty if nothing was started yet
+ * @param memoryLimitBytes   configured memory limit of the container; empty if unknown or unlimited
+ * @param preStarting        how many PreStarts are currently running
+ */
+public record PreStartMetrics(
+	String factoryName,
+	int deficit,
+	double missRate,
+	OptionalDouble averageStartMs,
+	OptionalLong memoryLimitBytes,
+	int preStarting)
+{
+}
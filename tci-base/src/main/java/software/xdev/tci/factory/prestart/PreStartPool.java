@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.Optional;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.factory.prestart.broker.SharedPoolBroker;
+
+
+/**
+ * The pool of PreStarted infrastructure of a {@link PreStartableTCIFactory} as it's used by the collaborators of the
+ * factory (e.g. for recycling or persistence).
+ */
+public interface PreStartPool<I extends TCI<?>>
+{
+	/**
+	 * @return the name of the factory (used for logging)
+	 */
+	String name();
+	
+	/**
+	 * @return <code>true</code> if the pool is active and has less infrastructure than it should keep ready
+	 */
+	boolean hasDeficit();
+	
+	/**
+	 * @return <code>false</code> if the pool no longer accepts infrastructure (e.g. because the factory was closed)
+	 */
+	boolean isAccepting();
+	
+	/**
+	 * @return a slot of the {@link SharedPoolBroker shared pool} or empty if it's full
+	 */
+	Optional<SharedPoolBroker.Lease> tryLease();
+	
+	/**
+	 * Hands ready infrastructure over to the pool. It's paused if configured.
+	 *
+	 * @return <code>false</code> if the pool didn't accept it (e.g. because it's full or no longer
+	 * {@link #isAccepting() accepting}); the caller stays responsible for the infrastructure in this case
+	 */
+	boolean offerReady(StartingInfra<I> ready);
+	
+	/**
+	 * @return the reason why the infrastructure is no longer usable or empty if it's fine
+	 */
+	Optional<String> findProblem(I infra);
+	
+	/**
+	 * Reserves the resources that are required by the infrastructure like it's done for PreStarts.
+	 *
+	 * @throws software.xdev.tci.budget.ResourceBudgetExceededException if there are not enough resources
+	 */
+	void reserveResources(I infra);
+}
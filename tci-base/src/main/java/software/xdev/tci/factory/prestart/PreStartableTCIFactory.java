@@ -16,34 +16,44 @@
 package software.xdev.tci.factory.prestart;
 
 import java.time.Duration;
-import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
 import org.rnorth.ducttape.unreliables.Unreliables;
-import org.testcontainers.DockerClientFactory;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.Network;
 
-import com.github.dockerjava.api.command.ConnectToNetworkCmd;
-import com.github.dockerjava.api.model.ContainerNetwork;
-
 import software.xdev.tci.TCI;
+import software.xdev.tci.budget.ResourceBudget;
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.factory.BaseTCIFactory;
 import software.xdev.tci.factory.prestart.config.PreStartConfig;
 import software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator;
+import software.xdev.tci.factory.prestart.executor.LaneStartExecutor;
+import software.xdev.tci.factory.prestart.hedging.HedgedStart;
+import software.xdev.tci.factory.prestart.hedging.HedgingPolicy;
+import software.xdev.tci.factory.prestart.keepready.AdaptiveKeepReady;
+import software.xdev.tci.factory.prestart.keepready.MissRate;
+import software.xdev.tci.factory.prestart.network.NetworkConnector;
+import software.xdev.tci.factory.prestart.pausing.PreStartPauser;
+import software.xdev.tci.factory.prestart.persistent.PersistentPool;
+import software.xdev.tci.factory.prestart.persistent.PersistentPoolHandler;
+import software.xdev.tci.factory.prestart.recycling.PreStartRecycler;
+import software.xdev.tci.factory.prestart.resources.InfraResourceReserver;
 import software.xdev.tci.factory.prestart.snapshoting.SnapshotManager;
+import software.xdev.tci.factory.prestart.validation.PreStartValidator;
 import software.xdev.tci.portfixation.PortFixation;
+import software.xdev.tci.tracing.TCITracer;
+import software.xdev.tci.tracing.jfr.PostProcessEvent;
 
 
 /**
@@ -142,33 +152,80 @@ import software.xdev.tci.portfixation.PortFixation;
 public class PreStartableTCIFactory<C extends GenericContainer<C>, I extends TCI<C>>
 	extends BaseTCIFactory<C, I>
 {
+	public static final int DEFAULT_RECYCLE_MAX_REUSE = PreStartRecycler.DEFAULT_MAX_REUSE;
+	
 	/**
 	 * Name (used for Thread-names and Logging)
 	 */
 	protected final String name;
 	/**
-	 * Has the following effects:
-	 * <ul>
-	 *     <li><code>true</code> (default) - Directly attaches the Container to the network during startup if
-	 *     possible</li>
-	 *     <li><code>false</code> - Performs a Network#connect as if PreStarting is active.
-	 *     This is slower however it emulates PreStarting better and may help finding bugs.</li>
-	 * </ul>
+	 * Amount of infrastructure to keep ready when {@link #adaptiveKeepReady} is not used.
 	 */
-	protected final boolean useDirectNetworkAttachIfPossible;
-	protected final boolean fixateExposedPortsIfRequired;
-	
-	// endregion
-	protected final LinkedBlockingQueue<StartingInfra<I>> preStartQueue;
+	protected final int keepReady;
+	/**
+	 * Adjusts the amount of infrastructure to keep ready based on the demand.
+	 * <p>
+	 * <code>null</code> if the fixed amount {@link #keepReady} should be used.
+	 * </p>
+	 */
+	protected final AdaptiveKeepReady adaptiveKeepReady;
+	/**
+	 * Recent rate of requests that could not be served from the pool; shared with the {@link #adaptiveKeepReady}
+	 */
+	protected final MissRate missRate;
 	
-	protected final AtomicInteger nextThreadId = new AtomicInteger(1);
+	/**
+	 * Executes the starts; demanded starts are prioritized over PreStarts
+	 */
+	protected final LaneStartExecutor startExecutor;
 	
-	protected final ThreadPoolExecutor executorService;
-	protected final AtomicInteger preStartCounter = new AtomicInteger(1);
+	// Pre-registered as it's used on the hot path
+	protected final TCITracer.Timed tracePostProcessNew = this.tracer.getTimedOrCreate("postProcessNew");
 	
 	protected final Timeouts timeouts;
 	
-	protected SnapshotManager snapshotManager;
+	/**
+	 * Checks if PreStarted infrastructure is still usable
+	 */
+	protected final PreStartValidator<I> validator;
+	/**
+	 * Reserves the resources that are required by the infrastructure
+	 */
+	protected final InfraResourceReserver resourceReserver;
+	/**
+	 * Pauses PreStarted containers while they are waiting inside the pool (if enabled)
+	 */
+	protected final PreStartPauser pauser;
+	/**
+	 * Boots new infrastructure
+	 */
+	protected final InfraStarter<C, I> starter;
+	/**
+	 * PreStarted infrastructure that is ready to use or still starting
+	 */
+	protected final DefaultPreStartPool<I> pool;
+	/**
+	 * Keeps PreStarted infrastructure alive between test runs; <code>null</code> = disabled
+	 */
+	protected final PersistentPoolHandler<I> persistentPoolHandler;
+	/**
+	 * Puts returned infrastructure back into the pool (if enabled)
+	 */
+	protected final PreStartRecycler<I> recycler;
+	/**
+	 * Fills the {@link #pool}
+	 */
+	protected final PreStarter<I> preStarter;
+	/**
+	 * Acquires infrastructure for tests
+	 */
+	protected final InfraAcquirer<C, I> acquirer;
+	/**
+	 * Frees resources for starts that are required by tests
+	 *
+	 * @see ResourceBudget#addReclaimer(BooleanSupplier)
+	 */
+	protected final BooleanSupplier preStartedReclaimer;
 	
 	public PreStartableTCIFactory(
 		final BiFunction<C, String, I> infraBuilder,
@@ -201,37 +258,117 @@ public class PreStartableTCIFactory<C extends GenericContainer<C>, I extends TCI
 		super(infraBuilder, containerBuilder, containerBaseName, containerLoggerName);
 		
 		this.name = Objects.requireNonNull(name);
+		this.timeouts = Objects.requireNonNull(timeouts);
 		
-		final int amountToKeepReady = config.keepReady(name);
-		this.preStartQueue = amountToKeepReady > 0 ? new LinkedBlockingQueue<>(amountToKeepReady) : null;
+		this.keepReady = config.keepReady(name);
+		this.adaptiveKeepReady = config.adaptiveKeepReady(name)
+			? new AdaptiveKeepReady(
+			config.keepReadyMin(name),
+			config.keepReadyMax(name),
+			this.keepReady,
+			config.adaptiveKeepReadyMinDemandPerHour(name))
+			: null;
+		this.missRate = this.adaptiveKeepReady != null
+			? this.adaptiveKeepReady.getMissRateSignal()
+			: new MissRate();
 		
-		this.useDirectNetworkAttachIfPossible = config.directNetworkAttachIfPossible(name);
-		this.fixateExposedPortsIfRequired = config.fixateExposedPortsIfRequired(name);
+		this.startExecutor = new LaneStartExecutor(
+			TCIExecutor.instance().newExecutorService("InfraPreStarter-" + this.name),
+			config.maxStartSimultan(name),
+			config.maxSpeculativeStartSimultan(name),
+			this.tracer);
 		
-		final int maxAmountStartingSimultaneously = config.maxStartSimultan(name);
+		this.validator = new PreStartValidator<>(name, config.preStartedMaxIdleMs(name));
+		this.resourceReserver = new InfraResourceReserver(name, this.tracer);
+		this.pauser = new PreStartPauser(name, config.pausePreStarted(name), this.tracer);
+		this.starter = new InfraStarter<>(
+			name,
+			containerBaseName,
+			this::buildContainer,
+			c -> this.infraBuilder.apply(c, null),
+			this.startExecutor,
+			this.resourceReserver,
+			config.fixateExposedPortsIfRequired(name),
+			this::handleInfraStartFail,
+			this.tracer);
+		this.pool = new DefaultPreStartPool<>(
+			name,
+			this.adaptiveKeepReady != null ? this.adaptiveKeepReady.getMax() : this.keepReady,
+			this::getKeepReadyTarget,
+			() -> !this.startExecutor.isShutdown(),
+			this.validator,
+			this.pauser,
+			this.resourceReserver,
+			this.tracer,
+			this.starter.getTraceInfraStart());
+		// Discards the oldest ready PreStarted infrastructure
+		this.preStartedReclaimer = this.pool::reclaim;
 		
-		final ThreadFactory threadFactory = r ->
+		final PersistentPool persistentPool = this.pool.isEnabled() && config.persistent(name)
+			? this.createPersistentPool(config)
+			: null;
+		if(persistentPool != null)
+		{
+			this.persistentPoolHandler = new PersistentPoolHandler<>(
+				persistentPool,
+				this.pool,
+				() -> this.infraBuilder.apply(this.buildContainer(), null),
+				this.tracer)
+				.withOnAdopted(this::requestPreStart);
+			this.starter.withPreStartPreparer(this.persistentPoolHandler::prepare);
+			this.pool.withPersister(this.persistentPoolHandler::tryPersist);
+		}
+		else
 		{
-			final Thread t = new Thread(r);
-			t.setDaemon(true);
-			t.setName("InfraPreStarter-" + this.name + "-" + this.nextThreadId.getAndIncrement());
-			return t;
-		};
-		this.executorService = maxAmountStartingSimultaneously < 0
-			? (ThreadPoolExecutor)Executors.newCachedThreadPool(threadFactory)
-			: (ThreadPoolExecutor)Executors.newFixedThreadPool(maxAmountStartingSimultaneously, threadFactory);
+			this.persistentPoolHandler = null;
+		}
 		
-		this.timeouts = Objects.requireNonNull(timeouts);
+		this.recycler = new PreStartRecycler<>(this.pool, timeouts.getConnectToNetworkTimeout(), this.tracer);
+		this.preStarter = new PreStarter<>(name, this.pool, this.starter, this::requestPreStart);
+		this.acquirer = new InfraAcquirer<>(
+			name,
+			this.starter,
+			this.preStarter,
+			new NetworkConnector(name, timeouts.getConnectToNetworkTimeout(), this.tracer),
+			this.pauser,
+			this.recycler,
+			timeouts.getAcquireTimeout(),
+			this::pollPreStarted,
+			config.directNetworkAttachIfPossible(name));
+		if(config.hedging(name))
+		{
+			final HedgingPolicy hedgingPolicy = new HedgingPolicy(config.hedgingPercentile(name));
+			this.starter.withStartTimeListener(hedgingPolicy::recordStartMs);
+			this.acquirer.withHedging(hedgingPolicy, this.tracer);
+		}
 		
 		this.registerToPreStartCoordinator();
 	}
 	
+	protected PersistentPool createPersistentPool(final PreStartConfig config)
+	{
+		if(!PersistentPool.isSupported())
+		{
+			this.log().warn(
+				"[{}] Persistent pool requires that Testcontainers reuse is enabled "
+					+ "(testcontainers.reuse.enable=true); Ignoring it",
+				this.name);
+			return null;
+		}
+		return new PersistentPool(
+			this.name,
+			this.containerBaseName,
+			config.persistentIdleTtlMs(this.name),
+			config.persistentAbandonedTtlMs(this.name));
+	}
+	
 	@SuppressWarnings("resource")
 	protected void registerToPreStartCoordinator()
 	{
 		if(!this.isPreStartingDisabled())
 		{
 			GlobalPreStartCoordinator.instance().register(this);
+			ResourceBudget.instance().addReclaimer(this.preStartedReclaimer);
 		}
 	}
 	
@@ -240,197 +377,200 @@ public class PreStartableTCIFactory<C extends GenericContainer<C>, I extends TCI
 	 */
 	public PreStartableTCIFactory<C, I> withSnapshotManager(final SnapshotManager snapshotManager)
 	{
-		this.snapshotManager = snapshotManager;
+		this.starter.withSnapshotManager(snapshotManager);
+		return this;
+	}
+	
+	/**
+	 * Additional probe that checks if PreStarted infrastructure inside the pool is still usable, e.g. by executing a
+	 * cheap query.
+	 * <p>
+	 * The probe is executed periodically in the background. If it returns <code>false</code> (or fails) the
+	 * infrastructure is evicted and replaced.
+	 * </p>
+	 *
+	 * @see #validatePreStarted()
+	 */
+	public PreStartableTCIFactory<C, I> withPreStartedProbe(final Predicate<I> preStartedProbe)
+	{
+		this.validator.withProbe(preStartedProbe);
+		return this;
+	}
+	
+	/**
+	 * Recycles returned infrastructure: Instead of stopping it, it's reset using the given hook and put back into the
+	 * PreStart pool.
+	 * <p>
+	 * Only infrastructure that was not directly attached to a network can be recycled. The hook is executed after
+	 * the infrastructure was disconnected from its network. If the hook fails or the infrastructure is not healthy
+	 * afterward it's destroyed.
+	 * </p>
+	 * <p>
+	 * Note: {@link TCI#stop()} is still called when the infrastructure is returned. Implementations that release e.g.
+	 * clients there need to re-initialize them (lazily or inside the hook).
+	 * </p>
+	 *
+	 * @param resetHook Resets the infrastructure (e.g. truncates the database)
+	 * @param maxReuse  How often infrastructure can be reused at most before it's destroyed
+	 */
+	public PreStartableTCIFactory<C, I> withRecycling(final Consumer<I> resetHook, final int maxReuse)
+	{
+		this.recycler.withResetHook(resetHook, maxReuse);
+		return this;
+	}
+	
+	public PreStartableTCIFactory<C, I> withRecycling(final Consumer<I> resetHook)
+	{
+		return this.withRecycling(resetHook, DEFAULT_RECYCLE_MAX_REUSE);
+	}
+	
+	/**
+	 * Decides if returned infrastructure should be recycled.
+	 *
+	 * @see #withRecycling(Consumer, int)
+	 */
+	public PreStartableTCIFactory<C, I> withRecyclePolicy(final BiPredicate<I, Integer> recyclePolicy)
+	{
+		this.recycler.withPolicy(recyclePolicy);
 		return this;
 	}
 	
 	public void schedulePreStart()
 	{
-		if(this.preStartQueue == null)
+		if(this.isPreStartingDisabled())
 		{
 			return;
 		}
 		
-		this.preStartQueue.removeIf(preStarted -> preStarted.startFuture().isCompletedExceptionally());
-		if(this.preStartQueue.remainingCapacity() > 0)
+		// Adopt persisted infrastructure first
+		// Done in the background as this is usually the coordinator's thread (which must not be blocked)
+		if(this.persistentPoolHandler != null && !this.persistentPoolHandler.adoptPersistedAsync())
 		{
-			this.preStartQueue.add(this.bootNew(null, true));
+			return;
 		}
+		
+		this.preStarter.schedule(this.getKeepReadyTarget());
 	}
 	
-	protected StartingInfra<I> bootNew(final DirectNetworkAttachInfo directAttachNetwork)
+	/**
+	 * Signals the {@link GlobalPreStartCoordinator} that the pool changed and might need to be replenished.
+	 */
+	@SuppressWarnings("resource")
+	protected void requestPreStart()
 	{
-		return this.bootNew(directAttachNetwork, false);
+		if(!this.isPreStartingDisabled())
+		{
+			GlobalPreStartCoordinator.instance().requestPreStart(this);
+		}
 	}
 	
-	protected StartingInfra<I> bootNew(
-		final DirectNetworkAttachInfo directAttachNetwork,
-		final boolean preStarted)
+	/**
+	 * @return the amount of infrastructure that should currently be kept ready
+	 */
+	public int getKeepReadyTarget()
 	{
-		this.log().info("[{}] Booting new infra", this.name);
-		
-		final long startTime = System.currentTimeMillis();
-		
-		try
+		if(this.isPreStartingDisabled())
 		{
-			final C container = this.buildContainer();
-			Optional.ofNullable(directAttachNetwork)
-				.ifPresent(
-					// Add to network + aliases
-					i -> container.withNetwork(i.network())
-						.withNetworkAliases(i.aliases().toArray(String[]::new)));
-			
-			final I infra = this.infraBuilder.apply(container, null);
-			
-			return new StartingInfra<>(
-				infra,
-				CompletableFuture.runAsync(() -> {
-					final long startTimeInfra = System.currentTimeMillis();
-					try
-					{
-						// Fix ports for network attach later
-						if(directAttachNetwork == null && this.fixateExposedPortsIfRequired)
-						{
-							PortFixation.makeExposedPortsFix(container);
-						}
-						if(this.snapshotManager != null)
-						{
-							this.snapshotManager.tryReuse(container);
-						}
-						
-						infra.start(this.containerBaseName
-							+ "-"
-							+ this.preStartCounter.getAndIncrement()
-							+ (preStarted ? "-PS" : ""));
-						
-						if(this.snapshotManager != null)
-						{
-							this.snapshotManager.snapshot(container);
-						}
-					}
-					finally
-					{
-						this.tracer.timedAdd("infraStart(async)", System.currentTimeMillis() - startTimeInfra);
-					}
-				}, this.executorService),
-				directAttachNetwork == null);
-		}
-		finally
-		{
-			this.tracer.timedAdd("bootNew", System.currentTimeMillis() - startTime);
+			return 0;
 		}
+		return this.adaptiveKeepReady != null ? this.adaptiveKeepReady.target() : this.keepReady;
 	}
 	
-	protected StartingInfra<I> acquireNew(final DirectNetworkAttachInfo directAttachNetwork)
+	public Optional<AdaptiveKeepReady> getAdaptiveKeepReady()
 	{
-		this.log().info("[{}] Getting a new infra; Timeout={}", this.name, this.timeouts.getAcquireTimeout());
-		final long startTime = System.currentTimeMillis();
-		
-		final StartingInfra<I> startingInfra =
-			this.isPreStartingDisabled()
-				? this.bootNew(directAttachNetwork)
-				// Try to use preStarting from queue or else boot a new one
-				: Optional.ofNullable(this.preStartQueue.poll())
-				.orElseGet(() -> this.bootNew(directAttachNetwork));
-		
-		try
-		{
-			startingInfra.startFuture().get(this.timeouts.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
-		}
-		catch(final InterruptedException ie)
-		{
-			this.handleInterrupt(ie);
-		}
-		catch(final Exception e)
-		{
-			// Try to clean up
-			this.handleInfraStartFail(startingInfra.infra());
-			throw new IllegalStateException("Unable to start infra", e);
-		}
-		finally
+		return Optional.ofNullable(this.adaptiveKeepReady);
+	}
+	
+	/**
+	 * Takes infrastructure from the pool or claims the PreStart that will finish the earliest (if available) and
+	 * records the demand.
+	 */
+	protected Optional<StartingInfra<I>> pollPreStarted()
+	{
+		if(this.isPreStartingDisabled())
 		{
-			if(this.log().isInfoEnabled())
-			{
-				this.log().info(
-					"[{}] Finished waiting for infra, took {}ms",
-					this.name,
-					System.currentTimeMillis() - startTime);
-			}
+			return Optional.empty();
 		}
 		
-		if(!startingInfra.infra().getContainer().isRunning())
-		{
-			throw new IllegalStateException("Container is not running! " + startingInfra.infra().getContainer());
-		}
+		final Optional<StartingInfra<I>> ready = this.pool.pollReady();
+		this.recordPoolAccess(ready.isPresent());
 		
-		return startingInfra;
+		final Optional<StartingInfra<I>> preStarted = ready.or(this.pool::claimInFlight);
+		// No longer waiting inside the pool
+		preStarted.ifPresent(s -> s.leavePool(this.name));
+		this.requestPreStart();
+		return preStarted;
 	}
 	
-	protected I newInternal(final Network network, final String... aliases)
+	protected void recordPoolAccess(final boolean hit)
 	{
-		final List<String> filteredAliases = Stream.of(aliases)
-			.filter(Objects::nonNull)
-			.toList();
-		
-		final StartingInfra<I> startingInfra = this.acquireNew(this.useDirectNetworkAttachIfPossible && network != null
-			? new DirectNetworkAttachInfo(network, filteredAliases)
-			: null);
-		final I infra = startingInfra.infra();
-		
-		try
+		if(this.adaptiveKeepReady != null)
 		{
-			if(network != null && startingInfra.requiresNetworkConnect())
-			{
-				final long connectToNetworkStartTime = System.currentTimeMillis();
-				
-				this.connectContainerToNetwork(infra.getContainer(), network, filteredAliases);
-				
-				this.tracer.timedAdd("connectToNetwork", System.currentTimeMillis() - connectToNetworkStartTime);
-			}
-			
-			filteredAliases.stream()
-				.findFirst()
-				.ifPresent(infra::setNetworkAlias);
+			// Also records the miss rate
+			this.adaptiveKeepReady.recordAcquire(hit);
 		}
-		catch(final RuntimeException rex)
+		else
 		{
-			this.handleInfraStartFail(infra);
-			throw rex;
+			this.missRate.record(hit);
 		}
-		
-		return infra;
 	}
 	
-	protected void connectContainerToNetwork(
-		final GenericContainer<?> container,
-		final Network network,
-		final List<String> aliases)
+	// region Validation
+	/**
+	 * Validates the ready infrastructure inside the pool and evicts infrastructure that
+	 * <ul>
+	 *     <li>is idle for too long</li>
+	 *     <li>is no longer running or unhealthy (e.g. crashed or OOM killed)</li>
+	 *     <li>failed the {@link #withPreStartedProbe(Predicate) probe}</li>
+	 * </ul>
+	 * Evicted infrastructure is replaced asynchronously.
+	 * <p>
+	 * This is usually called periodically by the {@link GlobalPreStartCoordinator}.
+	 * </p>
+	 */
+	public void validatePreStarted()
 	{
-		@SuppressWarnings("resource") // lazy-client is singleton -> if closed nothing works anymore
-		final ConnectToNetworkCmd connectToNetworkCmd = DockerClientFactory.lazyClient()
-			.connectToNetworkCmd()
-			.withNetworkId(network.getId())
-			.withContainerId(container.getContainerId());
-		if(!aliases.isEmpty())
+		if(this.pool.validate() > 0)
 		{
-			connectToNetworkCmd.withContainerNetwork(new ContainerNetwork().withAliases(aliases));
+			this.requestPreStart();
 		}
+	}
+	// endregion
+	
+	
+	@Override
+	protected void warmUpInternal()
+	{
+		super.warmUpInternal();
+		Optional.ofNullable(this.persistentPoolHandler).ifPresent(PersistentPoolHandler::adoptPersisted);
+	}
+	
+	
+	@Override
+	protected I registerReturned(final I infra)
+	{
+		super.registerReturned(infra);
+		this.recycler.registerReturned(infra);
+		return infra;
+	}
+	
+	
+	/**
+	 * @return the current metrics that are relevant for scheduling PreStarts
+	 */
+	public PreStartMetrics getPreStartMetrics()
+	{
+		final int deficit = this.isPreStartingDisabled()
+			? 0
+			: Math.max(0, this.getKeepReadyTarget() - this.pool.count());
 		
-		try
-		{
-			CompletableFuture.runAsync(connectToNetworkCmd::exec)
-				.get(this.timeouts.getConnectToNetworkTimeout().toMillis(), TimeUnit.MILLISECONDS);
-		}
-		catch(final InterruptedException ie)
-		{
-			this.handleInterrupt(ie);
-		}
-		catch(final Exception e)
-		{
-			throw new IllegalStateException(
-				"Unable to connect container[" + container + "] to network[" + network + "]",
-				e);
-		}
+		return new PreStartMetrics(
+			this.name,
+			deficit,
+			this.missRate.get(),
+			this.starter.getAverageStartMs(),
+			this.resourceReserver.getObservedMemoryLimitBytes(),
+			this.pool.countInFlight());
 	}
 	
 	public I getNew(final Network network, final String... aliases)
@@ -438,24 +578,73 @@ public class PreStartableTCIFactory<C extends GenericContainer<C>, I extends TCI
 		this.warmUp();
 		
 		this.log().info("Getting new infra");
-		final long startTime = System.currentTimeMillis();
+		final long startNanos = System.nanoTime();
 		
 		final I infra = this.registerReturned(Unreliables.retryUntilSuccess(
 			this.getNewTryCount,
-			() -> this.newInternal(network, aliases)));
+			() -> this.acquirer.acquire(network, aliases)));
 		
-		final long startTimePostProcess = System.currentTimeMillis();
-		this.postProcessNew(infra);
-		this.tracer.timedAdd("postProcessNew", System.currentTimeMillis() - startTimePostProcess);
+		this.postProcessNewTraced(infra);
 		
-		final long ms = System.currentTimeMillis() - startTime;
-		this.log().info("Got new infra, took {}ms", ms);
+		final long nanos = System.nanoTime() - startNanos;
+		this.log().info("Got new infra, took {}ms", TimeUnit.NANOSECONDS.toMillis(nanos));
 		
-		this.tracer.timedAdd("getNew", ms);
+		this.traceGetNew.addNanos(nanos);
 		
 		return infra;
 	}
 	
+	/**
+	 * Asynchronous variant of {@link #getNew(Network, String...)}.
+	 * <p>
+	 * No thread is blocked while waiting for the infrastructure: The returned future is completed once the start
+	 * finished. Failed attempts are retried (see {@link #setGetNewTryCount(int)}); every attempt is limited by
+	 * {@link Timeouts#getAcquireTimeout()}.
+	 * </p>
+	 * <p>
+	 * Cancelling the returned future cancels the start if it's not running yet. Infrastructure that is started anyway
+	 * is stopped.
+	 * </p>
+	 */
+	public CompletableFuture<I> getNewAsync(final Network network, final String... aliases)
+	{
+		this.log().info("Getting new infra (async)");
+		final long startNanos = System.nanoTime();
+		
+		final AtomicReference<HedgedStart<StartingInfra<I>>> currentAttempt = new AtomicReference<>();
+		final CompletableFuture<I> request = new CompletableFuture<>();
+		
+		(this.warmedUp ? CompletableFuture.completedFuture(null) : TCIExecutor.instance().runAsync(this::warmUp))
+			.thenCompose(ignored -> this.retryAsync(
+				() -> this.acquirer.acquireAsync(network, currentAttempt, aliases),
+				request::isDone))
+			.thenApplyAsync(
+				infra -> {
+					this.registerReturned(infra);
+					
+					this.postProcessNewTraced(infra);
+					return infra;
+				}, TCIExecutor.instance())
+			.whenComplete((infra, ex) -> {
+				if(this.completeAsyncRequest(request, infra, ex))
+				{
+					final long nanos = System.nanoTime() - startNanos;
+					this.log().info("Got new infra (async), took {}ms", TimeUnit.NANOSECONDS.toMillis(nanos));
+					this.traceGetNewAsync.addNanos(nanos);
+				}
+			});
+		
+		request.whenComplete((ignored, ex) -> {
+			if(request.isCancelled())
+			{
+				// Don't start it when it's still queued and abort it when it's currently starting
+				// Infrastructure that was already started is stopped by the attempt
+				Optional.ofNullable(currentAttempt.get()).ifPresent(HedgedStart::cancel);
+			}
+		});
+		return request;
+	}
+	
 	/**
 	 * This method can be used for post-processing after new infra was acquired.
 	 * <p>
@@ -468,9 +657,20 @@ public class PreStartableTCIFactory<C extends GenericContainer<C>, I extends TCI
 		// NO OP
 	}
 	
+	protected void postProcessNewTraced(final I infra)
+	{
+		final PostProcessEvent postProcessEvent = PostProcessEvent.start();
+		final long startNanos = System.nanoTime();
+		
+		this.postProcessNew(infra);
+		
+		this.tracePostProcessNew.addNanos(System.nanoTime() - startNanos);
+		postProcessEvent.finish(this.name, infra.getName());
+	}
+	
 	protected boolean isPreStartingDisabled()
 	{
-		return this.preStartQueue == null;
+		return !this.pool.isEnabled();
 	}
 	
 	@SuppressWarnings("resource")
@@ -481,57 +681,15 @@ public class PreStartableTCIFactory<C extends GenericContainer<C>, I extends TCI
 		if(!this.isPreStartingDisabled())
 		{
 			GlobalPreStartCoordinator.instance().unregister(this);
+			ResourceBudget.instance().removeReclaimer(this.preStartedReclaimer);
 		}
-		this.executorService.shutdown();
-		final List<CompletableFuture<Void>> stopCFs = this.preStartQueue.stream()
-			.map(i -> CompletableFuture.runAsync(() ->
-			{
-				try
-				{
-					i.infra().stop();
-				}
-				catch(final Exception e)
-				{
-					this.log().warn("[{}] Failed to shutdown infra", this.name, e);
-				}
-			}))
-			.toList();
-		stopCFs.forEach(CompletableFuture::join);
-		// De-Ref for GC
-		this.preStartQueue.clear();
+		this.startExecutor.shutdown();
+		this.pool.shutdown();
 		
 		super.close();
 	}
 	
 	// region Utility
-	protected void handleInterrupt(final InterruptedException ie)
-	{
-		this.log().warn("[{}] Got interrupted", this.name, ie);
-		Thread.currentThread().interrupt();
-	}
-	
-	protected record StartingInfra<I>(
-		I infra,
-		CompletableFuture<Void> startFuture,
-		boolean requiresNetworkConnect)
-	{
-		public StartingInfra
-		{
-			Objects.requireNonNull(infra);
-			Objects.requireNonNull(startFuture);
-		}
-	}
-	
-	
-	protected record DirectNetworkAttachInfo(Network network, List<String> aliases)
-	{
-		public DirectNetworkAttachInfo
-		{
-			Objects.requireNonNull(network);
-		}
-	}
-	
-	
 	public static class Timeouts
 	{
 		private Duration acquireTimeout = Duration.ofMinutes(3);
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.budget.ResourceBudgetExceededException;
+import software.xdev.tci.factory.prestart.broker.SharedPoolBroker;
+
+
+/**
+ * Launches PreStarts and hands them over to the pool once they are ready.
+ * <p>
+ * Failed PreStarts cause a back off, so that a broken infrastructure is not restarted in a tight loop.
+ * </p>
+ */
+public class PreStarter<I extends TCI<?>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PreStarter.class);
+	
+	protected static final long MAX_FAILURE_BACKOFF_MS = 60_000;
+	
+	protected final String name;
+	protected final DefaultPreStartPool<I> pool;
+	protected final InfraStarter<?, I> starter;
+	/**
+	 * Signals that the pool changed and might need to be replenished
+	 */
+	protected final Runnable requestPreStart;
+	/**
+	 * Failed PreStarts in a row
+	 */
+	protected final AtomicInteger consecutiveFailures = new AtomicInteger();
+	protected final AtomicLong backoffUntilMs = new AtomicLong();
+	
+	public PreStarter(
+		final String name,
+		final DefaultPreStartPool<I> pool,
+		final InfraStarter<?, I> starter,
+		final Runnable requestPreStart)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.pool = Objects.requireNonNull(pool);
+		this.starter = Objects.requireNonNull(starter);
+		this.requestPreStart = Objects.requireNonNull(requestPreStart);
+	}
+	
+	/**
+	 * Adjusts the pool to the target amount: Excess infrastructure is discarded and a PreStart is launched if there
+	 * is a deficit.
+	 */
+	public void schedule(final int target)
+	{
+		this.pool.trim(target);
+		if(this.pool.count() < target
+			&& this.pool.hasCapacity()
+			&& System.currentTimeMillis() >= this.backoffUntilMs.get())
+		{
+			final Optional<SharedPoolBroker.Lease> lease = this.pool.tryLease();
+			if(lease.isEmpty())
+			{
+				LOG.trace("[{}] Shared pool is full", this.name);
+				return;
+			}
+			
+			final StartingInfra<I> startingInfra = this.starter.boot(null, true);
+			startingInfra.setPoolLease(lease.get());
+			this.track(startingInfra);
+		}
+	}
+	
+	/**
+	 * Tries to hand over a start that is still running (and was abandoned by its waiter) to the pool.
+	 * <p>
+	 * This is only possible when the infrastructure is not directly attached to the network of the waiter and the
+	 * pool has a deficit.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the infrastructure is now owned by the pool
+	 */
+	public boolean trySalvage(final StartingInfra<I> startingInfra)
+	{
+		if(!startingInfra.requiresNetworkConnect() || !this.pool.hasDeficit())
+		{
+			return false;
+		}
+		final Optional<SharedPoolBroker.Lease> lease = this.pool.tryLease();
+		if(lease.isEmpty())
+		{
+			return false;
+		}
+		
+		// Ownership of the abandoned one was already transferred to the waiter -> track it as new PreStart
+		final StartingInfra<I> salvaged = new StartingInfra<>(
+			startingInfra.infra(),
+			startingInfra.startFuture(),
+			true,
+			startingInfra.executionStartedAtMs);
+		salvaged.setPoolLease(lease.get());
+		this.track(salvaged);
+		
+		LOG.info("[{}] Salvaging start that was abandoned by its waiter into the pool", this.name);
+		return true;
+	}
+	
+	protected void track(final StartingInfra<I> startingInfra)
+	{
+		this.pool.addInFlight(startingInfra);
+		startingInfra.startFuture().whenComplete((ignored, ex) -> this.onCompleted(startingInfra, ex));
+	}
+	
+	protected void onCompleted(final StartingInfra<I> startingInfra, final Throwable ex)
+	{
+		this.pool.removeInFlight(startingInfra);
+		if(ex != null)
+		{
+			startingInfra.releasePoolLease();
+		}
+		
+		if(startingInfra.startFuture().isCancelled())
+		{
+			// Was never started
+			return;
+		}
+		if(ex instanceof ResourceBudgetExceededException
+			|| ex != null && ex.getCause() instanceof ResourceBudgetExceededException)
+		{
+			// Was never started - will be retried once resources are available
+			LOG.debug("[{}] Skipped PreStart: {}", this.name, ex.getMessage());
+			return;
+		}
+		if(ex == null)
+		{
+			this.consecutiveFailures.set(0);
+			// Hand over to the pool - if no waiter claimed it in the meantime
+			startingInfra.markReady();
+			if(startingInfra.tryClaim())
+			{
+				this.handOver(startingInfra);
+			}
+			return;
+		}
+		
+		if(startingInfra.tryClaim())
+		{
+			this.starter.handleStartFail(startingInfra.infra());
+		}
+		
+		final int failures = this.consecutiveFailures.incrementAndGet();
+		final long backoffMs = Math.min(
+			MAX_FAILURE_BACKOFF_MS,
+			1_000L << Math.min(failures - 1, 16));
+		this.backoffUntilMs.set(System.currentTimeMillis() + backoffMs);
+		LOG.warn("[{}] PreStart failed {}x in a row; Backing off for {}ms", this.name, failures, backoffMs, ex);
+		
+		this.requestPreStart.run();
+	}
+	
+	protected void handOver(final StartingInfra<I> ready)
+	{
+		if(this.pool.offerReady(ready))
+		{
+			return;
+		}
+		if(this.pool.isAccepting())
+		{
+			this.pool.discard(ready);
+		}
+		else
+		{
+			// The pool was shut down in the meantime
+			this.pool.shutdown(ready);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.factory.prestart.broker.SharedPoolBroker;
+import software.xdev.tci.tracing.jfr.PreStartPoolEvent;
+import software.xdev.tci.tracing.timeline.TCITimeline;
+
+
+/**
+ * Infrastructure that is starting or already started, e.g. inside the pool of a {@link PreStartableTCIFactory}.
+ */
+public class StartingInfra<I extends TCI<?>>
+{
+	protected final I infra;
+	protected final CompletableFuture<Void> startFuture;
+	protected final boolean requiresNetworkConnect;
+	/**
+	 * When the start was actually executed; 0 = not executing yet (e.g. waiting for a free thread)
+	 */
+	protected final AtomicLong executionStartedAtMs;
+	/**
+	 * Ownership of in-flight infrastructure can only be transferred once - either to a waiter or to the pool
+	 */
+	protected final AtomicBoolean claimed = new AtomicBoolean();
+	/**
+	 * When the infrastructure was ready (inside the pool); 0 = not ready yet
+	 */
+	protected final AtomicLong readyAtMs = new AtomicLong();
+	protected final AtomicLong readyAtNanos = new AtomicLong();
+	/**
+	 * If the container is currently paused (while waiting inside the pool)
+	 */
+	protected final AtomicBoolean paused = new AtomicBoolean();
+	/**
+	 * Slot of the shared pool that is occupied while waiting inside the pool
+	 */
+	protected final AtomicReference<SharedPoolBroker.Lease> poolLease = new AtomicReference<>();
+	
+	public StartingInfra(
+		final I infra,
+		final CompletableFuture<Void> startFuture,
+		final boolean requiresNetworkConnect)
+	{
+		this(infra, startFuture, requiresNetworkConnect, new AtomicLong(System.currentTimeMillis()));
+	}
+	
+	public StartingInfra(
+		final I infra,
+		final CompletableFuture<Void> startFuture,
+		final boolean requiresNetworkConnect,
+		final AtomicLong executionStartedAtMs)
+	{
+		this.infra = Objects.requireNonNull(infra);
+		this.startFuture = Objects.requireNonNull(startFuture);
+		this.requiresNetworkConnect = requiresNetworkConnect;
+		this.executionStartedAtMs = Objects.requireNonNull(executionStartedAtMs);
+	}
+	
+	public I infra()
+	{
+		return this.infra;
+	}
+	
+	public CompletableFuture<Void> startFuture()
+	{
+		return this.startFuture;
+	}
+	
+	public boolean requiresNetworkConnect()
+	{
+		return this.requiresNetworkConnect;
+	}
+	
+	public long executionStartedAtMs()
+	{
+		return this.executionStartedAtMs.get();
+	}
+	
+	public long readyAtMs()
+	{
+		return this.readyAtMs.get();
+	}
+	
+	/**
+	 * @return {@link System#nanoTime()} when the infrastructure was ready; 0 = not ready or no longer inside the pool
+	 */
+	public long readyAtNanos()
+	{
+		return this.readyAtNanos.get();
+	}
+	
+	public void markReady()
+	{
+		this.readyAtMs.set(System.currentTimeMillis());
+		this.readyAtNanos.set(System.nanoTime());
+	}
+	
+	public boolean tryClaim()
+	{
+		return this.claimed.compareAndSet(false, true);
+	}
+	
+	public boolean paused()
+	{
+		return this.paused.get();
+	}
+	
+	public void markPaused()
+	{
+		this.paused.set(true);
+	}
+	
+	/**
+	 * @return <code>true</code> if the infrastructure was paused before
+	 */
+	public boolean markUnpaused()
+	{
+		return this.paused.compareAndSet(true, false);
+	}
+	
+	public void setPoolLease(final SharedPoolBroker.Lease poolLease)
+	{
+		this.poolLease.set(poolLease);
+	}
+	
+	/**
+	 * Called when the infrastructure leaves the pool (e.g. because it was taken or discarded).
+	 * <p>
+	 * Releases the {@link #setPoolLease(SharedPoolBroker.Lease) pool lease} and records the time it was idle inside
+	 * the pool in the {@link TCITimeline}.
+	 * </p>
+	 */
+	public void leavePool(final String factoryName)
+	{
+		this.releasePoolLease();
+		
+		final long readyAt = this.readyAtNanos.getAndSet(0);
+		if(readyAt != 0)
+		{
+			TCITimeline.instance().record(
+				TCITimeline.PROCESS_INFRA,
+				this.infra.getName(),
+				"poolIdle",
+				readyAt,
+				System.nanoTime(),
+				Map.of("factory", factoryName));
+		}
+	}
+	
+	/**
+	 * Records that the infrastructure was added to or taken from the pool of ready infrastructure.
+	 */
+	public void recordPoolEvent(final String factoryName, final boolean enqueued, final int poolSize)
+	{
+		PreStartPoolEvent.record(
+			factoryName,
+			this.infra.getName(),
+			enqueued ? PreStartPoolEvent.ENQUEUED : PreStartPoolEvent.DEQUEUED,
+			poolSize,
+			enqueued ? 0 : System.currentTimeMillis() - this.readyAtMs.get());
+	}
+	
+	public void releasePoolLease()
+	{
+		final SharedPoolBroker.Lease lease = this.poolLease.getAndSet(null);
+		if(lease != null)
+		{
+			lease.release();
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.broker;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Default implementation of {@link SharedPoolBroker}.
+ * <p>
+ * Disabled by default - in this case every JVM has its own pool (all leases are granted).
+ * </p>
+ * <p>
+ * If <code>-Dtci.broker.dir=...</code> is set (e.g. to a directory inside the build output that is the same for all
+ * forks) the slots are represented as lock files inside this directory. A slot is leased by holding an exclusive
+ * file lock on it. As these locks are released by the operating system when a JVM terminates, slots of crashed
+ * JVMs are never lost.
+ * </p>
+ * <p>
+ * The size of each pool is recorded by the first JVM that uses it (<code>slots</code> file inside the directory of
+ * the pool). All JVMs use at most this amount of slots - otherwise JVMs with a different configuration would
+ * disagree about the size of the shared pool.
+ * </p>
+ */
+public class DefaultSharedPoolBroker implements SharedPoolBroker
+{
+	private static final Logger LOG = LoggerFactory.getLogger(DefaultSharedPoolBroker.class);
+	
+	public static final String PROPERTY_DIRECTORY = "tci.broker.dir";
+	
+	protected static final String SLOTS_FILE = "slots";
+	
+	protected static final Lease UNLIMITED_LEASE = () -> {
+		// Nothing to release
+	};
+	
+	/**
+	 * <code>null</code> = disabled
+	 */
+	protected final Path directory;
+	/**
+	 * Slots leased by this JVM - file locks are held per JVM and can't be acquired twice
+	 */
+	protected final Set<Path> leasedSlots = ConcurrentHashMap.newKeySet();
+	/**
+	 * Recorded size of the shared pool per directory of the pool
+	 */
+	protected final Map<Path, Integer> recordedSlots = new ConcurrentHashMap<>();
+	/**
+	 * Pools for which a different size than the recorded one was already reported
+	 */
+	protected final Set<Path> reportedSlotMismatches = ConcurrentHashMap.newKeySet();
+	
+	public DefaultSharedPoolBroker()
+	{
+		this(Optional.ofNullable(System.getProperty(PROPERTY_DIRECTORY))
+			.filter(s -> !s.isBlank())
+			.map(Path::of)
+			.orElse(null));
+	}
+	
+	public DefaultSharedPoolBroker(final Path directory)
+	{
+		this.directory = directory;
+		if(directory != null)
+		{
+			LOG.info("Sharing PreStart pools using {}", directory.toAbsolutePath());
+		}
+	}
+	
+	@Override
+	public Optional<Lease> tryLease(final String factoryName, final int slots)
+	{
+		if(this.directory == null)
+		{
+			return Optional.of(UNLIMITED_LEASE);
+		}
+		
+		final Path factoryDirectory = this.directory.resolve(factoryName.replaceAll("[^A-Za-z0-9_.-]", "_"));
+		try
+		{
+			Files.createDirectories(factoryDirectory);
+		}
+		catch(final IOException ioe)
+		{
+			LOG.warn("Unable to create directory {}; Not sharing pool", factoryDirectory, ioe);
+			return Optional.of(UNLIMITED_LEASE);
+		}
+		
+		final int sharedSlots = this.sharedSlots(factoryDirectory, slots);
+		for(int i = 0; i < sharedSlots; i++)
+		{
+			final Optional<Lease> lease = this.tryLeaseSlot(factoryDirectory.resolve("slot-" + i + ".lock"));
+			if(lease.isPresent())
+			{
+				return lease;
+			}
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * @return the amount of slots that can be used; at most the recorded size of the shared pool
+	 */
+	protected int sharedSlots(final Path factoryDirectory, final int slots)
+	{
+		Integer recorded = this.recordedSlots.get(factoryDirectory);
+		if(recorded == null)
+		{
+			final OptionalInt optRecorded = this.recordSlots(factoryDirectory.resolve(SLOTS_FILE), slots);
+			if(optRecorded.isEmpty())
+			{
+				return slots;
+			}
+			recorded = optRecorded.getAsInt();
+			this.recordedSlots.putIfAbsent(factoryDirectory, recorded);
+		}
+		
+		if(slots > recorded && this.reportedSlotMismatches.add(factoryDirectory))
+		{
+			LOG.warn(
+				"Shared pool {} was created with {} slots; Requested {} slots are limited to it - "
+					+ "delete the directory if the configuration was changed",
+				factoryDirectory,
+				recorded,
+				slots);
+		}
+		return Math.min(slots, recorded);
+	}
+	
+	/**
+	 * Records the size of the shared pool if it's not recorded yet.
+	 *
+	 * @return the recorded size or empty if it's unknown (e.g. because it's currently recorded by another JVM)
+	 */
+	protected OptionalInt recordSlots(final Path slotsFile, final int slots)
+	{
+		try
+		{
+			Files.writeString(slotsFile, String.valueOf(slots), StandardOpenOption.CREATE_NEW);
+			return OptionalInt.of(slots);
+		}
+		catch(final FileAlreadyExistsException ex)
+		{
+			// Recorded by another JVM
+		}
+		catch(final IOException ioe)
+		{
+			LOG.debug("Unable to record slots in {}", slotsFile, ioe);
+			return OptionalInt.empty();
+		}
+		
+		try
+		{
+			return OptionalInt.of(Integer.parseInt(Files.readString(slotsFile).trim()));
+		}
+		catch(final IOException | NumberFormatException ex)
+		{
+			// Might still be written
+			LOG.debug("Unable to read slots from {}", slotsFile, ex);
+			return OptionalInt.empty();
+		}
+	}
+	
+	@SuppressWarnings("resource") // Channel is closed when the lease is released
+	protected Optional<Lease> tryLeaseSlot(final Path slot)
+	{
+		if(!this.leasedSlots.add(slot))
+		{
+			return Optional.empty();
+		}
+		
+		FileChannel channel = null;
+		try
+		{
+			channel = FileChannel.open(slot, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			final FileLock lock = channel.tryLock();
+			if(lock != null)
+			{
+				return Optional.of(new FileLease(slot, channel));
+			}
+		}
+		catch(final IOException | OverlappingFileLockException ex)
+		{
+			LOG.debug("Unable to lock {}", slot, ex);
+		}
+		
+		// Leased by another JVM
+		this.closeQuietly(channel);
+		this.leasedSlots.remove(slot);
+		return Optional.empty();
+	}
+	
+	protected void closeQuietly(final FileChannel channel)
+	{
+		if(channel == null)
+		{
+			return;
+		}
+		try
+		{
+			// Also releases the lock
+			channel.close();
+		}
+		catch(final IOException ioe)
+		{
+			LOG.debug("Failed to close channel", ioe);
+		}
+	}
+	
+	public boolean isEnabled()
+	{
+		return this.directory != null;
+	}
+	
+	
+	protected class FileLease implements Lease
+	{
+		protected final Path slot;
+		protected final FileChannel channel;
+		protected final AtomicBoolean released = new AtomicBoolean();
+		
+		protected FileLease(final Path slot, final FileChannel channel)
+		{
+			this.slot = slot;
+			this.channel = channel;
+		}
+		
+		@Override
+		public void release()
+		{
+			if(this.released.compareAndSet(false, true))
+			{
+				DefaultSharedPoolBroker.this.closeQuietly(this.channel);
+				DefaultSharedPoolBroker.this.leasedSlots.remove(this.slot);
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.broker;
+
+import java.util.Optional;
+
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Shares the PreStart pools of the same factory between multiple JVMs, e.g. Surefire/Failsafe forks.
+ * <p>
+ * Every PreStarted infrastructure occupies a slot of the shared pool as long as it's waiting inside the pool.
+ * Slots are leased to whichever JVM asks first, so that all JVMs together keep at most the configured amount of
+ * infrastructure ready - instead of every JVM keeping its own pool.
+ * </p>
+ */
+public interface SharedPoolBroker
+{
+	/**
+	 * Tries to lease a slot of the shared pool.
+	 *
+	 * @param factoryName the name of the factory/pool
+	 * @param slots       the size of the shared pool
+	 * @return the lease or empty if all slots are currently leased (e.g. by other JVMs)
+	 */
+	Optional<Lease> tryLease(String factoryName, int slots);
+	
+	static SharedPoolBroker instance()
+	{
+		return TCIServiceLoader.instance().service(SharedPoolBroker.class);
+	}
+	
+	interface Lease extends AutoCloseable
+	{
+		/**
+		 * Releases the slot. Calling this multiple times has no effect.
+		 */
+		void release();
+		
+		@Override
+		default void close()
+		{
+			this.release();
+		}
+	}
+}
@@ -18,6 +18,7 @@ package software.xdev.tci.factory.prestart.config;
 import java.util.Optional;
 import java.util.function.BooleanSupplier;
 import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 
 
 /**
@@ -35,26 +36,70 @@ public class DefaultPreStartConfig implements PreStartConfig
 	protected static final String PROPERTY_PREFIX = "infra-pre-start.";
 	
 	protected static final String KEEP_READY = "keep-ready";
+	protected static final String KEEP_READY_MIN = "keep-ready-min";
+	protected static final String KEEP_READY_MAX = "keep-ready-max";
+	protected static final String ADAPTIVE_KEEP_READY = "adaptive-keep-ready";
+	protected static final String ADAPTIVE_KEEP_READY_MIN_DEMAND_PER_HOUR = "adaptive-keep-ready.min-demand-per-hour";
 	protected static final String MAX_START_SIMULTAN = "max-start-simultan";
+	protected static final String MAX_SPECULATIVE_START_SIMULTAN = "max-start-simultan.speculative";
 	protected static final String DIRECT_NETWORK_ATTACH_IF_POSSIBLE = "direct-network-attach-if-possible";
 	protected static final String FIXATE_EXPOSED_PORTS_IF_REQUIRED = "fixate-exposed-ports-if-required";
+	protected static final String PRE_STARTED_MAX_IDLE_MS = "pre-started-max-idle-ms";
+	protected static final String PAUSE_PRE_STARTED = "pause-pre-started";
+	protected static final String PERSISTENT = "persistent";
+	protected static final String PERSISTENT_IDLE_TTL_MS = "persistent.idle-ttl-ms";
+	protected static final String PERSISTENT_ABANDONED_TTL_MS = "persistent.abandoned-ttl-ms";
+	protected static final String HEDGING = "hedging";
+	protected static final String HEDGING_PERCENTILE = "hedging.percentile";
+	protected static final String HEDGING_MAX_CONCURRENT = "hedging.max-concurrent";
 	protected static final String JUNIT_JUPITER_EXECUTION_PARALLEL_CONFIG_FIXED_MAX_POOL_SIZE =
 		"junit.jupiter.execution.parallel.config.fixed.max-pool-size";
 	
 	protected static final String COORDINATOR_IDLE_CPU_PERCENT = "coordinator.idle-cpu-percent";
+	protected static final String COORDINATOR_TARGET_UTILIZATION_PERCENT = "coordinator.target-utilization-percent";
+	protected static final String COORDINATOR_SMOOTHING_MS = "coordinator.smoothing-ms";
+	protected static final String COORDINATOR_HYSTERESIS_PERCENT = "coordinator.hysteresis-percent";
+	protected static final String COORDINATOR_UTILIZATION_PER_PRE_START_PERCENT =
+		"coordinator.utilization-per-pre-start-percent";
+	protected static final String COORDINATOR_MAX_CPU_PRESSURE_PERCENT = "coordinator.max-cpu-pressure-percent";
+	protected static final String COORDINATOR_MAX_MEMORY_PRESSURE_PERCENT = "coordinator.max-memory-pressure-percent";
+	protected static final String COORDINATOR_MAX_IO_PRESSURE_PERCENT = "coordinator.max-io-pressure-percent";
+	protected static final String COORDINATOR_MIN_AVAILABLE_MEMORY_MB = "coordinator.min-available-memory-mb";
+	protected static final String COORDINATOR_MAX_DAEMON_LATENCY_MS = "coordinator.max-daemon-latency-ms";
 	protected static final String COORDINATOR_SCHEDULE_PERIOD_MS = "coordinator.schedule-period-ms";
+	protected static final String COORDINATOR_MAX_PRE_STARTS_PER_SCHEDULE = "coordinator.max-pre-starts-per-schedule";
+	protected static final String COORDINATOR_VALIDATE_PERIOD_MS = "coordinator.validate-period-ms";
+	
+	protected static final String LOAD_MONITOR_IN_PROCESS = "load-monitor.in-process";
+	protected static final String LOAD_MONITOR_CGROUP_PATH = "load-monitor.cgroup-path";
 	
 	protected static final String DETECT_ENDING_TESTS = "detect-ending-tests";
 	
 	protected final boolean enabled;
 	
 	protected final int keepReady;
+	protected final boolean adaptiveKeepReady;
+	protected final int adaptiveKeepReadyMinDemandPerHour;
 	protected final int maxStartSimultan;
 	protected final boolean directNetworkAttachIfPossible;
 	protected final boolean fixateExposedPortsIfRequired;
 	
 	protected final int coordinatorIdleCPUPercent;
+	protected final int coordinatorTargetUtilizationPercent;
+	protected final int coordinatorSmoothingMs;
+	protected final int coordinatorHysteresisPercent;
+	protected final int coordinatorUtilizationPerPreStartPercent;
+	protected final int coordinatorMaxCpuPressurePercent;
+	protected final int coordinatorMaxMemoryPressurePercent;
+	protected final int coordinatorMaxIoPressurePercent;
+	protected final int coordinatorMinAvailableMemoryMb;
+	protected final int coordinatorMaxDaemonLatencyMs;
 	protected final int coordinatorSchedulePeriodMs;
+	protected final int coordinatorMaxPreStartsPerSchedule;
+	protected final int coordinatorValidatePeriodMs;
+	
+	protected final boolean loadMonitorInProcess;
+	protected final String loadMonitorCgroupPath;
 	
 	protected final boolean detectEndingTests;
 	
@@ -68,6 +113,11 @@ public class DefaultPreStartConfig implements PreStartConfig
 			PROPERTY_PREFIX + KEEP_READY,
 			() -> this.getInt(JUNIT_JUPITER_EXECUTION_PARALLEL_CONFIG_FIXED_MAX_POOL_SIZE, 1))
 			: 0;
+		this.adaptiveKeepReady = this.enabled
+			&& this.getBool(PROPERTY_PREFIX + ADAPTIVE_KEEP_READY, DEFAULT_ADAPTIVE_KEEP_READY);
+		this.adaptiveKeepReadyMinDemandPerHour = this.getInt(
+			PROPERTY_PREFIX + ADAPTIVE_KEEP_READY_MIN_DEMAND_PER_HOUR,
+			DEFAULT_ADAPTIVE_KEEP_READY_MIN_DEMAND_PER_HOUR);
 		this.maxStartSimultan = this.enabled
 			? this.getInt(
 			PROPERTY_PREFIX + MAX_START_SIMULTAN,
@@ -85,9 +135,47 @@ public class DefaultPreStartConfig implements PreStartConfig
 		this.coordinatorIdleCPUPercent = this.enabled
 			? this.getInt(PROPERTY_PREFIX + COORDINATOR_IDLE_CPU_PERCENT, DEFAULT_COORDINATOR_IDLE_CPU_PERCENT)
 			: -1;
+		this.coordinatorTargetUtilizationPercent = this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_TARGET_UTILIZATION_PERCENT,
+			100 - this.coordinatorIdleCPUPercent);
+		this.coordinatorSmoothingMs = Math.max(0, this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_SMOOTHING_MS,
+			DEFAULT_COORDINATOR_SMOOTHING_MS));
+		this.coordinatorHysteresisPercent = Math.max(0, this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_HYSTERESIS_PERCENT,
+			DEFAULT_COORDINATOR_HYSTERESIS_PERCENT));
+		this.coordinatorUtilizationPerPreStartPercent = Math.max(1, this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_UTILIZATION_PER_PRE_START_PERCENT,
+			DEFAULT_COORDINATOR_UTILIZATION_PER_PRE_START_PERCENT));
+		this.coordinatorMaxCpuPressurePercent = this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_MAX_CPU_PRESSURE_PERCENT,
+			DEFAULT_COORDINATOR_MAX_CPU_PRESSURE_PERCENT);
+		this.coordinatorMaxMemoryPressurePercent = this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_MAX_MEMORY_PRESSURE_PERCENT,
+			DEFAULT_COORDINATOR_MAX_MEMORY_PRESSURE_PERCENT);
+		this.coordinatorMaxIoPressurePercent = this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_MAX_IO_PRESSURE_PERCENT,
+			DEFAULT_COORDINATOR_MAX_IO_PRESSURE_PERCENT);
+		this.coordinatorMinAvailableMemoryMb = this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_MIN_AVAILABLE_MEMORY_MB,
+			DEFAULT_COORDINATOR_MIN_AVAILABLE_MEMORY_MB);
+		this.coordinatorMaxDaemonLatencyMs = this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_MAX_DAEMON_LATENCY_MS,
+			DEFAULT_COORDINATOR_MAX_DAEMON_LATENCY_MS);
 		this.coordinatorSchedulePeriodMs = this.enabled
 			? this.getInt(PROPERTY_PREFIX + COORDINATOR_SCHEDULE_PERIOD_MS, DEFAULT_COORDINATOR_SCHEDULE_PERIOD_MS)
 			: -1;
+		this.coordinatorMaxPreStartsPerSchedule = Math.max(1, this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_MAX_PRE_STARTS_PER_SCHEDULE,
+			DEFAULT_COORDINATOR_MAX_PRE_STARTS_PER_SCHEDULE));
+		this.coordinatorValidatePeriodMs = Math.max(0, this.getInt(
+			PROPERTY_PREFIX + COORDINATOR_VALIDATE_PERIOD_MS,
+			DEFAULT_COORDINATOR_VALIDATE_PERIOD_MS));
+		
+		this.loadMonitorInProcess = this.getBool(
+			PROPERTY_PREFIX + LOAD_MONITOR_IN_PROCESS,
+			DEFAULT_LOAD_MONITOR_IN_PROCESS);
+		this.loadMonitorCgroupPath = System.getProperty(PROPERTY_PREFIX + LOAD_MONITOR_CGROUP_PATH);
 		
 		this.detectEndingTests = this.enabled
 			&& this.getBool(PROPERTY_PREFIX + DETECT_ENDING_TESTS, DEFAULT_DETECT_ENDING_TESTS);
@@ -107,6 +195,37 @@ public class DefaultPreStartConfig implements PreStartConfig
 			: this.keepReady);
 	}
 	
+	@Override
+	public boolean adaptiveKeepReady(final String preStartName)
+	{
+		return this.enabled()
+			&& this.getBool(PROPERTY_PREFIX + preStartName + "." + ADAPTIVE_KEEP_READY, this.adaptiveKeepReady);
+	}
+	
+	@Override
+	public int keepReadyMin(final String preStartName)
+	{
+		return Math.max(0, this.getInt(
+			PROPERTY_PREFIX + preStartName + "." + KEEP_READY_MIN,
+			() -> this.getInt(PROPERTY_PREFIX + KEEP_READY_MIN, 0)));
+	}
+	
+	@Override
+	public int keepReadyMax(final String preStartName)
+	{
+		return Math.max(this.keepReadyMin(preStartName), this.getInt(
+			PROPERTY_PREFIX + preStartName + "." + KEEP_READY_MAX,
+			() -> this.getInt(PROPERTY_PREFIX + KEEP_READY_MAX, this.keepReady(preStartName) * 2)));
+	}
+	
+	@Override
+	public int adaptiveKeepReadyMinDemandPerHour(final String preStartName)
+	{
+		return this.getInt(
+			PROPERTY_PREFIX + preStartName + "." + ADAPTIVE_KEEP_READY_MIN_DEMAND_PER_HOUR,
+			this.adaptiveKeepReadyMinDemandPerHour);
+	}
+	
 	@Override
 	public int maxStartSimultan(final String preStartName)
 	{
@@ -115,6 +234,78 @@ public class DefaultPreStartConfig implements PreStartConfig
 			: this.maxStartSimultan;
 	}
 	
+	@Override
+	public int maxSpeculativeStartSimultan(final String preStartName)
+	{
+		return this.getInt(
+			PROPERTY_PREFIX + preStartName + "." + MAX_SPECULATIVE_START_SIMULTAN,
+			() -> this.getInt(
+				PROPERTY_PREFIX + MAX_SPECULATIVE_START_SIMULTAN,
+				() -> PreStartConfig.super.maxSpeculativeStartSimultan(preStartName)));
+	}
+	
+	@Override
+	public long preStartedMaxIdleMs(final String preStartName)
+	{
+		return Math.max(0, this.getLong(
+			PROPERTY_PREFIX + preStartName + "." + PRE_STARTED_MAX_IDLE_MS,
+			() -> this.getLong(PROPERTY_PREFIX + PRE_STARTED_MAX_IDLE_MS, DEFAULT_PRE_STARTED_MAX_IDLE_MS)));
+	}
+	
+	@Override
+	public boolean pausePreStarted(final String preStartName)
+	{
+		return this.getBool(
+			PROPERTY_PREFIX + preStartName + "." + PAUSE_PRE_STARTED,
+			() -> this.getBool(PROPERTY_PREFIX + PAUSE_PRE_STARTED, DEFAULT_PAUSE_PRE_STARTED));
+	}
+	
+	@Override
+	public boolean persistent(final String preStartName)
+	{
+		return this.getBool(
+			PROPERTY_PREFIX + preStartName + "." + PERSISTENT,
+			() -> this.getBool(PROPERTY_PREFIX + PERSISTENT, DEFAULT_PERSISTENT));
+	}
+	
+	@Override
+	public long persistentIdleTtlMs(final String preStartName)
+	{
+		return Math.max(0, this.getLong(
+			PROPERTY_PREFIX + preStartName + "." + PERSISTENT_IDLE_TTL_MS,
+			() -> this.getLong(PROPERTY_PREFIX + PERSISTENT_IDLE_TTL_MS, DEFAULT_PERSISTENT_IDLE_TTL_MS)));
+	}
+	
+	@Override
+	public long persistentAbandonedTtlMs(final String preStartName)
+	{
+		return Math.max(0, this.getLong(
+			PROPERTY_PREFIX + preStartName + "." + PERSISTENT_ABANDONED_TTL_MS,
+			() -> this.getLong(PROPERTY_PREFIX + PERSISTENT_ABANDONED_TTL_MS, DEFAULT_PERSISTENT_ABANDONED_TTL_MS)));
+	}
+	
+	@Override
+	public boolean hedging(final String preStartName)
+	{
+		return this.getBool(
+			PROPERTY_PREFIX + preStartName + "." + HEDGING,
+			() -> this.getBool(PROPERTY_PREFIX + HEDGING, DEFAULT_HEDGING));
+	}
+	
+	@Override
+	public int hedgingPercentile(final String preStartName)
+	{
+		return Math.max(1, Math.min(100, this.getInt(
+			PROPERTY_PREFIX + preStartName + "." + HEDGING_PERCENTILE,
+			() -> this.getInt(PROPERTY_PREFIX + HEDGING_PERCENTILE, DEFAULT_HEDGING_PERCENTILE))));
+	}
+	
+	@Override
+	public int hedgingMaxConcurrent()
+	{
+		return Math.max(0, this.getInt(PROPERTY_PREFIX + HEDGING_MAX_CONCURRENT, DEFAULT_HEDGING_MAX_CONCURRENT));
+	}
+	
 	@Override
 	public boolean directNetworkAttachIfPossible(final String preStartName)
 	{
@@ -141,12 +332,90 @@ public class DefaultPreStartConfig implements PreStartConfig
 		return this.coordinatorIdleCPUPercent;
 	}
 	
+	@Override
+	public int coordinatorTargetUtilizationPercent()
+	{
+		return this.coordinatorTargetUtilizationPercent;
+	}
+	
+	@Override
+	public int coordinatorSmoothingMs()
+	{
+		return this.coordinatorSmoothingMs;
+	}
+	
+	@Override
+	public int coordinatorHysteresisPercent()
+	{
+		return this.coordinatorHysteresisPercent;
+	}
+	
+	@Override
+	public int coordinatorUtilizationPerPreStartPercent()
+	{
+		return this.coordinatorUtilizationPerPreStartPercent;
+	}
+	
+	@Override
+	public int coordinatorMaxCpuPressurePercent()
+	{
+		return this.coordinatorMaxCpuPressurePercent;
+	}
+	
+	@Override
+	public int coordinatorMaxMemoryPressurePercent()
+	{
+		return this.coordinatorMaxMemoryPressurePercent;
+	}
+	
+	@Override
+	public int coordinatorMaxIoPressurePercent()
+	{
+		return this.coordinatorMaxIoPressurePercent;
+	}
+	
+	@Override
+	public int coordinatorMinAvailableMemoryMb()
+	{
+		return this.coordinatorMinAvailableMemoryMb;
+	}
+	
+	@Override
+	public int coordinatorMaxDaemonLatencyMs()
+	{
+		return this.coordinatorMaxDaemonLatencyMs;
+	}
+	
 	@Override
 	public int coordinatorSchedulePeriodMs()
 	{
 		return this.coordinatorSchedulePeriodMs;
 	}
 	
+	@Override
+	public int coordinatorMaxPreStartsPerSchedule()
+	{
+		return this.coordinatorMaxPreStartsPerSchedule;
+	}
+	
+	@Override
+	public int coordinatorValidatePeriodMs()
+	{
+		return this.coordinatorValidatePeriodMs;
+	}
+	
+	@Override
+	public boolean loadMonitorInProcess()
+	{
+		return this.loadMonitorInProcess;
+	}
+	
+	@Override
+	public String loadMonitorCgroupPath()
+	{
+		return this.loadMonitorCgroupPath;
+	}
+	
 	@Override
 	public boolean detectEndingTests()
 	{
@@ -188,5 +457,26 @@ public class DefaultPreStartConfig implements PreStartConfig
 			})
 			.orElseGet(defaultValueSupplier::getAsInt);
 	}
+	
+	protected long getLong(final String property, final long defaultValue)
+	{
+		return this.getLong(property, () -> defaultValue);
+	}
+	
+	protected long getLong(final String property, final LongSupplier defaultValueSupplier)
+	{
+		return Optional.ofNullable(System.getProperty(property))
+			.map(s -> {
+				try
+				{
+					return Long.parseLong(s);
+				}
+				catch(final NumberFormatException nfe)
+				{
+					return null;
+				}
+			})
+			.orElseGet(defaultValueSupplier::getAsLong);
+	}
 	// endregion
 }
@@ -24,8 +24,29 @@ public interface PreStartConfig
 	boolean DEFAULT_DIRECT_NETWORK_ATTACH_IF_POSSIBLE = true;
 	boolean DEFAULT_FIXATE_EXPOSED_PORTS_IF_REQUIRED = true;
 	int DEFAULT_COORDINATOR_IDLE_CPU_PERCENT = 40;
+	int DEFAULT_COORDINATOR_MAX_CPU_PRESSURE_PERCENT = 0;
+	int DEFAULT_COORDINATOR_MAX_MEMORY_PRESSURE_PERCENT = 10;
+	int DEFAULT_COORDINATOR_MAX_IO_PRESSURE_PERCENT = 30;
+	int DEFAULT_COORDINATOR_MIN_AVAILABLE_MEMORY_MB = 512;
+	int DEFAULT_COORDINATOR_MAX_DAEMON_LATENCY_MS = 1_000;
+	int DEFAULT_COORDINATOR_SMOOTHING_MS = 5_000;
+	int DEFAULT_COORDINATOR_HYSTERESIS_PERCENT = 10;
+	int DEFAULT_COORDINATOR_UTILIZATION_PER_PRE_START_PERCENT = 10;
 	int DEFAULT_COORDINATOR_SCHEDULE_PERIOD_MS = 1_000;
+	int DEFAULT_COORDINATOR_MAX_PRE_STARTS_PER_SCHEDULE = 1;
+	int DEFAULT_COORDINATOR_VALIDATE_PERIOD_MS = 30_000;
+	long DEFAULT_PRE_STARTED_MAX_IDLE_MS = 15 * 60 * 1_000L;
+	boolean DEFAULT_PAUSE_PRE_STARTED = false;
+	boolean DEFAULT_PERSISTENT = false;
+	long DEFAULT_PERSISTENT_IDLE_TTL_MS = 60 * 60 * 1_000L;
+	long DEFAULT_PERSISTENT_ABANDONED_TTL_MS = 4 * 60 * 60 * 1_000L;
+	boolean DEFAULT_HEDGING = false;
+	int DEFAULT_HEDGING_PERCENTILE = 95;
+	int DEFAULT_HEDGING_MAX_CONCURRENT = 1;
 	boolean DEFAULT_DETECT_ENDING_TESTS = true;
+	boolean DEFAULT_ADAPTIVE_KEEP_READY = false;
+	int DEFAULT_ADAPTIVE_KEEP_READY_MIN_DEMAND_PER_HOUR = 6;
+	boolean DEFAULT_LOAD_MONITOR_IN_PROCESS = true;
 	
 	default boolean enabled()
 	{
@@ -37,8 +58,149 @@ public interface PreStartConfig
 	 */
 	int keepReady(final String preStartName);
 	
+	/**
+	 * Should the amount of infrastructure that is kept ready be adjusted based on the observed demand?
+	 * <p>
+	 * When enabled {@link #keepReady(String)} is only used as initial value and the amount is adjusted between
+	 * {@link #keepReadyMin(String)} and {@link #keepReadyMax(String)}.
+	 * </p>
+	 *
+	 * @see software.xdev.tci.factory.prestart.keepready.AdaptiveKeepReady
+	 */
+	default boolean adaptiveKeepReady(final String preStartName)
+	{
+		return DEFAULT_ADAPTIVE_KEEP_READY;
+	}
+	
+	/**
+	 * Lower bound for {@link #adaptiveKeepReady(String) adaptive} keep ready
+	 */
+	default int keepReadyMin(final String preStartName)
+	{
+		return 0;
+	}
+	
+	/**
+	 * Upper bound for {@link #adaptiveKeepReady(String) adaptive} keep ready
+	 */
+	default int keepReadyMax(final String preStartName)
+	{
+		return this.keepReady(preStartName) * 2;
+	}
+	
+	/**
+	 * If the demand (requests per hour) drops below this value the {@link #adaptiveKeepReady(String) adaptive} pool
+	 * disables itself until the demand rises again.
+	 */
+	default int adaptiveKeepReadyMinDemandPerHour(final String preStartName)
+	{
+		return DEFAULT_ADAPTIVE_KEEP_READY_MIN_DEMAND_PER_HOUR;
+	}
+	
 	int maxStartSimultan(final String preStartName);
 	
+	/**
+	 * How many speculative starts (PreStarts) may run at the same time.
+	 * <p>
+	 * Starts that are demanded by a waiting test are always preferred. Limiting the speculative starts below
+	 * {@link #maxStartSimultan(String)} ensures that there is always a slot free for a demanded start. If all slots
+	 * are occupied by speculative starts (e.g. when <code>maxStartSimultan</code> is 1) a demanded start is executed
+	 * anyway, exceeding <code>maxStartSimultan</code> by one.
+	 * </p>
+	 */
+	default int maxSpeculativeStartSimultan(final String preStartName)
+	{
+		final int maxStartSimultan = this.maxStartSimultan(preStartName);
+		return maxStartSimultan > 1 ? maxStartSimultan - 1 : maxStartSimultan;
+	}
+	
+	/**
+	 * How long PreStarted infrastructure can be idle inside the pool until it's replaced (e.g. because it might be
+	 * stale). <code>0</code> = unlimited
+	 *
+	 * @see #coordinatorValidatePeriodMs()
+	 */
+	default long preStartedMaxIdleMs(final String preStartName)
+	{
+		return DEFAULT_PRE_STARTED_MAX_IDLE_MS;
+	}
+	
+	/**
+	 * Should PreStarted containers be paused (<code>docker pause</code>) while they are waiting inside the pool?
+	 * <p>
+	 * Paused containers don't consume CPU, however unpausing them takes a few milliseconds when they are acquired.
+	 * Useful for containers that consume a lot of CPU while idle (e.g. browsers or apps with background tasks).
+	 * </p>
+	 */
+	default boolean pausePreStarted(final String preStartName)
+	{
+		return DEFAULT_PAUSE_PRE_STARTED;
+	}
+	
+	/**
+	 * Should PreStarted containers that are still inside the pool be kept alive when the JVM exits, so that they can
+	 * be adopted by the next test run (dev-loop mode)?
+	 * <p>
+	 * Requires that reuse is enabled for Testcontainers (<code>testcontainers.reuse.enable=true</code>).
+	 * </p>
+	 *
+	 * @see software.xdev.tci.factory.prestart.persistent.PersistentPool
+	 */
+	default boolean persistent(final String preStartName)
+	{
+		return DEFAULT_PERSISTENT;
+	}
+	
+	/**
+	 * How long persisted containers can be idle until they are removed; <code>0</code> = unlimited
+	 */
+	default long persistentIdleTtlMs(final String preStartName)
+	{
+		return DEFAULT_PERSISTENT_IDLE_TTL_MS;
+	}
+	
+	/**
+	 * How long persisted containers that are not idle (e.g. PreStarts or adopted containers) can run until they are
+	 * considered abandoned (e.g. because the JVM that used them crashed) and are removed; <code>0</code> = unlimited
+	 * <p>
+	 * These containers are not removed by Ryuk as they are reusable.
+	 * </p>
+	 */
+	default long persistentAbandonedTtlMs(final String preStartName)
+	{
+		return DEFAULT_PERSISTENT_ABANDONED_TTL_MS;
+	}
+	
+	/**
+	 * Should a second (hedged) start be launched when a start that a test is waiting for takes unusually long?
+	 * <p>
+	 * The first start that finishes is used, the other one is handed over to the pool (or stopped).
+	 * Useful when start times have a long tail (e.g. due to stalls of the Docker daemon).
+	 * </p>
+	 *
+	 * @see software.xdev.tci.factory.prestart.hedging.HedgingPolicy
+	 */
+	default boolean hedging(final String preStartName)
+	{
+		return DEFAULT_HEDGING;
+	}
+	
+	/**
+	 * Percentile of the previous start durations after which a {@link #hedging(String) hedged} start is launched.
+	 */
+	default int hedgingPercentile(final String preStartName)
+	{
+		return DEFAULT_HEDGING_PERCENTILE;
+	}
+	
+	/**
+	 * How many {@link #hedging(String) hedged} starts can run at the same time (across all factories).
+	 */
+	default int hedgingMaxConcurrent()
+	{
+		return DEFAULT_HEDGING_MAX_CONCURRENT;
+	}
+	
 	/**
 	 * Tries to directly attach the container to the network if possible.
 	 * <p>
@@ -71,13 +233,159 @@ public interface PreStartConfig
 	}
 	
 	/**
-	 * How often PreStarting should be tried (one factory per schedule!)
+	 * CPU utilization (in percent) of the host that the feedback controller aims for.
+	 * <p>
+	 * Defaults to <code>100 - </code>{@link #coordinatorIdleCPUPercent()}.
+	 * </p>
+	 *
+	 * @see software.xdev.tci.factory.prestart.coordinator.admission.FeedbackPreStartAdmissionPolicy
+	 */
+	default int coordinatorTargetUtilizationPercent()
+	{
+		return 100 - this.coordinatorIdleCPUPercent();
+	}
+	
+	/**
+	 * Time constant of the exponential smoothing of the load signals. <code>0</code> = no smoothing
+	 */
+	default int coordinatorSmoothingMs()
+	{
+		return DEFAULT_COORDINATOR_SMOOTHING_MS;
+	}
+	
+	/**
+	 * Once PreStarting was throttled because the utilization exceeded
+	 * {@link #coordinatorTargetUtilizationPercent()}, it's only resumed when the utilization is at least this much
+	 * below the target.
+	 */
+	default int coordinatorHysteresisPercent()
+	{
+		return DEFAULT_COORDINATOR_HYSTERESIS_PERCENT;
+	}
+	
+	/**
+	 * Estimated CPU utilization (in percent of the host) caused by a single running PreStart.
+	 * <p>
+	 * The amount of concurrent PreStarts is the headroom (target - current utilization) divided by this value.
+	 * </p>
+	 */
+	default int coordinatorUtilizationPerPreStartPercent()
+	{
+		return DEFAULT_COORDINATOR_UTILIZATION_PER_PRE_START_PERCENT;
+	}
+	
+	/**
+	 * Maximum share of time (in percent) in which tasks may be stalled waiting for a CPU to allow PreStarting.
+	 * <code>0</code> = disabled
+	 *
+	 * @see software.xdev.tci.factory.prestart.loadbalancing.LoadSignals#cpuPressurePercent()
+	 */
+	default int coordinatorMaxCpuPressurePercent()
+	{
+		return DEFAULT_COORDINATOR_MAX_CPU_PRESSURE_PERCENT;
+	}
+	
+	/**
+	 * Maximum share of time (in percent) in which tasks may be stalled waiting for memory to allow PreStarting.
+	 * <code>0</code> = disabled
+	 *
+	 * @see software.xdev.tci.factory.prestart.loadbalancing.LoadSignals#memoryPressurePercent()
+	 */
+	default int coordinatorMaxMemoryPressurePercent()
+	{
+		return DEFAULT_COORDINATOR_MAX_MEMORY_PRESSURE_PERCENT;
+	}
+	
+	/**
+	 * Maximum share of time (in percent) in which tasks may be stalled waiting for IO to allow PreStarting.
+	 * <code>0</code> = disabled
+	 *
+	 * @see software.xdev.tci.factory.prestart.loadbalancing.LoadSignals#ioPressurePercent()
+	 */
+	default int coordinatorMaxIoPressurePercent()
+	{
+		return DEFAULT_COORDINATOR_MAX_IO_PRESSURE_PERCENT;
+	}
+	
+	/**
+	 * Amount of memory (in MB) that needs to be available on the host to allow PreStarting. <code>0</code> = disabled
+	 *
+	 * @see software.xdev.tci.factory.prestart.loadbalancing.LoadSignals#availableMemoryBytes()
+	 */
+	default int coordinatorMinAvailableMemoryMb()
+	{
+		return DEFAULT_COORDINATOR_MIN_AVAILABLE_MEMORY_MB;
+	}
+	
+	/**
+	 * Maximum latency of the Docker daemon API to allow PreStarting. <code>0</code> = disabled
+	 *
+	 * @see software.xdev.tci.factory.prestart.loadbalancing.LoadSignals#daemonLatencyMs()
+	 */
+	default int coordinatorMaxDaemonLatencyMs()
+	{
+		return DEFAULT_COORDINATOR_MAX_DAEMON_LATENCY_MS;
+	}
+	
+	/**
+	 * Should the load of a local Docker daemon be determined in-process (by reading <code>/proc/stat</code> and the
+	 * cgroup of the daemon) instead of by starting a node-exporter container?
+	 * <p>
+	 * Only applicable on Linux when the daemon is reached over a unix socket and runs on the same host (not inside a
+	 * VM).
+	 * </p>
+	 *
+	 * @see software.xdev.tci.factory.prestart.loadbalancing.ProcStatLoadMonitor
+	 */
+	default boolean loadMonitorInProcess()
+	{
+		return DEFAULT_LOAD_MONITOR_IN_PROCESS;
+	}
+	
+	/**
+	 * The cgroup (v2) directory of the Docker containers that is additionally checked by the in-process load monitor
+	 * (e.g. <code>/sys/fs/cgroup/docker</code>). <code>null</code> = detect automatically
+	 *
+	 * @see #loadMonitorInProcess()
+	 */
+	default String loadMonitorCgroupPath()
+	{
+		return null;
+	}
+	
+	/**
+	 * How long to wait until PreStarting is tried again when the load is too high or when pools still need to be
+	 * filled.
+	 * <p>
+	 * PreStarting is otherwise triggered immediately when a pool changes.
+	 * </p>
 	 */
 	default int coordinatorSchedulePeriodMs()
 	{
 		return DEFAULT_COORDINATOR_SCHEDULE_PERIOD_MS;
 	}
 	
+	/**
+	 * How many PreStarts can be triggered at most per schedule.
+	 *
+	 * @see software.xdev.tci.factory.prestart.coordinator.scheduling.PreStartSchedulingPolicy
+	 */
+	default int coordinatorMaxPreStartsPerSchedule()
+	{
+		return DEFAULT_COORDINATOR_MAX_PRE_STARTS_PER_SCHEDULE;
+	}
+	
+	/**
+	 * How often PreStarted infrastructure inside the pools is validated (idle time, running/health, custom probes).
+	 * <code>0</code> = disabled
+	 *
+	 * @see software.xdev.tci.factory.prestart.PreStartableTCIFactory#validatePreStarted()
+	 */
+	default int coordinatorValidatePeriodMs()
+	{
+		return DEFAULT_COORDINATOR_VALIDATE_PERIOD_MS;
+	}
+	
 	/**
 	 * Should PreStarting be stopped when tests are ending?
 	 * <p>
@@ -21,22 +21,46 @@ import java.util.List;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
 import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.factory.prestart.coordinator.admission.PreStartAdmission;
+import software.xdev.tci.factory.prestart.coordinator.admission.PreStartAdmissionPolicy;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.PreStartSchedulingPolicy;
+import software.xdev.tci.factory.prestart.keepready.AdaptiveKeepReady;
 import software.xdev.tci.factory.prestart.loadbalancing.LoadMonitor;
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+import software.xdev.tci.tracing.TCITracer;
+import software.xdev.tci.tracing.jfr.CoordinatorDecisionEvent;
 
 
 /**
  * Default implementation of {@link GlobalPreStartCoordinator}.
  * <p>
  * Coordinates PreStarting by monitoring the current resource (e.g. CPU) usage of the container environment.
+ * Whether the load allows PreStarting and how many PreStarts may run at the same time is decided by the
+ * {@link PreStartAdmissionPolicy}.
+ * </p>
+ * <p>
+ * PreStarting is event driven: It's triggered immediately when a factory signals that its pool changed (see
+ * {@link #requestPreStart(PreStartableTCIFactory)}). Only while the load is too high or pools still have a deficit
+ * it's re-checked after {@link PreStartConfig#coordinatorSchedulePeriodMs()}.
+ * </p>
+ * <p>
+ * Which factories are PreStarting is decided by the {@link PreStartSchedulingPolicy}.
+ * </p>
+ * <p>
+ * The PreStarted infrastructure is validated every {@link PreStartConfig#coordinatorValidatePeriodMs()}.
  * </p>
  */
 public class DefaultGlobalPreStartCoordinator implements GlobalPreStartCoordinator
@@ -49,10 +73,32 @@ public class DefaultGlobalPreStartCoordinator implements GlobalPreStartCoordinat
 	// So we have to keep the factories in order inside a List and ensure the uniqueness with a Set
 	protected final Set<PreStartableTCIFactory<?, ?>> factoriesWeakSet =
 		Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
-	protected final AtomicInteger counter = new AtomicInteger(0);
+	protected final PreStartSchedulingPolicy schedulingPolicy;
+	protected final PreStartAdmissionPolicy admissionPolicy;
+	protected final TCITracer tracer = new TCITracer();
+	protected final TCITracer.Gauge tracePreStartsInFlight = this.tracer.getGaugeOrCreate("preStartsInFlight");
+	
+	protected final AtomicBoolean immediateScheduled = new AtomicBoolean();
+	protected ScheduledFuture<?> delayedSchedule;
+	protected long delayedScheduleAtMs;
 	
 	public DefaultGlobalPreStartCoordinator()
 	{
+		this(PreStartSchedulingPolicy.instance());
+	}
+	
+	public DefaultGlobalPreStartCoordinator(final PreStartSchedulingPolicy schedulingPolicy)
+	{
+		this(schedulingPolicy, PreStartAdmissionPolicy.instance());
+	}
+	
+	public DefaultGlobalPreStartCoordinator(
+		final PreStartSchedulingPolicy schedulingPolicy,
+		final PreStartAdmissionPolicy admissionPolicy)
+	{
+		this.schedulingPolicy = schedulingPolicy;
+		this.admissionPolicy = admissionPolicy;
+		
 		this.preStartScheduler = Executors.newSingleThreadScheduledExecutor(r ->
 		{
 			final Thread t = new Thread(r);
@@ -60,36 +106,186 @@ public class DefaultGlobalPreStartCoordinator implements GlobalPreStartCoordinat
 			t.setName("Global-InfraPreStarter-Scheduler");
 			return t;
 		});
-		this.preStartScheduler.scheduleAtFixedRate(
-			this::schedulePreStart,
-			0,
-			PreStartConfig.instance().coordinatorSchedulePeriodMs(),
-			TimeUnit.MILLISECONDS);
+		
+		final int validatePeriodMs = PreStartConfig.instance().coordinatorValidatePeriodMs();
+		if(validatePeriodMs > 0)
+		{
+			this.preStartScheduler.scheduleWithFixedDelay(
+				this::validatePreStarted,
+				validatePeriodMs,
+				validatePeriodMs,
+				TimeUnit.MILLISECONDS);
+		}
 		
 		LOG.info("Started");
 	}
 	
+	@Override
+	public void requestPreStart(final PreStartableTCIFactory<?, ?> factory)
+	{
+		LOG.trace("PreStart requested by {}", factory.getFactoryName());
+		this.scheduleNow();
+	}
+	
+	protected void scheduleNow()
+	{
+		if(this.immediateScheduled.compareAndSet(false, true))
+		{
+			this.submit(() -> {
+				this.immediateScheduled.set(false);
+				this.schedulePreStart();
+			}, 0);
+		}
+	}
+	
+	/**
+	 * Schedules a re-check. If a re-check is already scheduled earlier nothing happens.
+	 */
+	protected synchronized void scheduleDelayed(final long delayMs)
+	{
+		final long scheduleAtMs = System.currentTimeMillis() + delayMs;
+		// A re-check that is already due (e.g. the one that is currently running) doesn't count
+		if(this.delayedSchedule != null && this.delayedSchedule.getDelay(TimeUnit.MILLISECONDS) > 0)
+		{
+			if(this.delayedScheduleAtMs <= scheduleAtMs)
+			{
+				return;
+			}
+			this.delayedSchedule.cancel(false);
+		}
+		
+		this.delayedScheduleAtMs = scheduleAtMs;
+		this.delayedSchedule = this.submit(this::schedulePreStart, delayMs);
+	}
+	
+	protected ScheduledFuture<?> submit(final Runnable runnable, final long delayMs)
+	{
+		if(this.preStartScheduler.isShutdown())
+		{
+			return null;
+		}
+		try
+		{
+			return this.preStartScheduler.schedule(runnable, delayMs, TimeUnit.MILLISECONDS);
+		}
+		catch(final RejectedExecutionException ex)
+		{
+			LOG.debug("Scheduler is shut down", ex);
+			return null;
+		}
+	}
+	
 	@SuppressWarnings("PMD.AvoidSynchronizedStatement") // Required by synchronizedList
 	private void schedulePreStart()
 	{
+		final long recheckMs = PreStartConfig.instance().coordinatorSchedulePeriodMs();
+		final CoordinatorDecisionEvent decisionEvent = new CoordinatorDecisionEvent();
+		decisionEvent.begin();
 		try
 		{
-			if(LoadMonitor.instance().getCurrentIdlePercent().orElse(100)
-				> PreStartConfig.instance().coordinatorIdleCPUPercent())
+			final LoadSignals signals = LoadMonitor.instance().getCurrentSignals();
+			this.recordSignals(decisionEvent, signals);
+			
+			final PreStartAdmission admission = this.admissionPolicy.admit(signals);
+			this.admissionPolicy.traceState(this.tracer);
+			decisionEvent.setLoadAcceptable(admission.admitted());
+			decisionEvent.setMaxConcurrentPreStarts(admission.maxConcurrentPreStarts());
+			if(!admission.admitted())
+			{
+				LOG.debug("PreStarting not admitted: {}", admission.reason());
+				decisionEvent.setRejectReason(admission.reason());
+				this.scheduleDelayed(recheckMs);
+				return;
+			}
+			
+			final List<PreStartableTCIFactory<?, ?>> candidates;
+			synchronized(this.factories)
+			{
+				candidates = new ArrayList<>(this.factories);
+			}
+			decisionEvent.setCandidates(candidates.size());
+			
+			final int preStartsInFlight = candidates.stream()
+				.mapToInt(f -> f.getPreStartMetrics().preStarting())
+				.sum();
+			this.tracePreStartsInFlight.set(preStartsInFlight);
+			decisionEvent.setPreStartsInFlight(preStartsInFlight);
+			
+			final List<PreStartableTCIFactory<?, ?>> selected = this.schedulingPolicy.select(
+				candidates,
+				Math.max(0, Math.min(
+					PreStartConfig.instance().coordinatorMaxPreStartsPerSchedule(),
+					admission.maxConcurrentPreStarts() - preStartsInFlight)));
+			for(final PreStartableTCIFactory<?, ?> factory : selected)
 			{
-				final PreStartableTCIFactory<?, ?> factory;
-				synchronized(this.factories)
-				{
-					factory = this.factories.get(this.counter.getAndIncrement() % this.factories.size());
-				}
 				LOG.debug("Scheduling pre-starts for {}", factory.getFactoryName());
 				factory.schedulePreStart();
 			}
+			if(decisionEvent.isEnabled())
+			{
+				decisionEvent.setSelectedFactories(selected.stream()
+					.map(PreStartableTCIFactory::getFactoryName)
+					.collect(Collectors.joining(", ")));
+			}
+			
+			if(candidates.stream().anyMatch(f -> f.getPreStartMetrics().deficit() > 0))
+			{
+				this.scheduleDelayed(recheckMs);
+			}
+			else if(candidates.stream().anyMatch(f -> f.getAdaptiveKeepReady().isPresent()))
+			{
+				// Adaptive pools may shrink over time without any demand
+				this.scheduleDelayed(AdaptiveKeepReady.DEFAULT_ADJUST_INTERVAL.toMillis());
+			}
 		}
 		catch(final Exception ex)
 		{
 			LOG.warn("Failed to schedule PreStart", ex);
+			this.scheduleDelayed(recheckMs);
 		}
+		finally
+		{
+			decisionEvent.commit();
+		}
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected void recordSignals(final CoordinatorDecisionEvent decisionEvent, final LoadSignals signals)
+	{
+		if(decisionEvent.isEnabled())
+		{
+			decisionEvent.setIdle(signals.idlePercent() / 100);
+			decisionEvent.setRequiredIdle(PreStartConfig.instance().coordinatorIdleCPUPercent() / 100.0);
+			decisionEvent.setCpuPressure(signals.cpuPressurePercent() / 100);
+			decisionEvent.setMemoryPressure(signals.memoryPressurePercent() / 100);
+			decisionEvent.setIoPressure(signals.ioPressurePercent() / 100);
+			decisionEvent.setAvailableMemory(signals.availableMemoryBytes());
+			decisionEvent.setDaemonLatencyMs(signals.daemonLatencyMs());
+		}
+	}
+	
+	/**
+	 * Validates the PreStarted infrastructure of all factories.
+	 *
+	 * @see PreStartableTCIFactory#validatePreStarted()
+	 */
+	@SuppressWarnings("PMD.AvoidSynchronizedStatement") // Required by synchronizedList
+	protected void validatePreStarted()
+	{
+		final List<PreStartableTCIFactory<?, ?>> toValidate;
+		synchronized(this.factories)
+		{
+			toValidate = new ArrayList<>(this.factories);
+		}
+		// Validation requires calls to Docker -> don't block the scheduler
+		toValidate.forEach(factory -> TCIExecutor.instance()
+			.runAsync(factory::validatePreStarted)
+			.whenComplete((ignored, ex) -> {
+				if(ex != null)
+				{
+					LOG.warn("Failed to validate PreStarted infra of {}", factory.getFactoryName(), ex);
+				}
+			}));
 	}
 	
 	@Override
@@ -99,6 +295,9 @@ public class DefaultGlobalPreStartCoordinator implements GlobalPreStartCoordinat
 		{
 			this.factories.add(factory);
 		}
+		// Initially fill the pool
+		// Delayed as the factory is usually registered during its construction
+		this.scheduleDelayed(PreStartConfig.instance().coordinatorSchedulePeriodMs());
 	}
 	
 	@Override
@@ -108,6 +307,12 @@ public class DefaultGlobalPreStartCoordinator implements GlobalPreStartCoordinat
 		this.factoriesWeakSet.remove(factory);
 	}
 	
+	@Override
+	public TCITracer getTracer()
+	{
+		return this.tracer;
+	}
+	
 	@Override
 	public void close()
 	{
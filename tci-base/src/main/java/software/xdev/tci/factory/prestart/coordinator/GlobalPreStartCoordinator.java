@@ -17,6 +17,7 @@ package software.xdev.tci.factory.prestart.coordinator;
 
 import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
 import software.xdev.tci.serviceloading.TCIServiceLoader;
+import software.xdev.tci.tracing.TCITracer;
 
 
 public interface GlobalPreStartCoordinator extends AutoCloseable
@@ -25,6 +26,23 @@ public interface GlobalPreStartCoordinator extends AutoCloseable
 	
 	void unregister(final PreStartableTCIFactory<?, ?> factory);
 	
+	/**
+	 * Signals that the pool of the factory changed (e.g. infrastructure was taken or a PreStart failed) and that it
+	 * might need to be replenished.
+	 */
+	default void requestPreStart(final PreStartableTCIFactory<?, ?> factory)
+	{
+		// NO OP
+	}
+	
+	/**
+	 * @return tracer with the state of the coordinator (e.g. of the admission control) or <code>null</code>
+	 */
+	default TCITracer getTracer()
+	{
+		return null;
+	}
+	
 	@Override
 	void close();
 	
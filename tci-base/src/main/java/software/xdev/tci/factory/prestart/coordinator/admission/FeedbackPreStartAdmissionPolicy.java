@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.admission;
+
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Feedback controller that decides if and how many PreStarts may run based on the CPU utilization of the host.
+ * <ul>
+ *     <li>Smoothing: The load signals are smoothed with an exponentially weighted moving average (time constant
+ *     {@link PreStartConfig#coordinatorSmoothingMs()}), so that a single sample doesn't flip the decision.</li>
+ *     <li>Hysteresis: PreStarting is throttled once the utilization reaches
+ *     {@link PreStartConfig#coordinatorTargetUtilizationPercent()} and is only resumed when it's
+ *     {@link PreStartConfig#coordinatorHysteresisPercent()} below the target again.</li>
+ *     <li>Proportional control: The amount of concurrent PreStarts is proportional to the headroom against the target
+ *     (one per {@link PreStartConfig#coordinatorUtilizationPerPreStartPercent()}; at least one).</li>
+ * </ul>
+ * <p>
+ * The other signals (pressure, available memory and daemon latency) are checked after smoothing against the
+ * thresholds of {@link ThresholdPreStartAdmissionPolicy}. If the utilization is unknown only these checks are
+ * executed.
+ * </p>
+ * <p>
+ * The state of the controller is published to the tracer of the coordinator (<code>controller.*</code>).
+ * </p>
+ */
+public class FeedbackPreStartAdmissionPolicy extends ThresholdPreStartAdmissionPolicy
+{
+	protected static final double NANOS_PER_MS = 1_000_000.0;
+	
+	// Only accessed by the scheduler of the coordinator
+	protected long lastUpdateNanos;
+	protected double smoothedIdlePercent = Double.NaN;
+	protected double smoothedCpuPressurePercent = Double.NaN;
+	protected double smoothedMemoryPressurePercent = Double.NaN;
+	protected double smoothedIoPressurePercent = Double.NaN;
+	protected double smoothedDaemonLatencyMs = Double.NaN;
+	protected double rawUtilizationPercent = Double.NaN;
+	protected boolean throttled;
+	protected int maxConcurrentPreStarts = Integer.MAX_VALUE;
+	
+	@Override
+	public PreStartAdmission admit(final LoadSignals signals)
+	{
+		final PreStartConfig config = this.config();
+		final LoadSignals smoothed = this.smooth(signals, config.coordinatorSmoothingMs(), System.nanoTime());
+		
+		this.rawUtilizationPercent = utilization(signals);
+		final PreStartAdmission cpu = this.controlUtilization(utilization(smoothed), config);
+		if(!cpu.admitted())
+		{
+			return cpu;
+		}
+		
+		final PreStartAdmission resources = this.admitResources(smoothed, config);
+		return resources.admitted() ? cpu : resources;
+	}
+	
+	protected PreStartAdmission controlUtilization(final double utilization, final PreStartConfig config)
+	{
+		if(Double.isNaN(utilization))
+		{
+			this.maxConcurrentPreStarts = Integer.MAX_VALUE;
+			return PreStartAdmission.ADMITTED;
+		}
+		
+		final int target = config.coordinatorTargetUtilizationPercent();
+		if(utilization >= target)
+		{
+			this.throttled = true;
+		}
+		else if(this.throttled && utilization < target - config.coordinatorHysteresisPercent())
+		{
+			this.throttled = false;
+		}
+		
+		if(this.throttled)
+		{
+			this.maxConcurrentPreStarts = 0;
+			return PreStartAdmission.rejected("Utilization " + Math.round(utilization) + "% (target " + target
+				+ "%; resumes below " + (target - config.coordinatorHysteresisPercent()) + "%)");
+		}
+		
+		this.maxConcurrentPreStarts = Math.max(
+			1,
+			(int)((target - utilization) / config.coordinatorUtilizationPerPreStartPercent()));
+		return PreStartAdmission.admitted(this.maxConcurrentPreStarts);
+	}
+	
+	protected LoadSignals smooth(final LoadSignals signals, final int smoothingMs, final long nowNanos)
+	{
+		final double alpha = smoothingMs > 0
+			? 1 - Math.exp(-(nowNanos - this.lastUpdateNanos) / NANOS_PER_MS / smoothingMs)
+			: 1;
+		this.lastUpdateNanos = nowNanos;
+		
+		this.smoothedIdlePercent = ewma(this.smoothedIdlePercent, signals.idlePercent(), alpha);
+		this.smoothedCpuPressurePercent = ewma(this.smoothedCpuPressurePercent, signals.cpuPressurePercent(), alpha);
+		this.smoothedMemoryPressurePercent =
+			ewma(this.smoothedMemoryPressurePercent, signals.memoryPressurePercent(), alpha);
+		this.smoothedIoPressurePercent = ewma(this.smoothedIoPressurePercent, signals.ioPressurePercent(), alpha);
+		this.smoothedDaemonLatencyMs = ewma(this.smoothedDaemonLatencyMs, signals.daemonLatencyMs(), alpha);
+		
+		return new LoadSignals(
+			this.smoothedIdlePercent,
+			this.smoothedCpuPressurePercent,
+			this.smoothedMemoryPressurePercent,
+			this.smoothedIoPressurePercent,
+			signals.availableMemoryBytes(),
+			this.smoothedDaemonLatencyMs);
+	}
+	
+	/**
+	 * Exponentially weighted moving average. Unknown ({@link Double#NaN}) values are skipped.
+	 */
+	protected static double ewma(final double previous, final double value, final double alpha)
+	{
+		if(Double.isNaN(value))
+		{
+			return previous;
+		}
+		if(Double.isNaN(previous))
+		{
+			return value;
+		}
+		return previous + alpha * (value - previous);
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected static double utilization(final LoadSignals signals)
+	{
+		return 100 - signals.idlePercent();
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	@Override
+	public void traceState(final TCITracer tracer)
+	{
+		tracer.getGaugeOrCreate("controller.utilizationRaw").set(this.rawUtilizationPercent);
+		tracer.getGaugeOrCreate("controller.utilization").set(100 - this.smoothedIdlePercent);
+		tracer.getGaugeOrCreate("controller.target").set(this.config().coordinatorTargetUtilizationPercent());
+		tracer.getGaugeOrCreate("controller.throttled").set(this.throttled ? 1 : 0);
+		if(this.maxConcurrentPreStarts != Integer.MAX_VALUE)
+		{
+			tracer.getGaugeOrCreate("controller.maxConcurrentPreStarts").set(this.maxConcurrentPreStarts);
+		}
+		tracer.getGaugeOrCreate("controller.memoryPressure").set(this.smoothedMemoryPressurePercent);
+		tracer.getGaugeOrCreate("controller.ioPressure").set(this.smoothedIoPressurePercent);
+		tracer.getGaugeOrCreate("controller.daemonLatencyMs").set(this.smoothedDaemonLatencyMs);
+	}
+	
+	// region Get
+	
+	public boolean isThrottled()
+	{
+		return this.throttled;
+	}
+	
+	public int getMaxConcurrentPreStarts()
+	{
+		return this.maxConcurrentPreStarts;
+	}
+	
+	// endregion
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.admission;
+
+/**
+ * Decision of a {@link PreStartAdmissionPolicy}.
+ *
+ * @param admitted               is PreStarting allowed
+ * @param maxConcurrentPreStarts how many PreStarts may run at the same time (across all factories)
+ * @param reason                 why PreStarting is not allowed; <code>null</code> when admitted
+ */
+public record PreStartAdmission(boolean admitted, int maxConcurrentPreStarts, String reason)
+{
+	public static final PreStartAdmission ADMITTED = new PreStartAdmission(true, Integer.MAX_VALUE, null);
+	
+	public static PreStartAdmission admitted(final int maxConcurrentPreStarts)
+	{
+		return new PreStartAdmission(true, maxConcurrentPreStarts, null);
+	}
+	
+	public static PreStartAdmission rejected(final String reason)
+	{
+		return new PreStartAdmission(false, 0, reason);
+	}
+}
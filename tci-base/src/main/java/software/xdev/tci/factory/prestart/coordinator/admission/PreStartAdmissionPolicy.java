@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.admission;
+
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Decides if the load of the container environment allows PreStarting.
+ * <p>
+ * Used by the {@link software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator} before the
+ * {@link software.xdev.tci.factory.prestart.coordinator.scheduling.PreStartSchedulingPolicy} is asked which factories
+ * should PreStart.
+ * </p>
+ */
+public interface PreStartAdmissionPolicy
+{
+	/**
+	 * @param signals the current signals of the {@link software.xdev.tci.factory.prestart.loadbalancing.LoadMonitor}
+	 */
+	PreStartAdmission admit(LoadSignals signals);
+	
+	/**
+	 * Publishes the internal state (e.g. of a controller) to the tracer of the coordinator.
+	 */
+	default void traceState(final TCITracer tracer)
+	{
+		// NO OP
+	}
+	
+	static PreStartAdmissionPolicy instance()
+	{
+		return TCIServiceLoader.instance().service(PreStartAdmissionPolicy.class);
+	}
+}
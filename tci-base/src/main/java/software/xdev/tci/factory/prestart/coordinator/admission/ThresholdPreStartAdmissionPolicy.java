@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.admission;
+
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+
+
+/**
+ * Admits PreStarting only if all signals are within the thresholds of the {@link PreStartConfig}:
+ * <ul>
+ *     <li>Idle CPU above {@link PreStartConfig#coordinatorIdleCPUPercent()}</li>
+ *     <li>CPU, memory and IO pressure below {@link PreStartConfig#coordinatorMaxCpuPressurePercent()},
+ *     {@link PreStartConfig#coordinatorMaxMemoryPressurePercent()} and
+ *     {@link PreStartConfig#coordinatorMaxIoPressurePercent()}</li>
+ *     <li>Available memory above {@link PreStartConfig#coordinatorMinAvailableMemoryMb()}</li>
+ *     <li>Docker daemon latency below {@link PreStartConfig#coordinatorMaxDaemonLatencyMs()}</li>
+ * </ul>
+ * <p>
+ * Signals that are unknown (e.g. not supported by the
+ * {@link software.xdev.tci.factory.prestart.loadbalancing.LoadMonitor}) are ignored.
+ * </p>
+ */
+public class ThresholdPreStartAdmissionPolicy implements PreStartAdmissionPolicy
+{
+	protected static final long BYTES_PER_MB = 1024L * 1024;
+	
+	@Override
+	public PreStartAdmission admit(final LoadSignals signals)
+	{
+		final PreStartConfig config = this.config();
+		
+		if(signals.idlePercent() <= config.coordinatorIdleCPUPercent())
+		{
+			return PreStartAdmission.rejected("Idle CPU " + signals.idlePercent() + "%");
+		}
+		return this.admitResources(signals, config);
+	}
+	
+	/**
+	 * Checks all signals except the idle CPU.
+	 */
+	protected PreStartAdmission admitResources(final LoadSignals signals, final PreStartConfig config)
+	{
+		if(exceeds(signals.cpuPressurePercent(), config.coordinatorMaxCpuPressurePercent()))
+		{
+			return PreStartAdmission.rejected("CPU pressure " + signals.cpuPressurePercent() + "%");
+		}
+		if(exceeds(signals.memoryPressurePercent(), config.coordinatorMaxMemoryPressurePercent()))
+		{
+			return PreStartAdmission.rejected("Memory pressure " + signals.memoryPressurePercent() + "%");
+		}
+		if(exceeds(signals.ioPressurePercent(), config.coordinatorMaxIoPressurePercent()))
+		{
+			return PreStartAdmission.rejected("IO pressure " + signals.ioPressurePercent() + "%");
+		}
+		if(signals.availableMemoryBytes() >= 0
+			&& signals.availableMemoryBytes() < config.coordinatorMinAvailableMemoryMb() * BYTES_PER_MB)
+		{
+			return PreStartAdmission.rejected(
+				"Available memory " + signals.availableMemoryBytes() / BYTES_PER_MB + "MB");
+		}
+		if(exceeds(signals.daemonLatencyMs(), config.coordinatorMaxDaemonLatencyMs()))
+		{
+			return PreStartAdmission.rejected("Daemon latency " + signals.daemonLatencyMs() + "ms");
+		}
+		return PreStartAdmission.ADMITTED;
+	}
+	
+	protected static boolean exceeds(final double value, final int max)
+	{
+		// NaN (unknown) never exceeds
+		return max > 0 && value > max;
+	}
+	
+	protected PreStartConfig config()
+	{
+		return PreStartConfig.instance();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.scheduling;
+
+import java.util.List;
+
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Decides which factories should PreStart infrastructure when the
+ * {@link software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator} allows it.
+ */
+public interface PreStartSchedulingPolicy
+{
+	/**
+	 * Selects the factories that should PreStart infrastructure now.
+	 *
+	 * @param factories    all registered factories
+	 * @param maxPreStarts the maximum amount of PreStarts that are allowed
+	 * @return the selected factories ordered by priority. A factory may be contained multiple times (once for every
+	 * PreStart).
+	 */
+	List<PreStartableTCIFactory<?, ?>> select(List<PreStartableTCIFactory<?, ?>> factories, int maxPreStarts);
+	
+	static PreStartSchedulingPolicy instance()
+	{
+		return TCIServiceLoader.instance().service(PreStartSchedulingPolicy.class);
+	}
+}
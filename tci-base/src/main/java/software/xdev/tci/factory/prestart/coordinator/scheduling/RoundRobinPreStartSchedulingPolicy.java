@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.scheduling;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+
+
+/**
+ * Selects the factories one after another, regardless of their metrics.
+ */
+public class RoundRobinPreStartSchedulingPolicy implements PreStartSchedulingPolicy
+{
+	protected final AtomicInteger counter = new AtomicInteger(0);
+	
+	@Override
+	public List<PreStartableTCIFactory<?, ?>> select(
+		final List<PreStartableTCIFactory<?, ?>> factories,
+		final int maxPreStarts)
+	{
+		if(factories.isEmpty())
+		{
+			return List.of();
+		}
+		
+		return IntStream.range(0, Math.min(maxPreStarts, factories.size()))
+			.<PreStartableTCIFactory<?, ?>>mapToObj(i ->
+				factories.get(Math.floorMod(this.counter.getAndIncrement(), factories.size())))
+			.toList();
+	}
+}
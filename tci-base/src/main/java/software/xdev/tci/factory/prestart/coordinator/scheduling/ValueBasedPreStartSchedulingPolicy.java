@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.scheduling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+
+import software.xdev.tci.factory.prestart.PreStartMetrics;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.misc.ContainerMemory;
+
+
+/**
+ * Ranks factories by the expected time that is saved per used resource.
+ * <p>
+ * The value of a PreStart is calculated like this:
+ * <pre>
+ * averageStartTime * (baseDemandWeight + missRate) / memoryLimitInGiB
+ * </pre>
+ * So e.g. a container that needs a long time to start and is often missed in the pool is preferred over a cheap
+ * container that is rarely requested.
+ * </p>
+ * <p>
+ * Fairness:
+ * <ul>
+ *     <li>A factory is selected at most {@link #maxPerFactory} times per selection</li>
+ *     <li>A factory is selected at most {@link #maxConsecutive} selections in a row while other factories are
+ *     waiting</li>
+ *     <li>The value of waiting factories increases with every selection they were not chosen ("aging")</li>
+ * </ul>
+ * </p>
+ */
+public class ValueBasedPreStartSchedulingPolicy implements PreStartSchedulingPolicy
+{
+	public static final double DEFAULT_UNKNOWN_START_MS = 10_000;
+	public static final long DEFAULT_UNKNOWN_MEMORY_BYTES = ContainerMemory.M512M;
+	public static final double DEFAULT_BASE_DEMAND_WEIGHT = 0.1;
+	public static final double DEFAULT_AGING_FACTOR = 0.5;
+	public static final int DEFAULT_MAX_PER_FACTORY = 1;
+	public static final int DEFAULT_MAX_CONSECUTIVE = 3;
+	
+	protected static final double BYTES_PER_GIB = 1024.0 * 1024.0 * 1024.0;
+	protected static final long MIN_MEMORY_BYTES = 64 * 1024L * 1024L;
+	
+	protected double baseDemandWeight = DEFAULT_BASE_DEMAND_WEIGHT;
+	protected double agingFactor = DEFAULT_AGING_FACTOR;
+	protected int maxPerFactory = DEFAULT_MAX_PER_FACTORY;
+	protected int maxConsecutive = DEFAULT_MAX_CONSECUTIVE;
+	
+	protected final Map<PreStartableTCIFactory<?, ?>, FairnessState> fairnessStates = new WeakHashMap<>();
+	
+	public ValueBasedPreStartSchedulingPolicy withBaseDemandWeight(final double baseDemandWeight)
+	{
+		this.baseDemandWeight = baseDemandWeight;
+		return this;
+	}
+	
+	public ValueBasedPreStartSchedulingPolicy withAgingFactor(final double agingFactor)
+	{
+		this.agingFactor = agingFactor;
+		return this;
+	}
+	
+	public ValueBasedPreStartSchedulingPolicy withMaxPerFactory(final int maxPerFactory)
+	{
+		this.maxPerFactory = maxPerFactory;
+		return this;
+	}
+	
+	public ValueBasedPreStartSchedulingPolicy withMaxConsecutive(final int maxConsecutive)
+	{
+		this.maxConsecutive = maxConsecutive;
+		return this;
+	}
+	
+	@Override
+	public synchronized List<PreStartableTCIFactory<?, ?>> select(
+		final List<PreStartableTCIFactory<?, ?>> factories,
+		final int maxPreStarts)
+	{
+		final List<Candidate> candidates = factories.stream()
+			.map(f -> new Candidate(f, f.getPreStartMetrics()))
+			.filter(c -> c.metrics().deficit() > 0)
+			.toList();
+		if(candidates.isEmpty())
+		{
+			return List.of();
+		}
+		
+		final double fallbackStartMs = candidates.stream()
+			.map(c -> c.metrics().averageStartMs())
+			.filter(OptionalDouble::isPresent)
+			.mapToDouble(OptionalDouble::getAsDouble)
+			.average()
+			.orElse(DEFAULT_UNKNOWN_START_MS);
+		
+		final Map<Candidate, Double> scores = candidates.stream()
+			.collect(Collectors.toMap(
+				c -> c,
+				c -> this.value(c.metrics(), fallbackStartMs)
+					* (1 + this.agingFactor * this.fairnessState(c.factory()).waitingSelections)));
+		final List<Candidate> ranked = candidates.stream()
+			.sorted(Comparator.comparingDouble(scores::get).reversed())
+			.toList();
+		
+		final List<PreStartableTCIFactory<?, ?>> selected = new ArrayList<>();
+		final Map<Candidate, Integer> selectedCount = new HashMap<>();
+		boolean selectedAny = true;
+		while(selected.size() < maxPreStarts && selectedAny)
+		{
+			selectedAny = false;
+			for(final Candidate candidate : ranked)
+			{
+				if(selected.size() >= maxPreStarts)
+				{
+					break;
+				}
+				final int count = selectedCount.getOrDefault(candidate, 0);
+				if(count < Math.min(this.maxPerFactory, candidate.metrics().deficit())
+					&& !this.exceedsConsecutive(candidate, ranked.size()))
+				{
+					selected.add(candidate.factory());
+					selectedCount.put(candidate, count + 1);
+					selectedAny = true;
+				}
+			}
+		}
+		
+		this.updateFairnessStates(ranked, selectedCount);
+		
+		return Collections.unmodifiableList(selected);
+	}
+	
+	/**
+	 * Expected time saved (ms) per GiB of memory.
+	 */
+	protected double value(final PreStartMetrics metrics, final double fallbackStartMs)
+	{
+		final double startMs = metrics.averageStartMs().orElse(fallbackStartMs);
+		final double memoryGiB = Math.max(MIN_MEMORY_BYTES, metrics.memoryLimitBytes()
+			.orElse(DEFAULT_UNKNOWN_MEMORY_BYTES)) / BYTES_PER_GIB;
+		
+		return startMs * (this.baseDemandWeight + metrics.missRate()) / memoryGiB;
+	}
+	
+	protected boolean exceedsConsecutive(final Candidate candidate, final int candidateCount)
+	{
+		// Only relevant if someone else is waiting
+		return candidateCount > 1
+			&& this.fairnessState(candidate.factory()).consecutiveSelections >= this.maxConsecutive;
+	}
+	
+	protected void updateFairnessStates(final List<Candidate> ranked, final Map<Candidate, Integer> selectedCount)
+	{
+		for(final Candidate candidate : ranked)
+		{
+			final FairnessState state = this.fairnessState(candidate.factory());
+			if(selectedCount.containsKey(candidate))
+			{
+				state.consecutiveSelections++;
+				state.waitingSelections = 0;
+			}
+			else
+			{
+				state.consecutiveSelections = 0;
+				state.waitingSelections++;
+			}
+		}
+	}
+	
+	protected FairnessState fairnessState(final PreStartableTCIFactory<?, ?> factory)
+	{
+		return this.fairnessStates.computeIfAbsent(factory, ignored -> new FairnessState());
+	}
+	
+	protected record Candidate(PreStartableTCIFactory<?, ?> factory, PreStartMetrics metrics)
+	{
+	}
+	
+	
+	protected static class FairnessState
+	{
+		protected int consecutiveSelections;
+		protected int waitingSelections;
+	}
+}
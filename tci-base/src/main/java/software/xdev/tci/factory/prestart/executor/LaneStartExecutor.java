@@ -0,0 +1,360 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.executor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Executes infrastructure starts in two lanes:
+ * <ul>
+ *     <li>{@link Lane#DEMAND} - a test is waiting for the infrastructure; always takes the next free slot</li>
+ *     <li>{@link Lane#SPECULATIVE} - PreStarts; only run in spare capacity</li>
+ * </ul>
+ * <p>
+ * One slot is reserved for demanded starts: If all slots are occupied by speculative starts a demanded start is
+ * executed anyway (exceeding <code>maxRunning</code> by one), so that a waiting test never queues behind PreStarts.
+ * </p>
+ * <p>
+ * Queued speculative starts are demoted behind demanded ones and can be cancelled (by cancelling the returned
+ * future) as long as they are not running. Already running starts are only interrupted when the future is
+ * cancelled with <code>mayInterruptIfRunning</code>.
+ * </p>
+ * <p>
+ * The time a start had to wait in the queue is traced per lane as <code>queueWait(&lt;lane&gt;)</code>.
+ * </p>
+ */
+public class LaneStartExecutor
+{
+	protected final ExecutorService executor;
+	protected final int maxRunning;
+	protected final int maxRunningSpeculative;
+	protected final TCITracer tracer;
+	protected final Map<Lane, TCITracer.Timed> queueWaitTimers = new EnumMap<>(Lane.class);
+	
+	protected final ReentrantLock lock = new ReentrantLock();
+	protected final Deque<LaneTask> demandQueue = new ArrayDeque<>();
+	protected final Deque<LaneTask> speculativeQueue = new ArrayDeque<>();
+	protected int running;
+	protected int runningSpeculative;
+	protected boolean shutdown;
+	
+	/**
+	 * @param executor              Executes the starts. Should be able to run at least <code>maxRunning</code> tasks
+	 *                              in parallel (e.g. a cached thread pool)
+	 * @param maxRunning            Maximum amount of simultaneously running starts; negative = unlimited
+	 * @param maxRunningSpeculative Maximum amount of simultaneously running speculative starts; negative = unlimited
+	 *                              (is always limited to <code>maxRunning</code>)
+	 */
+	public LaneStartExecutor(
+		final ExecutorService executor,
+		final int maxRunning,
+		final int maxRunningSpeculative,
+		final TCITracer tracer)
+	{
+		this.executor = executor;
+		this.maxRunning = maxRunning < 0 ? Integer.MAX_VALUE : Math.max(1, maxRunning);
+		this.maxRunningSpeculative = maxRunningSpeculative < 0
+			? this.maxRunning
+			: Math.min(this.maxRunning, Math.max(1, maxRunningSpeculative));
+		this.tracer = tracer;
+		for(final Lane lane : Lane.values())
+		{
+			this.queueWaitTimers.put(lane, tracer.getTimedOrCreate("queueWait(" + lane.traceName() + ")"));
+		}
+	}
+	
+	/**
+	 * Submits a task into the given lane.
+	 * <p>
+	 * Cancelling the returned future removes the task from the queue if it's not running yet. If it's already
+	 * running it's interrupted when <code>mayInterruptIfRunning</code> is set.
+	 * </p>
+	 */
+	public CompletableFuture<Void> submit(final Lane lane, final Runnable runnable)
+	{
+		final LaneTask task = new LaneTask(lane, runnable);
+		this.lock.lock();
+		try
+		{
+			if(this.shutdown)
+			{
+				throw new RejectedExecutionException("Executor was shut down");
+			}
+			(lane == Lane.DEMAND ? this.demandQueue : this.speculativeQueue).add(task);
+			this.dispatch();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		return task.future;
+	}
+	
+	/**
+	 * Starts queued tasks while there is free capacity. Must be called while holding the {@link #lock}.
+	 */
+	protected void dispatch()
+	{
+		while(true)
+		{
+			final LaneTask next = this.pollNext();
+			if(next == null)
+			{
+				return;
+			}
+			if(next.future.isCancelled())
+			{
+				// Cancelled while waiting
+				continue;
+			}
+			
+			this.running++;
+			if(next.lane == Lane.SPECULATIVE)
+			{
+				this.runningSpeculative++;
+			}
+			try
+			{
+				this.executor.execute(() -> this.run(next));
+			}
+			catch(final RejectedExecutionException rex)
+			{
+				this.onFinished(next);
+				next.future.completeExceptionally(rex);
+			}
+		}
+	}
+	
+	protected LaneTask pollNext()
+	{
+		// The reserved demand slot is free when only speculative starts are running
+		if(!this.demandQueue.isEmpty()
+			&& (this.running < this.maxRunning || this.running == this.runningSpeculative))
+		{
+			return this.demandQueue.poll();
+		}
+		return this.running < this.maxRunning && this.runningSpeculative < this.maxRunningSpeculative
+			? this.speculativeQueue.poll()
+			: null;
+	}
+	
+	@SuppressWarnings({"checkstyle:IllegalCatch", "PMD.AvoidCatchingThrowable"})
+	protected void run(final LaneTask task)
+	{
+		try
+		{
+			// Skip when cancelled in the meantime
+			if(task.future.markStarted())
+			{
+				this.queueWaitTimers.get(task.lane).addNanos(System.nanoTime() - task.submittedAtNanos);
+				try
+				{
+					task.runnable.run();
+				}
+				finally
+				{
+					task.future.markFinished();
+				}
+				task.future.complete(null);
+			}
+		}
+		catch(final Throwable t)
+		{
+			task.future.completeExceptionally(t);
+		}
+		finally
+		{
+			this.lock.lock();
+			try
+			{
+				this.onFinished(task);
+				this.dispatch();
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+		}
+	}
+	
+	protected void onFinished(final LaneTask task)
+	{
+		this.running--;
+		if(task.lane == Lane.SPECULATIVE)
+		{
+			this.runningSpeculative--;
+		}
+	}
+	
+	public int getQueuedCount(final Lane lane)
+	{
+		this.lock.lock();
+		try
+		{
+			return (int)(lane == Lane.DEMAND ? this.demandQueue : this.speculativeQueue).stream()
+				.filter(t -> !t.future.isCancelled())
+				.count();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Cancels all queued starts and shuts down the underlying executor. Running starts are not interrupted.
+	 */
+	public void shutdown()
+	{
+		this.lock.lock();
+		try
+		{
+			this.shutdown = true;
+			this.demandQueue.forEach(t -> t.future.cancel(false));
+			this.demandQueue.clear();
+			this.speculativeQueue.forEach(t -> t.future.cancel(false));
+			this.speculativeQueue.clear();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		this.executor.shutdown();
+	}
+	
+	public boolean isShutdown()
+	{
+		this.lock.lock();
+		try
+		{
+			return this.shutdown;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	public enum Lane
+	{
+		DEMAND,
+		SPECULATIVE;
+		
+		public String traceName()
+		{
+			return this.name().toLowerCase();
+		}
+	}
+	
+	
+	protected static class LaneTask
+	{
+		protected final Lane lane;
+		protected final Runnable runnable;
+		protected final long submittedAtNanos = System.nanoTime();
+		protected final LaneTaskFuture future = new LaneTaskFuture();
+		
+		protected LaneTask(final Lane lane, final Runnable runnable)
+		{
+			this.lane = lane;
+			this.runnable = runnable;
+		}
+	}
+	
+	
+	/**
+	 * Future that can only be cancelled as long as the task was not started.
+	 * <p>
+	 * Cancelling a running task with <code>mayInterruptIfRunning</code> interrupts the thread that executes it. The
+	 * future is then completed with whatever the task does when interrupted (usually an exception).
+	 * </p>
+	 */
+	protected static class LaneTaskFuture extends CompletableFuture<Void>
+	{
+		protected final AtomicBoolean startedOrCancelled = new AtomicBoolean();
+		protected final ReentrantLock runnerLock = new ReentrantLock();
+		protected Thread runner;
+		
+		protected boolean markStarted()
+		{
+			this.runnerLock.lock();
+			try
+			{
+				if(!this.startedOrCancelled.compareAndSet(false, true))
+				{
+					return false;
+				}
+				this.runner = Thread.currentThread();
+				return true;
+			}
+			finally
+			{
+				this.runnerLock.unlock();
+			}
+		}
+		
+		protected void markFinished()
+		{
+			this.runnerLock.lock();
+			try
+			{
+				this.runner = null;
+				// Don't leak a late interrupt into the next task of the thread
+				Thread.interrupted();
+			}
+			finally
+			{
+				this.runnerLock.unlock();
+			}
+		}
+		
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning)
+		{
+			if(this.startedOrCancelled.compareAndSet(false, true))
+			{
+				return super.cancel(false);
+			}
+			if(mayInterruptIfRunning)
+			{
+				this.runnerLock.lock();
+				try
+				{
+					if(this.runner != null)
+					{
+						this.runner.interrupt();
+					}
+				}
+				finally
+				{
+					this.runnerLock.unlock();
+				}
+			}
+			return false;
+		}
+	}
+}
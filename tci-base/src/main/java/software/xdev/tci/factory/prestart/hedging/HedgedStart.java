@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.hedging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+/**
+ * One or more (hedged) starts of which the first one that finishes successfully is used.
+ * <p>
+ * All other starts are abandoned (e.g. handed over to the pool or stopped) once a start finished. If all starts
+ * fail, {@link #first()} is completed with the failure of the last one.
+ * </p>
+ *
+ * @param <S> type of the start
+ */
+public class HedgedStart<S>
+{
+	protected final Function<S, CompletableFuture<?>> startFuture;
+	protected final Consumer<S> abandonStart;
+	protected final Consumer<S> cancelStart;
+	
+	protected final ReentrantLock lock = new ReentrantLock();
+	protected final List<S> starts = new ArrayList<>();
+	protected final CompletableFuture<S> first = new CompletableFuture<>();
+	protected S winner;
+	protected int failedCount;
+	protected boolean settled;
+	protected boolean abandoned;
+	
+	/**
+	 * @param startFuture  Future that is completed once the start finished
+	 * @param abandonStart Called for starts that are no longer needed
+	 * @param cancelStart  Called for starts that should be cancelled (e.g. because the waiter was interrupted)
+	 */
+	public HedgedStart(
+		final S primary,
+		final Function<S, CompletableFuture<?>> startFuture,
+		final Consumer<S> abandonStart,
+		final Consumer<S> cancelStart)
+	{
+		this.startFuture = Objects.requireNonNull(startFuture);
+		this.abandonStart = Objects.requireNonNull(abandonStart);
+		this.cancelStart = Objects.requireNonNull(cancelStart);
+		this.add(primary);
+	}
+	
+	/**
+	 * @return future that is completed with the start that finished first
+	 */
+	public CompletableFuture<S> first()
+	{
+		return this.first;
+	}
+	
+	/**
+	 * Adds an additional (hedged) start. If a start already finished, the added start is abandoned immediately.
+	 */
+	public void add(final S start)
+	{
+		final boolean tooLate;
+		this.lock.lock();
+		try
+		{
+			tooLate = this.settled;
+			if(!tooLate)
+			{
+				this.starts.add(start);
+			}
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		if(tooLate)
+		{
+			this.abandonStart.accept(start);
+			return;
+		}
+		this.startFuture.apply(start).whenComplete((ignored, ex) -> this.onCompleted(start, ex));
+	}
+	
+	protected void onCompleted(final S start, final Throwable ex)
+	{
+		final List<S> losers;
+		this.lock.lock();
+		try
+		{
+			if(this.settled
+				// Other starts might still succeed
+				|| ex != null && ++this.failedCount < this.starts.size())
+			{
+				return;
+			}
+			this.settled = true;
+			this.winner = ex == null ? start : null;
+			losers = this.starts.stream().filter(s -> s != this.winner).toList();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		
+		losers.forEach(this.abandonStart);
+		if(ex != null)
+		{
+			this.first.completeExceptionally(ex);
+		}
+		else
+		{
+			this.first.complete(start);
+		}
+	}
+	
+	/**
+	 * Cancels all starts if none finished yet.
+	 *
+	 * @return <code>false</code> if a start already finished
+	 */
+	public boolean cancel()
+	{
+		final List<S> toCancel;
+		this.lock.lock();
+		try
+		{
+			if(this.settled)
+			{
+				return false;
+			}
+			this.settled = true;
+			this.abandoned = true;
+			toCancel = List.copyOf(this.starts);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		toCancel.forEach(this.cancelStart);
+		this.first.cancel(false);
+		return true;
+	}
+	
+	/**
+	 * Abandons all starts - including the one that finished first - because the waiter gave up.
+	 */
+	public void abandon()
+	{
+		final List<S> toAbandon;
+		this.lock.lock();
+		try
+		{
+			if(this.abandoned)
+			{
+				return;
+			}
+			this.abandoned = true;
+			if(this.settled)
+			{
+				// Losers were already abandoned
+				toAbandon = this.winner != null ? List.of(this.winner) : List.of();
+			}
+			else
+			{
+				this.settled = true;
+				toAbandon = List.copyOf(this.starts);
+			}
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		toAbandon.forEach(this.abandonStart);
+		this.first.cancel(false);
+	}
+}
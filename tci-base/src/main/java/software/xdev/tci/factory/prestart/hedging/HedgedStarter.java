@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.hedging;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Waits for starts and launches a second (hedged) start if a start takes unusually long.
+ *
+ * @see HedgingPolicy
+ * @see HedgedStart
+ */
+public class HedgedStarter<S>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(HedgedStarter.class);
+	
+	/**
+	 * How often it's checked if a start that is still waiting for a free slot is executing now
+	 */
+	protected static final long QUEUED_RECHECK_MS = 250;
+	
+	protected final String name;
+	protected final HedgingPolicy policy;
+	protected final Starts<S> starts;
+	protected final TCITracer.Timed traceHedgeWon;
+	
+	public HedgedStarter(
+		final String name,
+		final HedgingPolicy policy,
+		final Starts<S> starts,
+		final TCITracer tracer)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.policy = Objects.requireNonNull(policy);
+		this.starts = Objects.requireNonNull(starts);
+		this.traceHedgeWon = tracer.getTimedOrCreate("hedgeWon");
+	}
+	
+	public HedgingPolicy getPolicy()
+	{
+		return this.policy;
+	}
+	
+	/**
+	 * @param hedgeable if the start can be exchanged with another one; if not it's only waited for
+	 */
+	public HedgedStart<S> start(final S primary, final boolean hedgeable)
+	{
+		final HedgedStart<S> hedgedStart = new HedgedStart<>(
+			primary,
+			this.starts::startFuture,
+			this.starts::abandon,
+			this.starts::cancel);
+		if(hedgeable && !this.starts.startFuture(primary).isDone())
+		{
+			this.scheduleHedgeCheck(hedgedStart, primary);
+			hedgedStart.first().thenAccept(first -> {
+				if(first != primary)
+				{
+					LOG.info("[{}] Hedged start finished first", this.name);
+					this.traceHedgeWon.addMs(System.currentTimeMillis() - this.starts.executionStartedAtMs(first));
+				}
+			});
+		}
+		return hedgedStart;
+	}
+	
+	protected void scheduleHedgeCheck(final HedgedStart<S> hedgedStart, final S primary)
+	{
+		this.policy.hedgeAfterMs().ifPresent(hedgeAfterMs -> this.schedule(
+			() -> this.tryHedge(hedgedStart, primary),
+			this.delayUntilHedgeMs(primary, hedgeAfterMs)));
+	}
+	
+	protected void schedule(final Runnable runnable, final long delayMs)
+	{
+		CompletableFuture.runAsync(
+			runnable,
+			CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, TCIExecutor.instance()));
+	}
+	
+	/**
+	 * @return how long to wait until the start should be hedged; measured from when the start was actually executed
+	 * (which might be before it was acquired, e.g. for claimed PreStarts)
+	 */
+	protected long delayUntilHedgeMs(final S start, final long hedgeAfterMs)
+	{
+		final long executionStartedAtMs = this.starts.executionStartedAtMs(start);
+		if(executionStartedAtMs == 0)
+		{
+			// Still waiting for a free slot -> the hedged start would need to wait too; check again later
+			return Math.min(hedgeAfterMs, QUEUED_RECHECK_MS);
+		}
+		return Math.max(0, executionStartedAtMs + hedgeAfterMs - System.currentTimeMillis());
+	}
+	
+	protected void tryHedge(final HedgedStart<S> hedgedStart, final S primary)
+	{
+		if(hedgedStart.first().isDone())
+		{
+			return;
+		}
+		if(this.starts.executionStartedAtMs(primary) == 0
+			|| this.delayUntilHedgeMs(primary, this.policy.hedgeAfterMs().orElse(0)) > 0)
+		{
+			// Still queued or executed later than expected
+			this.scheduleHedgeCheck(hedgedStart, primary);
+			return;
+		}
+		if(!this.starts.canHedge() || !this.policy.tryAcquirePermit())
+		{
+			return;
+		}
+		
+		final S hedge;
+		try
+		{
+			hedge = this.starts.startHedge();
+		}
+		catch(final RuntimeException ex)
+		{
+			this.policy.releasePermit();
+			throw ex;
+		}
+		this.starts.startFuture(hedge).whenComplete((ignored, ex) -> this.policy.releasePermit());
+		
+		LOG.info(
+			"[{}] Start is running for {}ms; Launching hedged start",
+			this.name,
+			System.currentTimeMillis() - this.starts.executionStartedAtMs(primary));
+		hedgedStart.add(hedge);
+	}
+	
+	
+	/**
+	 * The starts that can be hedged.
+	 */
+	public interface Starts<S>
+	{
+		/**
+		 * @return future that is completed once the start finished
+		 */
+		CompletableFuture<?> startFuture(S start);
+		
+		/**
+		 * @return when the start was actually executed; 0 = not executing yet (e.g. waiting for a free slot)
+		 */
+		long executionStartedAtMs(S start);
+		
+		/**
+		 * @return <code>true</code> if a hedged start can currently be launched (e.g. no other starts are waiting)
+		 */
+		boolean canHedge();
+		
+		S startHedge();
+		
+		/**
+		 * Called for starts that are no longer needed.
+		 */
+		void abandon(S start);
+		
+		/**
+		 * Called for starts that should be cancelled (e.g. because the waiter was interrupted).
+		 */
+		void cancel(S start);
+	}
+}
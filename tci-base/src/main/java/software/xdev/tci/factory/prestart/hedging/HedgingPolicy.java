@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.hedging;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.Semaphore;
+
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+
+
+/**
+ * Decides when a second (hedged) start should be launched for a start that takes unusually long.
+ * <p>
+ * The durations of the latest successful starts are recorded inside a sliding window. Once enough samples were
+ * recorded, a start is hedged when it runs longer than the configured percentile of these durations.
+ * </p>
+ * <p>
+ * The amount of simultaneously running hedged starts is limited globally (across all factories) using
+ * {@link PreStartConfig#hedgingMaxConcurrent()}, so that hedging never overloads the host.
+ * </p>
+ */
+public class HedgingPolicy
+{
+	public static final int DEFAULT_WINDOW_SIZE = 50;
+	public static final int DEFAULT_MIN_SAMPLES = 10;
+	
+	protected final int percentile;
+	protected final int minSamples;
+	protected final Semaphore permits;
+	
+	protected final long[] window;
+	protected int nextIndex;
+	protected int sampleCount;
+	
+	public HedgingPolicy(final int percentile)
+	{
+		this(percentile, DEFAULT_WINDOW_SIZE, DEFAULT_MIN_SAMPLES, GlobalPermits.INSTANCE);
+	}
+	
+	public HedgingPolicy(
+		final int percentile,
+		final int windowSize,
+		final int minSamples,
+		final Semaphore permits)
+	{
+		if(percentile < 1 || percentile > 100 || windowSize < 1 || minSamples > windowSize)
+		{
+			throw new IllegalArgumentException(
+				"Invalid arguments: percentile=" + percentile
+					+ ", windowSize=" + windowSize
+					+ ", minSamples=" + minSamples);
+		}
+		this.percentile = percentile;
+		this.minSamples = Math.max(1, minSamples);
+		this.permits = permits;
+		this.window = new long[windowSize];
+	}
+	
+	/**
+	 * Records the duration of a successful start.
+	 */
+	public synchronized void recordStartMs(final long ms)
+	{
+		this.window[this.nextIndex] = ms;
+		this.nextIndex = (this.nextIndex + 1) % this.window.length;
+		this.sampleCount = Math.min(this.window.length, this.sampleCount + 1);
+	}
+	
+	/**
+	 * @return after how many milliseconds a running start should be hedged or empty if there are not enough samples
+	 * yet
+	 */
+	public synchronized OptionalLong hedgeAfterMs()
+	{
+		if(this.sampleCount < this.minSamples)
+		{
+			return OptionalLong.empty();
+		}
+		final long[] sorted = Arrays.copyOf(this.window, this.sampleCount);
+		Arrays.sort(sorted);
+		// Nearest rank
+		final int rank = (int)Math.ceil(this.percentile / 100.0 * sorted.length);
+		return OptionalLong.of(sorted[Math.max(0, rank - 1)]);
+	}
+	
+	/**
+	 * @return <code>true</code> if a hedged start can be launched; {@link #releasePermit()} must be called once it
+	 * finished
+	 */
+	public boolean tryAcquirePermit()
+	{
+		return this.permits.tryAcquire();
+	}
+	
+	public void releasePermit()
+	{
+		this.permits.release();
+	}
+	
+	
+	protected static final class GlobalPermits
+	{
+		static final Semaphore INSTANCE = new Semaphore(PreStartConfig.instance().hedgingMaxConcurrent());
+		
+		private GlobalPermits()
+		{
+		}
+	}
+}
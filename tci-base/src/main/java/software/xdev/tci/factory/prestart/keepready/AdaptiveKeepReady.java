@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.keepready;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Determines how many infrastructures should be kept ready based on the observed demand.
+ * <p>
+ * Tracks
+ * <ul>
+ *     <li>the demand (how often new infrastructure is requested) as an exponentially weighted moving average (EWMA)
+ *     of the request rate</li>
+ *     <li>the miss rate (how often a request could not be served from the pool) as EWMA</li>
+ * </ul>
+ * The target is grown when the pool is missed too often and shrunk when the pool is (nearly) always hit or
+ * there was no demand for a while. The target always stays within the configured bounds.
+ * </p>
+ * <p>
+ * If the demand drops below {@link #minDemandPerHour} after the initial observation window the pool is disabled
+ * (target is 0) until the demand rises again.
+ * </p>
+ */
+public class AdaptiveKeepReady
+{
+	public static final Duration DEFAULT_DEMAND_WINDOW = Duration.ofMinutes(5);
+	public static final Duration DEFAULT_ADJUST_INTERVAL = Duration.ofSeconds(10);
+	public static final double DEFAULT_MISS_RATE_ALPHA = MissRate.DEFAULT_ALPHA;
+	public static final double DEFAULT_GROW_MISS_RATE = 0.25;
+	public static final double DEFAULT_SHRINK_MISS_RATE = 0.05;
+	
+	protected final int min;
+	protected final int max;
+	protected final double minDemandPerHour;
+	protected final LongSupplier nanoClock;
+	
+	protected long demandWindowNanos = DEFAULT_DEMAND_WINDOW.toNanos();
+	protected long adjustIntervalNanos = DEFAULT_ADJUST_INTERVAL.toNanos();
+	protected double growMissRate = DEFAULT_GROW_MISS_RATE;
+	protected double shrinkMissRate = DEFAULT_SHRINK_MISS_RATE;
+	
+	protected final long createdNanos;
+	// Decayed amount of requests per nanosecond
+	protected double demandRate;
+	protected final MissRate missRate = new MissRate();
+	protected long lastAcquireNanos;
+	protected long lastAdjustNanos;
+	protected int target;
+	protected boolean disabled;
+	
+	public AdaptiveKeepReady(final int min, final int max, final int initial, final double minDemandPerHour)
+	{
+		this(min, max, initial, minDemandPerHour, System::nanoTime);
+	}
+	
+	public AdaptiveKeepReady(
+		final int min,
+		final int max,
+		final int initial,
+		final double minDemandPerHour,
+		final LongSupplier nanoClock)
+	{
+		if(min < 0 || max < min)
+		{
+			throw new IllegalArgumentException("Invalid bounds: min=" + min + ", max=" + max);
+		}
+		this.min = min;
+		this.max = max;
+		this.minDemandPerHour = minDemandPerHour;
+		this.nanoClock = nanoClock;
+		
+		this.target = Math.max(min, Math.min(max, initial));
+		this.createdNanos = nanoClock.getAsLong();
+		this.lastAcquireNanos = this.createdNanos;
+		this.lastAdjustNanos = this.createdNanos;
+	}
+	
+	public AdaptiveKeepReady withDemandWindow(final Duration demandWindow)
+	{
+		this.demandWindowNanos = demandWindow.toNanos();
+		return this;
+	}
+	
+	public AdaptiveKeepReady withAdjustInterval(final Duration adjustInterval)
+	{
+		this.adjustIntervalNanos = adjustInterval.toNanos();
+		return this;
+	}
+	
+	public AdaptiveKeepReady withMissRateAlpha(final double missRateAlpha)
+	{
+		this.missRate.withAlpha(missRateAlpha);
+		return this;
+	}
+	
+	public AdaptiveKeepReady withMissRateThresholds(final double growMissRate, final double shrinkMissRate)
+	{
+		this.growMissRate = growMissRate;
+		this.shrinkMissRate = shrinkMissRate;
+		return this;
+	}
+	
+	/**
+	 * Records that new infrastructure was requested.
+	 *
+	 * @param poolHit <code>true</code> if the request could be served from the pool
+	 */
+	public synchronized void recordAcquire(final boolean poolHit)
+	{
+		final long now = this.nanoClock.getAsLong();
+		
+		this.demandRate = this.decayedDemandRate(now) + 1.0 / this.demandWindowNanos;
+		this.lastAcquireNanos = now;
+		if(this.updateDisabled(now))
+		{
+			// Every request is a miss while disabled -> don't grow the target until it's re-enabled
+			return;
+		}
+		final double currentMissRate = this.missRate.record(poolHit);
+		
+		if(!poolHit && currentMissRate > this.growMissRate && this.target < this.max)
+		{
+			// Grow immediately - a burst is happening
+			this.target++;
+			this.lastAdjustNanos = now;
+		}
+		else if(poolHit && currentMissRate < this.shrinkMissRate)
+		{
+			this.shrinkIfAdjustable(now);
+		}
+	}
+	
+	/**
+	 * @return the amount of infrastructure that should currently be kept ready
+	 */
+	public synchronized int target()
+	{
+		final long now = this.nanoClock.getAsLong();
+		if(this.updateDisabled(now))
+		{
+			return 0;
+		}
+		
+		// No demand for a while -> slowly release resources
+		if(now - this.lastAcquireNanos >= this.demandWindowNanos)
+		{
+			this.shrinkIfAdjustable(now);
+		}
+		
+		return this.target;
+	}
+	
+	/**
+	 * Disables keeping infrastructure ready when there is barely any demand.
+	 *
+	 * @return <code>true</code> if disabled
+	 */
+	protected boolean updateDisabled(final long now)
+	{
+		final boolean observedLongEnough = now - this.createdNanos >= this.demandWindowNanos;
+		final double demandPerHour = this.demandPerHour(now);
+		if(!this.disabled && observedLongEnough && demandPerHour < this.minDemandPerHour)
+		{
+			this.disabled = true;
+		}
+		// Hysteresis: Only re-enable when the demand is clearly above the threshold
+		else if(this.disabled && demandPerHour >= this.minDemandPerHour * 2)
+		{
+			this.disabled = false;
+		}
+		return this.disabled;
+	}
+	
+	protected void shrinkIfAdjustable(final long now)
+	{
+		if(this.target > this.min && now - this.lastAdjustNanos >= this.adjustIntervalNanos)
+		{
+			this.target--;
+			this.lastAdjustNanos = now;
+		}
+	}
+	
+	protected double decayedDemandRate(final long now)
+	{
+		return this.demandRate * Math.exp(-(double)(now - this.lastAcquireNanos) / this.demandWindowNanos);
+	}
+	
+	protected double demandPerHour(final long now)
+	{
+		return this.decayedDemandRate(now) * Duration.ofHours(1).toNanos();
+	}
+	
+	public synchronized double getDemandPerMinute()
+	{
+		return this.decayedDemandRate(this.nanoClock.getAsLong()) * Duration.ofMinutes(1).toNanos();
+	}
+	
+	public double getMissRate()
+	{
+		return this.missRate.get();
+	}
+	
+	/**
+	 * @return the miss rate that is tracked by this instance (e.g. for scheduling PreStarts)
+	 */
+	public MissRate getMissRateSignal()
+	{
+		return this.missRate;
+	}
+	
+	public synchronized boolean isDisabled()
+	{
+		return this.disabled;
+	}
+	
+	public int getMin()
+	{
+		return this.min;
+	}
+	
+	public int getMax()
+	{
+		return this.max;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.keepready;
+
+/**
+ * Recent rate (0-1) of requests that could not be served from the pool as exponentially weighted moving average
+ * (EWMA).
+ */
+public class MissRate
+{
+	public static final double DEFAULT_ALPHA = 0.2;
+	
+	protected double alpha = DEFAULT_ALPHA;
+	protected double value;
+	
+	public synchronized MissRate withAlpha(final double alpha)
+	{
+		this.alpha = alpha;
+		return this;
+	}
+	
+	/**
+	 * @param poolHit <code>true</code> if the request could be served from the pool
+	 * @return the updated miss rate
+	 */
+	public synchronized double record(final boolean poolHit)
+	{
+		this.value = this.alpha * (poolHit ? 0 : 1) + (1 - this.alpha) * this.value;
+		return this.value;
+	}
+	
+	public synchronized double get()
+	{
+		return this.value;
+	}
+}
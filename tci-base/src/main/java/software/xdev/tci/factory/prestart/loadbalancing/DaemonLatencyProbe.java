@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.docker.DockerBackend;
+
+
+/**
+ * Measures the latency of the Docker daemon API by pinging it.
+ * <p>
+ * The ping is executed asynchronously. While a ping is still running its current duration is reported if it's higher
+ * than the last latency - so a stalled daemon is noticed before the ping completes (or times out).
+ * </p>
+ */
+public class DaemonLatencyProbe
+{
+	private static final Logger LOG = LoggerFactory.getLogger(DaemonLatencyProbe.class);
+	
+	protected static final long NOT_RUNNING = Long.MIN_VALUE;
+	
+	protected final AtomicLong runningSinceNanos = new AtomicLong(NOT_RUNNING);
+	protected final AtomicLong lastLatencyNanos = new AtomicLong(-1);
+	// Pre-allocated as probing is done for every sample
+	protected final Runnable pingTask = this::ping;
+	
+	/**
+	 * Pings the daemon if no ping is running.
+	 */
+	public void probe()
+	{
+		if(!this.runningSinceNanos.compareAndSet(NOT_RUNNING, System.nanoTime()))
+		{
+			return;
+		}
+		
+		try
+		{
+			TCIExecutor.instance().execute(this.pingTask);
+		}
+		catch(final RuntimeException ex)
+		{
+			// e.g. rejected during shutdown
+			this.runningSinceNanos.set(NOT_RUNNING);
+			LOG.debug("Failed to schedule ping", ex);
+		}
+	}
+	
+	protected void ping()
+	{
+		final long startNanos = this.runningSinceNanos.get();
+		try
+		{
+			DockerBackend.instance().ping();
+			this.lastLatencyNanos.set(System.nanoTime() - startNanos);
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("Failed to ping daemon", ex);
+		}
+		finally
+		{
+			this.runningSinceNanos.set(NOT_RUNNING);
+		}
+	}
+	
+	/**
+	 * @return the latency in ms or {@link Double#NaN} if unknown
+	 */
+	@SuppressWarnings("checkstyle:MagicNumber")
+	public double getLatencyMs()
+	{
+		final long runningSince = this.runningSinceNanos.get();
+		final long latencyNanos = Math.max(
+			this.lastLatencyNanos.get(),
+			runningSince != NOT_RUNNING ? System.nanoTime() - runningSince : -1);
+		return latencyNanos >= 0 ? latencyNanos / 1_000_000.0 : Double.NaN;
+	}
+}
@@ -50,6 +50,7 @@ public class DefaultDockerLoadMonitor implements AutoCloseable, LoadMonitor
 	
 	protected final ScheduledExecutorService scrapeExecutor;
 	protected final HttpClient httpClient;
+	protected final DaemonLatencyProbe daemonLatencyProbe = new DaemonLatencyProbe();
 	
 	protected ScrapeData scrapeData;
 	protected OptionalDouble idlePercent = OptionalDouble.empty(); // Idle load in percent. 12.34=12.34%; 0-100
@@ -80,6 +81,7 @@ public class DefaultDockerLoadMonitor implements AutoCloseable, LoadMonitor
 	
 	public void scrape()
 	{
+		this.daemonLatencyProbe.probe();
 		try
 		{
 			final HttpResponse<String> response = this.httpClient.send(
@@ -94,24 +96,7 @@ public class DefaultDockerLoadMonitor implements AutoCloseable, LoadMonitor
 			
 			final long scrapeTime = System.currentTimeMillis();
 			
-			// Metrics look like this:
-			// node_cpu_seconds_total{cpu="10",mode="idle"} 2012.73
-			final Map<Integer, Double> cpuIdleSec = Stream.of(response.body().split("\n"))
-				.filter(s -> s.startsWith("node_cpu_seconds_total"))
-				.filter(s -> s.contains("mode=\"idle\""))
-				.map(s -> s.split(" "))
-				.filter(parts -> parts.length == 2)
-				.map(parts -> {
-					final String startCPU = "cpu=\"";
-					final String cpu = parts[0].substring(parts[0].indexOf(startCPU) + startCPU.length());
-					final int cpuIndex = Integer.parseInt(cpu.substring(0, cpu.indexOf('\"')));
-					final double idleSec = Double.parseDouble(parts[1]);
-					
-					return Map.entry(cpuIndex, idleSec);
-				})
-				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-			
-			final ScrapeData newScrapeData = new ScrapeData(scrapeTime, cpuIdleSec);
+			final ScrapeData newScrapeData = new ScrapeData(scrapeTime, parseCpuIdleSeconds(response.body()));
 			this.calculateScrapeDataDiff(this.scrapeData, newScrapeData);
 			this.scrapeData = newScrapeData;
 		}
@@ -126,6 +111,35 @@ public class DefaultDockerLoadMonitor implements AutoCloseable, LoadMonitor
 		}
 	}
 	
+	/**
+	 * Parses the idle seconds per CPU from the metrics of the node exporter.
+	 * <p>
+	 * Metrics look like this:
+	 * <pre>
+	 * node_cpu_seconds_total{cpu="10",mode="idle"} 2012.73
+	 * </pre>
+	 * </p>
+	 *
+	 * @return CPU index → idle seconds
+	 */
+	public static Map<Integer, Double> parseCpuIdleSeconds(final String metrics)
+	{
+		return Stream.of(metrics.split("\n"))
+			.filter(s -> s.startsWith("node_cpu_seconds_total"))
+			.filter(s -> s.contains("mode=\"idle\""))
+			.map(s -> s.split(" "))
+			.filter(parts -> parts.length == 2)
+			.map(parts -> {
+				final String startCPU = "cpu=\"";
+				final String cpu = parts[0].substring(parts[0].indexOf(startCPU) + startCPU.length());
+				final int cpuIndex = Integer.parseInt(cpu.substring(0, cpu.indexOf('\"')));
+				final double idleSec = Double.parseDouble(parts[1]);
+				
+				return Map.entry(cpuIndex, idleSec);
+			})
+			.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+	}
+	
 	protected void calculateScrapeDataDiff(final ScrapeData oldScrapeData, final ScrapeData newScrapeData)
 	{
 		if(oldScrapeData == null)
@@ -160,6 +174,18 @@ public class DefaultDockerLoadMonitor implements AutoCloseable, LoadMonitor
 		return this.idlePercent;
 	}
 	
+	@Override
+	public LoadSignals getCurrentSignals()
+	{
+		return new LoadSignals(
+			this.idlePercent.orElse(Double.NaN),
+			Double.NaN,
+			Double.NaN,
+			Double.NaN,
+			-1,
+			this.daemonLatencyProbe.getLatencyMs());
+	}
+	
 	@Override
 	public void close()
 	{
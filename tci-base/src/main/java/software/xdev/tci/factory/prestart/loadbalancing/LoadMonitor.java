@@ -33,6 +33,14 @@ public interface LoadMonitor
 	 */
 	OptionalDouble getCurrentIdlePercent();
 	
+	/**
+	 * All signals about the current load. By default only the {@link #getCurrentIdlePercent() idle CPU} is known.
+	 */
+	default LoadSignals getCurrentSignals()
+	{
+		return LoadSignals.ofIdle(this.getCurrentIdlePercent());
+	}
+	
 	static LoadMonitor instance()
 	{
 		return TCIServiceLoader.instance().service(LoadMonitor.class);
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.util.OptionalDouble;
+
+
+/**
+ * Signals about the load of the container environment.
+ * <p>
+ * Signals that are unknown (e.g. not supported by the {@link LoadMonitor}) are {@link Double#NaN} or <code>-1</code>.
+ * </p>
+ *
+ * @param idlePercent           idle CPU in percent (0-100)
+ * @param cpuPressurePercent    share of time in which some tasks were stalled waiting for a CPU (pressure stall
+ *                              information) in percent
+ * @param memoryPressurePercent share of time in which some tasks were stalled waiting for memory (e.g. reclaim or
+ *                              swap-in) in percent
+ * @param ioPressurePercent     share of time in which some tasks were stalled waiting for IO in percent
+ * @param availableMemoryBytes  memory that is available for new processes without swapping
+ * @param daemonLatencyMs       latency of the Docker daemon API
+ */
+public record LoadSignals(
+	double idlePercent,
+	double cpuPressurePercent,
+	double memoryPressurePercent,
+	double ioPressurePercent,
+	long availableMemoryBytes,
+	double daemonLatencyMs)
+{
+	public static LoadSignals ofIdle(final OptionalDouble idlePercent)
+	{
+		return new LoadSignals(idlePercent.orElse(Double.NaN), Double.NaN, Double.NaN, Double.NaN, -1, Double.NaN);
+	}
+}
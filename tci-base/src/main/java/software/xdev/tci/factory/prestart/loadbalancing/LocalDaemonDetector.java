@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.docker.DaemonInfo;
+import software.xdev.tci.docker.DockerBackend;
+
+
+/**
+ * Detects if the Docker daemon runs on this (Linux) host by comparing the kernel and the amount of CPUs reported by
+ * the daemon with the local ones.
+ * <p>
+ * A unix socket may also be forwarded to a daemon that runs inside a VM (e.g. Docker Desktop, Colima or Podman
+ * machine). In this case e.g. <code>/proc/stat</code> describes the wrong host.
+ * </p>
+ */
+public class LocalDaemonDetector
+{
+	private static final Logger LOG = LoggerFactory.getLogger(LocalDaemonDetector.class);
+	
+	protected static final Path PROC_STAT = Path.of("/proc/stat");
+	protected static final Path PROC_KERNEL_RELEASE = Path.of("/proc/sys/kernel/osrelease");
+	
+	public boolean isDaemonOnThisHost()
+	{
+		try
+		{
+			final Optional<DaemonInfo> optDaemonInfo = DockerBackend.instance().daemonInfo();
+			if(optDaemonInfo.isEmpty())
+			{
+				return false;
+			}
+			final DaemonInfo daemonInfo = optDaemonInfo.get();
+			
+			final String kernelVersion = Files.readString(PROC_KERNEL_RELEASE).trim();
+			final long[] values = new long[ProcStatParser.CPUS + 1];
+			final long cpus = ProcStatParser.parseProcStat(ByteBuffer.wrap(Files.readAllBytes(PROC_STAT)), values)
+				? values[ProcStatParser.CPUS]
+				: -1;
+			
+			final boolean sameHost = "linux".equalsIgnoreCase(daemonInfo.osType())
+				&& kernelVersion.equals(daemonInfo.kernelVersion())
+				&& cpus == daemonInfo.cpus();
+			if(!sameHost)
+			{
+				LOG.info(
+					"Docker daemon is not running on this host ({}, kernel={}, cpus={}; this host: kernel={}, cpus={})"
+						+ " - unable to determine its load in-process",
+					daemonInfo.operatingSystem(),
+					daemonInfo.kernelVersion(),
+					daemonInfo.cpus(),
+					kernelVersion,
+					cpus);
+			}
+			return sameHost;
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("Failed to compare the Docker daemon with this host", ex);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Samples the pressure stall information (PSI) of a resource, e.g. <code>/proc/pressure/memory</code>.
+ * <p>
+ * The pressure is the share of time since the last sample in which at least some tasks were stalled waiting for the
+ * resource. It's calculated from the total stall time, as the averages of the kernel (<code>avg10</code>, ...) react
+ * too slowly.
+ * </p>
+ */
+public class PressureStallSampler implements AutoCloseable
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PressureStallSampler.class);
+	
+	protected static final byte[] SOME = "some".getBytes(StandardCharsets.US_ASCII);
+	protected static final int BUFFER_SIZE = 256;
+	
+	protected final ProcFileReader reader;
+	protected boolean available = true;
+	
+	// Only accessed by the sampling thread
+	protected long lastTotalUsec = -1;
+	protected long lastSampleNanos;
+	
+	// Pressure in percent (as double bits); NaN = unknown
+	protected final AtomicLong pressurePercent = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+	
+	public PressureStallSampler(final Path path)
+	{
+		this.reader = new ProcFileReader(path, BUFFER_SIZE);
+	}
+	
+	public void sample(final long nowNanos)
+	{
+		if(!this.available)
+		{
+			return;
+		}
+		try
+		{
+			this.update(ProcStatParser.parsePressureTotal(this.reader.read(), SOME), nowNanos);
+		}
+		catch(final IOException ioe)
+		{
+			// e.g. PSI is disabled (psi=0)
+			LOG.debug("Unable to read {} - disabling", this.reader.getPath(), ioe);
+			this.available = false;
+		}
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected void update(final long totalUsec, final long nowNanos)
+	{
+		final long wallUsec = TimeUnit.NANOSECONDS.toMicros(nowNanos - this.lastSampleNanos);
+		if(totalUsec >= 0 && this.lastTotalUsec >= 0 && wallUsec > 0)
+		{
+			final double pressure = (double)(totalUsec - this.lastTotalUsec) / wallUsec;
+			this.pressurePercent.set(Double.doubleToRawLongBits(Math.max(0, Math.min(1, pressure)) * 100));
+		}
+		this.lastTotalUsec = totalUsec;
+		this.lastSampleNanos = nowNanos;
+	}
+	
+	/**
+	 * @return the pressure in percent (0-100) or {@link Double#NaN} if unknown
+	 */
+	public double getPressurePercent()
+	{
+		return Double.longBitsToDouble(this.pressurePercent.get());
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		this.reader.close();
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Repeatedly reads a small (virtual) file - e.g. from <code>/proc</code> or <code>/sys</code> - without allocating.
+ * <p>
+ * The file is kept open and is read from the beginning into the same direct buffer every time.
+ * </p>
+ */
+public class ProcFileReader implements AutoCloseable
+{
+	protected final Path path;
+	protected final ByteBuffer buffer;
+	protected FileChannel channel;
+	
+	public ProcFileReader(final Path path, final int capacity)
+	{
+		this.path = path;
+		this.buffer = ByteBuffer.allocateDirect(capacity);
+	}
+	
+	/**
+	 * @return the buffer containing the content of the file (from <code>0</code> until the limit). Content that
+	 * exceeds the capacity is cut off.
+	 */
+	public ByteBuffer read() throws IOException
+	{
+		if(this.channel == null)
+		{
+			this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+		}
+		
+		this.buffer.clear();
+		try
+		{
+			int read;
+			do
+			{
+				read = this.channel.read(this.buffer, this.buffer.position());
+			}
+			while(read > 0 && this.buffer.hasRemaining());
+		}
+		catch(final IOException ioe)
+		{
+			// Reopen on next read
+			this.close();
+			throw ioe;
+		}
+		return this.buffer.flip();
+	}
+	
+	public Path getPath()
+	{
+		return this.path;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		if(this.channel != null)
+		{
+			final FileChannel c = this.channel;
+			this.channel = null;
+			c.close();
+		}
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalDouble;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.serviceloading.TCIConditionalProvider;
+import software.xdev.tci.serviceloading.TCIProviderPriority;
+
+
+/**
+ * {@link LoadMonitor} for a Docker daemon that runs on the same (Linux) host.
+ * <p>
+ * Instead of starting a node-exporter container the CPU times are read in-process from <code>/proc/stat</code>.
+ * If the cgroup (v2) of the Docker containers is visible (see {@link PreStartConfig#loadMonitorCgroupPath()}) its CPU
+ * usage (<code>cpu.stat</code>) is compared against its limit (<code>cpu.max</code>) as well and the lower idle value
+ * is used.
+ * </p>
+ * <p>
+ * Additionally the pressure stall information (<code>/proc/pressure/{cpu,memory,io}</code>), the available memory
+ * (<code>/proc/meminfo</code>) and the latency of the daemon are provided as {@link LoadSignals}.
+ * </p>
+ * <p>
+ * A sample is taken every second. The files are kept open and read into pre-allocated buffers, so sampling doesn't
+ * allocate.
+ * </p>
+ * <p>
+ * Only applicable if the daemon is reached over a unix socket, <code>/proc/stat</code> is readable and the daemon
+ * reports the same kernel and amount of CPUs as this host. Otherwise (e.g. for remote daemons or daemons running
+ * inside a VM like Docker Desktop) {@link DefaultDockerLoadMonitor} is used.
+ * </p>
+ */
+@TCIProviderPriority(TCIProviderPriority.DEFAULT_PRIORITY + 1)
+public class ProcStatLoadMonitor implements AutoCloseable, LoadMonitor, TCIConditionalProvider
+{
+	private static final Logger LOG = LoggerFactory.getLogger(ProcStatLoadMonitor.class);
+	
+	protected static final Path PROC_STAT = Path.of("/proc/stat");
+	// Parent cgroup of all containers when Docker uses the cgroupfs driver
+	protected static final Path DEFAULT_CGROUP = Path.of("/sys/fs/cgroup/docker");
+	protected static final String CGROUP_CPU_STAT = "cpu.stat";
+	protected static final String CGROUP_CPU_MAX = "cpu.max";
+	protected static final byte[] USAGE_USEC = "usage_usec".getBytes(StandardCharsets.US_ASCII);
+	protected static final Path PROC_PRESSURE = Path.of("/proc/pressure");
+	protected static final Path PROC_MEMINFO = Path.of("/proc/meminfo");
+	protected static final byte[] MEM_AVAILABLE = "MemAvailable:".getBytes(StandardCharsets.US_ASCII);
+	protected static final long KIB = 1024;
+	
+	protected static final int PROC_STAT_BUFFER_SIZE = 64 * 1024;
+	protected static final int CGROUP_BUFFER_SIZE = 1024;
+	// MemAvailable is at the beginning
+	protected static final int MEMINFO_BUFFER_SIZE = 1024;
+	
+	protected final AtomicBoolean started = new AtomicBoolean();
+	protected ScheduledExecutorService sampleExecutor;
+	
+	protected ProcFileReader procStatReader;
+	protected ProcFileReader cgroupCpuStatReader;
+	protected ProcFileReader cgroupCpuMaxReader;
+	protected ProcFileReader memInfoReader;
+	protected PressureStallSampler cpuPressure;
+	protected PressureStallSampler memoryPressure;
+	protected PressureStallSampler ioPressure;
+	protected final DaemonLatencyProbe daemonLatencyProbe = new DaemonLatencyProbe();
+	
+	// Only accessed by the sampling thread
+	protected final long[] procStat = new long[3];
+	protected long lastTotal = -1;
+	protected long lastIdle;
+	protected long lastCgroupUsageUsec = -1;
+	protected long lastSampleNanos;
+	
+	// Idle load in percent (as double bits); NaN = unknown
+	protected final AtomicLong idlePercent = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+	protected final AtomicLong availableMemoryBytes = new AtomicLong(-1);
+	
+	@Override
+	public boolean isApplicable()
+	{
+		return PreStartConfig.instance().loadMonitorInProcess()
+			&& Files.isReadable(PROC_STAT)
+			&& DockerBackend.instance().daemonUri()
+			.map(uri -> "unix".equals(uri.getScheme()))
+			.orElse(false)
+			&& new LocalDaemonDetector().isDaemonOnThisHost();
+	}
+	
+	@Override
+	public OptionalDouble getCurrentIdlePercent()
+	{
+		this.startIfRequired();
+		
+		final double idle = Double.longBitsToDouble(this.idlePercent.get());
+		return Double.isNaN(idle) ? OptionalDouble.empty() : OptionalDouble.of(idle);
+	}
+	
+	@Override
+	public LoadSignals getCurrentSignals()
+	{
+		this.startIfRequired();
+		
+		return new LoadSignals(
+			Double.longBitsToDouble(this.idlePercent.get()),
+			pressurePercent(this.cpuPressure),
+			pressurePercent(this.memoryPressure),
+			pressurePercent(this.ioPressure),
+			this.availableMemoryBytes.get(),
+			this.daemonLatencyProbe.getLatencyMs());
+	}
+	
+	protected static double pressurePercent(final PressureStallSampler sampler)
+	{
+		return sampler != null ? sampler.getPressurePercent() : Double.NaN;
+	}
+	
+	protected void startIfRequired()
+	{
+		if(!this.started.compareAndSet(false, true))
+		{
+			return;
+		}
+		
+		this.procStatReader = new ProcFileReader(PROC_STAT, PROC_STAT_BUFFER_SIZE);
+		final Path cgroup = this.resolveCgroup();
+		if(cgroup != null)
+		{
+			LOG.info("Additionally using CPU usage of cgroup {}", cgroup);
+			this.cgroupCpuStatReader = new ProcFileReader(cgroup.resolve(CGROUP_CPU_STAT), CGROUP_BUFFER_SIZE);
+			// Only exists if the cpu controller is enabled
+			if(Files.isReadable(cgroup.resolve(CGROUP_CPU_MAX)))
+			{
+				this.cgroupCpuMaxReader = new ProcFileReader(cgroup.resolve(CGROUP_CPU_MAX), CGROUP_BUFFER_SIZE);
+			}
+		}
+		
+		this.cpuPressure = this.createPressureStallSampler("cpu");
+		this.memoryPressure = this.createPressureStallSampler("memory");
+		this.ioPressure = this.createPressureStallSampler("io");
+		if(Files.isReadable(PROC_MEMINFO))
+		{
+			this.memInfoReader = new ProcFileReader(PROC_MEMINFO, MEMINFO_BUFFER_SIZE);
+		}
+		
+		this.sampleExecutor = Executors.newScheduledThreadPool(1, r ->
+		{
+			final Thread t = new Thread(r);
+			t.setDaemon(true);
+			t.setName("ProcStatLoadMonitor");
+			return t;
+		});
+		this.sampleExecutor.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+	}
+	
+	protected PressureStallSampler createPressureStallSampler(final String resource)
+	{
+		final Path path = PROC_PRESSURE.resolve(resource);
+		// Requires Linux 4.20+ with PSI enabled
+		return Files.isReadable(path) ? new PressureStallSampler(path) : null;
+	}
+	
+	protected Path resolveCgroup()
+	{
+		final String configured = PreStartConfig.instance().loadMonitorCgroupPath();
+		final Path cgroup = configured != null ? Path.of(configured) : DEFAULT_CGROUP;
+		if(Files.isReadable(cgroup.resolve(CGROUP_CPU_STAT)))
+		{
+			return cgroup;
+		}
+		if(configured != null)
+		{
+			LOG.warn("Configured cgroup {} has no readable {} - ignoring it", cgroup, CGROUP_CPU_STAT);
+		}
+		return null;
+	}
+	
+	public void sample()
+	{
+		this.daemonLatencyProbe.probe();
+		try
+		{
+			final long nowNanos = System.nanoTime();
+			this.sampleSignals(nowNanos);
+			
+			if(!ProcStatParser.parseProcStat(this.procStatReader.read(), this.procStat))
+			{
+				LOG.debug("Unable to parse {}", PROC_STAT);
+				return;
+			}
+			
+			final double idle = this.update(
+				this.procStat[ProcStatParser.TOTAL],
+				this.procStat[ProcStatParser.IDLE],
+				this.procStat[ProcStatParser.CPUS],
+				this.readCgroupUsageUsec(),
+				this.readCgroupCpuLimit(),
+				nowNanos);
+			if(!Double.isNaN(idle))
+			{
+				this.idlePercent.set(Double.doubleToRawLongBits(idle));
+				LOG.debug("IDLE {}%", idle);
+			}
+		}
+		catch(final Exception ex)
+		{
+			LOG.warn("Failed to sample", ex);
+		}
+	}
+	
+	protected void sampleSignals(final long nowNanos) throws IOException
+	{
+		samplePressure(this.cpuPressure, nowNanos);
+		samplePressure(this.memoryPressure, nowNanos);
+		samplePressure(this.ioPressure, nowNanos);
+		
+		if(this.memInfoReader != null)
+		{
+			final long availableKiB = ProcStatParser.parseKeyedValue(this.memInfoReader.read(), MEM_AVAILABLE);
+			this.availableMemoryBytes.set(availableKiB >= 0 ? availableKiB * KIB : -1);
+		}
+	}
+	
+	protected static void samplePressure(final PressureStallSampler sampler, final long nowNanos)
+	{
+		if(sampler != null)
+		{
+			sampler.sample(nowNanos);
+		}
+	}
+	
+	protected long readCgroupUsageUsec() throws IOException
+	{
+		return this.cgroupCpuStatReader != null
+			? ProcStatParser.parseKeyedValue(this.cgroupCpuStatReader.read(), USAGE_USEC)
+			: -1;
+	}
+	
+	protected double readCgroupCpuLimit() throws IOException
+	{
+		return this.cgroupCpuMaxReader != null
+			? ProcStatParser.parseCpuMax(this.cgroupCpuMaxReader.read())
+			: Double.NaN;
+	}
+	
+	/**
+	 * Calculates the idle percentage since the last sample.
+	 *
+	 * @param total           total CPU time of the host (jiffies)
+	 * @param idle            idle CPU time of the host (jiffies)
+	 * @param cpus            amount of CPUs of the host
+	 * @param cgroupUsageUsec CPU time consumed by the cgroup or <code>-1</code> if unknown
+	 * @param cgroupCpuLimit  CPU limit of the cgroup or {@link Double#NaN} if unlimited
+	 * @return the idle percentage (0-100) or {@link Double#NaN} if there is no previous sample
+	 */
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected double update(
+		final long total,
+		final long idle,
+		final long cpus,
+		final long cgroupUsageUsec,
+		final double cgroupCpuLimit,
+		final long nowNanos)
+	{
+		double idleFraction = Double.NaN;
+		
+		final long totalDiff = total - this.lastTotal;
+		if(this.lastTotal >= 0 && totalDiff > 0)
+		{
+			idleFraction = (double)(idle - this.lastIdle) / totalDiff;
+			
+			final double cgroupCapacity = Double.isNaN(cgroupCpuLimit) ? cpus : Math.min(cgroupCpuLimit, cpus);
+			final long wallUsec = TimeUnit.NANOSECONDS.toMicros(nowNanos - this.lastSampleNanos);
+			if(cgroupUsageUsec >= 0 && this.lastCgroupUsageUsec >= 0 && cgroupCapacity > 0 && wallUsec > 0)
+			{
+				final double usedCpus = (double)(cgroupUsageUsec - this.lastCgroupUsageUsec) / wallUsec;
+				idleFraction = Math.min(idleFraction, 1 - usedCpus / cgroupCapacity);
+			}
+		}
+		
+		this.lastTotal = total;
+		this.lastIdle = idle;
+		this.lastCgroupUsageUsec = cgroupUsageUsec;
+		this.lastSampleNanos = nowNanos;
+		
+		return Double.isNaN(idleFraction) ? Double.NaN : Math.max(0, Math.min(1, idleFraction)) * 100;
+	}
+	
+	@Override
+	public void close()
+	{
+		if(this.sampleExecutor != null && !this.sampleExecutor.isShutdown())
+		{
+			// Executed after a possibly running sample
+			this.sampleExecutor.execute(this::closeReaders);
+			this.sampleExecutor.shutdown();
+		}
+	}
+	
+	protected void closeReaders()
+	{
+		for(final AutoCloseable closeable : new AutoCloseable[]{
+			this.procStatReader,
+			this.cgroupCpuStatReader,
+			this.cgroupCpuMaxReader,
+			this.memInfoReader,
+			this.cpuPressure,
+			this.memoryPressure,
+			this.ioPressure})
+		{
+			if(closeable == null)
+			{
+				continue;
+			}
+			try
+			{
+				closeable.close();
+			}
+			catch(final Exception ex)
+			{
+				LOG.debug("Failed to close {}", closeable, ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Allocation-free parsers for the CPU statistics of Linux (<code>/proc/stat</code>) and cgroups v2
+ * (<code>cpu.stat</code>, <code>cpu.max</code>).
+ * <p>
+ * All methods use absolute reads from <code>0</code> until the limit of the buffer.
+ * </p>
+ */
+public final class ProcStatParser
+{
+	/**
+	 * Index of the total CPU time (jiffies) in the result of {@link #parseProcStat(ByteBuffer, long[])}
+	 */
+	public static final int TOTAL = 0;
+	/**
+	 * Index of the idle CPU time (jiffies; including iowait) in the result of
+	 * {@link #parseProcStat(ByteBuffer, long[])}
+	 */
+	public static final int IDLE = 1;
+	/**
+	 * Index of the amount of CPUs in the result of {@link #parseProcStat(ByteBuffer, long[])}
+	 */
+	public static final int CPUS = 2;
+	
+	// user nice system idle iowait irq softirq steal
+	// guest and guest_nice are not required as they are already contained in user and nice
+	private static final int TIME_FIELDS = 8;
+	private static final int IDLE_FIELD = 3;
+	private static final int IOWAIT_FIELD = 4;
+	
+	private static final byte[] CPU = {'c', 'p', 'u'};
+	private static final byte[] TOTAL_ASSIGNMENT = {'t', 'o', 't', 'a', 'l', '='};
+	
+	private ProcStatParser()
+	{
+	}
+	
+	/**
+	 * Parses the aggregated CPU times (first line) and the amount of CPUs of <code>/proc/stat</code>:
+	 * <pre>
+	 * cpu  10132153 290696 3084719 46828483 16683 0 25195 0 175628 0
+	 * cpu0 1393280 32966 572056 13343292 6130 0 17875 0 23933 0
+	 * ...
+	 * </pre>
+	 *
+	 * @param target receives the values at {@link #TOTAL}, {@link #IDLE} and {@link #CPUS}
+	 * @return <code>false</code> if the content could not be parsed
+	 */
+	public static boolean parseProcStat(final ByteBuffer buf, final long[] target)
+	{
+		if(!startsWith(buf, 0, CPU) || !isByte(buf, CPU.length, ' '))
+		{
+			return false;
+		}
+		
+		long total = 0;
+		long idle = 0;
+		int pos = CPU.length;
+		int field = 0;
+		for(; field < TIME_FIELDS; field++)
+		{
+			final int start = skipSpaces(buf, pos);
+			final int end = skipDigits(buf, start);
+			if(end == start)
+			{
+				break;
+			}
+			
+			final long value = parseLong(buf, start, end);
+			total += value;
+			if(field == IDLE_FIELD || field == IOWAIT_FIELD)
+			{
+				idle += value;
+			}
+			pos = end;
+		}
+		if(field <= IDLE_FIELD)
+		{
+			return false;
+		}
+		
+		target[TOTAL] = total;
+		target[IDLE] = idle;
+		target[CPUS] = countCpus(buf, pos);
+		return true;
+	}
+	
+	static int countCpus(final ByteBuffer buf, final int from)
+	{
+		int cpus = 0;
+		// The lines of the CPUs directly follow the aggregated line
+		for(int pos = nextLine(buf, from); startsWith(buf, pos, CPU); pos = nextLine(buf, pos))
+		{
+			final int digitPos = pos + CPU.length;
+			if(skipDigits(buf, digitPos) > digitPos)
+			{
+				cpus++;
+			}
+		}
+		return cpus;
+	}
+	
+	/**
+	 * Parses a value of a flat keyed file like <code>cpu.stat</code> of a cgroup or <code>/proc/meminfo</code>:
+	 * <pre>
+	 * usage_usec 8390436
+	 * user_usec 5463270
+	 * ...
+	 * MemAvailable:   25103412 kB
+	 * </pre>
+	 *
+	 * @param key the ASCII bytes of the key, e.g. <code>usage_usec</code> or <code>MemAvailable:</code>
+	 * @return the value or <code>-1</code> if not found
+	 */
+	public static long parseKeyedValue(final ByteBuffer buf, final byte[] key)
+	{
+		for(int pos = 0; pos < buf.limit(); pos = nextLine(buf, pos))
+		{
+			if(startsWith(buf, pos, key) && isByte(buf, pos + key.length, ' '))
+			{
+				final int start = skipSpaces(buf, pos + key.length);
+				final int end = skipDigits(buf, start);
+				return end > start ? parseLong(buf, start, end) : -1;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Parses the total stall time of a pressure stall information file (e.g. <code>/proc/pressure/io</code>):
+	 * <pre>
+	 * some avg10=0.00 avg60=0.12 avg300=0.05 total=1534211
+	 * full avg10=0.00 avg60=0.06 avg300=0.02 total=982137
+	 * </pre>
+	 *
+	 * @param line the ASCII bytes of the line, e.g. <code>some</code>
+	 * @return the total stall time in microseconds or <code>-1</code> if not found
+	 */
+	public static long parsePressureTotal(final ByteBuffer buf, final byte[] line)
+	{
+		for(int pos = 0; pos < buf.limit(); pos = nextLine(buf, pos))
+		{
+			if(startsWith(buf, pos, line) && isByte(buf, pos + line.length, ' '))
+			{
+				return parseAssignedValue(buf, pos, nextLine(buf, pos) - 1, TOTAL_ASSIGNMENT);
+			}
+		}
+		return -1;
+	}
+	
+	static long parseAssignedValue(final ByteBuffer buf, final int from, final int to, final byte[] assignment)
+	{
+		for(int pos = from; pos < to; pos++)
+		{
+			if(startsWith(buf, pos, assignment))
+			{
+				final int start = pos + assignment.length;
+				final int end = skipDigits(buf, start);
+				return end > start ? parseLong(buf, start, end) : -1;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Parses the CPU limit of a cgroup (<code>cpu.max</code>), which is either <code>$QUOTA $PERIOD</code> or
+	 * <code>max $PERIOD</code> if unlimited.
+	 *
+	 * @return the limit in CPUs or {@link Double#NaN} if unlimited
+	 */
+	public static double parseCpuMax(final ByteBuffer buf)
+	{
+		final int quotaEnd = skipDigits(buf, 0);
+		final int periodStart = skipSpaces(buf, quotaEnd);
+		final int periodEnd = skipDigits(buf, periodStart);
+		if(quotaEnd == 0 || periodEnd == periodStart)
+		{
+			return Double.NaN;
+		}
+		
+		final long period = parseLong(buf, periodStart, periodEnd);
+		return period > 0 ? (double)parseLong(buf, 0, quotaEnd) / period : Double.NaN;
+	}
+	
+	// region Utility
+	static boolean startsWith(final ByteBuffer buf, final int pos, final byte[] prefix)
+	{
+		if(pos < 0 || pos + prefix.length > buf.limit())
+		{
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++)
+		{
+			if(buf.get(pos + i) != prefix[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	static boolean isByte(final ByteBuffer buf, final int pos, final char expected)
+	{
+		return pos < buf.limit() && buf.get(pos) == expected;
+	}
+	
+	static int nextLine(final ByteBuffer buf, final int from)
+	{
+		int pos = from;
+		while(pos < buf.limit() && buf.get(pos) != '\n')
+		{
+			pos++;
+		}
+		return pos + 1;
+	}
+	
+	static int skipSpaces(final ByteBuffer buf, final int from)
+	{
+		int pos = from;
+		while(isByte(buf, pos, ' '))
+		{
+			pos++;
+		}
+		return pos;
+	}
+	
+	static int skipDigits(final ByteBuffer buf, final int from)
+	{
+		int pos = from;
+		while(pos < buf.limit() && buf.get(pos) >= '0' && buf.get(pos) <= '9')
+		{
+			pos++;
+		}
+		return pos;
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	static long parseLong(final ByteBuffer buf, final int start, final int end)
+	{
+		long value = 0;
+		for(int pos = start; pos < end; pos++)
+		{
+			value = value * 10 + buf.get(pos) - '0';
+		}
+		return value;
+	}
+	// endregion
+}
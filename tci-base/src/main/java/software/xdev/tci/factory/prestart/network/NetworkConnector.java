@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.network;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.tracing.TCITracer;
+import software.xdev.tci.tracing.jfr.NetworkConnectEvent;
+
+
+/**
+ * Connects (PreStarted) infrastructure to the network of the test.
+ */
+public class NetworkConnector
+{
+	private static final Logger LOG = LoggerFactory.getLogger(NetworkConnector.class);
+	
+	protected final String name;
+	protected final Duration timeout;
+	// Pre-registered as it's used on the hot path
+	protected final TCITracer.Timed traceConnectToNetwork;
+	
+	public NetworkConnector(final String name, final Duration timeout, final TCITracer tracer)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.timeout = Objects.requireNonNull(timeout);
+		this.traceConnectToNetwork = tracer.getTimedOrCreate("connectToNetwork");
+	}
+	
+	/**
+	 * Connects the infrastructure to the network and waits until it's connected.
+	 */
+	public void connect(final TCI<?> infra, final Network network, final List<String> aliases)
+	{
+		final NetworkConnectEvent connectEvent = NetworkConnectEvent.start(network.getId());
+		final long startNanos = System.nanoTime();
+		try
+		{
+			this.connectContainer(infra.getContainer(), network, aliases)
+				.get(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch(final InterruptedException ie)
+		{
+			LOG.warn("[{}] Got interrupted", this.name, ie);
+			Thread.currentThread().interrupt();
+		}
+		catch(final Exception e)
+		{
+			throw new IllegalStateException(
+				"Unable to connect container[" + infra.getContainer() + "] to network[" + network + "]",
+				e);
+		}
+		this.traceConnectToNetwork.addNanos(System.nanoTime() - startNanos);
+		connectEvent.finish(this.name, infra.getName());
+	}
+	
+	/**
+	 * Connects the infrastructure to the network - without blocking a thread while waiting.
+	 */
+	public CompletableFuture<Void> connectAsync(final TCI<?> infra, final Network network, final List<String> aliases)
+	{
+		final NetworkConnectEvent connectEvent = NetworkConnectEvent.start(network.getId());
+		final long startNanos = System.nanoTime();
+		return this.connectContainer(infra.getContainer(), network, aliases)
+			.orTimeout(this.timeout.toMillis(), TimeUnit.MILLISECONDS)
+			.thenRun(() -> {
+				this.traceConnectToNetwork.addNanos(System.nanoTime() - startNanos);
+				connectEvent.finish(this.name, infra.getName());
+			});
+	}
+	
+	protected CompletableFuture<Void> connectContainer(
+		final GenericContainer<?> container,
+		final Network network,
+		final List<String> aliases)
+	{
+		final String networkId = network.getId();
+		final String containerId = container.getContainerId();
+		return TCIExecutor.instance().runAsync(() -> DockerBackend.instance()
+			.connectToNetwork(containerId, networkId, aliases));
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.pausing;
+
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.factory.prestart.StartingInfra;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Pauses PreStarted infrastructure while it's waiting inside the pool, so that it doesn't consume CPU.
+ * <p>
+ * The infrastructure is unpaused once it's taken from the pool.
+ * </p>
+ */
+public class PreStartPauser
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PreStartPauser.class);
+	
+	protected final String name;
+	protected final boolean enabled;
+	// Pre-registered as they are used on the hot path
+	protected final TCITracer.Timed tracePause;
+	protected final TCITracer.Timed traceUnpause;
+	
+	public PreStartPauser(final String name, final boolean enabled, final TCITracer tracer)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.enabled = enabled;
+		this.tracePause = tracer.getTimedOrCreate("pause");
+		this.traceUnpause = tracer.getTimedOrCreate("unpause");
+	}
+	
+	public boolean isEnabled()
+	{
+		return this.enabled;
+	}
+	
+	/**
+	 * Pauses the (ready) infrastructure if enabled.
+	 * <p>
+	 * Failures are ignored - the infrastructure is just kept running.
+	 * </p>
+	 */
+	public void pauseIfEnabled(final StartingInfra<?> ready)
+	{
+		if(!this.enabled)
+		{
+			return;
+		}
+		
+		final long startTime = System.currentTimeMillis();
+		try
+		{
+			DockerBackend.instance().pauseContainer(ready.infra().getContainer().getContainerId());
+			ready.markPaused();
+			this.tracePause.addMs(System.currentTimeMillis() - startTime);
+		}
+		catch(final Exception ex)
+		{
+			LOG.warn("[{}] Failed to pause pre-started infra; Keeping it running", this.name, ex);
+		}
+	}
+	
+	public void unpause(final StartingInfra<?> startingInfra)
+	{
+		if(!startingInfra.markUnpaused())
+		{
+			return;
+		}
+		
+		final long startTime = System.currentTimeMillis();
+		DockerBackend.instance().unpauseContainer(startingInfra.infra().getContainer().getContainerId());
+		this.traceUnpause.addMs(System.currentTimeMillis() - startTime);
+	}
+	
+	/**
+	 * Unpauses the infrastructure before it's stopped; Failures are ignored as the container is removed anyway.
+	 */
+	public void unpauseQuietly(final StartingInfra<?> startingInfra)
+	{
+		try
+		{
+			this.unpause(startingInfra);
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("[{}] Failed to unpause infra", this.name, ex);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.persistent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+import org.testcontainers.containers.GenericContainer;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+
+
+/**
+ * Adopts an already running container into a (not started) {@link GenericContainer}, similar to how Testcontainers
+ * handles reused containers.
+ * <p>
+ * The lifecycle hooks are executed with <code>reused=true</code>; the wait strategy is not executed as the container
+ * is expected to be ready.
+ * </p>
+ */
+public final class AdoptExistingContainer
+{
+	private static BiConsumer<GenericContainer<?>, InspectContainerResponse> instance;
+	
+	@SuppressWarnings({"java:S3011", "java:S112", "java:S1452"})
+	public static BiConsumer<GenericContainer<?>, InspectContainerResponse> instance()
+	{
+		if(instance == null)
+		{
+			try
+			{
+				final Field fContainerId = GenericContainer.class.getDeclaredField("containerId");
+				fContainerId.setAccessible(true);
+				
+				final Field fContainerInfo = GenericContainer.class.getDeclaredField("containerInfo");
+				fContainerInfo.setAccessible(true);
+				
+				final Method mContainerIsStarting = GenericContainer.class.getDeclaredMethod(
+					"containerIsStarting",
+					InspectContainerResponse.class,
+					boolean.class);
+				mContainerIsStarting.setAccessible(true);
+				
+				final Method mContainerIsStarted = GenericContainer.class.getDeclaredMethod(
+					"containerIsStarted",
+					InspectContainerResponse.class,
+					boolean.class);
+				mContainerIsStarted.setAccessible(true);
+				
+				instance = (container, containerInfo) -> {
+					try
+					{
+						fContainerId.set(container, containerInfo.getId());
+						fContainerInfo.set(container, containerInfo);
+						container.getLogConsumers().forEach(container::followOutput);
+						
+						mContainerIsStarting.invoke(container, containerInfo, true);
+						mContainerIsStarted.invoke(container, containerInfo, true);
+					}
+					catch(final IllegalArgumentException | IllegalAccessException | InvocationTargetException ex2)
+					{
+						throw new RuntimeException(ex2);
+					}
+				};
+			}
+			catch(final NoSuchMethodException | NoSuchFieldException ex)
+			{
+				throw new RuntimeException(ex);
+			}
+		}
+		
+		return instance;
+	}
+	
+	private AdoptExistingContainer()
+	{
+	}
+}
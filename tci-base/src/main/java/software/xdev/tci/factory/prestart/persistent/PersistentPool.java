@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.persistent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.TestcontainersConfiguration;
+
+import software.xdev.tci.budget.ContainerMemoryLimit;
+import software.xdev.tci.docker.ContainerSummary;
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+
+
+/**
+ * Keeps PreStarted containers of a factory alive between test runs (dev-loop mode).
+ * <h3>How it works</h3>
+ * <ul>
+ *     <li>PreStarted containers are labeled with the factory name and a fingerprint of their configuration (image id,
+ *     environment, command and memory limit)</li>
+ *     <li>They are started as
+ *     <a href="https://java.testcontainers.org/features/reuse/">reusable containers</a>, so that they are not
+ *     removed by Ryuk/<code>ResourceReaper</code> when the JVM exits</li>
+ *     <li>When the factory is closed the containers that are still waiting inside the pool are renamed to
+ *     <code>&lt;base&gt;-idle-&lt;timestamp&gt;-...</code> and left running</li>
+ *     <li>The next run claims idle containers with a matching fingerprint by renaming them (only one JVM can
+ *     succeed) and adopts them</li>
+ *     <li>Idle containers that are idle longer than the TTL or have an outdated fingerprint are removed; the same
+ *     applies to all containers that are no longer running</li>
+ *     <li>Containers that are in use (e.g. PreStarted or adopted by another JVM) are only removed when they run longer
+ *     than the abandoned TTL: As they are reusable Ryuk doesn't remove them when the JVM that used them crashed or
+ *     was killed</li>
+ * </ul>
+ * <p>
+ * Requires that reuse is enabled for Testcontainers (<code>testcontainers.reuse.enable=true</code>).
+ * </p>
+ */
+public class PersistentPool
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PersistentPool.class);
+	
+	public static final String LABEL_POOL = "software.xdev.tci.pool";
+	public static final String LABEL_FINGERPRINT = "software.xdev.tci.pool.fingerprint";
+	
+	protected static final String IDLE = "idle";
+	protected static final String ADOPTED = "adopted";
+	protected static final Pattern STATE_NAME_PATTERN = Pattern.compile("-(" + IDLE + "|" + ADOPTED + ")-(\\d+)-");
+	
+	protected final String factoryName;
+	protected final String containerBaseName;
+	protected final long idleTtlMs;
+	protected final long abandonedTtlMs;
+	protected final Map<String, String> resolvedImageIds = new ConcurrentHashMap<>();
+	
+	public PersistentPool(final String factoryName, final String containerBaseName, final long idleTtlMs)
+	{
+		this(factoryName, containerBaseName, idleTtlMs, PreStartConfig.DEFAULT_PERSISTENT_ABANDONED_TTL_MS);
+	}
+	
+	/**
+	 * @param idleTtlMs      how long containers can be idle; <code>0</code> = unlimited
+	 * @param abandonedTtlMs how long containers that are not idle can run; <code>0</code> = unlimited
+	 */
+	public PersistentPool(
+		final String factoryName,
+		final String containerBaseName,
+		final long idleTtlMs,
+		final long abandonedTtlMs)
+	{
+		this.factoryName = Objects.requireNonNull(factoryName);
+		this.containerBaseName = Objects.requireNonNull(containerBaseName);
+		this.idleTtlMs = idleTtlMs;
+		this.abandonedTtlMs = abandonedTtlMs;
+	}
+	
+	public static boolean isSupported()
+	{
+		return TestcontainersConfiguration.getInstance().environmentSupportsReuse();
+	}
+	
+	/**
+	 * @return a fingerprint of the container's configuration; containers with different fingerprints are never
+	 * adopted
+	 */
+	public String fingerprint(final GenericContainer<?> container)
+	{
+		final List<String> parts = new ArrayList<>();
+		parts.add("image=" + this.resolveImageId(container.getDockerImageName()));
+		new TreeMap<>(container.getEnvMap()).forEach((k, v) -> parts.add("env=" + k + "=" + v));
+		parts.add("cmd=" + String.join(" ", container.getCommandParts()));
+		final OptionalLong memory = ContainerMemoryLimit.of(container);
+		parts.add("memory=" + (memory.isPresent() ? memory.getAsLong() : 0));
+		
+		try
+		{
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+				.digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8)));
+		}
+		catch(final NoSuchAlgorithmException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+	}
+	
+	protected String resolveImageId(final String imageName)
+	{
+		return this.resolvedImageIds.computeIfAbsent(imageName, name -> {
+			try
+			{
+				return DockerBackend.instance().resolveImageId(name).orElse(name);
+			}
+			catch(final Exception ex)
+			{
+				LOG.debug("Unable to resolve id of image {}", name, ex);
+				return name;
+			}
+		});
+	}
+	
+	/**
+	 * Prepares a container (before it's started) so that it can be persisted.
+	 */
+	public void prepare(final GenericContainer<?> container, final String fingerprint)
+	{
+		container.withLabel(LABEL_POOL, this.factoryName)
+			.withLabel(LABEL_FINGERPRINT, fingerprint)
+			// Reusable containers are not removed by Ryuk when the JVM exits
+			.withReuse(true);
+	}
+	
+	/**
+	 * @return idle containers with the given fingerprint that could be adopted
+	 */
+	public List<ContainerSummary> findIdle(final String fingerprint)
+	{
+		return this.listPoolContainers(false).stream()
+			.filter(c -> fingerprint.equals(c.labels().get(LABEL_FINGERPRINT)))
+			.filter(c -> this.parseState(c).map(s -> IDLE.equals(s.state())).orElse(false))
+			.toList();
+	}
+	
+	/**
+	 * Tries to claim an idle container by renaming it. Renaming can only succeed once, so that a container is never
+	 * adopted by multiple JVMs.
+	 */
+	public boolean tryClaim(final ContainerSummary container)
+	{
+		// Rename by the (idle) name: Only possible if nobody else renamed it before
+		final String name = container.name();
+		try
+		{
+			DockerBackend.instance().renameContainer(name, this.stateName(ADOPTED));
+			return true;
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("Unable to claim container {}; Probably claimed by someone else", name, ex);
+			return false;
+		}
+	}
+	
+	/**
+	 * Marks the container as idle, so that it can be adopted by the next run.
+	 */
+	public void markIdle(final GenericContainer<?> container)
+	{
+		DockerBackend.instance().renameContainer(container.getContainerId(), this.stateName(IDLE));
+	}
+	
+	/**
+	 * Removes containers that are no longer running as well as idle containers that are outdated or idle for longer
+	 * than the TTL.
+	 * <p>
+	 * Running containers that are not idle might be in use by another JVM. They are only removed when they run for
+	 * longer than the abandoned TTL.
+	 * </p>
+	 *
+	 * @return the amount of removed containers
+	 */
+	public int removeAbandoned(final String fingerprint)
+	{
+		final long now = System.currentTimeMillis();
+		int removed = 0;
+		for(final ContainerSummary container : this.listPoolContainers(true))
+		{
+			if((container.terminated() || this.isExpired(container, fingerprint, now)) && this.remove(container))
+			{
+				removed++;
+			}
+		}
+		return removed;
+	}
+	
+	protected boolean isExpired(final ContainerSummary container, final String fingerprint, final long now)
+	{
+		final Optional<StateName> state = this.parseState(container);
+		if(state.isPresent() && IDLE.equals(state.get().state()))
+		{
+			return !fingerprint.equals(container.labels().get(LABEL_FINGERPRINT))
+				|| this.idleTtlMs > 0 && now - state.get().sinceMs() > this.idleTtlMs;
+		}
+		
+		// PreStarted or adopted
+		final long runningSinceMs = state.map(StateName::sinceMs).orElse(container.createdAtMs());
+		return this.abandonedTtlMs > 0 && now - runningSinceMs > this.abandonedTtlMs;
+	}
+	
+	protected boolean remove(final ContainerSummary container)
+	{
+		try
+		{
+			DockerBackend.instance().removeContainer(container.id());
+			LOG.info("[{}] Removed abandoned persisted container {}", this.factoryName, container.name());
+			return true;
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("Failed to remove container {}", container.id(), ex);
+			return false;
+		}
+	}
+	
+	protected List<ContainerSummary> listPoolContainers(final boolean includeStopped)
+	{
+		return DockerBackend.instance().listContainers(Map.of(LABEL_POOL, this.factoryName), includeStopped);
+	}
+	
+	protected String stateName(final String state)
+	{
+		return this.containerBaseName + "-" + state + "-" + System.currentTimeMillis() + "-" + UUID.randomUUID();
+	}
+	
+	protected Optional<StateName> parseState(final ContainerSummary container)
+	{
+		final Matcher matcher = STATE_NAME_PATTERN.matcher(container.name());
+		return matcher.find()
+			? Optional.of(new StateName(matcher.group(1), Long.parseLong(matcher.group(2))))
+			: Optional.empty();
+	}
+	
+	protected record StateName(String state, long sinceMs)
+	{
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.persistent;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.docker.ContainerSummary;
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.factory.prestart.PreStartPool;
+import software.xdev.tci.factory.prestart.StartingInfra;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Keeps PreStarted infrastructure of a {@link PreStartPool} alive between test runs using a {@link PersistentPool}.
+ * <ul>
+ *     <li>PreStarts are {@link #prepare(TCI) prepared} so that they survive the JVM</li>
+ *     <li>Infrastructure that is still inside the pool when it's closed is {@link #tryPersist(StartingInfra)
+ *     persisted}</li>
+ *     <li>Persisted infrastructure is {@link #adoptPersisted() adopted} by the next run</li>
+ * </ul>
+ */
+public class PersistentPoolHandler<I extends TCI<?>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PersistentPoolHandler.class);
+	
+	protected final PersistentPool persistentPool;
+	protected final PreStartPool<I> pool;
+	/**
+	 * Builds new (not started) infrastructure
+	 */
+	protected final Supplier<I> infraBuilder;
+	protected final TCITracer.Timed traceAdoptPersisted;
+	/**
+	 * Adoption of the persisted infrastructure; only executed once
+	 */
+	protected final AtomicReference<CompletableFuture<Void>> adoption = new AtomicReference<>();
+	/**
+	 * Called once the persisted infrastructure was adopted
+	 */
+	protected Runnable onAdopted = () -> {
+		// NO OP
+	};
+	
+	public PersistentPoolHandler(
+		final PersistentPool persistentPool,
+		final PreStartPool<I> pool,
+		final Supplier<I> infraBuilder,
+		final TCITracer tracer)
+	{
+		this.persistentPool = Objects.requireNonNull(persistentPool);
+		this.pool = Objects.requireNonNull(pool);
+		this.infraBuilder = Objects.requireNonNull(infraBuilder);
+		this.traceAdoptPersisted = tracer.getTimedOrCreate("adoptPersisted");
+	}
+	
+	public PersistentPoolHandler<I> withOnAdopted(final Runnable onAdopted)
+	{
+		this.onAdopted = Objects.requireNonNull(onAdopted);
+		return this;
+	}
+	
+	/**
+	 * Prepares PreStarted infrastructure (before it's started) so that it can be persisted.
+	 */
+	public void prepare(final I infra)
+	{
+		this.persistentPool.prepare(infra.getContainer(), this.persistentPool.fingerprint(infra.getContainer()));
+	}
+	
+	/**
+	 * Adopts idle infrastructure that was persisted by a previous run into the pool and waits until it's done.
+	 */
+	public void adoptPersisted()
+	{
+		this.startAdoption().join();
+	}
+	
+	/**
+	 * Starts adopting the persisted infrastructure in the background - without waiting for it.
+	 *
+	 * @return <code>true</code> if the adoption is finished
+	 */
+	public boolean adoptPersistedAsync()
+	{
+		return this.startAdoption().isDone();
+	}
+	
+	protected CompletableFuture<Void> startAdoption()
+	{
+		final CompletableFuture<Void> existing = this.adoption.get();
+		if(existing != null)
+		{
+			return existing;
+		}
+		
+		final CompletableFuture<Void> created = new CompletableFuture<>();
+		if(!this.adoption.compareAndSet(null, created))
+		{
+			return this.adoption.get();
+		}
+		TCIExecutor.instance().execute(() -> {
+			try
+			{
+				this.adoptPersistedInternal();
+			}
+			finally
+			{
+				created.complete(null);
+				this.onAdopted.run();
+			}
+		});
+		return created;
+	}
+	
+	protected void adoptPersistedInternal()
+	{
+		final long startTime = System.nanoTime();
+		int adopted = 0;
+		try
+		{
+			final String fingerprint = this.persistentPool.fingerprint(this.infraBuilder.get().getContainer());
+			final int removed = this.persistentPool.removeAbandoned(fingerprint);
+			
+			for(final ContainerSummary candidate : this.persistentPool.findIdle(fingerprint))
+			{
+				if(!this.pool.hasDeficit())
+				{
+					break;
+				}
+				if(this.persistentPool.tryClaim(candidate) && this.adopt(candidate.id(), fingerprint))
+				{
+					adopted++;
+				}
+			}
+			
+			LOG.info("[{}] Adopted {}x persisted infra; Removed {}x abandoned", this.pool.name(), adopted, removed);
+		}
+		catch(final Exception ex)
+		{
+			LOG.warn("[{}] Failed to adopt persisted infra", this.pool.name(), ex);
+		}
+		this.traceAdoptPersisted.addNanos(System.nanoTime() - startTime);
+	}
+	
+	protected boolean adopt(final String containerId, final String fingerprint)
+	{
+		final I infra = this.infraBuilder.get();
+		try
+		{
+			// Persist it again on the next shutdown
+			this.persistentPool.prepare(infra.getContainer(), fingerprint);
+			DockerBackend.instance().adoptContainer(infra.getContainer(), containerId);
+			final Optional<String> problem = this.pool.findProblem(infra);
+			if(problem.isPresent())
+			{
+				throw new IllegalStateException("Persisted infra is not usable: " + problem.get());
+			}
+			this.pool.reserveResources(infra);
+			
+			final StartingInfra<I> adopted =
+				new StartingInfra<>(infra, CompletableFuture.completedFuture(null), true);
+			adopted.tryClaim();
+			adopted.markReady();
+			adopted.setPoolLease(this.pool.tryLease()
+				.orElseThrow(() -> new IllegalStateException("Shared pool is full")));
+			if(!this.pool.offerReady(adopted))
+			{
+				adopted.releasePoolLease();
+				throw new IllegalStateException("Pool is full");
+			}
+			return true;
+		}
+		catch(final Exception ex)
+		{
+			LOG.info("[{}] Unable to adopt persisted infra; Destroying it", this.pool.name(), ex);
+			this.destroy(infra);
+			return false;
+		}
+	}
+	
+	protected void destroy(final I infra)
+	{
+		TCIExecutor.instance().runAsync(() -> {
+			try
+			{
+				infra.stop();
+			}
+			catch(final Exception ex)
+			{
+				LOG.warn("[{}] Failed to destroy infra", this.pool.name(), ex);
+			}
+		});
+	}
+	
+	/**
+	 * Keeps the infrastructure alive (when it's inside the pool) so that it can be adopted by the next run.
+	 *
+	 * @return <code>true</code> if the infrastructure was persisted and should therefore not be stopped
+	 */
+	public boolean tryPersist(final StartingInfra<I> startingInfra)
+	{
+		if(startingInfra.readyAtMs() == 0
+			|| !startingInfra.infra().getContainer().isShouldBeReused()
+			|| !startingInfra.infra().getContainer().isRunning())
+		{
+			return false;
+		}
+		try
+		{
+			this.persistentPool.markIdle(startingInfra.infra().getContainer());
+			return true;
+		}
+		catch(final Exception ex)
+		{
+			LOG.warn("[{}] Failed to persist infra", this.pool.name(), ex);
+			return false;
+		}
+	}
+}
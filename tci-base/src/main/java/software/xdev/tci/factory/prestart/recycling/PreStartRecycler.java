@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.recycling;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.factory.prestart.PreStartPool;
+import software.xdev.tci.factory.prestart.StartingInfra;
+import software.xdev.tci.factory.prestart.broker.SharedPoolBroker;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Recycles returned infrastructure: Instead of stopping it, it's reset using a hook and put back into the
+ * {@link PreStartPool}.
+ * <p>
+ * Only infrastructure that was not directly attached to a network can be recycled. The hook is executed after the
+ * infrastructure was disconnected from its network. If the hook fails or the infrastructure is not usable afterward
+ * it's destroyed.
+ * </p>
+ */
+public class PreStartRecycler<I extends TCI<?>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PreStartRecycler.class);
+	
+	public static final int DEFAULT_MAX_REUSE = 10;
+	
+	protected final PreStartPool<I> pool;
+	protected final Duration disconnectTimeout;
+	protected final TCITracer.Timed traceRecycle;
+	
+	/**
+	 * Resets returned infrastructure so that it can be reused; <code>null</code> = recycling is disabled
+	 */
+	protected Consumer<I> resetHook;
+	/**
+	 * How often infrastructure can be reused at most before it's destroyed
+	 */
+	protected int maxReuse = DEFAULT_MAX_REUSE;
+	/**
+	 * Decides if returned infrastructure should be recycled; receives the infrastructure and how often it was already
+	 * reused
+	 */
+	protected BiPredicate<I, Integer> policy = (infra, reuseCount) -> true;
+	protected final Map<I, RecycleInfo> recycleInfos = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	public PreStartRecycler(final PreStartPool<I> pool, final Duration disconnectTimeout, final TCITracer tracer)
+	{
+		this.pool = Objects.requireNonNull(pool);
+		this.disconnectTimeout = Objects.requireNonNull(disconnectTimeout);
+		this.traceRecycle = tracer.getTimedOrCreate("recycle");
+	}
+	
+	/**
+	 * @param resetHook Resets the infrastructure (e.g. truncates the database); <code>null</code> disables recycling
+	 * @param maxReuse  How often infrastructure can be reused at most before it's destroyed
+	 */
+	public PreStartRecycler<I> withResetHook(final Consumer<I> resetHook, final int maxReuse)
+	{
+		this.resetHook = resetHook;
+		this.maxReuse = maxReuse;
+		return this;
+	}
+	
+	public PreStartRecycler<I> withPolicy(final BiPredicate<I, Integer> policy)
+	{
+		this.policy = Objects.requireNonNull(policy);
+		return this;
+	}
+	
+	public boolean isEnabled()
+	{
+		return this.resetHook != null;
+	}
+	
+	/**
+	 * Intercepts the next stop of the returned infrastructure, so that it can be recycled.
+	 */
+	public void registerReturned(final I infra)
+	{
+		if(this.isEnabled())
+		{
+			infra.setStopInterceptor(tci -> this.tryRecycle(infra));
+		}
+	}
+	
+	/**
+	 * Remembers that the infrastructure was connected to the network and can therefore be recycled.
+	 */
+	public void trackRecyclable(final I infra, final Network network)
+	{
+		if(this.isEnabled())
+		{
+			this.recycleInfos.compute(infra, (k, existing) -> new RecycleInfo(
+				network != null ? network.getId() : null,
+				existing != null ? existing.reuseCount() : 0));
+		}
+	}
+	
+	/**
+	 * @return <code>true</code> if the infrastructure will be recycled and should therefore not be stopped
+	 */
+	protected boolean tryRecycle(final I infra)
+	{
+		final RecycleInfo info = this.recycleInfos.get(infra);
+		if(info == null
+			|| !this.isEnabled()
+			|| info.reuseCount() >= this.maxReuse
+			// Pool is already full -> no need to keep it
+			|| !this.pool.hasDeficit()
+			|| !this.policy.test(infra, info.reuseCount()))
+		{
+			this.recycleInfos.remove(infra);
+			return false;
+		}
+		
+		final Optional<SharedPoolBroker.Lease> lease = this.pool.tryLease();
+		if(lease.isEmpty())
+		{
+			this.recycleInfos.remove(infra);
+			return false;
+		}
+		
+		TCIExecutor.instance().runAsync(() -> this.recycle(infra, info, lease.get()));
+		return true;
+	}
+	
+	protected void recycle(final I infra, final RecycleInfo info, final SharedPoolBroker.Lease lease)
+	{
+		final long startTime = System.nanoTime();
+		try
+		{
+			this.ensurePoolIsAccepting();
+			if(info.networkId() != null)
+			{
+				this.disconnectFromNetwork(infra.getContainer(), info.networkId());
+			}
+			infra.setNetworkAlias(null);
+			
+			this.resetHook.accept(infra);
+			
+			final Optional<String> problem = this.pool.findProblem(infra);
+			if(problem.isPresent())
+			{
+				throw new IllegalStateException("Infra is not usable after reset: " + problem.get());
+			}
+			
+			final StartingInfra<I> recycled =
+				new StartingInfra<>(infra, CompletableFuture.completedFuture(null), true);
+			recycled.tryClaim();
+			recycled.markReady();
+			recycled.setPoolLease(lease);
+			this.recycleInfos.put(infra, new RecycleInfo(null, info.reuseCount() + 1));
+			if(!this.pool.offerReady(recycled))
+			{
+				this.ensurePoolIsAccepting();
+				throw new IllegalStateException("Pool is full");
+			}
+			
+			LOG.debug("[{}] Recycled infra (reuse #{})", this.pool.name(), info.reuseCount() + 1);
+			this.traceRecycle.addNanos(System.nanoTime() - startTime);
+		}
+		catch(final Exception ex)
+		{
+			LOG.info("[{}] Unable to recycle infra; Destroying it", this.pool.name(), ex);
+			lease.release();
+			this.recycleInfos.remove(infra);
+			// Interceptor was already consumed -> actually stops the infra
+			infra.stop();
+		}
+	}
+	
+	protected void ensurePoolIsAccepting()
+	{
+		if(!this.pool.isAccepting())
+		{
+			// e.g. the factory was closed while the infrastructure was returned
+			throw new IllegalStateException("Pool no longer accepts infrastructure");
+		}
+	}
+	
+	protected void disconnectFromNetwork(final GenericContainer<?> container, final String networkId)
+	{
+		try
+		{
+			TCIExecutor.instance().runAsync(() -> DockerBackend.instance()
+					.disconnectFromNetwork(container.getContainerId(), networkId))
+				.get(this.disconnectTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch(final InterruptedException ie)
+		{
+			LOG.warn("[{}] Got interrupted", this.pool.name(), ie);
+			Thread.currentThread().interrupt();
+		}
+		catch(final Exception e)
+		{
+			throw new IllegalStateException(
+				"Unable to disconnect container[" + container + "] from network[" + networkId + "]",
+				e);
+		}
+	}
+	
+	protected record RecycleInfo(String networkId, int reuseCount)
+	{
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.resources;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testcontainers.containers.GenericContainer;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.HostConfig;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.budget.ContainerMemoryLimit;
+import software.xdev.tci.budget.ResourceBudget;
+import software.xdev.tci.budget.ResourceBudgetExceededException;
+import software.xdev.tci.budget.config.ResourceBudgetConfig;
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Reserves the resources that are required by infrastructure from the {@link ResourceBudget}.
+ * <p>
+ * The required memory is estimated from the configured limit of the container or - if there is none - from the
+ * limit that was observed on previously started containers.
+ * </p>
+ */
+public class InfraResourceReserver
+{
+	protected final String name;
+	// Pre-registered as it's used on the hot path
+	protected final TCITracer.Timed traceResourceWait;
+	/**
+	 * Memory limit that was observed on started containers; 0 = unknown/unlimited
+	 */
+	protected final AtomicLong observedMemoryLimitBytes = new AtomicLong();
+	
+	public InfraResourceReserver(final String name, final TCITracer tracer)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.traceResourceWait = tracer.getTimedOrCreate("resourceWait");
+	}
+	
+	/**
+	 * Reserves the resources that are required by the infrastructure. They are released once the infrastructure is
+	 * stopped.
+	 * <p>
+	 * PreStarts are skipped (by throwing a {@link ResourceBudgetExceededException}) when the budget would be
+	 * exceeded while starts that are required by tests wait for resources.
+	 * </p>
+	 */
+	public void reserve(final TCI<?> infra, final boolean preStarted)
+	{
+		final long startTime = System.currentTimeMillis();
+		final long memoryBytes = this.estimateMemoryBytes(infra.getContainer());
+		
+		final ResourceBudget budget = ResourceBudget.instance();
+		final ResourceBudget.Reservation reservation = preStarted
+			? budget.tryReserve(this.name, memoryBytes)
+			.orElseThrow(() -> new ResourceBudgetExceededException("Resource budget exhausted"))
+			: budget.reserve(
+				this.name,
+				memoryBytes,
+				Duration.ofMillis(ResourceBudgetConfig.instance().maxWaitMs()));
+		infra.addOnStopped(reservation::release);
+		
+		if(!preStarted)
+		{
+			this.traceResourceWait.addMs(System.currentTimeMillis() - startTime);
+		}
+	}
+	
+	public long estimateMemoryBytes(final GenericContainer<?> container)
+	{
+		final OptionalLong configured = ContainerMemoryLimit.of(container);
+		if(configured.isPresent())
+		{
+			return configured.getAsLong();
+		}
+		final long observed = this.observedMemoryLimitBytes.get();
+		return observed > 0 ? observed : ResourceBudgetConfig.instance().unknownContainerMemoryBytes();
+	}
+	
+	/**
+	 * Remembers the memory limit of the started container for future estimations.
+	 */
+	public void observeMemoryLimit(final GenericContainer<?> container)
+	{
+		Optional.ofNullable(container.getContainerInfo())
+			.map(InspectContainerResponse::getHostConfig)
+			.map(HostConfig::getMemory)
+			.filter(m -> m > 0)
+			.ifPresent(this.observedMemoryLimitBytes::set);
+	}
+	
+	/**
+	 * @return the observed memory limit or empty if it's unknown/unlimited
+	 */
+	public OptionalLong getObservedMemoryLimitBytes()
+	{
+		final long memoryLimitBytes = this.observedMemoryLimitBytes.get();
+		return memoryLimitBytes > 0 ? OptionalLong.of(memoryLimitBytes) : OptionalLong.empty();
+	}
+}
@@ -18,6 +18,7 @@ package software.xdev.tci.factory.prestart.snapshoting;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
@@ -25,7 +26,6 @@ import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.DockerClientFactory;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.images.RemoteDockerImage;
 import org.testcontainers.utility.DockerImageName;
@@ -34,6 +34,8 @@ import org.testcontainers.utility.ResourceReaper;
 import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.model.Volume;
 
+import software.xdev.tci.docker.DockerBackend;
+
 
 /**
  * Uses
@@ -142,11 +144,10 @@ public class CommitedImageSnapshotManager implements SnapshotManager
 				+ this.hashCode();
 			
 			@SuppressWarnings({"resource", "java:S1874", "deprecation"})
-			final String commitedSha = DockerClientFactory.lazyClient()
-				.commitCmd(container.getContainerId())
-				.withRepository(name)
-				.withLabels(ResourceReaper.instance().getLabels())
-				.exec();
+			final String commitedSha = DockerBackend.instance().commitContainer(
+				container.getContainerId(),
+				name,
+				ResourceReaper.instance().getLabels());
 			LOG.debug("Created cached image {}/{} for {}", name, commitedSha, container.getContainerName());
 			this.cachedImage.set(new RemoteDockerImage(DockerImageName.parse(name))
 				.withImagePullPolicy(ignored2 -> false));
@@ -174,7 +175,9 @@ public class CommitedImageSnapshotManager implements SnapshotManager
 			return;
 		}
 		
-		final List<InspectContainerResponse.Mount> mounts = container.getContainerInfo().getMounts();
+		final List<InspectContainerResponse.Mount> mounts = Optional.ofNullable(container.getContainerInfo())
+			.map(InspectContainerResponse::getMounts)
+			.orElse(null);
 		if(mounts != null)
 		{
 			final List<String> problematicMounts = mounts.stream()
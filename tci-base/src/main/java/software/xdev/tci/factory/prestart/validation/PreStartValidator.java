@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.validation;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.docker.ContainerStatus;
+import software.xdev.tci.docker.DockerBackend;
+import software.xdev.tci.factory.prestart.StartingInfra;
+
+
+/**
+ * Checks if PreStarted infrastructure is still usable.
+ * <p>
+ * Infrastructure is no longer usable when it
+ * <ul>
+ *     <li>is idle for too long</li>
+ *     <li>is no longer running or unhealthy (e.g. crashed or OOM killed)</li>
+ *     <li>failed the {@link #withProbe(Predicate) probe}</li>
+ * </ul>
+ * </p>
+ */
+public class PreStartValidator<I extends TCI<?>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PreStartValidator.class);
+	
+	protected final String name;
+	/**
+	 * How long PreStarted infrastructure can be idle inside the pool; 0 = unlimited
+	 */
+	protected final long maxIdleMs;
+	/**
+	 * Additional probe that checks if PreStarted infrastructure is still usable; <code>null</code> = none
+	 */
+	protected Predicate<I> probe;
+	
+	public PreStartValidator(final String name, final long maxIdleMs)
+	{
+		this.name = Objects.requireNonNull(name);
+		this.maxIdleMs = maxIdleMs;
+	}
+	
+	public PreStartValidator<I> withProbe(final Predicate<I> probe)
+	{
+		this.probe = probe;
+		return this;
+	}
+	
+	/**
+	 * @return the reason why the ready infrastructure is no longer usable or empty if it's fine
+	 */
+	public Optional<String> findProblem(final StartingInfra<I> ready)
+	{
+		if(this.isIdleExpired(ready))
+		{
+			return Optional.of("idle for too long");
+		}
+		try
+		{
+			final Optional<String> containerProblem =
+				findContainerProblem(ready.infra().getContainer().getContainerId());
+			if(containerProblem.isPresent())
+			{
+				return containerProblem;
+			}
+			// Paused infrastructure can't respond to the probe
+			if(!ready.paused() && this.isProbeFailing(ready.infra()))
+			{
+				return Optional.of("probe failed");
+			}
+		}
+		catch(final Exception ex)
+		{
+			LOG.debug("[{}] Validation of pre-started infra failed", this.name, ex);
+			return Optional.of("validation failed: " + ex.getMessage());
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * @return the reason why the (running) infrastructure is not usable or empty if it's fine
+	 */
+	public Optional<String> findProblem(final I infra)
+	{
+		return findContainerProblem(infra.getContainer().getContainerId())
+			.or(() -> this.isProbeFailing(infra) ? Optional.of("probe failed") : Optional.empty());
+	}
+	
+	public boolean isIdleExpired(final StartingInfra<I> ready)
+	{
+		return this.maxIdleMs > 0
+			&& ready.readyAtMs() > 0
+			&& System.currentTimeMillis() - ready.readyAtMs() > this.maxIdleMs;
+	}
+	
+	protected boolean isProbeFailing(final I infra)
+	{
+		final Predicate<I> currentProbe = this.probe;
+		return currentProbe != null && !currentProbe.test(infra);
+	}
+	
+	public static Optional<String> findContainerProblem(final String containerId)
+	{
+		final ContainerStatus status = DockerBackend.instance().inspectContainer(containerId);
+		if(!status.running())
+		{
+			return Optional.of("not running" + (status.oomKilled() ? " (OOM killed)" : ""));
+		}
+		if(status.unhealthy())
+		{
+			return Optional.of("unhealthy");
+		}
+		return Optional.empty();
+	}
+}
@@ -37,9 +37,11 @@ import org.testcontainers.DockerClientFactory;
 import org.testcontainers.containers.Network;
 import org.testcontainers.utility.ResourceReaper;
 
-import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.CreateNetworkCmd;
 
+import software.xdev.tci.concurrent.TCIExecutor;
+import software.xdev.tci.docker.DockerBackend;
+
 
 /**
  * A better implementation of {@link Network} in relation to {@link org.testcontainers.containers.Network.NetworkImpl}.
@@ -88,7 +90,7 @@ public class LazyNetwork implements Network
 	
 	public LazyNetwork create()
 	{
-		return this.create(CompletableFuture::runAsync);
+		return this.create(TCIExecutor.instance()::runAsync);
 	}
 	
 	public LazyNetwork create(final Function<Runnable, CompletableFuture<Void>> executor)
@@ -101,7 +103,6 @@ public class LazyNetwork implements Network
 		return this;
 	}
 	
-	@SuppressWarnings({"deprecation", "java:S1874", "java:S2095"})
 	protected synchronized void startInternal()
 	{
 		if(this.id != null)
@@ -109,8 +110,6 @@ public class LazyNetwork implements Network
 			throw new IllegalStateException("Id was already set");
 		}
 		
-		final CreateNetworkCmd createNetworkCmd = this.getClient().createNetworkCmd();
-		
 		if(this.checkDuplicate == null)
 		{
 			this.checkDuplicate = this.name != null;
@@ -120,7 +119,14 @@ public class LazyNetwork implements Network
 			this.name = UUID.randomUUID().toString();
 		}
 		
-		createNetworkCmd.withName(this.name);
+		this.id = this.backend().createNetwork(this.name, this::customizeCreateNetworkCmd);
+		// Free up
+		this.startCF = null;
+	}
+	
+	@SuppressWarnings({"deprecation", "java:S1874"})
+	protected void customizeCreateNetworkCmd(final CreateNetworkCmd createNetworkCmd)
+	{
 		createNetworkCmd.withCheckDuplicate(this.checkDuplicate);
 		
 		if(this.enableIpv6 != null)
@@ -144,10 +150,6 @@ public class LazyNetwork implements Network
 		labels.putAll(DockerClientFactory.DEFAULT_LABELS);
 		labels.putAll(ResourceReaper.instance().getLabels());
 		createNetworkCmd.withLabels(labels);
-		
-		this.id = createNetworkCmd.exec().getId();
-		// Free up
-		this.startCF = null;
 	}
 	
 	public void waitForCreation(final Duration timeout)
@@ -191,7 +193,6 @@ public class LazyNetwork implements Network
 		}
 	}
 	
-	@SuppressWarnings("resource") // AutoClosable is implemented but does nothing?
 	protected synchronized void closeInternal()
 	{
 		if(this.id != null)
@@ -209,7 +210,8 @@ public class LazyNetwork implements Network
 							{
 								Thread.sleep(1000);
 							}
-							return this.getClient().removeNetworkCmd(this.id).exec();
+							this.backend().removeNetwork(this.id);
+							return null;
 						}
 					);
 				}
@@ -222,9 +224,9 @@ public class LazyNetwork implements Network
 		}
 	}
 	
-	protected DockerClient getClient()
+	protected DockerBackend backend()
 	{
-		return DockerClientFactory.instance().client();
+		return DockerBackend.instance();
 	}
 	
 	// region Get/Set
@@ -19,7 +19,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,6 +27,7 @@ import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import software.xdev.tci.concurrent.TCIExecutor;
 import software.xdev.tci.factory.prestart.config.PreStartConfig;
 
 
@@ -60,7 +60,7 @@ public class LazyNetworkPool
 	
 	public LazyNetworkPool(final int size)
 	{
-		this(size, Executors.newCachedThreadPool(defaultThreadFactory()));
+		this(size, TCIExecutor.instance().newExecutorService("LazyNetworkPool-" + POOL_COUNTER.getAndIncrement()));
 	}
 	
 	public LazyNetworkPool(final int size, final Executor executor)
@@ -89,7 +89,7 @@ public class LazyNetworkPool
 			return;
 		}
 		
-		CompletableFuture.runAsync(this::managePoolInternal);
+		CompletableFuture.runAsync(this::managePoolInternal, this.executor);
 	}
 	
 	protected synchronized void managePoolInternal()
@@ -122,15 +122,17 @@ public class LazyNetworkPool
 		return net;
 	}
 	
+	/**
+	 * @deprecated No longer used; the pool executes its work using {@link TCIExecutor}
+	 */
+	@Deprecated(forRemoval = true)
 	public static ThreadFactory defaultThreadFactory()
 	{
-		final int poolNumber = POOL_COUNTER.getAndIncrement();
-		
 		final AtomicInteger counter = new AtomicInteger(1);
 		return r -> {
 			final Thread thread = new Thread(r);
 			thread.setDaemon(true);
-			thread.setName("LazyNetworkPool-" + poolNumber + "-" + counter.getAndIncrement());
+			thread.setName("LazyNetworkPool-" + counter.getAndIncrement());
 			return thread;
 		};
 	}
@@ -0,0 +1,404 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.plan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.xdev.tci.TCI;
+import software.xdev.tci.concurrent.TCIExecutor;
+
+
+/**
+ * Declares a set of infrastructure and the dependencies between them and starts everything with maximum
+ * parallelism.
+ * <p>
+ * Example:
+ * <pre>
+ * final InfraStartPlan plan = new InfraStartPlan("base");
+ * final Node&lt;DBTCI&gt; db = plan.add("DB", () -&gt; DB_FACTORY.getNewAsync(network, "db"))
+ *     .onReady(this::migrate);
+ * final Node&lt;OIDCTCI&gt; oidc = plan.add("OIDC", () -&gt; OIDC_FACTORY.getNewAsync(network, "oidc"));
+ * // The app requires the migrated database
+ * final Node&lt;WebAppTCI&gt; app = plan.add("App", () -&gt; APP_FACTORY.getNewAsync(network, "app"), db);
+ *
+ * final InfraStartPlan.Result result = plan.start();
+ * result.get(app);
+ * </pre>
+ * </p>
+ * <p>
+ * A node is started as soon as all its dependencies are ready. Dependencies can only be declared on nodes that were
+ * added before, so the plan is always free of cycles.
+ * </p>
+ * <p>
+ * If any node fails, all other nodes are torn down: Starts that are not running yet are cancelled and all
+ * infrastructure that was (or will be) started is stopped.
+ * </p>
+ * <p>
+ * The timings of every run are reported inside the {@link Result}, including the critical path (the chain of
+ * dependencies that determined the overall duration).
+ * </p>
+ */
+public class InfraStartPlan
+{
+	private static final Logger LOG = LoggerFactory.getLogger(InfraStartPlan.class);
+	
+	protected final String name;
+	protected final Map<String, Node<?>> nodes = new LinkedHashMap<>();
+	
+	public InfraStartPlan(final String name)
+	{
+		this.name = Objects.requireNonNull(name);
+	}
+	
+	/**
+	 * Adds infrastructure that is started asynchronously, e.g. using <code>getNewAsync</code>.
+	 *
+	 * @param dependencies Nodes that need to be ready before this node is started
+	 */
+	public <T extends TCI<?>> Node<T> add(
+		final String nodeName,
+		final Supplier<CompletableFuture<T>> starter,
+		final Node<?>... dependencies)
+	{
+		Objects.requireNonNull(starter);
+		if(this.nodes.containsKey(nodeName))
+		{
+			throw new IllegalArgumentException("Node[" + nodeName + "] was already added");
+		}
+		for(final Node<?> dependency : dependencies)
+		{
+			if(this.nodes.get(dependency.name()) != dependency)
+			{
+				throw new IllegalArgumentException(
+					"Dependency[" + dependency.name() + "] of node[" + nodeName + "] is not part of this plan");
+			}
+		}
+		
+		final Node<T> node = new Node<>(nodeName, starter, List.of(dependencies));
+		this.nodes.put(nodeName, node);
+		return node;
+	}
+	
+	/**
+	 * Adds infrastructure that is started synchronously (e.g. using <code>getNew</code>) by the
+	 * {@link TCIExecutor}.
+	 *
+	 * @see #add(String, Supplier, Node[])
+	 */
+	public <T extends TCI<?>> Node<T> addBlocking(
+		final String nodeName,
+		final Supplier<T> starter,
+		final Node<?>... dependencies)
+	{
+		return this.add(
+			nodeName,
+			() -> {
+				// The blocking start can't be cancelled -> stop the infra when it's no longer required
+				final CompletableFuture<T> request = new CompletableFuture<>();
+				TCIExecutor.instance().supplyAsync(starter).whenComplete((infra, ex) -> {
+					if(ex != null)
+					{
+						request.completeExceptionally(ex);
+					}
+					else if(!request.complete(infra))
+					{
+						infra.stop();
+					}
+				});
+				return request;
+			},
+			dependencies);
+	}
+	
+	/**
+	 * Starts all nodes and waits until everything is ready.
+	 *
+	 * @throws IllegalStateException if any node failed; all other infrastructure was torn down
+	 */
+	public Result start()
+	{
+		try
+		{
+			return this.startAsync().join();
+		}
+		catch(final CompletionException ex)
+		{
+			throw new IllegalStateException("Failed to start " + this.name, ex);
+		}
+	}
+	
+	/**
+	 * Starts all nodes.
+	 *
+	 * @return a future that is completed once all nodes are ready or - if something failed - everything was torn
+	 * down
+	 */
+	public CompletableFuture<Result> startAsync()
+	{
+		final Run run = new Run(System.nanoTime());
+		this.nodes.values().forEach(node -> this.startNode(node, run));
+		
+		final CompletableFuture<?>[] all = run.futures.values().toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(all)
+			// Wait until every node settled, so that nothing is started after the teardown
+			.handle((ignored, ex) -> CompletableFuture.allOf(Stream.of(all)
+				.map(cf -> cf.handle((i, ex2) -> null))
+				.toArray(CompletableFuture[]::new)))
+			.thenCompose(settled -> settled)
+			.thenCompose(ignored -> run.failure.get() != null
+				? this.tearDown(run).thenApply(stopped -> {
+					throw new CompletionException(run.failure.get());
+				})
+				: CompletableFuture.completedFuture(this.createResult(run)));
+	}
+	
+	protected <T extends TCI<?>> void startNode(final Node<T> node, final Run run)
+	{
+		final CompletableFuture<?>[] dependencies = node.dependencies().stream()
+			.map(d -> run.futures.get(d.name()))
+			.toArray(CompletableFuture[]::new);
+		final NodeTiming timing = new NodeTiming();
+		run.timings.put(node.name(), timing);
+		
+		final CompletableFuture<T> cf = CompletableFuture.allOf(dependencies)
+			.thenCompose(ignored -> {
+				if(run.failure.get() != null)
+				{
+					throw new CancellationException(node.name());
+				}
+				timing.startedAtNanos.set(System.nanoTime());
+				final CompletableFuture<T> starting = node.starter().get();
+				run.starting.put(node.name(), starting);
+				return starting
+					// Infrastructure that arrives after the plan failed is stopped
+					.whenComplete((infra, ex) -> run.track(infra));
+			})
+			.thenApply(infra -> {
+				node.onReady().ifPresent(c -> c.accept(infra));
+				timing.readyAtNanos.set(System.nanoTime());
+				return infra;
+			});
+		cf.whenComplete((ignored, ex) -> {
+			if(ex != null && run.failure.compareAndSet(null, unwrap(ex)))
+			{
+				LOG.warn("[{}] Node[{}] failed; Tearing down", this.name, node.name());
+				// Don't start what is still queued
+				run.starting.values().forEach(s -> s.cancel(false));
+			}
+		});
+		run.futures.put(node.name(), cf);
+	}
+	
+	/**
+	 * @return a future that is completed once all started infrastructure was stopped
+	 */
+	protected CompletableFuture<Void> tearDown(final Run run)
+	{
+		final List<TCI<?>> toStop = run.tearDown();
+		LOG.info("[{}] Stopping {}x already started infra", this.name, toStop.size());
+		return CompletableFuture.allOf(toStop.stream()
+				.map(infra -> TCIExecutor.instance().runAsync(infra::stop))
+				.toArray(CompletableFuture[]::new))
+			.handle((ignored, ex) -> {
+				if(ex != null)
+				{
+					LOG.warn("[{}] Failed to stop infra", this.name, ex);
+				}
+				return null;
+			});
+	}
+	
+	protected Result createResult(final Run run)
+	{
+		final Map<Node<?>, TCI<?>> infras = new LinkedHashMap<>();
+		final Map<String, Long> durationsMs = new LinkedHashMap<>();
+		this.nodes.values().forEach(node -> {
+			infras.put(node, run.futures.get(node.name()).join());
+			final NodeTiming timing = run.timings.get(node.name());
+			durationsMs.put(
+				node.name(),
+				TimeUnit.NANOSECONDS.toMillis(timing.readyAtNanos.get() - timing.startedAtNanos.get()));
+		});
+		
+		// Walk back from the node that was ready last along the dependency that was ready last
+		final List<String> criticalPath = new ArrayList<>();
+		Optional<Node<?>> current = this.lastReady(this.nodes.values(), run);
+		while(current.isPresent())
+		{
+			criticalPath.add(0, current.get().name());
+			current = this.lastReady(current.get().dependencies(), run);
+		}
+		final long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - run.startedAtNanos);
+		
+		LOG.info(
+			"[{}] Started {}x infra in {}ms; Critical path: {}; Durations: {}",
+			this.name,
+			infras.size(),
+			totalMs,
+			criticalPath,
+			durationsMs);
+		
+		return new Result(infras, Collections.unmodifiableMap(durationsMs), List.copyOf(criticalPath), totalMs);
+	}
+	
+	protected Optional<Node<?>> lastReady(final Iterable<Node<?>> candidates, final Run run)
+	{
+		Node<?> last = null;
+		for(final Node<?> candidate : candidates)
+		{
+			// Dependents are always added after their dependencies -> prefer them on ties
+			if(last == null
+				|| run.timings.get(candidate.name()).readyAtNanos.get()
+				>= run.timings.get(last.name()).readyAtNanos.get())
+			{
+				last = candidate;
+			}
+		}
+		return Optional.ofNullable(last);
+	}
+	
+	protected static Throwable unwrap(final Throwable ex)
+	{
+		return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+	}
+	
+	
+	public static final class Node<T extends TCI<?>>
+	{
+		private final String name;
+		private final Supplier<CompletableFuture<T>> starter;
+		private final List<Node<?>> dependencies;
+		private Consumer<T> onReady;
+		
+		Node(final String name, final Supplier<CompletableFuture<T>> starter, final List<Node<?>> dependencies)
+		{
+			this.name = Objects.requireNonNull(name);
+			this.starter = starter;
+			this.dependencies = dependencies;
+		}
+		
+		/**
+		 * Executed once the infrastructure was started and before dependent nodes are started, e.g. to migrate a
+		 * database.
+		 */
+		public Node<T> onReady(final Consumer<T> onReady)
+		{
+			this.onReady = onReady;
+			return this;
+		}
+		
+		public String name()
+		{
+			return this.name;
+		}
+		
+		Supplier<CompletableFuture<T>> starter()
+		{
+			return this.starter;
+		}
+		
+		List<Node<?>> dependencies()
+		{
+			return this.dependencies;
+		}
+		
+		Optional<Consumer<T>> onReady()
+		{
+			return Optional.ofNullable(this.onReady);
+		}
+	}
+	
+	
+	public record Result(
+		Map<Node<?>, TCI<?>> infras,
+		Map<String, Long> durationsMs,
+		List<String> criticalPath,
+		long totalMs)
+	{
+		@SuppressWarnings("unchecked")
+		public <T extends TCI<?>> T get(final Node<T> node)
+		{
+			return (T)this.infras.get(node);
+		}
+	}
+	
+	
+	protected static class NodeTiming
+	{
+		protected final AtomicLong startedAtNanos = new AtomicLong();
+		protected final AtomicLong readyAtNanos = new AtomicLong();
+	}
+	
+	
+	protected static class Run
+	{
+		protected final long startedAtNanos;
+		protected final Map<String, CompletableFuture<? extends TCI<?>>> futures =
+			Collections.synchronizedMap(new LinkedHashMap<>());
+		protected final Map<String, CompletableFuture<?>> starting = new ConcurrentHashMap<>();
+		protected final Map<String, NodeTiming> timings = new ConcurrentHashMap<>();
+		protected final AtomicReference<Throwable> failure = new AtomicReference<>();
+		protected final List<TCI<?>> started = new ArrayList<>();
+		protected final AtomicBoolean tornDown = new AtomicBoolean();
+		
+		protected Run(final long startedAtNanos)
+		{
+			this.startedAtNanos = startedAtNanos;
+		}
+		
+		protected synchronized void track(final TCI<?> infra)
+		{
+			if(infra == null)
+			{
+				return;
+			}
+			if(this.tornDown.get())
+			{
+				TCIExecutor.instance().runAsync(infra::stop);
+				return;
+			}
+			this.started.add(infra);
+		}
+		
+		protected synchronized List<TCI<?>> tearDown()
+		{
+			this.tornDown.set(true);
+			final List<TCI<?>> toStop = new ArrayList<>(this.started);
+			this.started.clear();
+			return toStop;
+		}
+	}
+}
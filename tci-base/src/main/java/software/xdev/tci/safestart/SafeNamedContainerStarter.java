@@ -25,9 +25,10 @@ import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testcontainers.DockerClientFactory;
 import org.testcontainers.containers.GenericContainer;
 
+import software.xdev.tci.docker.DockerBackend;
+
 
 /**
  * It's not possible to start a container with e.g. the same name, port bindings, etc. with <code>startupAttempts >
@@ -119,7 +120,6 @@ public class SafeNamedContainerStarter<C extends GenericContainer<?>> implements
 		}
 	}
 	
-	@SuppressWarnings("resource")
 	protected void tryCleanupContainerAfterStartFail(final List<String> containerNames)
 	{
 		for(final String containerName : containerNames)
@@ -127,10 +127,7 @@ public class SafeNamedContainerStarter<C extends GenericContainer<?>> implements
 			LOG.info("Start of container[name='{}'] failed; Trying to remove container...", containerName);
 			try
 			{
-				DockerClientFactory.lazyClient()
-					.removeContainerCmd(containerName)
-					.withForce(true)
-					.exec();
+				DockerBackend.instance().removeContainer(containerName);
 				LOG.info("Removed failed container[name='{}']", containerName);
 			}
 			catch(final Exception ex)
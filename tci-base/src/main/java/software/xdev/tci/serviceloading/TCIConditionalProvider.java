@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.serviceloading;
+
+/**
+ * A provider that is only applicable in certain environments (e.g. only on Linux).
+ * <p>
+ * {@link TCIServiceLoader} skips providers that are not applicable and uses the one with the next lower
+ * {@link TCIProviderPriority priority} instead.
+ * </p>
+ * <p>
+ * The provider is instantiated before {@link #isApplicable()} is checked - so resources (threads, files, ...) should
+ * only be acquired once it's used.
+ * </p>
+ */
+public interface TCIConditionalProvider
+{
+	boolean isApplicable();
+}
@@ -15,12 +15,12 @@
  */
 package software.xdev.tci.serviceloading;
 
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -36,7 +36,9 @@ public final class TCIServiceLoader
 		return INSTANCE;
 	}
 	
-	private final Map<Class<?>, Object> loadedServices = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Class<?>, Object> loadedServices = new ConcurrentHashMap<>();
+	// Per service so that a slow loading service doesn't block the loading of unrelated ones
+	private final Map<Class<?>, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
 	
 	private TCIServiceLoader()
 	{
@@ -45,17 +47,59 @@ public final class TCIServiceLoader
 	@SuppressWarnings("unchecked")
 	public <T> T service(final Class<T> clazz)
 	{
-		return (T)this.loadedServices.computeIfAbsent(
-			clazz,
-			c -> ServiceLoader.load(clazz)
-				.stream()
-				// Get by highest priority
-				.max(Comparator.comparingInt(p ->
-					Optional.ofNullable(p.type().getAnnotation(TCIProviderPriority.class))
-						.map(TCIProviderPriority::value)
-						.orElse(TCIProviderPriority.DEFAULT_PRIORITY)))
-				.map(ServiceLoader.Provider::get)
-				.orElse(null));
+		final Object loaded = this.loadedServices.get(clazz);
+		if(loaded != null)
+		{
+			return (T)loaded;
+		}
+		
+		// Reentrant as services may load other services during their initialization
+		final ReentrantLock loadLock = this.loadLocks.computeIfAbsent(clazz, ignored -> new ReentrantLock());
+		loadLock.lock();
+		try
+		{
+			final Object loadedInMeantime = this.loadedServices.get(clazz);
+			if(loadedInMeantime != null)
+			{
+				return (T)loadedInMeantime;
+			}
+			
+			final T service = load(clazz);
+			if(service != null)
+			{
+				this.loadedServices.put(clazz, service);
+			}
+			return service;
+		}
+		finally
+		{
+			loadLock.unlock();
+		}
+	}
+	
+	static <T> T load(final Class<T> clazz)
+	{
+		return ServiceLoader.load(clazz)
+			.stream()
+			// Get by highest priority
+			.sorted(Comparator.comparingInt(TCIServiceLoader::priority).reversed())
+			.map(ServiceLoader.Provider::get)
+			.filter(TCIServiceLoader::isApplicable)
+			.findFirst()
+			.orElse(null);
+	}
+	
+	static int priority(final ServiceLoader.Provider<?> provider)
+	{
+		return Optional.ofNullable(provider.type().getAnnotation(TCIProviderPriority.class))
+			.map(TCIProviderPriority::value)
+			.orElse(TCIProviderPriority.DEFAULT_PRIORITY);
+	}
+	
+	static boolean isApplicable(final Object service)
+	{
+		return !(service instanceof final TCIConditionalProvider conditionalProvider)
+			|| conditionalProvider.isApplicable();
 	}
 	
 	public boolean isLoaded(final Class<?> clazz)
@@ -71,6 +115,7 @@ public final class TCIServiceLoader
 	 */
 	public Object forceOverwrite(final Class<?> clazz, final Object value)
 	{
-		return this.loadedServices.put(clazz, value);
+		// null = load again on next access
+		return value != null ? this.loadedServices.put(clazz, value) : this.loadedServices.remove(clazz);
 	}
 }
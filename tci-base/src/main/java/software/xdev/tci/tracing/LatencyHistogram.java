@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Compact log-linear histogram of latencies (similar to HdrHistogram) with fixed memory usage.
+ * <p>
+ * Values are recorded in microseconds. Every power of two is split into {@value #SUB_BUCKET_COUNT} linear
+ * sub-buckets, so the relative error of a reported value is below 1/{@value #SUB_BUCKET_COUNT}
+ * (~1.6%). Values above {@link #MAX_TRACKABLE_MICROS} (~9.5h) are clamped.
+ * </p>
+ * <p>
+ * Thread-safe and lock-free: Recording doesn't allocate and only updates a bucket counter (CAS) as well as striped
+ * accumulators for count, total and max. Reads while values are recorded are only weakly consistent.
+ * </p>
+ */
+public class LatencyHistogram
+{
+	protected static final int SUB_BUCKET_BITS = 6;
+	protected static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	protected static final int MAX_MAGNITUDE = 35;
+	public static final long MAX_TRACKABLE_MICROS = (1L << MAX_MAGNITUDE + 1) - 1;
+	
+	protected final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_TRACKABLE_MICROS) + 1);
+	protected final LongAdder count = new LongAdder();
+	protected final LongAdder totalNanos = new LongAdder();
+	protected final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	
+	public void recordNanos(final long nanos)
+	{
+		final long value = Math.max(0, nanos);
+		this.counts.getAndIncrement(indexOf(Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(value))));
+		this.count.increment();
+		this.totalNanos.add(value);
+		this.maxNanos.accumulate(value);
+	}
+	
+	public long getCount()
+	{
+		return this.count.sum();
+	}
+	
+	public long getTotalNanos()
+	{
+		return this.totalNanos.sum();
+	}
+	
+	public long getMaxNanos()
+	{
+		return this.maxNanos.get();
+	}
+	
+	/**
+	 * @param percentile e.g. <code>99.9</code>
+	 * @return the (upper bound of the) value below which the given percentage of recorded values fall;
+	 * <code>0</code> if nothing was recorded
+	 */
+	public long getValueAtPercentileNanos(final double percentile)
+	{
+		// Snapshot - values might be recorded concurrently
+		final long[] snapshot = new long[this.counts.length()];
+		long total = 0;
+		for(int i = 0; i < snapshot.length; i++)
+		{
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if(total == 0)
+		{
+			return 0;
+		}
+		final long max = this.getMaxNanos();
+		
+		final double clampedPercentile = Math.max(0, Math.min(100, percentile));
+		final long targetCount = Math.max(1, (long)Math.ceil(clampedPercentile / 100.0 * total));
+		
+		long seen = 0;
+		for(int i = 0; i < snapshot.length; i++)
+		{
+			seen += snapshot[i];
+			if(seen >= targetCount)
+			{
+				return Math.min(max, TimeUnit.MICROSECONDS.toNanos(highestValueOf(i)));
+			}
+		}
+		return max;
+	}
+	
+	protected static int indexOf(final long micros)
+	{
+		if(micros < SUB_BUCKET_COUNT)
+		{
+			return (int)micros;
+		}
+		final int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+		final int shift = magnitude - SUB_BUCKET_BITS;
+		// Sub-bucket is within [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT)
+		final int subBucket = (int)(micros >>> shift);
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket - SUB_BUCKET_COUNT;
+	}
+	
+	protected static long highestValueOf(final int index)
+	{
+		if(index < SUB_BUCKET_COUNT)
+		{
+			return index;
+		}
+		final int shift = index / SUB_BUCKET_COUNT - 1;
+		final long subBucket = index % SUB_BUCKET_COUNT + (long)SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
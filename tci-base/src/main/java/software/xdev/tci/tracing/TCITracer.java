@@ -16,18 +16,34 @@
 package software.xdev.tci.tracing;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
 
+/**
+ * Traces durations and {@link Gauge gauges} (e.g. the state of a controller) by name.
+ * <p>
+ * Recording is lock-free and doesn't allocate. Hot paths should pre-register their {@link Timed timers} (using
+ * {@link #getTimedOrCreate(String)}) and record into them directly, which also skips the lookup by name.
+ * </p>
+ */
 public class TCITracer
 {
-	private final Map<String, Timed> timers = Collections.synchronizedMap(new HashMap<>());
+	private static final double NANOS_PER_MS = 1_000_000.0;
+	
+	private final Map<String, Timed> timers = new ConcurrentHashMap<>();
+	private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
 	
 	public Timed getTimedOrCreate(final String name)
 	{
-		return this.timers.computeIfAbsent(name, x -> new Timed());
+		// Lock-free for existing timers
+		final Timed existing = this.timers.get(name);
+		return existing != null ? existing : this.timers.computeIfAbsent(name, x -> new Timed());
 	}
 	
 	public void timedAdd(final String name, final long ms)
@@ -35,39 +51,70 @@ public class TCITracer
 		this.getTimedOrCreate(name).addMs(ms);
 	}
 	
+	/**
+	 * Records a duration that was measured using {@link System#nanoTime()}.
+	 */
+	public void timedAddNanos(final String name, final long nanos)
+	{
+		this.getTimedOrCreate(name).addNanos(nanos);
+	}
+	
 	public Map<String, Timed> getTimers()
 	{
 		return this.timers;
 	}
 	
+	public Gauge getGaugeOrCreate(final String name)
+	{
+		// Lock-free for existing gauges
+		final Gauge existing = this.gauges.get(name);
+		return existing != null ? existing : this.gauges.computeIfAbsent(name, x -> new Gauge());
+	}
+	
+	public Map<String, Gauge> getGauges()
+	{
+		return this.gauges;
+	}
+	
+	/**
+	 * Records durations (using a {@link LatencyHistogram}) and provides average, total and percentiles.
+	 * <p>
+	 * Durations should be measured using a monotonic clock, e.g. {@link System#nanoTime()} and recorded using
+	 * {@link #addNanos(long)}.
+	 * </p>
+	 */
 	public static class Timed
 	{
-		private long countCalled;
-		private long totalMs;
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		
+		public void addMs(final long ms)
+		{
+			this.addNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+		}
 		
-		public synchronized void addMs(final long ms)
+		public void addNanos(final long nanos)
 		{
-			this.countCalled++;
-			this.totalMs += ms;
+			this.histogram.recordNanos(nanos);
 		}
 		
 		public long getCountCalled()
 		{
-			return this.countCalled;
+			return this.histogram.getCount();
 		}
 		
 		public long getTotalMs()
 		{
-			return this.totalMs;
+			return TimeUnit.NANOSECONDS.toMillis(this.histogram.getTotalNanos());
 		}
 		
 		public double getAverageMs()
 		{
-			if(this.countCalled == 0)
+			final long count = this.histogram.getCount();
+			if(count == 0)
 			{
 				return 0;
 			}
-			return this.totalMs / (double)this.countCalled;
+			return this.histogram.getTotalNanos() / (double)count / NANOS_PER_MS;
 		}
 		
 		public long getAverageMsRounded()
@@ -75,19 +122,43 @@ public class TCITracer
 			return Math.round(this.getAverageMs());
 		}
 		
+		/**
+		 * @param percentile e.g. <code>99.9</code>
+		 */
+		public double getPercentileMs(final double percentile)
+		{
+			return this.histogram.getValueAtPercentileNanos(percentile) / NANOS_PER_MS;
+		}
+		
+		public double getMaxMs()
+		{
+			return this.histogram.getMaxNanos() / NANOS_PER_MS;
+		}
+		
 		@Override
 		public String toString()
 		{
 			return formatTimed(this);
 		}
 		
+		/**
+		 * Format: <code>average / count / total (p50=..., p95=..., p99=..., max=...)</code>
+		 */
+		@SuppressWarnings("checkstyle:MagicNumber")
 		public static String formatTimed(final Timed timed)
 		{
 			return prettyPrintMS(timed.getAverageMsRounded())
 				+ " / "
 				+ timed.getCountCalled()
 				+ " / "
-				+ prettyPrintMS(timed.getTotalMs());
+				+ prettyPrintMS(timed.getTotalMs())
+				+ (timed.getCountCalled() > 0
+				? " (p50=" + prettyPrintMS(Math.round(timed.getPercentileMs(50)))
+				+ ", p95=" + prettyPrintMS(Math.round(timed.getPercentileMs(95)))
+				+ ", p99=" + prettyPrintMS(Math.round(timed.getPercentileMs(99)))
+				+ ", max=" + prettyPrintMS(Math.round(timed.getMaxMs()))
+				+ ")"
+				: "");
 		}
 		
 		public static String prettyPrintMS(final long ms)
@@ -103,4 +174,79 @@ public class TCITracer
 				.toLowerCase();
 		}
 	}
+	
+	
+	/**
+	 * Records the latest value of something that changes over time together with its average, min and max.
+	 */
+	public static class Gauge
+	{
+		private final AtomicLong last = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+		private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+		private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+		private final DoubleAdder sum = new DoubleAdder();
+		private final LongAdder count = new LongAdder();
+		
+		/**
+		 * @param value the new value; {@link Double#NaN} (unknown) is ignored
+		 */
+		public void set(final double value)
+		{
+			if(Double.isNaN(value))
+			{
+				return;
+			}
+			this.last.set(Double.doubleToRawLongBits(value));
+			this.min.accumulate(value);
+			this.max.accumulate(value);
+			this.sum.add(value);
+			this.count.increment();
+		}
+		
+		public double getLast()
+		{
+			return Double.longBitsToDouble(this.last.get());
+		}
+		
+		public long getCount()
+		{
+			return this.count.sum();
+		}
+		
+		public double getAverage()
+		{
+			final long c = this.getCount();
+			return c > 0 ? this.sum.sum() / c : Double.NaN;
+		}
+		
+		public double getMin()
+		{
+			return this.getCount() > 0 ? this.min.get() : Double.NaN;
+		}
+		
+		public double getMax()
+		{
+			return this.getCount() > 0 ? this.max.get() : Double.NaN;
+		}
+		
+		/**
+		 * Format: <code>last (avg=..., min=..., max=..., count=...)</code>
+		 */
+		@Override
+		public String toString()
+		{
+			return round(this.getLast())
+				+ " (avg=" + round(this.getAverage())
+				+ ", min=" + round(this.getMin())
+				+ ", max=" + round(this.getMax())
+				+ ", count=" + this.getCount()
+				+ ")";
+		}
+		
+		@SuppressWarnings("checkstyle:MagicNumber")
+		private static double round(final double value)
+		{
+			return Math.round(value * 100) / 100.0;
+		}
+	}
 }
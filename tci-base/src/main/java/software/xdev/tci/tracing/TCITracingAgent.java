@@ -15,12 +15,15 @@
  */
 package software.xdev.tci.tracing;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.platform.engine.TestDescriptor;
 import org.junit.platform.engine.TestExecutionResult;
@@ -31,13 +34,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import software.xdev.tci.factory.TCIFactory;
+import software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator;
 import software.xdev.tci.factory.registry.TCIFactoryRegistry;
 import software.xdev.tci.serviceloading.TCIServiceLoader;
 import software.xdev.tci.tracing.config.TracingConfig;
+import software.xdev.tci.tracing.timeline.TCITimeline;
 
 
 /**
- * Traces various TCI metrics including, average duration, amount and total duration of
+ * Traces various TCI metrics including, average duration, amount, total duration and percentiles of
  * <ul>
  *     <li>tests</li>
  *     <li>containers</li>
@@ -80,7 +85,7 @@ public class TCITracingAgent implements TestExecutionListener
 		
 		if(testIdentifier.getType() != TestDescriptor.Type.CONTAINER)
 		{
-			this.testStartTime.put(testIdentifier, System.currentTimeMillis());
+			this.testStartTime.put(testIdentifier, System.nanoTime());
 		}
 	}
 	
@@ -95,7 +100,19 @@ public class TCITracingAgent implements TestExecutionListener
 		if(testIdentifier.getType() != TestDescriptor.Type.CONTAINER)
 		{
 			Optional.ofNullable(this.testStartTime.remove(testIdentifier))
-				.ifPresent(s -> this.testsTimed.addMs(System.currentTimeMillis() - s));
+				.ifPresent(s -> {
+					final long endNanos = System.nanoTime();
+					this.testsTimed.addNanos(endNanos - s);
+					TCITimeline.instance().record(
+						TCITimeline.PROCESS_TESTS,
+						Thread.currentThread().getName(),
+						testIdentifier.getDisplayName(),
+						s,
+						endNanos,
+						Map.of(
+							"id", testIdentifier.getUniqueId(),
+							"result", testExecutionResult.getStatus().name()));
+				});
 		}
 	}
 	
@@ -114,16 +131,55 @@ public class TCITracingAgent implements TestExecutionListener
 			+ TCIFactoryRegistry.instance().getFactories()
 			.stream()
 			.sorted(Comparator.comparing(TCIFactory::getFactoryName))
-			.map(f -> f.getFactoryName()
-				+ ":\n"
-				+ Optional.ofNullable(f.getTracer())
-				.map(t -> t.getTimers().entrySet()
-					.stream()
-					.sorted(Map.Entry.comparingByKey())
-					.map(e -> "\t" + e.getKey() + " - " + e.getValue())
-					.collect(Collectors.joining("\n")))
-				.orElse("-"))
-			.collect(Collectors.joining("\n"));
+			.map(f -> f.getFactoryName() + ":\n" + formatTracer(f.getTracer()))
+			.collect(Collectors.joining("\n"))
+			+ (GlobalPreStartCoordinator.isPresent()
+			? "\nPreStart-Coordinator:\n" + formatTracer(GlobalPreStartCoordinator.instance().getTracer())
+			: "");
 		LOG.info(message);
+		
+		this.writeTimeline();
+	}
+	
+	protected static String formatTracer(final TCITracer tracer)
+	{
+		return Optional.ofNullable(tracer)
+			.map(t -> Stream.concat(
+					t.getTimers().entrySet()
+						.stream()
+						// Pre-registered timers might not have been used
+						.filter(e -> e.getValue().getCountCalled() > 0)
+						.sorted(Map.Entry.comparingByKey())
+						.map(e -> "\t" + e.getKey() + " - " + e.getValue()),
+					t.getGauges().entrySet()
+						.stream()
+						.filter(e -> e.getValue().getCount() > 0)
+						.sorted(Map.Entry.comparingByKey())
+						.map(e -> "\t" + e.getKey() + " = " + e.getValue()))
+				.collect(Collectors.joining("\n")))
+			.orElse("-");
+	}
+	
+	protected void writeTimeline()
+	{
+		final TCITimeline timeline = TCITimeline.instance();
+		final Path file = this.config.timelineFile();
+		if(!timeline.isEnabled() || file == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			timeline.writeChromeTrace(file);
+			LOG.info(
+				"Wrote timeline to {} (open it with https://ui.perfetto.dev); Dropped spans: {}",
+				file.toAbsolutePath(),
+				timeline.getDroppedSpans());
+		}
+		catch(final IOException ioe)
+		{
+			LOG.warn("Failed to write timeline to {}", file, ioe);
+		}
 	}
 }
@@ -15,11 +15,56 @@
  */
 package software.xdev.tci.tracing.config;
 
+import java.nio.file.Path;
+import java.util.Optional;
+
+
+/**
+ * Default implementation of {@link TracingConfig} using {@link System#getProperties() System Properties}.
+ * <p>
+ * Properties can be defined in the following way:
+ * <pre>
+ * -Dtci.tracing.timeline.file=target/tci-timeline.json
+ * -Dtci.tracing.timeline.max-spans=100000
+ * </pre>
+ * </p>
+ */
 public class DefaultTracingConfig implements TracingConfig
 {
+	protected static final String PROPERTY_PREFIX = "tci.tracing.";
+	
+	protected static final String TIMELINE_FILE = "timeline.file";
+	protected static final String TIMELINE_MAX_SPANS = "timeline.max-spans";
+	
+	protected final Path timelineFile;
+	protected final int timelineMaxSpans;
+	
+	public DefaultTracingConfig()
+	{
+		this.timelineFile = Optional.ofNullable(System.getProperty(PROPERTY_PREFIX + TIMELINE_FILE))
+			.filter(s -> !s.isBlank())
+			.map(Path::of)
+			.orElse(null);
+		this.timelineMaxSpans = Optional.ofNullable(System.getProperty(PROPERTY_PREFIX + TIMELINE_MAX_SPANS))
+			.map(Integer::parseInt)
+			.orElse(DEFAULT_TIMELINE_MAX_SPANS);
+	}
+	
 	@Override
 	public boolean enabled()
 	{
 		return true;
 	}
+	
+	@Override
+	public Path timelineFile()
+	{
+		return this.timelineFile;
+	}
+	
+	@Override
+	public int timelineMaxSpans()
+	{
+		return this.timelineMaxSpans;
+	}
 }
@@ -15,7 +15,33 @@
  */
 package software.xdev.tci.tracing.config;
 
+import java.nio.file.Path;
+
+
 public interface TracingConfig
 {
+	int DEFAULT_TIMELINE_MAX_SPANS = 1_000_000;
+	
 	boolean enabled();
+	
+	/**
+	 * File where the timeline of the run is written to (Chrome trace / Perfetto JSON) once all tests were executed.
+	 * <p>
+	 * <code>null</code> (default) = no timeline is recorded
+	 * </p>
+	 *
+	 * @see software.xdev.tci.tracing.timeline.TCITimeline
+	 */
+	default Path timelineFile()
+	{
+		return null;
+	}
+	
+	/**
+	 * Maximum amount of spans inside the timeline; further spans are dropped.
+	 */
+	default int timelineMaxSpans()
+	{
+		return DEFAULT_TIMELINE_MAX_SPANS;
+	}
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+@Name("software.xdev.tci.Acquire")
+@Label("Acquire")
+@Description("Time a caller waited for (Pre)Started infrastructure")
+public class AcquireEvent extends TCIEvent
+{
+	@Label("Ready")
+	@Description("The infrastructure was already ready when it was acquired (e.g. taken from the pool)")
+	protected boolean ready;
+	
+	@Label("Successful")
+	protected boolean successful;
+	
+	public void setReady(final boolean ready)
+	{
+		this.ready = ready;
+	}
+	
+	public void setSuccessful(final boolean successful)
+	{
+		this.successful = successful;
+	}
+	
+	@Override
+	protected String spanName()
+	{
+		return "acquire";
+	}
+	
+	@Override
+	protected boolean recordOnCallerThread()
+	{
+		return true;
+	}
+	
+	public static AcquireEvent start(final boolean ready)
+	{
+		final AcquireEvent event = new AcquireEvent();
+		event.setReady(ready);
+		event.beginSpan();
+		return event;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+
+
+@Name("software.xdev.tci.CoordinatorDecision")
+@Label("PreStart Coordinator Decision")
+@Description("A scheduling decision of the global PreStart coordinator")
+@Category("TCI")
+@StackTrace(false)
+public class CoordinatorDecisionEvent extends Event
+{
+	@Label("Idle")
+	@Description("Idle value reported by the LoadMonitor (0-1); NaN when unknown")
+	@Percentage
+	protected double idle = Double.NaN;
+	
+	@Label("Required Idle")
+	@Percentage
+	protected double requiredIdle;
+	
+	@Label("CPU Pressure")
+	@Description("Share of time in which tasks were stalled waiting for a CPU (0-1); NaN when unknown")
+	@Percentage
+	protected double cpuPressure = Double.NaN;
+	
+	@Label("Memory Pressure")
+	@Description("Share of time in which tasks were stalled waiting for memory (0-1); NaN when unknown")
+	@Percentage
+	protected double memoryPressure = Double.NaN;
+	
+	@Label("IO Pressure")
+	@Description("Share of time in which tasks were stalled waiting for IO (0-1); NaN when unknown")
+	@Percentage
+	protected double ioPressure = Double.NaN;
+	
+	@Label("Available Memory")
+	@Description("Memory available on the host; -1 when unknown")
+	@DataAmount
+	protected long availableMemory = -1;
+	
+	@Label("Daemon Latency (ms)")
+	@Description("Latency of the Docker daemon API; NaN when unknown")
+	protected double daemonLatencyMs = Double.NaN;
+	
+	@Label("Load Acceptable")
+	protected boolean loadAcceptable;
+	
+	@Label("Reject Reason")
+	@Description("Why the admission policy did not allow PreStarting")
+	protected String rejectReason;
+	
+	@Label("Max Concurrent PreStarts")
+	@Description("How many PreStarts may run at the same time according to the admission policy")
+	protected int maxConcurrentPreStarts;
+	
+	@Label("PreStarts In Flight")
+	protected int preStartsInFlight;
+	
+	@Label("Candidates")
+	protected int candidates;
+	
+	@Label("Selected Factories")
+	protected String selectedFactories;
+	
+	public void setIdle(final double idle)
+	{
+		this.idle = idle;
+	}
+	
+	public void setRequiredIdle(final double requiredIdle)
+	{
+		this.requiredIdle = requiredIdle;
+	}
+	
+	public void setCpuPressure(final double cpuPressure)
+	{
+		this.cpuPressure = cpuPressure;
+	}
+	
+	public void setMemoryPressure(final double memoryPressure)
+	{
+		this.memoryPressure = memoryPressure;
+	}
+	
+	public void setIoPressure(final double ioPressure)
+	{
+		this.ioPressure = ioPressure;
+	}
+	
+	public void setAvailableMemory(final long availableMemory)
+	{
+		this.availableMemory = availableMemory;
+	}
+	
+	public void setDaemonLatencyMs(final double daemonLatencyMs)
+	{
+		this.daemonLatencyMs = daemonLatencyMs;
+	}
+	
+	public void setRejectReason(final String rejectReason)
+	{
+		this.rejectReason = rejectReason;
+	}
+	
+	public void setLoadAcceptable(final boolean loadAcceptable)
+	{
+		this.loadAcceptable = loadAcceptable;
+	}
+	
+	public void setMaxConcurrentPreStarts(final int maxConcurrentPreStarts)
+	{
+		this.maxConcurrentPreStarts = maxConcurrentPreStarts;
+	}
+	
+	public void setPreStartsInFlight(final int preStartsInFlight)
+	{
+		this.preStartsInFlight = preStartsInFlight;
+	}
+	
+	public void setCandidates(final int candidates)
+	{
+		this.candidates = candidates;
+	}
+	
+	public void setSelectedFactories(final String selectedFactories)
+	{
+		this.selectedFactories = selectedFactories;
+	}
+}
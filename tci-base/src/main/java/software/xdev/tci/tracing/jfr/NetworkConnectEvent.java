@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+@Name("software.xdev.tci.NetworkConnect")
+@Label("Network Connect")
+@Description("Connecting a container to a network after it was started")
+public class NetworkConnectEvent extends TCIEvent
+{
+	@Label("Network")
+	protected String network;
+	
+	public void setNetwork(final String network)
+	{
+		this.network = network;
+	}
+	
+	@Override
+	protected String spanName()
+	{
+		return "networkConnect";
+	}
+	
+	public static NetworkConnectEvent start(final String network)
+	{
+		final NetworkConnectEvent event = new NetworkConnectEvent();
+		event.setNetwork(network);
+		event.beginSpan();
+		return event;
+	}
+}
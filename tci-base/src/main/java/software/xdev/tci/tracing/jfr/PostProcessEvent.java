@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+@Name("software.xdev.tci.PostProcess")
+@Label("Post Process")
+@Description("Post-processing of newly acquired infrastructure")
+public class PostProcessEvent extends TCIEvent
+{
+	@Override
+	protected String spanName()
+	{
+		return "postProcess";
+	}
+	
+	@Override
+	protected boolean recordOnCallerThread()
+	{
+		return true;
+	}
+	
+	public static PostProcessEvent start()
+	{
+		final PostProcessEvent event = new PostProcessEvent();
+		event.beginSpan();
+		return event;
+	}
+}
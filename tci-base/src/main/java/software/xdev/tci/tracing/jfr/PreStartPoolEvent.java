@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+@Name("software.xdev.tci.PreStartPool")
+@Label("PreStart Pool")
+@Description("Infrastructure was added to or taken from the pool of ready PreStarted infrastructure")
+@Category("TCI")
+@StackTrace(false)
+public class PreStartPoolEvent extends Event
+{
+	public static final String ENQUEUED = "enqueued";
+	public static final String DEQUEUED = "dequeued";
+	
+	@Label("Factory")
+	protected String factory;
+	
+	@Label("Container")
+	protected String container;
+	
+	@Label("Action")
+	@Description("\"" + ENQUEUED + "\" or \"" + DEQUEUED + "\"")
+	protected String action;
+	
+	@Label("Pool Size")
+	@Description("Amount of ready infrastructure inside the pool after the action")
+	protected int poolSize;
+	
+	@Label("Wait Time")
+	@Description("How long the infrastructure waited inside the pool; 0 when enqueued")
+	@Timespan(Timespan.MILLISECONDS)
+	protected long waitMs;
+	
+	public static void record(
+		final String factory,
+		final String container,
+		final String action,
+		final int poolSize,
+		final long waitMs)
+	{
+		final PreStartPoolEvent event = new PreStartPoolEvent();
+		if(event.isEnabled())
+		{
+			event.factory = factory;
+			event.container = container;
+			event.action = action;
+			event.poolSize = poolSize;
+			event.waitMs = waitMs;
+			event.commit();
+		}
+	}
+}
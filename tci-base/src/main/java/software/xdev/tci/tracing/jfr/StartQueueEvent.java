@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+@Name("software.xdev.tci.StartQueue")
+@Label("Start Queue Wait")
+@Description("Time a start waited inside the queue (from enqueue until dequeue)")
+public class StartQueueEvent extends TCIEvent
+{
+	@Label("Lane")
+	protected String lane;
+	
+	public void setLane(final String lane)
+	{
+		this.lane = lane;
+	}
+	
+	@Override
+	protected String spanName()
+	{
+		return "queue";
+	}
+	
+	public static StartQueueEvent start(final String lane)
+	{
+		final StartQueueEvent event = new StartQueueEvent();
+		event.setLane(lane);
+		event.beginSpan();
+		return event;
+	}
+}
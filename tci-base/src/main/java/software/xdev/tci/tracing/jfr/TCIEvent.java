@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import software.xdev.tci.tracing.timeline.TCITimeline;
+
+
+/**
+ * Base of all <a href="https://docs.oracle.com/en/java/javase/17/jfapi/">JFR</a> events that are emitted for
+ * infrastructure.
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>
+ * final InfraBootEvent event = InfraBootEvent.start(preStarted);
+ * // ...
+ * event.finish(factoryName, containerName);
+ * </pre>
+ * <p>
+ * When no recording is active (or the event is disabled) nothing is committed. Creating the event is cheap and
+ * usually eliminated by the JIT in this case.
+ * </p>
+ * <p>
+ * If the {@link TCITimeline} is enabled the event is also recorded there as a span of the container.
+ * </p>
+ */
+@Category("TCI")
+@StackTrace(false)
+public abstract class TCIEvent extends Event
+{
+	@Label("Factory")
+	protected String factory;
+	
+	@Label("Container")
+	protected String container;
+	
+	// Transient = not part of the JFR event
+	protected transient long startNanos;
+	protected transient String startThread;
+	
+	/**
+	 * Begins the event (see {@link #begin()}) and - if the {@link TCITimeline} is enabled - the span.
+	 */
+	protected void beginSpan()
+	{
+		if(TCITimeline.instance().isEnabled())
+		{
+			this.startNanos = System.nanoTime();
+			this.startThread = Thread.currentThread().getName();
+		}
+		this.begin();
+	}
+	
+	/**
+	 * Ends the event and commits it - if it's enabled and exceeds the configured threshold.
+	 */
+	public void finish(final String factory, final String container)
+	{
+		this.end();
+		if(this.shouldCommit())
+		{
+			this.factory = factory;
+			this.container = container;
+			this.commit();
+		}
+		
+		final TCITimeline timeline = TCITimeline.instance();
+		if(timeline.isEnabled() && this.startNanos != 0)
+		{
+			this.recordSpan(timeline, factory, container, System.nanoTime());
+		}
+	}
+	
+	protected void recordSpan(
+		final TCITimeline timeline,
+		final String factory,
+		final String container,
+		final long endNanos)
+	{
+		final Map<String, String> args = new HashMap<>();
+		if(factory != null)
+		{
+			args.put("factory", factory);
+		}
+		final String spanName = this.spanName();
+		timeline.record(TCITimeline.PROCESS_INFRA, container, spanName, this.startNanos, endNanos, args);
+		
+		if(this.recordOnCallerThread())
+		{
+			// Shows which test waited on which container
+			final Map<String, String> callerArgs = new HashMap<>(args);
+			if(container != null)
+			{
+				callerArgs.put("container", container);
+			}
+			timeline.record(
+				TCITimeline.PROCESS_TESTS,
+				this.startThread,
+				spanName,
+				this.startNanos,
+				endNanos,
+				callerArgs);
+		}
+	}
+	
+	/**
+	 * @return name of the span inside the {@link TCITimeline}
+	 */
+	protected abstract String spanName();
+	
+	/**
+	 * @return if the span should also be recorded for the thread that began the event (e.g. the thread executing a
+	 * test)
+	 */
+	protected boolean recordOnCallerThread()
+	{
+		return false;
+	}
+}
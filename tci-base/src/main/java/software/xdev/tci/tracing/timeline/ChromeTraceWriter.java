@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.timeline;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Writes {@link TCITimeline.Span spans} in the Chrome Trace Event Format.
+ * <p>
+ * Every process and track is assigned a numeric id (in the order they appear) and named using metadata events.
+ * Spans are written as complete events (<code>"ph":"X"</code>) with microsecond timestamps relative to the origin.
+ * </p>
+ */
+public class ChromeTraceWriter
+{
+	protected final Writer writer;
+	protected final long originNanos;
+	
+	protected final Map<String, Integer> processIds = new LinkedHashMap<>();
+	protected final Map<String, Integer> trackIds = new LinkedHashMap<>();
+	protected boolean firstEvent = true;
+	
+	public ChromeTraceWriter(final Writer writer, final long originNanos)
+	{
+		this.writer = writer;
+		this.originNanos = originNanos;
+	}
+	
+	public void write(final List<TCITimeline.Span> spans) throws IOException
+	{
+		this.writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		for(final TCITimeline.Span span : spans)
+		{
+			final int pid = this.processId(span.process());
+			final int tid = this.trackId(pid, span.track());
+			
+			this.beginEvent();
+			this.writer.write("{\"ph\":\"X\",\"name\":");
+			this.writeString(span.name());
+			this.writer.write(",\"cat\":");
+			this.writeString(span.process());
+			this.writer.write(",\"pid\":" + pid + ",\"tid\":" + tid);
+			this.writer.write(",\"ts\":" + TimeUnit.NANOSECONDS.toMicros(span.startNanos() - this.originNanos));
+			this.writer.write(",\"dur\":" + span.durationMicros());
+			this.writeArgs(span.args());
+			this.writer.write('}');
+		}
+		this.writer.write("]}");
+		this.writer.flush();
+	}
+	
+	protected int processId(final String process) throws IOException
+	{
+		final Integer existing = this.processIds.get(process);
+		if(existing != null)
+		{
+			return existing;
+		}
+		final int pid = this.processIds.size() + 1;
+		this.processIds.put(process, pid);
+		this.writeMetadata("process_name", pid, 0, process);
+		return pid;
+	}
+	
+	protected int trackId(final int pid, final String track) throws IOException
+	{
+		final String key = pid + "/" + track;
+		final Integer existing = this.trackIds.get(key);
+		if(existing != null)
+		{
+			return existing;
+		}
+		final int tid = this.trackIds.size() + 1;
+		this.trackIds.put(key, tid);
+		this.writeMetadata("thread_name", pid, tid, track);
+		return tid;
+	}
+	
+	protected void writeMetadata(final String type, final int pid, final int tid, final String name)
+		throws IOException
+	{
+		this.beginEvent();
+		this.writer.write("{\"ph\":\"M\",\"name\":\"" + type + "\",\"pid\":" + pid + ",\"tid\":" + tid);
+		this.writeArgs(Map.of("name", name));
+		this.writer.write('}');
+	}
+	
+	protected void writeArgs(final Map<String, String> args) throws IOException
+	{
+		if(args.isEmpty())
+		{
+			return;
+		}
+		this.writer.write(",\"args\":{");
+		boolean first = true;
+		for(final Map.Entry<String, String> arg : args.entrySet())
+		{
+			if(!first)
+			{
+				this.writer.write(',');
+			}
+			first = false;
+			this.writeString(arg.getKey());
+			this.writer.write(':');
+			this.writeString(arg.getValue());
+		}
+		this.writer.write('}');
+	}
+	
+	protected void beginEvent() throws IOException
+	{
+		if(!this.firstEvent)
+		{
+			this.writer.write(",\n");
+		}
+		this.firstEvent = false;
+	}
+	
+	@SuppressWarnings("checkstyle:MagicNumber")
+	protected void writeString(final String value) throws IOException
+	{
+		if(value == null)
+		{
+			this.writer.write("null");
+			return;
+		}
+		this.writer.write('"');
+		for(int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+			switch(c)
+			{
+				case '"' -> this.writer.write("\\\"");
+				case '\\' -> this.writer.write("\\\\");
+				case '\n' -> this.writer.write("\\n");
+				case '\r' -> this.writer.write("\\r");
+				case '\t' -> this.writer.write("\\t");
+				default ->
+				{
+					if(c < 0x20)
+					{
+						this.writer.write(String.format("\\u%04x", (int)c));
+					}
+					else
+					{
+						this.writer.write(c);
+					}
+				}
+			}
+		}
+		this.writer.write('"');
+	}
+}
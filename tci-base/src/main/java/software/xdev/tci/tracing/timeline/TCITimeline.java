@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.timeline;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+import software.xdev.tci.tracing.config.TracingConfig;
+
+
+/**
+ * Records spans - e.g. the phases of containers or the execution of tests - so that a whole run can be inspected as a
+ * timeline (Gantt chart).
+ * <p>
+ * Every span belongs to a track (e.g. the name of the container or the thread executing the test). Tracks are grouped
+ * by process ({@link #PROCESS_INFRA}, {@link #PROCESS_TESTS}).
+ * </p>
+ * <p>
+ * Recording is only active when a file is configured (see {@link TracingConfig#timelineFile()}). The timeline can be
+ * written using {@link #writeChromeTrace(Path)} and viewed e.g. with <a href="https://ui.perfetto.dev">Perfetto</a>
+ * or <code>chrome://tracing</code>.
+ * </p>
+ */
+public class TCITimeline
+{
+	public static final String PROCESS_TESTS = "Tests";
+	public static final String PROCESS_INFRA = "Infrastructure";
+	
+	protected final boolean enabled;
+	protected final int maxSpans;
+	protected final long originNanos = System.nanoTime();
+	
+	protected final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+	protected final AtomicInteger spanCount = new AtomicInteger();
+	protected final LongAdder droppedSpans = new LongAdder();
+	
+	public TCITimeline(final boolean enabled, final int maxSpans)
+	{
+		this.enabled = enabled;
+		this.maxSpans = maxSpans;
+	}
+	
+	public boolean isEnabled()
+	{
+		return this.enabled;
+	}
+	
+	public void record(
+		final String process,
+		final String track,
+		final String name,
+		final long startNanos,
+		final long endNanos)
+	{
+		this.record(process, track, name, startNanos, endNanos, Map.of());
+	}
+	
+	/**
+	 * Records a span.
+	 *
+	 * @param startNanos start of the span; measured using {@link System#nanoTime()}
+	 * @param endNanos   end of the span; measured using {@link System#nanoTime()}
+	 * @param args       additional information about the span (e.g. the factory)
+	 */
+	public void record(
+		final String process,
+		final String track,
+		final String name,
+		final long startNanos,
+		final long endNanos,
+		final Map<String, String> args)
+	{
+		if(!this.enabled || track == null)
+		{
+			return;
+		}
+		// Don't run out of memory
+		if(this.spanCount.incrementAndGet() > this.maxSpans)
+		{
+			this.spanCount.decrementAndGet();
+			this.droppedSpans.increment();
+			return;
+		}
+		this.spans.add(new Span(process, track, name, startNanos, Math.max(startNanos, endNanos), args));
+	}
+	
+	/**
+	 * @return the recorded spans ordered by their start
+	 */
+	public List<Span> getSpans()
+	{
+		final List<Span> sorted = new ArrayList<>(this.spans);
+		sorted.sort(Comparator.comparingLong(Span::startNanos));
+		return sorted;
+	}
+	
+	/**
+	 * @return amount of spans that were not recorded because {@link TracingConfig#timelineMaxSpans()} was reached
+	 */
+	public long getDroppedSpans()
+	{
+		return this.droppedSpans.sum();
+	}
+	
+	/**
+	 * Writes all recorded spans in the
+	 * <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Chrome Trace Event
+	 * Format</a> (JSON), which is also supported by Perfetto.
+	 */
+	public void writeChromeTrace(final Path file) throws IOException
+	{
+		final Path parent = file.toAbsolutePath().getParent();
+		if(parent != null)
+		{
+			Files.createDirectories(parent);
+		}
+		try(final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+		{
+			new ChromeTraceWriter(writer, this.originNanos).write(this.getSpans());
+		}
+	}
+	
+	public static TCITimeline instance()
+	{
+		return Holder.INSTANCE;
+	}
+	
+	
+	/**
+	 * A recorded span.
+	 */
+	public record Span(
+		String process,
+		String track,
+		String name,
+		long startNanos,
+		long endNanos,
+		Map<String, String> args)
+	{
+		public long durationMicros()
+		{
+			return TimeUnit.NANOSECONDS.toMicros(this.endNanos - this.startNanos);
+		}
+	}
+	
+	
+	static final class Holder
+	{
+		static final TCITimeline INSTANCE = create();
+		
+		private Holder()
+		{
+		}
+		
+		static TCITimeline create()
+		{
+			final TracingConfig config = TCIServiceLoader.instance().service(TracingConfig.class);
+			return new TCITimeline(
+				config.enabled() && config.timelineFile() != null,
+				config.timelineMaxSpans());
+		}
+	}
+}
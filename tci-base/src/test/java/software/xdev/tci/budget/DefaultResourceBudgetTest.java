@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.budget;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+
+import software.xdev.tci.budget.config.ResourceBudgetConfig;
+import software.xdev.tci.misc.ContainerMemory;
+
+
+class DefaultResourceBudgetTest
+{
+	private static final ResourceBudgetConfig CONFIG = new ResourceBudgetConfig()
+	{
+		@Override
+		public long memoryBytes()
+		{
+			return ContainerMemory.M2G;
+		}
+		
+		@Override
+		public int maxConcurrent(final String factoryName)
+		{
+			return "browser".equals(factoryName) ? 1 : -1;
+		}
+	};
+	
+	@Test
+	void speculativeReservationsRespectBudgetAndQuota()
+	{
+		final DefaultResourceBudget budget = new DefaultResourceBudget(CONFIG);
+		
+		final ResourceBudget.Reservation db = budget.tryReserve("db", ContainerMemory.M1G).orElseThrow();
+		Assertions.assertTrue(budget.tryReserve("browser", ContainerMemory.M1G).isPresent());
+		// Quota
+		Assertions.assertTrue(budget.tryReserve("browser", 1).isEmpty());
+		// Memory
+		Assertions.assertTrue(budget.tryReserve("db", ContainerMemory.M1G).isEmpty());
+		
+		db.release();
+		db.release();
+		Assertions.assertEquals(ContainerMemory.M1G, budget.getUsedMemoryBytes());
+		Assertions.assertTrue(budget.tryReserve("db", ContainerMemory.M1G).isPresent());
+	}
+	
+	@Test
+	void requiredReservationReclaimsAndOvercommits()
+	{
+		final DefaultResourceBudget budget = new DefaultResourceBudget(CONFIG);
+		final ResourceBudget.Reservation preStarted = budget.tryReserve("db", ContainerMemory.M2G).orElseThrow();
+		budget.addReclaimer(() -> {
+			preStarted.release();
+			return true;
+		});
+		
+		budget.reserve("app", ContainerMemory.M1G, Duration.ZERO);
+		Assertions.assertEquals(ContainerMemory.M1G, budget.getUsedMemoryBytes());
+		
+		// Nothing left to reclaim -> overcommit after waiting
+		budget.reserve("app", ContainerMemory.M2G, Duration.ofMillis(10));
+		Assertions.assertEquals(ContainerMemory.M1G + ContainerMemory.M2G, budget.getUsedMemoryBytes());
+	}
+	
+	@Test
+	void detectsConfiguredMemoryLimit()
+	{
+		try(final GenericContainer<?> container = new GenericContainer<>("alpine:3")
+			.withCreateContainerCmdModifier(cmd -> cmd.getHostConfig().withMemory(ContainerMemory.M1G)))
+		{
+			Assertions.assertEquals(ContainerMemory.M1G, ContainerMemoryLimit.of(container).orElseThrow());
+		}
+	}
+}
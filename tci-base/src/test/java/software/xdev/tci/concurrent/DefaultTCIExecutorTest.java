@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class DefaultTCIExecutorTest
+{
+	@Test
+	void doesNotUseCommonPool() throws Exception
+	{
+		final DefaultTCIExecutor executor = new DefaultTCIExecutor(false);
+		
+		final Thread thread = executor.supplyAsync(Thread::currentThread).get(10, TimeUnit.SECONDS);
+		
+		Assertions.assertTrue(thread.getName().startsWith("TCIExecutor-"));
+		Assertions.assertFalse(executor.isVirtualThreads());
+	}
+}
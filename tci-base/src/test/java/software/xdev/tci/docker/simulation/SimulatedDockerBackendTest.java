@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.docker.simulation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend.Operation;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.network.LazyNetwork;
+import software.xdev.tci.network.LazyNetworkPool;
+
+
+class SimulatedDockerBackendTest
+{
+	SimulatedDockerBackend backend;
+	SimulatedLoadMonitor loadMonitor;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend()
+			.withLatency(
+				Operation.START_CONTAINER,
+				LatencyDistribution.logNormal(Duration.ofMillis(20), 0.25))
+			.withLatency(Operation.CONNECT_TO_NETWORK, LatencyDistribution.fixed(Duration.ofMillis(1)))
+			.withLatency(Operation.CREATE_NETWORK, LatencyDistribution.fixed(Duration.ofMillis(1)))
+			.install();
+		this.loadMonitor = new SimulatedLoadMonitor(this.backend).install();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.loadMonitor.uninstall();
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void simulatedAcquisitionsLeaveNothingBehind()
+	{
+		final LazyNetworkPool networkPool = new LazyNetworkPool(2);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = new PreStartableTCIFactory<>(
+			SimulatedTCI::new,
+			() -> new SimulatedContainer(this.backend),
+			"simulated",
+			"container.simulated",
+			"simulated",
+			new TestPreStartConfig(),
+			new PreStartableTCIFactory.Timeouts()))
+		{
+			final List<CompletableFuture<Void>> tests = IntStream.range(0, 100)
+				.mapToObj(i -> CompletableFuture.runAsync(
+					() -> {
+						final LazyNetwork network = networkPool.getNew();
+						final SimulatedTCI infra = factory.getNew(network);
+						Assertions.assertTrue(infra.getContainer().isRunning());
+						infra.stop();
+						network.close();
+					}, executor))
+				.toList();
+			tests.forEach(CompletableFuture::join);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		Assertions.assertEquals(0, this.backend.getContainerCount());
+		Assertions.assertTrue(this.backend.getOperationCount(Operation.START_CONTAINER) >= 100);
+		// PreStarted infra is connected to the network afterward -> some acquisitions were served by the pool
+		Assertions.assertTrue(this.backend.getOperationCount(Operation.CONNECT_TO_NETWORK) > 0);
+	}
+	
+	@Test
+	void networkWithActiveEndpointsCanNotBeRemoved()
+	{
+		final String networkId = this.backend.createNetwork("test", null);
+		final String containerId = this.backend.startContainer("test", networkId);
+		
+		Assertions.assertThrows(IllegalStateException.class, () -> this.backend.removeNetwork(networkId));
+		
+		this.backend.stopContainer(containerId);
+		this.backend.removeNetwork(networkId);
+		Assertions.assertEquals(0, this.backend.getNetworkCount());
+	}
+	
+	
+	static class TestPreStartConfig implements PreStartConfig
+	{
+		@Override
+		public boolean enabled()
+		{
+			return true;
+		}
+		
+		@Override
+		public int keepReady(final String preStartName)
+		{
+			return 2;
+		}
+		
+		@Override
+		public int maxStartSimultan(final String preStartName)
+		{
+			return 4;
+		}
+		
+		@Override
+		public boolean fixateExposedPortsIfRequired(final String preStartName)
+		{
+			return false;
+		}
+	}
+}
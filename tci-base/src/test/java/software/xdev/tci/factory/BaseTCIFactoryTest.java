@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.ContainerLaunchException;
+
+import software.xdev.tci.docker.simulation.LatencyDistribution;
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend.Operation;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.ondemand.OnDemandTCIFactory;
+
+
+class BaseTCIFactoryTest
+{
+	SimulatedDockerBackend backend;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void retryAsyncRetriesUntilSuccess() throws Exception
+	{
+		final TestFactory factory = new TestFactory(this.backend);
+		final SimulatedTCI expected = new SimulatedTCI(new SimulatedContainer(this.backend), null);
+		final AtomicInteger attempts = new AtomicInteger();
+		
+		final SimulatedTCI infra = factory.retryAsync(
+				() -> attempts.incrementAndGet() < 2
+					? CompletableFuture.failedFuture(new IllegalStateException("Start failed"))
+					: CompletableFuture.completedFuture(expected),
+				() -> false)
+			.get(10, TimeUnit.SECONDS);
+		
+		Assertions.assertSame(expected, infra);
+		Assertions.assertEquals(2, attempts.get());
+		factory.unregister();
+	}
+	
+	@Test
+	void retryAsyncStopsWhenAborted()
+	{
+		final TestFactory factory = new TestFactory(this.backend);
+		final AtomicInteger attempts = new AtomicInteger();
+		
+		final CompletableFuture<SimulatedTCI> cf = factory.retryAsync(
+			() -> {
+				attempts.incrementAndGet();
+				throw new IllegalStateException("Start failed");
+			},
+			() -> true);
+		
+		Assertions.assertThrows(ExecutionException.class, () -> cf.get(10, TimeUnit.SECONDS));
+		Assertions.assertEquals(1, attempts.get());
+		factory.unregister();
+	}
+	
+	@Test
+	void getNewAsyncPropagatesFailureAfterAllAttempts()
+	{
+		this.backend.withStartFailureProbability(1);
+		final TestFactory factory = new TestFactory(this.backend);
+		
+		final ExecutionException ex = Assertions.assertThrows(
+			ExecutionException.class,
+			() -> factory.getNewAsync(null).get(10, TimeUnit.SECONDS));
+		
+		Assertions.assertInstanceOf(ContainerLaunchException.class, ex.getCause());
+		Assertions.assertEquals(2, this.backend.getOperationCount(Operation.START_CONTAINER));
+		Assertions.assertTrue(factory.getReturnedAndInUse().isEmpty());
+		factory.unregister();
+	}
+	
+	@Test
+	void getNewAsyncStopsInfraWhenCancelled()
+	{
+		this.backend.withLatency(Operation.START_CONTAINER, LatencyDistribution.fixed(Duration.ofMillis(200)));
+		final TestFactory factory = new TestFactory(this.backend);
+		
+		final CompletableFuture<SimulatedTCI> request = factory.getNewAsync(null);
+		await(() -> this.backend.getStartingContainers() == 1);
+		Assertions.assertTrue(request.cancel(true));
+		
+		// Started anyway -> stopped and not retried
+		this.awaitStoppedAfterSingleStart();
+		factory.unregister();
+	}
+	
+	@Test
+	void getNewAsyncStopsInfraWhenCallerTimedOut()
+	{
+		this.backend.withLatency(Operation.START_CONTAINER, LatencyDistribution.fixed(Duration.ofMillis(200)));
+		final TestFactory factory = new TestFactory(this.backend);
+		
+		final CompletableFuture<SimulatedTCI> request = factory.getNewAsync(null);
+		await(() -> this.backend.getStartingContainers() == 1);
+		
+		final ExecutionException ex = Assertions.assertThrows(
+			ExecutionException.class,
+			() -> request.orTimeout(10, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS));
+		Assertions.assertInstanceOf(TimeoutException.class, ex.getCause());
+		
+		this.awaitStoppedAfterSingleStart();
+		factory.unregister();
+	}
+	
+	void awaitStoppedAfterSingleStart()
+	{
+		await(() -> this.backend.getOperationCount(Operation.STOP_CONTAINER) == 1
+			&& this.backend.getContainerCount() == 0);
+		Assertions.assertEquals(1, this.backend.getOperationCount(Operation.START_CONTAINER));
+	}
+	
+	static void await(final BooleanSupplier condition)
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(!condition.getAsBoolean())
+		{
+			Assertions.assertTrue(System.nanoTime() < deadline, "Condition was not met in time");
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+	
+	
+	static class TestFactory extends OnDemandTCIFactory<SimulatedContainer, SimulatedTCI>
+	{
+		TestFactory(final SimulatedDockerBackend backend)
+		{
+			super(SimulatedTCI::new, () -> new SimulatedContainer(backend), "test", "container.test");
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.LatencyDistribution;
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend.Operation;
+import software.xdev.tci.docker.simulation.SimulatedLoadMonitor;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactoryTest.TestPreStartConfig;
+import software.xdev.tci.factory.prestart.coordinator.DefaultGlobalPreStartCoordinator;
+import software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator;
+import software.xdev.tci.factory.prestart.coordinator.admission.PreStartAdmission;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.RoundRobinPreStartSchedulingPolicy;
+import software.xdev.tci.network.LazyNetwork;
+import software.xdev.tci.network.LazyNetworkPool;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Tests what happens with starts that were abandoned by their waiter (e.g. because the acquire timeout was exceeded).
+ */
+class InfraAcquirerTest
+{
+	SimulatedDockerBackend backend;
+	SimulatedLoadMonitor loadMonitor;
+	DefaultGlobalPreStartCoordinator coordinator;
+	Object previousCoordinator;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+		this.loadMonitor = new SimulatedLoadMonitor(this.backend).install();
+		// Never PreStarts - the pool is only filled by salvaged starts
+		this.coordinator = new DefaultGlobalPreStartCoordinator(
+			new RoundRobinPreStartSchedulingPolicy(),
+			signals -> PreStartAdmission.rejected("test"));
+		this.previousCoordinator =
+			TCIServiceLoader.instance().forceOverwrite(GlobalPreStartCoordinator.class, this.coordinator);
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.coordinator.close();
+		TCIServiceLoader.instance().forceOverwrite(GlobalPreStartCoordinator.class, this.previousCoordinator);
+		this.loadMonitor.uninstall();
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void timedOutStartIsSalvagedIntoThePool()
+	{
+		this.backend.withLatency(Operation.START_CONTAINER, LatencyDistribution.fixed(Duration.ofMillis(500)));
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory())
+		{
+			Assertions.assertThrows(RuntimeException.class, () -> factory.getNew(null));
+			
+			// Finishes starting inside the pool
+			await(() -> factory.pool.countReady() == 1, "Start was not salvaged");
+			Assertions.assertEquals(1, this.backend.getOperationCount(Operation.START_CONTAINER));
+			Assertions.assertEquals(0, this.backend.getOperationCount(Operation.STOP_CONTAINER));
+			
+			// ... and serves the next waiter
+			final SimulatedTCI infra = factory.getNew(null);
+			Assertions.assertEquals(1, this.backend.getOperationCount(Operation.START_CONTAINER));
+			infra.stop();
+		}
+	}
+	
+	@Test
+	void timedOutStartIsAbortedWhenThePoolHasNoDeficit()
+	{
+		this.backend.withLatency(Operation.START_CONTAINER, LatencyDistribution.fixed(Duration.ofSeconds(10)));
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory())
+		{
+			// Queued PreStart (can't be claimed by the waiter) that fills the pool
+			final StartingInfra<SimulatedTCI> queued = new StartingInfra<>(
+				new SimulatedTCI(new SimulatedContainer(this.backend), null),
+				new CompletableFuture<>(),
+				true,
+				new AtomicLong());
+			factory.pool.addInFlight(queued);
+			
+			Assertions.assertThrows(RuntimeException.class, () -> factory.getNew(null));
+			
+			this.awaitAborted();
+			Assertions.assertEquals(0, factory.pool.countReady());
+			queued.startFuture().cancel(false);
+		}
+	}
+	
+	@Test
+	void timedOutDirectlyAttachedStartIsAborted()
+	{
+		this.backend.withLatency(Operation.START_CONTAINER, LatencyDistribution.fixed(Duration.ofSeconds(10)));
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory();
+			final LazyNetwork network = new LazyNetworkPool(0).getNew())
+		{
+			// Attached to the network of the waiter -> can't be used by anybody else
+			Assertions.assertThrows(RuntimeException.class, () -> factory.getNew(network, "alias"));
+			
+			this.awaitAborted();
+			Assertions.assertEquals(0, factory.pool.count());
+		}
+	}
+	
+	/**
+	 * Waits until the running start was interrupted (much sooner than its start latency)
+	 */
+	void awaitAborted()
+	{
+		await(() -> this.backend.getStartingContainers() == 0, "Start was not aborted");
+		Assertions.assertEquals(0, this.backend.getContainerCount());
+	}
+	
+	PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> createFactory()
+	{
+		final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = new PreStartableTCIFactory<>(
+			SimulatedTCI::new,
+			() -> new SimulatedContainer(this.backend),
+			"simulated",
+			"container.simulated",
+			"simulated",
+			new TestPreStartConfig().withKeepReady(1),
+			new PreStartableTCIFactory.Timeouts().withAcquireTimeout(Duration.ofMillis(100)));
+		// No retry -> the start of the first attempt is abandoned
+		factory.setGetNewTryCount(1);
+		return factory;
+	}
+	
+	static void await(final BooleanSupplier condition, final String message)
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+		while(!condition.getAsBoolean())
+		{
+			Assertions.assertTrue(System.nanoTime() < deadline, message);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend.Operation;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+
+
+class PreStartableTCIFactoryTest
+{
+	SimulatedDockerBackend backend;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void stalledInFlightPreStartIsNotClaimed()
+	{
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory =
+			this.createFactory(new TestPreStartConfig()))
+		{
+			IntStream.range(0, 10).forEach(i -> factory.starter.getTraceInfraStart().addMs(100));
+			
+			// Running much longer than usual -> probably hanging
+			final StartingInfra<SimulatedTCI> stalled = this.addInFlightPreStart(factory, 10_000);
+			Assertions.assertEquals(Optional.empty(), factory.pool.claimInFlight());
+			
+			final StartingInfra<SimulatedTCI> running = this.addInFlightPreStart(factory, 10);
+			Assertions.assertEquals(Optional.of(running), factory.pool.claimInFlight());
+			Assertions.assertEquals(Set.of(stalled), factory.pool.inFlight);
+			
+			stalled.startFuture().cancel(false);
+			running.startFuture().cancel(false);
+		}
+	}
+	
+	@Test
+	void fallsBackToColdStartWhenUnpauseFails()
+	{
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory =
+			this.createFactory(new TestPreStartConfig().withKeepReady(1).withPausePreStarted(true)))
+		{
+			// No retry -> the fallback is done by the acquisition itself
+			factory.setGetNewTryCount(1);
+			awaitReady(factory);
+			final String pausedContainerId = factory.pool.ready.peek().infra().getContainer().getContainerId();
+			Assertions.assertEquals(0, this.backend.getActiveContainers());
+			
+			// Container vanished while it was inside the pool
+			this.backend.removeContainer(pausedContainerId);
+			
+			final SimulatedTCI infra = factory.getNew(null);
+			Assertions.assertTrue(infra.getContainer().isRunning());
+			Assertions.assertNotEquals(pausedContainerId, infra.getContainer().getContainerId());
+			infra.stop();
+		}
+	}
+	
+	@Test
+	void idleExpiredPreStartIsSkipped()
+	{
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory =
+			this.createFactory(new TestPreStartConfig().withKeepReady(1)))
+		{
+			awaitReady(factory);
+			final StartingInfra<SimulatedTCI> ready = factory.pool.ready.peek();
+			// Longer than the default max idle time (15min)
+			ready.readyAtMs.set(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+			
+			Assertions.assertEquals(Optional.empty(), factory.pool.pollReady());
+			this.awaitStopped();
+		}
+	}
+	
+	@Test
+	void crashedPreStartIsEvictedAndReplaced()
+	{
+		this.assertEvictedAndReplaced(
+			new TestPreStartConfig().withKeepReady(1),
+			containerId -> this.backend.crashContainer(containerId, true));
+	}
+	
+	@Test
+	void unhealthyPreStartIsEvictedAndReplaced()
+	{
+		this.assertEvictedAndReplaced(
+			new TestPreStartConfig().withKeepReady(1),
+			containerId -> this.backend.setContainerHealthStatus(containerId, "unhealthy"));
+	}
+	
+	@Test
+	void preStartFailingTheProbeIsEvicted()
+	{
+		final Set<String> failing = ConcurrentHashMap.newKeySet();
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory =
+			this.createFactory(new TestPreStartConfig().withKeepReady(1))
+				.withPreStartedProbe(infra -> !failing.contains(infra.getContainer().getContainerId())))
+		{
+			awaitReady(factory);
+			final String containerId = factory.pool.ready.peek().infra().getContainer().getContainerId();
+			
+			// Probe passes -> kept
+			Assertions.assertEquals(0, factory.pool.validate());
+			
+			failing.add(containerId);
+			Assertions.assertEquals(1, factory.pool.validate());
+			Assertions.assertEquals(0, factory.pool.countReady());
+			this.awaitStopped();
+		}
+	}
+	
+	void assertEvictedAndReplaced(final PreStartConfig config, final Consumer<String> breakContainer)
+	{
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory(config))
+		{
+			awaitReady(factory);
+			final String containerId = factory.pool.ready.peek().infra().getContainer().getContainerId();
+			breakContainer.accept(containerId);
+			
+			factory.validatePreStarted();
+			Assertions.assertEquals(0, factory.pool.countReady());
+			this.awaitStopped();
+			
+			awaitReady(factory);
+			Assertions.assertNotEquals(
+				containerId,
+				factory.pool.ready.peek().infra().getContainer().getContainerId());
+		}
+	}
+	
+	/**
+	 * Waits until the evicted container was stopped (nothing else is stopped before the factory is closed)
+	 */
+	void awaitStopped()
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(this.backend.getOperationCount(Operation.STOP_CONTAINER) == 0)
+		{
+			Assertions.assertTrue(System.nanoTime() < deadline, "Container was not stopped in time");
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+	
+	static void awaitReady(final PreStartableTCIFactory<?, ?> factory)
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(factory.pool.countReady() == 0)
+		{
+			Assertions.assertTrue(System.nanoTime() < deadline, "Pool was not filled in time");
+			factory.schedulePreStart();
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+	
+	StartingInfra<SimulatedTCI> addInFlightPreStart(
+		final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory,
+		final long runningForMs)
+	{
+		final StartingInfra<SimulatedTCI> startingInfra = new StartingInfra<>(
+			new SimulatedTCI(new SimulatedContainer(this.backend), null),
+			new CompletableFuture<>(),
+			true,
+			new AtomicLong(System.currentTimeMillis() - runningForMs));
+		factory.pool.addInFlight(startingInfra);
+		return startingInfra;
+	}
+	
+	PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> createFactory(final PreStartConfig config)
+	{
+		return new PreStartableTCIFactory<>(
+			SimulatedTCI::new,
+			() -> new SimulatedContainer(this.backend),
+			"simulated",
+			"container.simulated",
+			"simulated",
+			config,
+			new PreStartableTCIFactory.Timeouts());
+	}
+	
+	
+	static class TestPreStartConfig implements PreStartConfig
+	{
+		int keepReady;
+		boolean pausePreStarted;
+		
+		TestPreStartConfig withKeepReady(final int keepReady)
+		{
+			this.keepReady = keepReady;
+			return this;
+		}
+		
+		TestPreStartConfig withPausePreStarted(final boolean pausePreStarted)
+		{
+			this.pausePreStarted = pausePreStarted;
+			return this;
+		}
+		
+		@Override
+		public boolean enabled()
+		{
+			return this.keepReady > 0;
+		}
+		
+		@Override
+		public int keepReady(final String preStartName)
+		{
+			return this.keepReady;
+		}
+		
+		@Override
+		public boolean pausePreStarted(final String preStartName)
+		{
+			return this.pausePreStarted;
+		}
+		
+		@Override
+		public int maxStartSimultan(final String preStartName)
+		{
+			return 2;
+		}
+		
+		@Override
+		public boolean fixateExposedPortsIfRequired(final String preStartName)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.broker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+class DefaultSharedPoolBrokerTest
+{
+	@Test
+	void slotsAreLeasedOnce(@TempDir final Path directory)
+	{
+		final DefaultSharedPoolBroker broker = new DefaultSharedPoolBroker(directory);
+		
+		final SharedPoolBroker.Lease first = broker.tryLease("DB", 2).orElseThrow();
+		Assertions.assertTrue(broker.tryLease("DB", 2).isPresent());
+		Assertions.assertTrue(broker.tryLease("DB", 2).isEmpty());
+		// Other pool
+		Assertions.assertTrue(broker.tryLease("OIDC", 1).isPresent());
+		
+		first.release();
+		first.release();
+		Assertions.assertTrue(broker.tryLease("DB", 2).isPresent());
+		Assertions.assertTrue(broker.tryLease("DB", 2).isEmpty());
+	}
+	
+	@Test
+	void slotsAreLimitedToTheRecordedPoolSize(@TempDir final Path directory) throws IOException
+	{
+		final DefaultSharedPoolBroker broker = new DefaultSharedPoolBroker(directory);
+		Assertions.assertTrue(broker.tryLease("DB", 2).isPresent());
+		Assertions.assertEquals("2", Files.readString(directory.resolve("DB").resolve("slots")));
+		
+		// e.g. another JVM with a different configuration
+		final DefaultSharedPoolBroker otherBroker = new DefaultSharedPoolBroker(directory);
+		Assertions.assertTrue(otherBroker.tryLease("DB", 3).isPresent());
+		Assertions.assertTrue(otherBroker.tryLease("DB", 3).isEmpty());
+		// Smaller (e.g. adaptive) pool sizes are still respected
+		Assertions.assertTrue(new DefaultSharedPoolBroker(directory).tryLease("DB", 1).isEmpty());
+	}
+	
+	@Test
+	void disabledGrantsAllLeases()
+	{
+		final DefaultSharedPoolBroker broker = new DefaultSharedPoolBroker(null);
+		
+		Assertions.assertFalse(broker.isEnabled());
+		Assertions.assertTrue(broker.tryLease("DB", 0).isPresent());
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend.Operation;
+import software.xdev.tci.docker.simulation.SimulatedLoadMonitor;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.PreStartMetrics;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.factory.prestart.coordinator.admission.PreStartAdmission;
+import software.xdev.tci.factory.prestart.coordinator.admission.PreStartAdmissionPolicy;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.RoundRobinPreStartSchedulingPolicy;
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+class DefaultGlobalPreStartCoordinatorTest
+{
+	SimulatedDockerBackend backend;
+	SimulatedLoadMonitor loadMonitor;
+	TestPreStartConfig config;
+	TestAdmissionPolicy admissionPolicy;
+	DefaultGlobalPreStartCoordinator coordinator;
+	Object previousConfig;
+	Object previousCoordinator;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+		this.loadMonitor = new SimulatedLoadMonitor(this.backend).install();
+		this.config = new TestPreStartConfig();
+		this.admissionPolicy = new TestAdmissionPolicy();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		if(this.coordinator != null)
+		{
+			this.coordinator.close();
+			TCIServiceLoader.instance().forceOverwrite(GlobalPreStartCoordinator.class, this.previousCoordinator);
+			TCIServiceLoader.instance().forceOverwrite(PreStartConfig.class, this.previousConfig);
+		}
+		this.loadMonitor.uninstall();
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void takingFromThePoolTriggersAnImmediatePreStart()
+	{
+		// A periodic re-check would be too late
+		this.config.schedulePeriodMs = 60_000;
+		this.installCoordinator();
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory())
+		{
+			this.coordinator.requestPreStart(factory);
+			awaitPoolFilled(factory);
+			
+			final SimulatedTCI infra = factory.getNew(null);
+			awaitPoolFilled(factory);
+			
+			Assertions.assertEquals(2, this.backend.getOperationCount(Operation.START_CONTAINER));
+			infra.stop();
+		}
+	}
+	
+	@Test
+	void rechecksOnlyWhileLoadIsTooHighOrPoolsHaveDeficit()
+	{
+		this.config.schedulePeriodMs = 50;
+		this.admissionPolicy.admitted.set(false);
+		this.installCoordinator();
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory())
+		{
+			this.coordinator.requestPreStart(factory);
+			// Load too high -> re-checked periodically
+			await(() -> this.admissionPolicy.calls.get() >= 5, "Load was not re-checked");
+			Assertions.assertEquals(0, this.backend.getOperationCount(Operation.START_CONTAINER));
+			
+			this.admissionPolicy.admitted.set(true);
+			awaitPoolFilled(factory);
+			// Pool changes (e.g. the PreStart being handed over) might still signal the coordinator
+			park(200);
+			
+			final int calls = this.admissionPolicy.calls.get();
+			park(500);
+			Assertions.assertEquals(calls, this.admissionPolicy.calls.get());
+		}
+	}
+	
+	@Test
+	void failedPreStartsAreRetriedWithBackoff()
+	{
+		this.backend.withStartFailureProbability(1);
+		this.config.schedulePeriodMs = 50;
+		this.installCoordinator();
+		try(final PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> factory = this.createFactory())
+		{
+			this.coordinator.requestPreStart(factory);
+			await(() -> this.backend.getOperationCount(Operation.START_CONTAINER) >= 1, "No PreStart");
+			final int callsAfterFailure = this.admissionPolicy.calls.get();
+			
+			// Backoff after the first failure: 1s
+			park(500);
+			Assertions.assertEquals(1, this.backend.getOperationCount(Operation.START_CONTAINER));
+			// The pool still has a deficit -> re-checked, but not started
+			Assertions.assertTrue(this.admissionPolicy.calls.get() > callsAfterFailure + 2);
+			
+			await(() -> this.backend.getOperationCount(Operation.START_CONTAINER) >= 2, "PreStart was not retried");
+			
+			// Backoff after the second failure: 2s
+			park(1_000);
+			Assertions.assertEquals(2, this.backend.getOperationCount(Operation.START_CONTAINER));
+		}
+	}
+	
+	void installCoordinator()
+	{
+		this.previousConfig = TCIServiceLoader.instance().forceOverwrite(PreStartConfig.class, this.config);
+		this.coordinator =
+			new DefaultGlobalPreStartCoordinator(new RoundRobinPreStartSchedulingPolicy(), this.admissionPolicy);
+		this.previousCoordinator =
+			TCIServiceLoader.instance().forceOverwrite(GlobalPreStartCoordinator.class, this.coordinator);
+	}
+	
+	PreStartableTCIFactory<SimulatedContainer, SimulatedTCI> createFactory()
+	{
+		return new PreStartableTCIFactory<>(
+			SimulatedTCI::new,
+			() -> new SimulatedContainer(this.backend),
+			"simulated",
+			"container.simulated",
+			"simulated",
+			this.config,
+			new PreStartableTCIFactory.Timeouts());
+	}
+	
+	static void awaitPoolFilled(final PreStartableTCIFactory<?, ?> factory)
+	{
+		await(() -> {
+			final PreStartMetrics metrics = factory.getPreStartMetrics();
+			return metrics.deficit() == 0 && metrics.preStarting() == 0;
+		}, "Pool was not filled");
+	}
+	
+	static void await(final BooleanSupplier condition, final String message)
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(!condition.getAsBoolean())
+		{
+			Assertions.assertTrue(System.nanoTime() < deadline, message);
+			park(10);
+		}
+	}
+	
+	static void park(final long ms)
+	{
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+	}
+	
+	
+	static class TestAdmissionPolicy implements PreStartAdmissionPolicy
+	{
+		final AtomicBoolean admitted = new AtomicBoolean(true);
+		final AtomicInteger calls = new AtomicInteger();
+		
+		@Override
+		public PreStartAdmission admit(final LoadSignals signals)
+		{
+			this.calls.incrementAndGet();
+			return this.admitted.get() ? PreStartAdmission.ADMITTED : PreStartAdmission.rejected("test");
+		}
+	}
+	
+	
+	static class TestPreStartConfig implements PreStartConfig
+	{
+		int schedulePeriodMs;
+		
+		@Override
+		public int keepReady(final String preStartName)
+		{
+			return 1;
+		}
+		
+		@Override
+		public int maxStartSimultan(final String preStartName)
+		{
+			return 2;
+		}
+		
+		@Override
+		public boolean fixateExposedPortsIfRequired(final String preStartName)
+		{
+			return false;
+		}
+		
+		@Override
+		public boolean detectEndingTests()
+		{
+			return false;
+		}
+		
+		@Override
+		public int coordinatorSchedulePeriodMs()
+		{
+			return this.schedulePeriodMs;
+		}
+		
+		@Override
+		public int coordinatorValidatePeriodMs()
+		{
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.admission;
+
+import java.util.OptionalDouble;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+
+
+class FeedbackPreStartAdmissionPolicyTest
+{
+	@Test
+	void hysteresisAndProportionalPreStarts()
+	{
+		final FeedbackPreStartAdmissionPolicy policy = new TestPolicy(0);
+		
+		// 40% headroom against the target of 60%
+		Assertions.assertEquals(PreStartAdmission.admitted(4), policy.admit(utilization(20)));
+		
+		Assertions.assertFalse(policy.admit(utilization(65)).admitted());
+		// Still throttled until 10% below the target
+		Assertions.assertFalse(policy.admit(utilization(55)).admitted());
+		Assertions.assertEquals(PreStartAdmission.admitted(1), policy.admit(utilization(45)));
+	}
+	
+	@Test
+	void singleSpikeIsSmoothed()
+	{
+		final FeedbackPreStartAdmissionPolicy policy = new TestPolicy(5_000);
+		final long second = TimeUnit.SECONDS.toNanos(1);
+		
+		policy.smooth(utilization(20), 5_000, second);
+		final LoadSignals smoothed = policy.smooth(utilization(100), 5_000, 2 * second);
+		
+		Assertions.assertTrue(FeedbackPreStartAdmissionPolicy.utilization(smoothed) < 40);
+		Assertions.assertTrue(policy.controlUtilization(
+			FeedbackPreStartAdmissionPolicy.utilization(smoothed),
+			policy.config()).admitted());
+	}
+	
+	static LoadSignals utilization(final double utilizationPercent)
+	{
+		return LoadSignals.ofIdle(OptionalDouble.of(100 - utilizationPercent));
+	}
+	
+	
+	static class TestPolicy extends FeedbackPreStartAdmissionPolicy
+	{
+		private final int smoothingMs;
+		
+		TestPolicy(final int smoothingMs)
+		{
+			this.smoothingMs = smoothingMs;
+		}
+		
+		@Override
+		protected PreStartConfig config()
+		{
+			return new PreStartConfig()
+			{
+				@Override
+				public int keepReady(final String preStartName)
+				{
+					return 1;
+				}
+				
+				@Override
+				public int maxStartSimultan(final String preStartName)
+				{
+					return 1;
+				}
+				
+				@Override
+				public int coordinatorSmoothingMs()
+				{
+					return TestPolicy.this.smoothingMs;
+				}
+			};
+		}
+	}
+}
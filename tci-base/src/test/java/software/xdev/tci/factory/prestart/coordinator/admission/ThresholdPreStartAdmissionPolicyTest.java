@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.admission;
+
+import java.util.OptionalDouble;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.factory.prestart.loadbalancing.LoadSignals;
+import software.xdev.tci.misc.ContainerMemory;
+
+
+class ThresholdPreStartAdmissionPolicyTest
+{
+	static final ThresholdPreStartAdmissionPolicy POLICY = new ThresholdPreStartAdmissionPolicy()
+	{
+		@Override
+		protected PreStartConfig config()
+		{
+			return new PreStartConfig()
+			{
+				@Override
+				public int keepReady(final String preStartName)
+				{
+					return 1;
+				}
+				
+				@Override
+				public int maxStartSimultan(final String preStartName)
+				{
+					return 1;
+				}
+			};
+		}
+	};
+	
+	@Test
+	void unknownSignalsAreIgnored()
+	{
+		Assertions.assertTrue(POLICY.admit(LoadSignals.ofIdle(OptionalDouble.empty())).admitted());
+		Assertions.assertTrue(POLICY.admit(LoadSignals.ofIdle(OptionalDouble.of(90))).admitted());
+	}
+	
+	@Test
+	void idleCpuIsNotSufficient()
+	{
+		// Enough idle CPU, but memory and IO are stalling
+		Assertions.assertFalse(POLICY.admit(
+			new LoadSignals(90, 0, 25, 0, ContainerMemory.M4G, 5)).admitted());
+		Assertions.assertFalse(POLICY.admit(
+			new LoadSignals(90, 0, 0, 60, ContainerMemory.M4G, 5)).admitted());
+		Assertions.assertFalse(POLICY.admit(
+			new LoadSignals(90, 0, 0, 0, 256L * 1024 * 1024, 5)).admitted());
+		Assertions.assertFalse(POLICY.admit(
+			new LoadSignals(90, 0, 0, 0, ContainerMemory.M4G, 2_500)).admitted());
+		
+		Assertions.assertEquals(
+			PreStartAdmission.ADMITTED,
+			POLICY.admit(new LoadSignals(90, 50, 1, 5, ContainerMemory.M4G, 5)));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.coordinator.scheduling;
+
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.PreStartMetrics;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.misc.ContainerMemory;
+
+
+class ValueBasedPreStartSchedulingPolicyTest
+{
+	@Test
+	void prefersMostValuableDeficit()
+	{
+		try(final FixedMetricsFactory cheap = new FixedMetricsFactory(new PreStartMetrics(
+			"Cheap", 1, 0, OptionalDouble.of(2_000), OptionalLong.of(ContainerMemory.M512M), 0));
+			final FixedMetricsFactory expensive = new FixedMetricsFactory(new PreStartMetrics(
+				"Expensive", 1, 0.5, OptionalDouble.of(20_000), OptionalLong.of(ContainerMemory.M1G), 0));
+			final FixedMetricsFactory full = new FixedMetricsFactory(new PreStartMetrics(
+				"Full", 0, 1, OptionalDouble.of(60_000), OptionalLong.empty(), 0)))
+		{
+			final List<PreStartableTCIFactory<?, ?>> selected = new ValueBasedPreStartSchedulingPolicy()
+				.select(List.of(cheap, expensive, full), 1);
+			
+			Assertions.assertEquals(List.of(expensive), selected);
+		}
+	}
+	
+	@Test
+	void doesNotStarveOtherFactories()
+	{
+		try(final FixedMetricsFactory cheap = new FixedMetricsFactory(new PreStartMetrics(
+			"Cheap", 5, 0, OptionalDouble.of(2_000), OptionalLong.of(ContainerMemory.M512M), 0));
+			final FixedMetricsFactory expensive = new FixedMetricsFactory(new PreStartMetrics(
+				"Expensive", 5, 0.5, OptionalDouble.of(20_000), OptionalLong.of(ContainerMemory.M1G), 0)))
+		{
+			final ValueBasedPreStartSchedulingPolicy policy = new ValueBasedPreStartSchedulingPolicy()
+				.withMaxConsecutive(2);
+			
+			boolean cheapSelected = false;
+			for(int i = 0; i < 3 && !cheapSelected; i++)
+			{
+				cheapSelected = policy.select(List.of(cheap, expensive), 1).contains(cheap);
+			}
+			Assertions.assertTrue(cheapSelected);
+		}
+	}
+	
+	
+	static class FixedMetricsFactory extends PreStartableTCIFactory<SimulatedContainer, SimulatedTCI>
+	{
+		private final PreStartMetrics metrics;
+		
+		FixedMetricsFactory(final PreStartMetrics metrics)
+		{
+			// Containers are never built - the metrics are fixed
+			super(
+				SimulatedTCI::new,
+				() -> new SimulatedContainer(new SimulatedDockerBackend()),
+				"dummy",
+				"container.dummy",
+				metrics.factoryName());
+			this.metrics = metrics;
+		}
+		
+		@Override
+		public PreStartMetrics getPreStartMetrics()
+		{
+			return this.metrics;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.executor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.factory.prestart.executor.LaneStartExecutor.Lane;
+import software.xdev.tci.tracing.TCITracer;
+
+
+class LaneStartExecutorTest
+{
+	@Test
+	void demandIsExecutedBeforeSpeculative() throws Exception
+	{
+		final TCITracer tracer = new TCITracer();
+		final LaneStartExecutor executor = new LaneStartExecutor(Executors.newCachedThreadPool(), 1, 1, tracer);
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final List<String> executed = new CopyOnWriteArrayList<>();
+		
+		final CompletableFuture<Void> blocking = executor.submit(Lane.SPECULATIVE, () -> await(blocker));
+		final CompletableFuture<Void> speculative = executor.submit(Lane.SPECULATIVE, () -> executed.add("S"));
+		final CompletableFuture<Void> demand = executor.submit(Lane.DEMAND, () -> executed.add("D"));
+		
+		blocker.countDown();
+		CompletableFuture.allOf(blocking, speculative, demand).get(10, TimeUnit.SECONDS);
+		
+		Assertions.assertEquals(List.of("D", "S"), executed);
+		Assertions.assertNotNull(tracer.getTimers().get("queueWait(demand)"));
+		Assertions.assertNotNull(tracer.getTimers().get("queueWait(speculative)"));
+		executor.shutdown();
+	}
+	
+	@Test
+	void speculativeStartsLeaveCapacityForDemand() throws Exception
+	{
+		final LaneStartExecutor executor =
+			new LaneStartExecutor(Executors.newCachedThreadPool(), 2, 1, new TCITracer());
+		final CountDownLatch blocker = new CountDownLatch(1);
+		
+		final CompletableFuture<Void> blocking = executor.submit(Lane.SPECULATIVE, () -> await(blocker));
+		final CompletableFuture<Void> queuedSpeculative = executor.submit(Lane.SPECULATIVE, () -> {
+		});
+		final CompletableFuture<Void> demand = executor.submit(Lane.DEMAND, () -> {
+		});
+		
+		demand.get(10, TimeUnit.SECONDS);
+		Assertions.assertFalse(queuedSpeculative.isDone());
+		
+		// Only queued starts can be cancelled
+		Assertions.assertFalse(blocking.cancel(false));
+		Assertions.assertTrue(queuedSpeculative.cancel(false));
+		
+		blocker.countDown();
+		blocking.get(10, TimeUnit.SECONDS);
+		Assertions.assertTrue(queuedSpeculative.isCancelled());
+		executor.shutdown();
+	}
+	
+	@Test
+	void demandUsesReservedSlotWhenOnlySpeculativeStartsAreRunning() throws Exception
+	{
+		final LaneStartExecutor executor =
+			new LaneStartExecutor(Executors.newCachedThreadPool(), 1, 1, new TCITracer());
+		final CountDownLatch speculativeBlocker = new CountDownLatch(1);
+		final CountDownLatch demandBlocker = new CountDownLatch(1);
+		
+		final CompletableFuture<Void> speculative =
+			executor.submit(Lane.SPECULATIVE, () -> await(speculativeBlocker));
+		final CompletableFuture<Void> demand = executor.submit(Lane.DEMAND, () -> await(demandBlocker));
+		final CompletableFuture<Void> secondDemand = executor.submit(Lane.DEMAND, () -> {
+		});
+		
+		// The first demand is not blocked by the running speculative start; the reserve is only a single slot
+		Assertions.assertEquals(1, executor.getQueuedCount(Lane.DEMAND));
+		demandBlocker.countDown();
+		demand.get(10, TimeUnit.SECONDS);
+		
+		secondDemand.get(10, TimeUnit.SECONDS);
+		Assertions.assertFalse(speculative.isDone());
+		
+		speculativeBlocker.countDown();
+		speculative.get(10, TimeUnit.SECONDS);
+		executor.shutdown();
+	}
+	
+	@Test
+	void runningStartIsInterruptedWhenCancelledWithInterrupt() throws Exception
+	{
+		final LaneStartExecutor executor =
+			new LaneStartExecutor(Executors.newCachedThreadPool(), 1, 1, new TCITracer());
+		final CountDownLatch started = new CountDownLatch(1);
+		
+		final CompletableFuture<Void> running = executor.submit(Lane.DEMAND, () -> {
+			started.countDown();
+			try
+			{
+				Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+			}
+			catch(final InterruptedException e)
+			{
+				throw new IllegalStateException("Aborted", e);
+			}
+		});
+		Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+		
+		Assertions.assertFalse(running.cancel(true));
+		
+		final ExecutionException ex =
+			Assertions.assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+		Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+		executor.shutdown();
+	}
+	
+	private static void await(final CountDownLatch latch)
+	{
+		try
+		{
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch(final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.hedging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.tracing.TCITracer;
+
+
+class HedgingTest
+{
+	static final long HEDGE_AFTER_MS = 10_000;
+	
+	@Test
+	void hedgeAfterPercentileOfRecordedStarts()
+	{
+		final HedgingPolicy policy = new HedgingPolicy(90, 10, 5, new Semaphore(1));
+		LongStream.rangeClosed(1, 4).forEach(i -> policy.recordStartMs(i * 1_000));
+		Assertions.assertEquals(OptionalLong.empty(), policy.hedgeAfterMs());
+		
+		// Window is full afterward -> the oldest samples are replaced
+		LongStream.rangeClosed(1, 20).forEach(i -> policy.recordStartMs(i * 1_000));
+		Assertions.assertEquals(OptionalLong.of(19_000), policy.hedgeAfterMs());
+		
+		Assertions.assertTrue(policy.tryAcquirePermit());
+		Assertions.assertFalse(policy.tryAcquirePermit());
+		policy.releasePermit();
+		Assertions.assertTrue(policy.tryAcquirePermit());
+	}
+	
+	@Test
+	void firstSuccessfulStartWinsAndOthersAreAbandoned()
+	{
+		final CompletableFuture<Void> primary = new CompletableFuture<>();
+		final CompletableFuture<Void> hedge = new CompletableFuture<>();
+		final List<CompletableFuture<Void>> abandoned = new CopyOnWriteArrayList<>();
+		
+		final HedgedStart<CompletableFuture<Void>> hedgedStart =
+			new HedgedStart<>(primary, f -> f, abandoned::add, abandoned::add);
+		hedgedStart.add(hedge);
+		
+		primary.completeExceptionally(new IllegalStateException("Failed"));
+		Assertions.assertFalse(hedgedStart.first().isDone());
+		
+		hedge.complete(null);
+		Assertions.assertSame(hedge, hedgedStart.first().join());
+		Assertions.assertEquals(List.of(primary), abandoned);
+		
+		// Added too late
+		final CompletableFuture<Void> late = new CompletableFuture<>();
+		hedgedStart.add(late);
+		Assertions.assertEquals(List.of(primary, late), abandoned);
+		
+		// Waiter gave up afterward
+		hedgedStart.abandon();
+		Assertions.assertEquals(List.of(primary, late, hedge), abandoned);
+	}
+	
+	@Test
+	void queuedStartIsCheckedAgainUntilItExecuted()
+	{
+		final TestStarts starts = new TestStarts();
+		final RecordingHedgedStarter starter = new RecordingHedgedStarter(starts);
+		final CompletableFuture<Void> primary = new CompletableFuture<>();
+		
+		final HedgedStart<CompletableFuture<Void>> hedgedStart = starter.start(primary, true);
+		Assertions.assertEquals(List.of(HedgedStarter.QUEUED_RECHECK_MS), starter.delays);
+		
+		// Still waiting for a free slot -> only checked again
+		starter.runScheduled();
+		Assertions.assertEquals(List.of(HedgedStarter.QUEUED_RECHECK_MS), starter.delays);
+		Assertions.assertTrue(starts.hedges.isEmpty());
+		
+		// Executing now -> waits for the full delay measured from the execution start
+		starts.executionStartedAtMs.put(primary, System.currentTimeMillis());
+		starter.runScheduled();
+		Assertions.assertEquals(1, starter.delays.size());
+		Assertions.assertTrue(starter.delays.get(0) > HEDGE_AFTER_MS - 1_000);
+		Assertions.assertTrue(starts.hedges.isEmpty());
+		
+		starts.executionStartedAtMs.put(primary, System.currentTimeMillis() - HEDGE_AFTER_MS);
+		starter.runScheduled();
+		Assertions.assertTrue(starter.delays.isEmpty());
+		Assertions.assertEquals(1, starts.hedges.size());
+		
+		starts.hedges.get(0).complete(null);
+		Assertions.assertSame(starts.hedges.get(0), hedgedStart.first().join());
+	}
+	
+	@Test
+	void startThatExecutedBeforeAcquireIsHedgedSooner()
+	{
+		final TestStarts starts = new TestStarts();
+		final RecordingHedgedStarter starter = new RecordingHedgedStarter(starts);
+		
+		// e.g. a claimed in-flight PreStart
+		final CompletableFuture<Void> earlier = new CompletableFuture<>();
+		starts.executionStartedAtMs.put(earlier, System.currentTimeMillis() - HEDGE_AFTER_MS / 2);
+		starter.start(earlier, true);
+		Assertions.assertEquals(1, starter.delays.size());
+		Assertions.assertTrue(starter.delays.get(0) <= HEDGE_AFTER_MS / 2);
+		
+		final RecordingHedgedStarter overdueStarter = new RecordingHedgedStarter(starts);
+		final CompletableFuture<Void> overdue = new CompletableFuture<>();
+		starts.executionStartedAtMs.put(overdue, System.currentTimeMillis() - HEDGE_AFTER_MS * 2);
+		overdueStarter.start(overdue, true);
+		Assertions.assertEquals(List.of(0L), overdueStarter.delays);
+		
+		overdueStarter.runScheduled();
+		Assertions.assertEquals(1, starts.hedges.size());
+	}
+	
+	static HedgingPolicy recordedPolicy()
+	{
+		final HedgingPolicy policy = new HedgingPolicy(90, 10, 5, new Semaphore(1));
+		LongStream.rangeClosed(1, 5).forEach(i -> policy.recordStartMs(HEDGE_AFTER_MS));
+		return policy;
+	}
+	
+	static class RecordingHedgedStarter extends HedgedStarter<CompletableFuture<Void>>
+	{
+		final List<Runnable> scheduled = new ArrayList<>();
+		final List<Long> delays = new ArrayList<>();
+		
+		RecordingHedgedStarter(final TestStarts starts)
+		{
+			super("test", recordedPolicy(), starts, new TCITracer());
+		}
+		
+		@Override
+		protected void schedule(final Runnable runnable, final long delayMs)
+		{
+			this.scheduled.add(runnable);
+			this.delays.add(delayMs);
+		}
+		
+		void runScheduled()
+		{
+			final List<Runnable> toRun = new ArrayList<>(this.scheduled);
+			this.scheduled.clear();
+			this.delays.clear();
+			toRun.forEach(Runnable::run);
+		}
+	}
+	
+	
+	static class TestStarts implements HedgedStarter.Starts<CompletableFuture<Void>>
+	{
+		final Map<CompletableFuture<Void>, Long> executionStartedAtMs = new ConcurrentHashMap<>();
+		final List<CompletableFuture<Void>> hedges = new CopyOnWriteArrayList<>();
+		
+		@Override
+		public CompletableFuture<?> startFuture(final CompletableFuture<Void> start)
+		{
+			return start;
+		}
+		
+		@Override
+		public long executionStartedAtMs(final CompletableFuture<Void> start)
+		{
+			return this.executionStartedAtMs.getOrDefault(start, 0L);
+		}
+		
+		@Override
+		public boolean canHedge()
+		{
+			return true;
+		}
+		
+		@Override
+		public CompletableFuture<Void> startHedge()
+		{
+			final CompletableFuture<Void> hedge = new CompletableFuture<>();
+			this.executionStartedAtMs.put(hedge, System.currentTimeMillis());
+			this.hedges.add(hedge);
+			return hedge;
+		}
+		
+		@Override
+		public void abandon(final CompletableFuture<Void> start)
+		{
+			// Nothing to do
+		}
+		
+		@Override
+		public void cancel(final CompletableFuture<Void> start)
+		{
+			start.cancel(true);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.keepready;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class AdaptiveKeepReadyTest
+{
+	@Test
+	void growsOnMissesWithinBounds()
+	{
+		final AtomicLong clock = new AtomicLong();
+		final AdaptiveKeepReady keepReady = new AdaptiveKeepReady(1, 3, 1, 0, clock::get);
+		
+		for(int i = 0; i < 10; i++)
+		{
+			clock.addAndGet(Duration.ofSeconds(1).toNanos());
+			keepReady.recordAcquire(false);
+		}
+		
+		Assertions.assertEquals(3, keepReady.target());
+	}
+	
+	@Test
+	void shrinksWhenThereIsNoDemand()
+	{
+		final AtomicLong clock = new AtomicLong();
+		final AdaptiveKeepReady keepReady = new AdaptiveKeepReady(1, 3, 3, 0, clock::get);
+		
+		clock.addAndGet(AdaptiveKeepReady.DEFAULT_DEMAND_WINDOW.toNanos());
+		Assertions.assertEquals(2, keepReady.target());
+		// Next shrink only happens after the adjust interval
+		Assertions.assertEquals(2, keepReady.target());
+		
+		clock.addAndGet(AdaptiveKeepReady.DEFAULT_ADJUST_INTERVAL.toNanos());
+		Assertions.assertEquals(1, keepReady.target());
+		clock.addAndGet(AdaptiveKeepReady.DEFAULT_ADJUST_INTERVAL.toNanos());
+		Assertions.assertEquals(1, keepReady.target());
+	}
+	
+	@Test
+	void disablesAndReEnablesBasedOnDemand()
+	{
+		final AtomicLong clock = new AtomicLong();
+		final AdaptiveKeepReady keepReady = new AdaptiveKeepReady(1, 3, 2, 60, clock::get);
+		
+		clock.addAndGet(AdaptiveKeepReady.DEFAULT_DEMAND_WINDOW.toNanos());
+		Assertions.assertEquals(0, keepReady.target());
+		Assertions.assertTrue(keepReady.isDisabled());
+		
+		// Burst of requests
+		for(int i = 0; i < 20; i++)
+		{
+			clock.addAndGet(Duration.ofSeconds(1).toNanos());
+			keepReady.recordAcquire(false);
+		}
+		Assertions.assertTrue(keepReady.target() > 0);
+		Assertions.assertFalse(keepReady.isDisabled());
+	}
+	
+	@Test
+	void doesNotGrowWhileDisabled()
+	{
+		final AtomicLong clock = new AtomicLong();
+		final AdaptiveKeepReady keepReady = new AdaptiveKeepReady(1, 3, 1, 60, clock::get);
+		
+		clock.addAndGet(AdaptiveKeepReady.DEFAULT_DEMAND_WINDOW.toNanos());
+		Assertions.assertEquals(0, keepReady.target());
+		
+		// All requests are misses while disabled
+		while(keepReady.isDisabled())
+		{
+			clock.addAndGet(Duration.ofSeconds(1).toNanos());
+			keepReady.recordAcquire(false);
+		}
+		
+		Assertions.assertEquals(1, keepReady.target());
+		// Only the request that re-enabled it was counted
+		Assertions.assertEquals(AdaptiveKeepReady.DEFAULT_MISS_RATE_ALPHA, keepReady.getMissRate(), 0.0001);
+	}
+}
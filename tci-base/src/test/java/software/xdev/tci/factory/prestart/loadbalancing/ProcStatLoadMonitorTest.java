@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.loadbalancing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class ProcStatLoadMonitorTest
+{
+	@Test
+	void parse()
+	{
+		final long[] procStat = new long[3];
+		Assertions.assertTrue(ProcStatParser.parseProcStat(
+			buffer("""
+				cpu  100 10 50 800 40 0 0 0 30 0
+				cpu0 50 5 25 400 20 0 0 0 15 0
+				cpu1 50 5 25 400 20 0 0 0 15 0
+				intr 123 0 0
+				"""),
+			procStat));
+		Assertions.assertArrayEquals(new long[]{1_000, 840, 2}, procStat);
+		Assertions.assertFalse(ProcStatParser.parseProcStat(buffer("intr 123"), procStat));
+		
+		Assertions.assertEquals(
+			8_390_436,
+			ProcStatParser.parseKeyedValue(
+				buffer("usage_usec 8390436\nuser_usec 5463270\n"),
+				"usage_usec".getBytes(StandardCharsets.US_ASCII)));
+		Assertions.assertEquals(
+			-1,
+			ProcStatParser.parseKeyedValue(buffer("user_usec 1\n"), "usage_usec".getBytes(StandardCharsets.US_ASCII)));
+		
+		Assertions.assertEquals(
+			25_103_412,
+			ProcStatParser.parseKeyedValue(
+				buffer("MemTotal:       32594784 kB\nMemFree:         1234567 kB\nMemAvailable:   25103412 kB\n"),
+				"MemAvailable:".getBytes(StandardCharsets.US_ASCII)));
+		Assertions.assertEquals(
+			982_137,
+			ProcStatParser.parsePressureTotal(
+				buffer("""
+					some avg10=0.00 avg60=0.12 avg300=0.05 total=1534211
+					full avg10=0.00 avg60=0.06 avg300=0.02 total=982137
+					"""),
+				"full".getBytes(StandardCharsets.US_ASCII)));
+		
+		Assertions.assertEquals(2.5, ProcStatParser.parseCpuMax(buffer("250000 100000\n")));
+		Assertions.assertTrue(Double.isNaN(ProcStatParser.parseCpuMax(buffer("max 100000\n"))));
+	}
+	
+	@Test
+	void lowerIdleOfHostAndCgroupIsUsed()
+	{
+		final ProcStatLoadMonitor monitor = new ProcStatLoadMonitor();
+		final long second = TimeUnit.SECONDS.toNanos(1);
+		
+		Assertions.assertTrue(Double.isNaN(monitor.update(1_000, 800, 4, 0, Double.NaN, 0)));
+		// Host: 75% idle; cgroup: 1 of 4 CPUs used
+		Assertions.assertEquals(75, monitor.update(1_400, 1_100, 4, 1_000_000, Double.NaN, second), 0.01);
+		// Host: 75% idle; cgroup: 1 of 2 CPUs (limit) used
+		Assertions.assertEquals(50, monitor.update(1_800, 1_400, 4, 2_000_000, 2, 2 * second), 0.01);
+	}
+	
+	static ByteBuffer buffer(final String content)
+	{
+		return ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.pausing;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.StartingInfra;
+import software.xdev.tci.tracing.TCITracer;
+
+
+class PreStartPauserTest
+{
+	SimulatedDockerBackend backend;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void pausesAndUnpauses()
+	{
+		final TCITracer tracer = new TCITracer();
+		final PreStartPauser pauser = new PreStartPauser("test", true, tracer);
+		final StartingInfra<SimulatedTCI> ready = this.startInfra();
+		
+		pauser.pauseIfEnabled(ready);
+		Assertions.assertTrue(ready.paused());
+		Assertions.assertEquals(0, this.backend.getActiveContainers());
+		Assertions.assertEquals(1, tracer.getTimedOrCreate("pause").getCountCalled());
+		
+		pauser.unpause(ready);
+		Assertions.assertFalse(ready.paused());
+		Assertions.assertEquals(1, this.backend.getActiveContainers());
+		Assertions.assertEquals(1, tracer.getTimedOrCreate("unpause").getCountCalled());
+		
+		// Not paused -> nothing to do
+		pauser.unpause(ready);
+		Assertions.assertEquals(1, tracer.getTimedOrCreate("unpause").getCountCalled());
+	}
+	
+	@Test
+	void doesNothingWhenDisabled()
+	{
+		final PreStartPauser pauser = new PreStartPauser("test", false, new TCITracer());
+		final StartingInfra<SimulatedTCI> ready = this.startInfra();
+		
+		pauser.pauseIfEnabled(ready);
+		Assertions.assertFalse(ready.paused());
+		Assertions.assertEquals(1, this.backend.getActiveContainers());
+	}
+	
+	@Test
+	void unpauseFailsWhenContainerVanished()
+	{
+		final PreStartPauser pauser = new PreStartPauser("test", true, new TCITracer());
+		final StartingInfra<SimulatedTCI> ready = this.startInfra();
+		pauser.pauseIfEnabled(ready);
+		
+		// Container vanished while it was inside the pool
+		this.backend.removeContainer(ready.infra().getContainer().getContainerId());
+		Assertions.assertThrows(IllegalStateException.class, () -> pauser.unpause(ready));
+		
+		final StartingInfra<SimulatedTCI> other = this.startInfra();
+		pauser.pauseIfEnabled(other);
+		this.backend.removeContainer(other.infra().getContainer().getContainerId());
+		Assertions.assertDoesNotThrow(() -> pauser.unpauseQuietly(other));
+	}
+	
+	StartingInfra<SimulatedTCI> startInfra()
+	{
+		final SimulatedTCI infra = new SimulatedTCI(new SimulatedContainer(this.backend), null);
+		infra.start("pause");
+		return new StartingInfra<>(infra, CompletableFuture.completedFuture(null), true);
+	}
+}
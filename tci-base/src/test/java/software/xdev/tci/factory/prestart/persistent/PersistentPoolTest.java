@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.persistent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.ContainerSummary;
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.DefaultPreStartPool;
+import software.xdev.tci.factory.prestart.StartingInfra;
+import software.xdev.tci.factory.prestart.pausing.PreStartPauser;
+import software.xdev.tci.factory.prestart.resources.InfraResourceReserver;
+import software.xdev.tci.factory.prestart.validation.PreStartValidator;
+import software.xdev.tci.tracing.TCITracer;
+
+
+class PersistentPoolTest
+{
+	static final String NAME = "persistent";
+	
+	SimulatedDockerBackend backend;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void persistsAndAdoptsIdleInfra()
+	{
+		final DefaultPreStartPool<SimulatedTCI> previousRun = this.createPool();
+		final PersistentPoolHandler<SimulatedTCI> previousHandler = this.createHandler(previousRun);
+		
+		final SimulatedTCI infra = this.buildInfra();
+		previousHandler.prepare(infra);
+		infra.start(NAME);
+		final StartingInfra<SimulatedTCI> ready =
+			new StartingInfra<>(infra, CompletableFuture.completedFuture(null), true);
+		ready.markReady();
+		
+		Assertions.assertTrue(previousHandler.tryPersist(ready));
+		Assertions.assertTrue(this.listPoolContainers().get(0).name().contains("-idle-"));
+		
+		final DefaultPreStartPool<SimulatedTCI> nextRun = this.createPool();
+		try
+		{
+			this.createHandler(nextRun).adoptPersisted();
+			
+			Assertions.assertEquals(1, nextRun.countReady());
+			Assertions.assertEquals(
+				infra.getContainer().getContainerId(),
+				nextRun.pollReady().orElseThrow().infra().getContainer().getContainerId());
+			Assertions.assertTrue(this.listPoolContainers().get(0).name().contains("-adopted-"));
+		}
+		finally
+		{
+			nextRun.shutdown();
+		}
+	}
+	
+	@Test
+	void idleContainerIsOnlyClaimedOnce()
+	{
+		final PersistentPool first = new PersistentPool(NAME, NAME, 0);
+		final PersistentPool second = new PersistentPool(NAME, NAME, 0);
+		
+		final SimulatedContainer container = this.startPooledContainer(first);
+		first.markIdle(container);
+		
+		final String fingerprint = first.fingerprint(container);
+		final ContainerSummary seenByFirst = first.findIdle(fingerprint).get(0);
+		final ContainerSummary seenBySecond = second.findIdle(fingerprint).get(0);
+		
+		Assertions.assertTrue(first.tryClaim(seenByFirst));
+		Assertions.assertFalse(second.tryClaim(seenBySecond));
+		Assertions.assertEquals(List.of(), second.findIdle(fingerprint));
+	}
+	
+	@Test
+	void removesOnlyIdleContainersAfterTtl()
+	{
+		final PersistentPool persistentPool = new PersistentPool(NAME, NAME, 60_000);
+		
+		final SimulatedContainer expiredIdle = this.startPooledContainer(persistentPool);
+		this.backend.renameContainer(expiredIdle.getContainerId(), NAME + "-idle-0-expired");
+		final SimulatedContainer freshIdle = this.startPooledContainer(persistentPool);
+		persistentPool.markIdle(freshIdle);
+		// In use by another JVM
+		final SimulatedContainer adopted = this.startPooledContainer(persistentPool);
+		this.backend.renameContainer(
+			adopted.getContainerId(),
+			NAME + "-adopted-" + System.currentTimeMillis() + "-inuse");
+		final SimulatedContainer inUse = this.startPooledContainer(persistentPool);
+		final SimulatedContainer crashed = this.startPooledContainer(persistentPool);
+		this.backend.crashContainer(crashed.getContainerId(), false);
+		
+		Assertions.assertEquals(2, persistentPool.removeAbandoned(persistentPool.fingerprint(freshIdle)));
+		Assertions.assertEquals(
+			List.of(freshIdle, adopted, inUse).stream().map(SimulatedContainer::getContainerId).sorted().toList(),
+			this.listPoolContainers().stream().map(ContainerSummary::id).sorted().toList());
+		
+		// Outdated fingerprint -> idle one is removed
+		Assertions.assertEquals(1, persistentPool.removeAbandoned("other"));
+	}
+	
+	@Test
+	void removesRunningContainersAfterAbandonedTtl()
+	{
+		final PersistentPool persistentPool = new PersistentPool(NAME, NAME, 0, 60_000);
+		
+		// Left behind by a JVM that crashed a long time ago
+		final SimulatedContainer abandonedAdopted = this.startPooledContainer(persistentPool);
+		this.backend.renameContainer(abandonedAdopted.getContainerId(), NAME + "-adopted-0-crashed");
+		final SimulatedContainer preStart = this.startPooledContainer(persistentPool);
+		
+		Assertions.assertEquals(1, persistentPool.removeAbandoned(persistentPool.fingerprint(preStart)));
+		Assertions.assertEquals(
+			List.of(preStart.getContainerId()),
+			this.listPoolContainers().stream().map(ContainerSummary::id).toList());
+		
+		// PreStarts (and containers that were never stopped) expire based on when they were created
+		final PersistentPool shortTtl = new PersistentPool(NAME, NAME, 0, 1);
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+		Assertions.assertEquals(1, shortTtl.removeAbandoned(shortTtl.fingerprint(preStart)));
+		Assertions.assertEquals(List.of(), this.listPoolContainers());
+	}
+	
+	SimulatedContainer startPooledContainer(final PersistentPool persistentPool)
+	{
+		final SimulatedContainer container = new SimulatedContainer(this.backend);
+		persistentPool.prepare(container, persistentPool.fingerprint(container));
+		container.start();
+		return container;
+	}
+	
+	List<ContainerSummary> listPoolContainers()
+	{
+		return this.backend.listContainers(Map.of(PersistentPool.LABEL_POOL, NAME), true);
+	}
+	
+	SimulatedTCI buildInfra()
+	{
+		return new SimulatedTCI(new SimulatedContainer(this.backend), null);
+	}
+	
+	PersistentPoolHandler<SimulatedTCI> createHandler(final DefaultPreStartPool<SimulatedTCI> pool)
+	{
+		return new PersistentPoolHandler<>(new PersistentPool(NAME, NAME, 0), pool, this::buildInfra, new TCITracer());
+	}
+	
+	DefaultPreStartPool<SimulatedTCI> createPool()
+	{
+		final TCITracer tracer = new TCITracer();
+		return new DefaultPreStartPool<>(
+			NAME,
+			1,
+			() -> 1,
+			() -> true,
+			new PreStartValidator<>(NAME, 0),
+			new PreStartPauser(NAME, false, tracer),
+			new InfraResourceReserver(NAME, tracer),
+			tracer,
+			tracer.getTimedOrCreate("infraStart"));
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.factory.prestart.recycling;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.DefaultPreStartPool;
+import software.xdev.tci.factory.prestart.pausing.PreStartPauser;
+import software.xdev.tci.factory.prestart.resources.InfraResourceReserver;
+import software.xdev.tci.factory.prestart.validation.PreStartValidator;
+import software.xdev.tci.tracing.TCITracer;
+
+
+class PreStartRecyclerTest
+{
+	SimulatedDockerBackend backend;
+	
+	final TCITracer tracer = new TCITracer();
+	final AtomicBoolean accepting = new AtomicBoolean(true);
+	final AtomicInteger releasedLeases = new AtomicInteger();
+	final AtomicInteger resets = new AtomicInteger();
+	
+	DefaultPreStartPool<SimulatedTCI> pool;
+	PreStartRecycler<SimulatedTCI> recycler;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+		this.pool = new DefaultPreStartPool<>(
+			"test",
+			1,
+			() -> 1,
+			this.accepting::get,
+			new PreStartValidator<>("test", 0),
+			new PreStartPauser("test", false, this.tracer),
+			new InfraResourceReserver("test", this.tracer),
+			this.tracer,
+			this.tracer.getTimedOrCreate("infraStart"));
+		this.recycler = new PreStartRecycler<>(this.pool, Duration.ofSeconds(10), this.tracer)
+			.withResetHook(infra -> this.resets.incrementAndGet(), 2);
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.pool.shutdown();
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void recyclesIntoPool()
+	{
+		final SimulatedTCI infra = this.startInfra();
+		this.recycler.trackRecyclable(infra, null);
+		
+		this.recycler.recycle(infra, this.recycler.recycleInfos.get(infra), this.releasedLeases::incrementAndGet);
+		
+		Assertions.assertEquals(1, this.resets.get());
+		Assertions.assertEquals(1, this.pool.countReady());
+		Assertions.assertEquals(0, this.releasedLeases.get());
+		Assertions.assertTrue(infra.getContainer().isRunning());
+		Assertions.assertEquals(1, this.recycler.recycleInfos.get(infra).reuseCount());
+		
+		// Reused infra is only recycled until the limit is reached
+		this.pool.pollReady();
+		this.recycler.recycleInfos.put(infra, new PreStartRecycler.RecycleInfo(null, 2));
+		Assertions.assertFalse(this.recycler.tryRecycle(infra));
+	}
+	
+	@Test
+	void destroysInfraThatIsNotUsableAfterReset()
+	{
+		final SimulatedTCI infra = this.startInfra();
+		this.recycler.withResetHook(
+			i -> this.backend.setContainerHealthStatus(i.getContainer().getContainerId(), "unhealthy"),
+			2);
+		this.recycler.trackRecyclable(infra, null);
+		
+		this.recycler.recycle(infra, this.recycler.recycleInfos.get(infra), this.releasedLeases::incrementAndGet);
+		
+		Assertions.assertEquals(0, this.pool.countReady());
+		Assertions.assertEquals(1, this.releasedLeases.get());
+		Assertions.assertEquals(0, this.backend.getContainerCount());
+		Assertions.assertFalse(this.recycler.recycleInfos.containsKey(infra));
+	}
+	
+	@Test
+	void destroysInfraWhenPoolWasClosed()
+	{
+		final SimulatedTCI infra = this.startInfra();
+		this.recycler.trackRecyclable(infra, null);
+		final PreStartRecycler.RecycleInfo info = this.recycler.recycleInfos.get(infra);
+		
+		this.accepting.set(false);
+		Assertions.assertFalse(this.recycler.tryRecycle(infra));
+		
+		// Closed while the recycle was already running
+		this.recycler.recycle(infra, info, this.releasedLeases::incrementAndGet);
+		
+		Assertions.assertEquals(0, this.resets.get());
+		Assertions.assertEquals(0, this.pool.countReady());
+		Assertions.assertEquals(1, this.releasedLeases.get());
+		Assertions.assertEquals(0, this.backend.getContainerCount());
+	}
+	
+	SimulatedTCI startInfra()
+	{
+		final SimulatedTCI infra = new SimulatedTCI(new SimulatedContainer(this.backend), null);
+		infra.start("recycle");
+		return infra;
+	}
+}
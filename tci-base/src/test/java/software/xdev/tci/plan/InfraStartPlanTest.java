@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.plan;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+
+
+class InfraStartPlanTest
+{
+	SimulatedDockerBackend backend;
+	
+	@BeforeEach
+	void setup()
+	{
+		this.backend = new SimulatedDockerBackend().install();
+	}
+	
+	@AfterEach
+	void tearDown()
+	{
+		this.backend.uninstall();
+	}
+	
+	@Test
+	void dependenciesAreStartedFirst()
+	{
+		final InfraStartPlan plan = new InfraStartPlan("test");
+		final SimulatedTCI db = this.newInfra();
+		final SimulatedTCI app = this.newInfra();
+		final AtomicBoolean dbReady = new AtomicBoolean();
+		
+		final InfraStartPlan.Node<SimulatedTCI> dbNode = plan.add("DB", () -> delayed(db, 50))
+			.onReady(ignored -> dbReady.set(true));
+		final InfraStartPlan.Node<SimulatedTCI> appNode = plan.add(
+			"App",
+			() -> {
+				// Dependency must be ready
+				Assertions.assertTrue(dbReady.get());
+				return CompletableFuture.completedFuture(app);
+			},
+			dbNode);
+		plan.add("OIDC", () -> CompletableFuture.completedFuture(this.newInfra()));
+		
+		final InfraStartPlan.Result result = plan.start();
+		
+		Assertions.assertSame(app, result.get(appNode));
+		Assertions.assertEquals(List.of("DB", "App"), result.criticalPath());
+		Assertions.assertEquals(3, result.durationsMs().size());
+	}
+	
+	@Test
+	void startedInfraIsTornDownOnFailure()
+	{
+		final InfraStartPlan plan = new InfraStartPlan("test");
+		final SimulatedTCI db = this.newInfra();
+		db.start("db");
+		final String dbContainerId = db.getContainer().getContainerId();
+		
+		final InfraStartPlan.Node<SimulatedTCI> dbNode = plan.add("DB", () -> CompletableFuture.completedFuture(db));
+		plan.add("App", () -> delayed(this.newInfra(), 50), dbNode);
+		plan.add("OIDC", () -> CompletableFuture.failedFuture(new IllegalStateException("Failed")));
+		
+		Assertions.assertThrows(IllegalStateException.class, plan::start);
+		Assertions.assertFalse(this.backend.isRunning(dbContainerId));
+	}
+	
+	@Test
+	void invalidDependenciesAreRejected()
+	{
+		final InfraStartPlan other = new InfraStartPlan("other");
+		final InfraStartPlan.Node<SimulatedTCI> foreign =
+			other.add("DB", () -> CompletableFuture.completedFuture(this.newInfra()));
+		
+		final InfraStartPlan plan = new InfraStartPlan("test");
+		Assertions.assertThrows(
+			IllegalArgumentException.class,
+			() -> plan.add("App", () -> CompletableFuture.completedFuture(this.newInfra()), foreign));
+	}
+	
+	SimulatedTCI newInfra()
+	{
+		return new SimulatedTCI(new SimulatedContainer(this.backend), null);
+	}
+	
+	static CompletableFuture<SimulatedTCI> delayed(final SimulatedTCI infra, final long delayMs)
+	{
+		return CompletableFuture.supplyAsync(
+			() -> infra,
+			CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class LatencyHistogramTest
+{
+	@Test
+	void percentilesAreWithinPrecision()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		LongStream.rangeClosed(1, 1_000).forEach(i -> histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(i)));
+		
+		Assertions.assertEquals(1_000, histogram.getCount());
+		Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1_000), histogram.getMaxNanos());
+		assertWithinPrecision(500, histogram.getValueAtPercentileNanos(50));
+		assertWithinPrecision(950, histogram.getValueAtPercentileNanos(95));
+		assertWithinPrecision(990, histogram.getValueAtPercentileNanos(99));
+		Assertions.assertEquals(histogram.getMaxNanos(), histogram.getValueAtPercentileNanos(100));
+	}
+	
+	@Test
+	void timedFacade()
+	{
+		final TCITracer.Timed timed = new TCITracer.Timed();
+		Assertions.assertEquals(0, timed.getPercentileMs(99));
+		
+		timed.addMs(10);
+		timed.addNanos(TimeUnit.MILLISECONDS.toNanos(30));
+		
+		Assertions.assertEquals(2, timed.getCountCalled());
+		Assertions.assertEquals(40, timed.getTotalMs());
+		Assertions.assertEquals(20, timed.getAverageMsRounded());
+		Assertions.assertEquals(30, timed.getMaxMs());
+		Assertions.assertTrue(timed.toString().contains("p99=30ms"), timed::toString);
+	}
+	
+	@Test
+	void concurrentRecordingLosesNoSamples()
+	{
+		final TCITracer tracer = new TCITracer();
+		CompletableFuture.allOf(IntStream.range(0, 8)
+				.mapToObj(t -> CompletableFuture.runAsync(() -> {
+					for(int i = 1; i <= 10_000; i++)
+					{
+						tracer.timedAddNanos("test", i);
+					}
+				}))
+				.toArray(CompletableFuture[]::new))
+			.join();
+		
+		final TCITracer.Timed timed = tracer.getTimedOrCreate("test");
+		Assertions.assertEquals(80_000, timed.getCountCalled());
+		// 8 * (1 + ... + 10_000)ns
+		Assertions.assertEquals(400, timed.getTotalMs());
+	}
+	
+	private static void assertWithinPrecision(final long expectedMs, final long actualNanos)
+	{
+		final double actualMs = actualNanos / 1_000_000.0;
+		Assertions.assertEquals(expectedMs, actualMs, expectedMs / 64.0);
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+
+class TCIEventTest
+{
+	@Test
+	void eventIsRecorded() throws IOException
+	{
+		final Path file = Files.createTempFile("tci", ".jfr");
+		try(final Recording recording = new Recording())
+		{
+			recording.enable(InfraBootEvent.class).withoutThreshold();
+			recording.start();
+			
+			final InfraBootEvent event = InfraBootEvent.start(true);
+			event.setSuccessful(true);
+			event.finish("db", "db-1-PS");
+			
+			recording.stop();
+			recording.dump(file);
+			
+			final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			Assertions.assertEquals(1, events.size());
+			
+			final RecordedEvent recorded = events.get(0);
+			Assertions.assertEquals("software.xdev.tci.InfraBoot", recorded.getEventType().getName());
+			Assertions.assertEquals("db", recorded.getString("factory"));
+			Assertions.assertEquals("db-1-PS", recorded.getString("container"));
+			Assertions.assertTrue(recorded.getBoolean("preStarted"));
+			Assertions.assertTrue(recorded.getBoolean("successful"));
+		}
+		finally
+		{
+			Files.deleteIfExists(file);
+		}
+	}
+}
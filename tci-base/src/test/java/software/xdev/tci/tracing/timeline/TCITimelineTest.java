@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.tracing.timeline;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class TCITimelineTest
+{
+	@Test
+	void spansAreWrittenAsChromeTrace() throws IOException
+	{
+		final TCITimeline timeline = new TCITimeline(true, 2);
+		final long origin = System.nanoTime();
+		timeline.record(TCITimeline.PROCESS_INFRA, "db-1", "start", origin + 3_000, origin + 5_000);
+		timeline.record(
+			TCITimeline.PROCESS_TESTS,
+			"main",
+			"test \"a\"",
+			origin,
+			origin + 10_000,
+			Map.of("container", "db-1"));
+		// Exceeds max spans
+		timeline.record(TCITimeline.PROCESS_INFRA, "db-1", "stop", origin + 10_000, origin + 11_000);
+		
+		Assertions.assertEquals(1, timeline.getDroppedSpans());
+		Assertions.assertEquals("test \"a\"", timeline.getSpans().get(0).name());
+		
+		final StringWriter writer = new StringWriter();
+		new ChromeTraceWriter(writer, origin).write(timeline.getSpans());
+		final String json = writer.toString();
+		
+		Assertions.assertTrue(json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["), json);
+		Assertions.assertTrue(json.contains("{\"ph\":\"M\",\"name\":\"process_name\",\"pid\":1,\"tid\":0,"
+			+ "\"args\":{\"name\":\"Tests\"}}"), json);
+		Assertions.assertTrue(json.contains("{\"ph\":\"X\",\"name\":\"test \\\"a\\\"\",\"cat\":\"Tests\",\"pid\":1,"
+			+ "\"tid\":1,\"ts\":0,\"dur\":10,\"args\":{\"container\":\"db-1\"}}"), json);
+		Assertions.assertTrue(json.contains("\"name\":\"start\",\"cat\":\"Infrastructure\",\"pid\":2,\"tid\":2,"
+			+ "\"ts\":3,\"dur\":2"), json);
+		Assertions.assertTrue(json.endsWith("]}"), json);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.coordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.xdev.tci.benchmarks.support.BenchmarkFactory;
+import software.xdev.tci.factory.prestart.PreStartMetrics;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.PreStartSchedulingPolicy;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.RoundRobinPreStartSchedulingPolicy;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.ValueBasedPreStartSchedulingPolicy;
+import software.xdev.tci.misc.ContainerMemory;
+
+
+/**
+ * Measures a scheduling decision of the {@link software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator}
+ * with many factories.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dtci.budget.memory=64g")
+@State(Scope.Benchmark)
+public class SchedulingPolicyBenchmark
+{
+	@Param({"10", "100", "1000"})
+	int factoryCount;
+	
+	@Param({"value-based", "round-robin"})
+	String policyName;
+	
+	@Param("4")
+	int maxPreStarts;
+	
+	List<PreStartableTCIFactory<?, ?>> factories;
+	PreStartSchedulingPolicy policy;
+	
+	@Setup
+	public void setup()
+	{
+		final Random random = new Random(42);
+		this.factories = new ArrayList<>();
+		for(int i = 0; i < this.factoryCount; i++)
+		{
+			final String name = "factory-" + i;
+			this.factories.add(new BenchmarkFactory(name, 1)
+				.withFixedMetrics(new PreStartMetrics(
+					name,
+					random.nextInt(3),
+					random.nextDouble(),
+					random.nextBoolean() ? OptionalDouble.of(1_000 + random.nextInt(20_000)) : OptionalDouble.empty(),
+					random.nextBoolean()
+						? OptionalLong.of(ContainerMemory.M512M * (1 + random.nextInt(8)))
+						: OptionalLong.empty(),
+					0)));
+		}
+		this.policy = "round-robin".equals(this.policyName)
+			? new RoundRobinPreStartSchedulingPolicy()
+			: new ValueBasedPreStartSchedulingPolicy();
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		this.factories.forEach(PreStartableTCIFactory::close);
+	}
+	
+	@Benchmark
+	public List<PreStartableTCIFactory<?, ?>> select()
+	{
+		return this.policy.select(this.factories, this.maxPreStarts);
+	}
+}
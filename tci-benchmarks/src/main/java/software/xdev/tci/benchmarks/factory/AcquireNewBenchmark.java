@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.factory;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.xdev.tci.benchmarks.support.BenchmarkFactory;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.StartingInfra;
+
+
+/**
+ * Measures the overhead of {@link software.xdev.tci.factory.prestart.InfraAcquirer#acquireStart} (without the
+ * actual container start):
+ * <ul>
+ *     <li>hit - the infrastructure is taken from the (filled) pool</li>
+ *     <li>miss - the infrastructure is booted (lane executor, resource budget, ...)</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dtci.budget.memory=64g")
+public class AcquireNewBenchmark
+{
+	@State(Scope.Thread)
+	public static class PoolHit
+	{
+		BenchmarkFactory factory;
+		
+		@Setup(Level.Trial)
+		public void setup()
+		{
+			this.factory = new BenchmarkFactory("hit", 1);
+		}
+		
+		@Setup(Level.Invocation)
+		public void fillPool()
+		{
+			this.factory.fillPool();
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			this.factory.close();
+		}
+	}
+	
+	
+	@State(Scope.Thread)
+	public static class PoolMiss
+	{
+		BenchmarkFactory factory;
+		
+		@Setup(Level.Trial)
+		public void setup()
+		{
+			this.factory = new BenchmarkFactory("miss", 0);
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			this.factory.close();
+		}
+	}
+	
+	@Benchmark
+	public SimulatedTCI hit(final PoolHit state)
+	{
+		return stop(state.factory.acquire());
+	}
+	
+	@Benchmark
+	public SimulatedTCI miss(final PoolMiss state)
+	{
+		return stop(state.factory.acquire());
+	}
+	
+	static SimulatedTCI stop(final StartingInfra<SimulatedTCI> startingInfra)
+	{
+		final SimulatedTCI infra = startingInfra.infra();
+		// Releases the reserved resources
+		infra.stop();
+		return infra;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.loadbalancing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.xdev.tci.factory.prestart.loadbalancing.DefaultDockerLoadMonitor;
+import software.xdev.tci.factory.prestart.loadbalancing.ProcStatLoadMonitor;
+import software.xdev.tci.factory.prestart.loadbalancing.ProcStatParser;
+
+
+/**
+ * Measures parsing the metrics of the node exporter (executed every second by the
+ * {@link DefaultDockerLoadMonitor}) and of <code>/proc/stat</code> (executed every second by the
+ * {@link ProcStatLoadMonitor}).
+ * <p>
+ * The payloads are generated in the format of the node exporter (all CPU modes + some other metrics) and
+ * <code>/proc/stat</code> for a host with the given amount of CPUs.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadMonitorParsingBenchmark
+{
+	static final String[] CPU_MODES = {"guest", "idle", "iowait", "irq", "nice", "softirq", "steal", "system", "user"};
+	
+	@Param({"8", "64", "256"})
+	int cpus;
+	
+	String payload;
+	ByteBuffer procStatPayload;
+	final long[] procStat = new long[3];
+	
+	@Setup
+	public void setup()
+	{
+		final StringBuilder sb = new StringBuilder(64 * 1024);
+		sb.append("# HELP node_cpu_guest_seconds_total Seconds the CPUs spent in guests (VMs) for each mode.\n")
+			.append("# TYPE node_cpu_guest_seconds_total counter\n");
+		for(int cpu = 0; cpu < this.cpus; cpu++)
+		{
+			sb.append("node_cpu_guest_seconds_total{cpu=\"").append(cpu).append("\",mode=\"nice\"} 0\n");
+		}
+		sb.append("# HELP node_cpu_seconds_total Seconds the CPUs spent in each mode.\n")
+			.append("# TYPE node_cpu_seconds_total counter\n");
+		for(int cpu = 0; cpu < this.cpus; cpu++)
+		{
+			for(final String mode : CPU_MODES)
+			{
+				sb.append("node_cpu_seconds_total{cpu=\"")
+					.append(cpu)
+					.append("\",mode=\"")
+					.append(mode)
+					.append("\"} ")
+					.append(1_000 + cpu * 17.31 + mode.length())
+					.append('\n');
+			}
+		}
+		for(int i = 0; i < 200; i++)
+		{
+			sb.append("go_gc_duration_seconds{quantile=\"0.").append(i).append("\"} 1.2e-05\n");
+		}
+		this.payload = sb.toString();
+		
+		final StringBuilder procStatSb = new StringBuilder(16 * 1024)
+			.append("cpu  10132153 290696 3084719 46828483 16683 0 25195 0 175628 0\n");
+		for(int cpu = 0; cpu < this.cpus; cpu++)
+		{
+			procStatSb.append("cpu").append(cpu).append(" 1393280 32966 572056 13343292 6130 0 17875 0 23933 0\n");
+		}
+		procStatSb.append("intr 1234567 0 0 0\nctxt 98765432\nbtime 1700000000\nprocesses 123456\n");
+		this.procStatPayload = ByteBuffer.allocateDirect(procStatSb.length())
+			.put(procStatSb.toString().getBytes(StandardCharsets.US_ASCII))
+			.flip();
+	}
+	
+	@Benchmark
+	public Map<Integer, Double> parse()
+	{
+		return DefaultDockerLoadMonitor.parseCpuIdleSeconds(this.payload);
+	}
+	
+	@Benchmark
+	public long[] parseProcStat()
+	{
+		ProcStatParser.parseProcStat(this.procStatPayload, this.procStat);
+		return this.procStat;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.serviceloading;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.xdev.tci.budget.config.ResourceBudgetConfig;
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Measures lookups of already loaded services (e.g. {@link PreStartConfig#instance()}), which happen on most code
+ * paths.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TCIServiceLoaderBenchmark
+{
+	@Setup
+	public void setup()
+	{
+		// Load the services
+		PreStartConfig.instance();
+		ResourceBudgetConfig.instance();
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public PreStartConfig lookup1()
+	{
+		return TCIServiceLoader.instance().service(PreStartConfig.class);
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public PreStartConfig lookup4()
+	{
+		return TCIServiceLoader.instance().service(PreStartConfig.class);
+	}
+	
+	@Benchmark
+	@Threads(16)
+	public PreStartConfig lookup16()
+	{
+		return TCIServiceLoader.instance().service(PreStartConfig.class);
+	}
+}
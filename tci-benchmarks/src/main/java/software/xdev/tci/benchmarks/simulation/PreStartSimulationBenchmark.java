@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.simulation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.xdev.tci.benchmarks.support.BenchmarkPreStartConfig;
+import software.xdev.tci.docker.simulation.LatencyDistribution;
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedLoadMonitor;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.factory.prestart.coordinator.DefaultGlobalPreStartCoordinator;
+import software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.RoundRobinPreStartSchedulingPolicy;
+import software.xdev.tci.factory.prestart.coordinator.scheduling.ValueBasedPreStartSchedulingPolicy;
+import software.xdev.tci.network.LazyNetwork;
+import software.xdev.tci.network.LazyNetworkPool;
+import software.xdev.tci.serviceloading.TCIServiceLoader;
+
+
+/**
+ * Simulates a test suite against a {@link SimulatedDockerBackend} and measures how long it takes with a
+ * scheduling policy of the {@link GlobalPreStartCoordinator}.
+ * <p>
+ * Tests run in parallel and each test requires a random selection of infrastructure with different start times
+ * (e.g. database: slow, OIDC server: fast). All latencies are scaled down by <code>timeScale</code>.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dtci.budget.memory=64g")
+@State(Scope.Benchmark)
+public class PreStartSimulationBenchmark
+{
+	/**
+	 * Median start time of the infrastructure (in seconds, unscaled)
+	 */
+	static final Map<String, Double> INFRA_START_SECONDS = Map.of(
+		"db", 8.0,
+		"app", 4.0,
+		"oidc", 1.5,
+		"mail", 0.5);
+	
+	@Param({"value-based", "round-robin"})
+	String policyName;
+	
+	@Param("0.01")
+	double timeScale;
+	
+	@Param("8")
+	int parallelTests;
+	
+	@Param("200")
+	int tests;
+	
+	@Param("4")
+	double cpus;
+	
+	SimulatedDockerBackend backend;
+	SimulatedLoadMonitor loadMonitor;
+	Object previousCoordinator;
+	GlobalPreStartCoordinator coordinator;
+	List<PreStartableTCIFactory<SimulatedContainer, SimulatedTCI>> factories;
+	LazyNetworkPool networkPool;
+	ExecutorService testExecutor;
+	
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		this.backend = new SimulatedDockerBackend()
+			.withTimeScale(this.timeScale)
+			.withLatency(
+				SimulatedDockerBackend.Operation.STOP_CONTAINER,
+				LatencyDistribution.fixed(Duration.ofMillis(500)))
+			.withLatency(
+				SimulatedDockerBackend.Operation.CONNECT_TO_NETWORK,
+				LatencyDistribution.fixed(Duration.ofMillis(100)))
+			.withLatency(
+				SimulatedDockerBackend.Operation.CREATE_NETWORK,
+				LatencyDistribution.fixed(Duration.ofMillis(200)))
+			.install();
+		this.loadMonitor = new SimulatedLoadMonitor(this.backend)
+			.withCpus(this.cpus)
+			.install();
+		
+		this.coordinator = new DefaultGlobalPreStartCoordinator("round-robin".equals(this.policyName)
+			? new RoundRobinPreStartSchedulingPolicy()
+			: new ValueBasedPreStartSchedulingPolicy());
+		this.previousCoordinator =
+			TCIServiceLoader.instance().forceOverwrite(GlobalPreStartCoordinator.class, this.coordinator);
+		
+		this.factories = INFRA_START_SECONDS.entrySet()
+			.stream()
+			.map(e -> new PreStartableTCIFactory<>(
+				SimulatedTCI::new,
+				() -> new SimulatedContainer(this.backend)
+					.withStartLatency(LatencyDistribution.logNormal(
+						Duration.ofMillis((long)(e.getValue() * 1_000)),
+						0.3)),
+				"sim-" + e.getKey(),
+				"container.sim." + e.getKey(),
+				e.getKey(),
+				new BenchmarkPreStartConfig(1),
+				new PreStartableTCIFactory.Timeouts()))
+			.toList();
+		this.networkPool = new LazyNetworkPool(2);
+		this.testExecutor = Executors.newFixedThreadPool(this.parallelTests);
+	}
+	
+	@TearDown(Level.Iteration)
+	public void tearDown()
+	{
+		this.testExecutor.shutdownNow();
+		this.factories.forEach(PreStartableTCIFactory::close);
+		this.coordinator.close();
+		TCIServiceLoader.instance().forceOverwrite(GlobalPreStartCoordinator.class, this.previousCoordinator);
+		this.loadMonitor.uninstall();
+		this.backend.uninstall();
+	}
+	
+	@Benchmark
+	public void testSuite()
+	{
+		final Random random = new Random(42);
+		final List<CompletableFuture<Void>> runningTests = IntStream.range(0, this.tests)
+			.mapToObj(i -> this.pickInfra(random))
+			.map(infra -> CompletableFuture.runAsync(() -> this.runTest(infra), this.testExecutor))
+			.toList();
+		runningTests.forEach(CompletableFuture::join);
+	}
+	
+	List<PreStartableTCIFactory<SimulatedContainer, SimulatedTCI>> pickInfra(final Random random)
+	{
+		// Every test requires at least one infrastructure
+		final int mask = 1 + random.nextInt((1 << this.factories.size()) - 1);
+		return IntStream.range(0, this.factories.size())
+			.filter(i -> (mask & 1 << i) != 0)
+			.mapToObj(this.factories::get)
+			.toList();
+	}
+	
+	void runTest(final List<PreStartableTCIFactory<SimulatedContainer, SimulatedTCI>> requiredInfra)
+	{
+		final LazyNetwork network = this.networkPool.getNew();
+		final List<SimulatedTCI> infras = requiredInfra.stream()
+			.map(factory -> factory.getNewAsync(network))
+			.toList()
+			.stream()
+			.map(CompletableFuture::join)
+			.toList();
+		
+		// Execute the test
+		try
+		{
+			TimeUnit.MILLISECONDS.sleep((long)(2_000 * this.timeScale));
+		}
+		catch(final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		infras.forEach(SimulatedTCI::stop);
+		network.close();
+	}
+}
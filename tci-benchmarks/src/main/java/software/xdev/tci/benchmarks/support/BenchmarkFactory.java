@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+import software.xdev.tci.docker.simulation.SimulatedTCI;
+import software.xdev.tci.factory.prestart.PreStartMetrics;
+import software.xdev.tci.factory.prestart.PreStartableTCIFactory;
+import software.xdev.tci.factory.prestart.StartingInfra;
+
+
+/**
+ * {@link PreStartableTCIFactory} for {@link SimulatedTCI} (without latency) that works without Docker.
+ * <p>
+ * It's not registered at the {@link software.xdev.tci.factory.prestart.coordinator.GlobalPreStartCoordinator}
+ * (which requires a {@link software.xdev.tci.factory.prestart.loadbalancing.LoadMonitor}); the pool has to be filled
+ * manually using {@link #fillPool()}.
+ * </p>
+ * <p>
+ * Requires a fixed {@link software.xdev.tci.budget.ResourceBudget} (e.g. <code>-Dtci.budget.memory=64g</code>) as
+ * the detection of the budget also requires Docker.
+ * </p>
+ */
+public class BenchmarkFactory extends PreStartableTCIFactory<SimulatedContainer, SimulatedTCI>
+{
+	protected static final SimulatedDockerBackend BACKEND = new SimulatedDockerBackend();
+	
+	protected PreStartMetrics fixedMetrics;
+	
+	public BenchmarkFactory(final String name, final int keepReady)
+	{
+		super(
+			SimulatedTCI::new,
+			() -> new SimulatedContainer(BACKEND),
+			"bench-" + name,
+			"container.bench." + name,
+			name,
+			new BenchmarkPreStartConfig(keepReady),
+			new Timeouts());
+	}
+	
+	/**
+	 * Reports the given metrics instead of the observed ones (e.g. for benchmarking scheduling policies).
+	 */
+	public BenchmarkFactory withFixedMetrics(final PreStartMetrics fixedMetrics)
+	{
+		this.fixedMetrics = fixedMetrics;
+		return this;
+	}
+	
+	@Override
+	protected void registerToPreStartCoordinator()
+	{
+		// Not coordinated
+	}
+	
+	@Override
+	protected void requestPreStart()
+	{
+		// Not coordinated
+	}
+	
+	@Override
+	public PreStartMetrics getPreStartMetrics()
+	{
+		return this.fixedMetrics != null ? this.fixedMetrics : super.getPreStartMetrics();
+	}
+	
+	public StartingInfra<SimulatedTCI> acquire()
+	{
+		return this.acquirer.acquireStart(null);
+	}
+	
+	/**
+	 * PreStarts infrastructure until the pool is full and waits for it.
+	 */
+	public void fillPool()
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(this.pool.countReady() < this.getKeepReadyTarget())
+		{
+			if(System.nanoTime() > deadline)
+			{
+				throw new IllegalStateException("Pool was not filled in time");
+			}
+			this.schedulePreStart();
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+		}
+	}
+}
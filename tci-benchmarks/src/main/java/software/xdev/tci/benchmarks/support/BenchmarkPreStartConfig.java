@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.support;
+
+import software.xdev.tci.factory.prestart.config.PreStartConfig;
+
+
+public class BenchmarkPreStartConfig implements PreStartConfig
+{
+	protected final int keepReady;
+	
+	public BenchmarkPreStartConfig(final int keepReady)
+	{
+		this.keepReady = keepReady;
+	}
+	
+	@Override
+	public boolean enabled()
+	{
+		return this.keepReady > 0;
+	}
+	
+	@Override
+	public int keepReady(final String preStartName)
+	{
+		return this.keepReady;
+	}
+	
+	@Override
+	public int maxStartSimultan(final String preStartName)
+	{
+		return -1;
+	}
+	
+	@Override
+	public boolean fixateExposedPortsIfRequired(final String preStartName)
+	{
+		// Requires Docker
+		return false;
+	}
+}
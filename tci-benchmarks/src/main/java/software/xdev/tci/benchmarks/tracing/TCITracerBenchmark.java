@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.benchmarks.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.xdev.tci.tracing.TCITracer;
+
+
+/**
+ * Measures the recording path of {@link TCITracer} under contention.
+ * <p>
+ * Compares recording by name (lookup + record), recording into a pre-registered {@link TCITracer.Timed} and a
+ * baseline that records like the previous (synchronized) implementation.
+ * </p>
+ * <p>
+ * Run with e.g. {@code java -jar target/benchmarks.jar TCITracerBenchmark -prof gc} to also verify that no
+ * allocations happen while recording.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TCITracerBenchmark
+{
+	private static final String NAME = "infraStart";
+	
+	private TCITracer tracer;
+	private TCITracer.Timed timed;
+	private SynchronizedTimed synchronizedTimed;
+	
+	@Setup
+	public void setup()
+	{
+		this.tracer = new TCITracer();
+		this.timed = this.tracer.getTimedOrCreate(NAME);
+		this.synchronizedTimed = new SynchronizedTimed();
+	}
+	
+	static long nextNanos()
+	{
+		return ThreadLocalRandom.current().nextLong(1_000, 10_000_000_000L);
+	}
+	
+	// region 1 Thread
+	@Benchmark
+	@Threads(1)
+	public void byName1()
+	{
+		this.tracer.timedAddNanos(NAME, nextNanos());
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public void preRegistered1()
+	{
+		this.timed.addNanos(nextNanos());
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public void synchronized1()
+	{
+		this.synchronizedTimed.addNanos(nextNanos());
+	}
+	
+	// endregion
+	// region 4 Threads
+	
+	@Benchmark
+	@Threads(4)
+	public void byName4()
+	{
+		this.tracer.timedAddNanos(NAME, nextNanos());
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public void preRegistered4()
+	{
+		this.timed.addNanos(nextNanos());
+	}
+	
+	@Benchmark
+	@Threads(4)
+	public void synchronized4()
+	{
+		this.synchronizedTimed.addNanos(nextNanos());
+	}
+	
+	// endregion
+	// region 16 Threads
+	
+	@Benchmark
+	@Threads(16)
+	public void byName16()
+	{
+		this.tracer.timedAddNanos(NAME, nextNanos());
+	}
+	
+	@Benchmark
+	@Threads(16)
+	public void preRegistered16()
+	{
+		this.timed.addNanos(nextNanos());
+	}
+	
+	@Benchmark
+	@Threads(16)
+	public void synchronized16()
+	{
+		this.synchronizedTimed.addNanos(nextNanos());
+	}
+	
+	// endregion
+	
+	
+	/**
+	 * Baseline: Records like the previous implementation (single lock for count, total and buckets).
+	 */
+	static class SynchronizedTimed
+	{
+		private final long[] buckets = new long[64];
+		private long count;
+		private long totalNanos;
+		
+		synchronized void addNanos(final long nanos)
+		{
+			this.count++;
+			this.totalNanos += nanos;
+			this.buckets[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))]++;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2024 XDEV Software (https://xdev.software)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.xdev.tci.portfixation;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.dockerjava.api.model.ExposedPort;
+
+import software.xdev.tci.docker.simulation.SimulatedContainer;
+import software.xdev.tci.docker.simulation.SimulatedDockerBackend;
+
+
+/**
+ * Measures the reflective access of {@link PortFixation#makeExposedPortsFix}.
+ * <p>
+ * Located in the package of {@link PortFixation} to access the reflective functions directly - acquiring the free
+ * host ports requires Docker.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PortFixationBenchmark
+{
+	SimulatedDockerBackend backend;
+	SimulatedContainer container;
+	SimulatedContainer containerWithoutPorts;
+	ExposedPort exposedPort;
+	
+	@Setup(Level.Trial)
+	public void init()
+	{
+		PortFixation.initReflectFuncs();
+		this.exposedPort = ExposedPort.tcp(8080);
+		this.backend = new SimulatedDockerBackend();
+		this.containerWithoutPorts = new SimulatedContainer(this.backend);
+	}
+	
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		this.container = new SimulatedContainer(this.backend).withExposedPorts(8080, 8443, 9090, 5432, 6379);
+	}
+	
+	/**
+	 * Baseline: Non-reflective access
+	 */
+	@Benchmark
+	public Object exposedPortsDirect()
+	{
+		return this.container.getExposedPorts();
+	}
+	
+	@Benchmark
+	public Set<ExposedPort> exposedPortsReflective()
+	{
+		return PortFixation.exposedPortAccess.apply(this.container);
+	}
+	
+	/**
+	 * The port bindings are stored in a set, so the container doesn't grow while benchmarking
+	 */
+	@Benchmark
+	public SimulatedContainer addFixedExposedPortReflective()
+	{
+		PortFixation.addFixedExposedPortFunc.accept(this.container, 30_000, this.exposedPort);
+		return this.container;
+	}
+	
+	/**
+	 * Container without ports -> only the reflective lookup of the exposed ports is executed
+	 */
+	@Benchmark
+	public SimulatedContainer makeExposedPortsFixWithoutPorts()
+	{
+		PortFixation.makeExposedPortsFix(this.containerWithoutPorts);
+		return this.containerWithoutPorts;
+	}
+}